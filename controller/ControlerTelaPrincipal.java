@@ -10,6 +10,7 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TextArea;
 import javafx.scene.paint.Color;
+import util.CodificacaoMultinivel;
 import util.ErroDeVerificacaoException;
 import util.ManipulacaoBits;
 
@@ -54,6 +55,18 @@ public class ControlerTelaPrincipal {
   @FXML
   private ChoiceBox<String> opcaoControleFluxo;
 
+  @FXML
+  private ChoiceBox<String> opcaoAlgoritmoCRC;
+
+  @FXML
+  private ChoiceBox<String> opcaoEntrelacamento;
+
+  @FXML
+  private ChoiceBox<String> opcaoMTU;
+
+  @FXML
+  private ChoiceBox<String> opcaoAgregacao;
+
   @FXML
   private Canvas quadroAnimacaoTransmissao;
 
@@ -85,20 +98,44 @@ public class ControlerTelaPrincipal {
   public void initialize() {
     // Adiciona a choiceBox as opcoes de escolha e inicializa por padrao como
     // binario
-    opcoesTransmissao.getItems().addAll("Binario", "Manchester", "Manchester Diferencial");
+    opcoesTransmissao.getItems().addAll("Binario", "Manchester", "Manchester Diferencial", "4B/5B", "8B/10B", "NRZI",
+        "MLT-3", "PAM-4");
     opcoesTransmissao.setValue("Binario");
 
     // adiciona as opcoes de enquadramento e inicializa como padrao a contagem de
     // caracteres
     opcaoEnquadramento.getItems().addAll("Contagem de Caracteres", "Insercao de Bytes", "Insercao de Bits",
-        "Violacao da Camada Fisica");
+        "Violacao da Camada Fisica", "COBS");
     opcaoEnquadramento.setValue("Contagem de Caracteres");
 
     // adiciona as opcoes de controle de erro e inicializa como padrao
     opcaoControleErro.getItems().addAll("Bit de Paridade Par", "Bit de Paridade Impar", "CRC-32 (IEEE 802)",
-        "Codigo de Hamming");
+        "Codigo de Hamming", "Hamming SECDED (72,64)", "Paridade Bidimensional",
+        "Reed-Solomon RS(255,223)", "Convolucional K=7 (Viterbi)", "Checksum da Internet (RFC 1071)",
+        "Fletcher-32", "Adler-32");
     opcaoControleErro.setValue("Bit de Paridade Par");
 
+    // adiciona os algoritmos usados quando o controle de erro eh o CRC e
+    // inicializa como padrao o CRC-32 original
+    opcaoAlgoritmoCRC.getItems().addAll("CRC-32 (IEEE 802)", "CRC-8", "CRC-16-CCITT", "CRC-32 (ISO-HDLC)", "CRC-32C",
+        "CRC-64");
+    opcaoAlgoritmoCRC.setValue("CRC-32 (IEEE 802)");
+
+    // adiciona as profundidades do entrelacamento entre o controle de erro e a
+    // camada fisica e inicializa como padrao desligado
+    opcaoEntrelacamento.getItems().addAll("Desligado", "8 linhas", "16 linhas", "32 linhas");
+    opcaoEntrelacamento.setValue("Desligado");
+
+    // adiciona os tamanhos maximos de carga util por quadro (MTU) e inicializa
+    // como padrao 4 bytes, um int por quadro
+    opcaoMTU.getItems().addAll("4 bytes", "16 bytes", "64 bytes", "256 bytes", "1024 bytes", "4096 bytes");
+    opcaoMTU.setValue("4 bytes");
+
+    // adiciona as opcoes de agregacao de quadros (varios quadros da janela em uma
+    // unica transmissao) e inicializa como padrao desligada
+    opcaoAgregacao.getItems().addAll("Desligada", "Ligada");
+    opcaoAgregacao.setValue("Desligada");
+
     // adiciona as opcoes de taxa de erro e inicializa como padrao 0%
     opcaoTaxaErro.getItems().addAll("0%", "1%", "5%", "10%", "20%", "30%", "40%", "50%", "60%", "70%", "80%", "90%",
         "100%");
@@ -197,16 +234,41 @@ public class ControlerTelaPrincipal {
 
     // define a largura do bit simulado a partir da opcao selecionada
     final double LARGURA_BIT;
-    if (opcaoSelecionada() == 0) {
-      LARGURA_BIT = 40.0;
-    } else {
+    if (opcaoSelecionada() == 1 || opcaoSelecionada() == 2) { // manchester: 2 sinais por bit
       LARGURA_BIT = 20.0;
+    } else {
+      LARGURA_BIT = 40.0;
     }
 
+    // de quantos em quantos sinais vem um marcador: a cada bit no binario, a cada
+    // par no manchester e a cada grupo no 4B/5B e no 8B/10B
+    final int SINAIS_POR_MARCADOR;
+    switch (opcaoSelecionada()) {
+    case 1:
+    case 2:
+      SINAIS_POR_MARCADOR = 2;
+      break;
+    case 3:
+      SINAIS_POR_MARCADOR = 5;
+      break;
+    case 4:
+      SINAIS_POR_MARCADOR = 10;
+      break;
+    default:
+      SINAIS_POR_MARCADOR = 1;
+      break;
+    }
+
+    // niveis extremos do sinal: 0 e 1 nos sinais binarios, -1 e +1 no MLT-3 e -3
+    // e +3 no PAM-4
+    final int NIVEL_MAXIMO = (opcaoSelecionada() == 7) ? 3 : 1;
+    final int NIVEL_MINIMO = (opcaoSelecionada() == 6 || opcaoSelecionada() == 7) ? -NIVEL_MAXIMO : 0;
+
     // pega os parametros do canvas
     final double ALTURA_GRAFICO = quadroAnimacaoTransmissao.getHeight();
     final double NIVEL_ALTO_Y = ALTURA_GRAFICO * 0.25;
     final double NIVEL_BAIXO_Y = ALTURA_GRAFICO * 0.75;
+    final double ALTURA_POR_NIVEL = (NIVEL_BAIXO_Y - NIVEL_ALTO_Y) / (NIVEL_MAXIMO - NIVEL_MINIMO);
     final double VELOCIDADE_PX_POR_SEGUNDO = 200.0;
 
     // calcular a largura total da onda em pixels
@@ -245,21 +307,13 @@ public class ControlerTelaPrincipal {
           if (endX < 0 || startX > quadroAnimacaoTransmissao.getWidth()) {
             // atualiza o nivelYAnterior mesmo se não desenhar, para a transição ficar
             // correta
-            nivelYAnterior = (fluxoBitsTransmitido[i] == 1) ? NIVEL_ALTO_Y : NIVEL_BAIXO_Y;
+            nivelYAnterior = NIVEL_BAIXO_Y - (fluxoBitsTransmitido[i] - NIVEL_MINIMO) * ALTURA_POR_NIVEL;
             continue;
           }
 
           // desenha um marcador pos emissao de sinal
-          boolean desenharMarcador = false;
-          if (opcaoSelecionada() == 0) { // se for Binário, desenha um marcador a cada bit.
-            if (i > 0) { // nao desenha no comeco da onda (i=0)
-              desenharMarcador = true;
-            }
-          } else { // se nao for binario, desenha a cada 2 "meio-bits".
-            if (i > 0 && i % 2 == 0) { // somente nos pares
-              desenharMarcador = true;
-            }
-          }
+          // nao desenha no comeco da onda (i=0)
+          boolean desenharMarcador = i > 0 && i % SINAIS_POR_MARCADOR == 0;
 
           if (desenharMarcador) {
             // configura o pincel para o marcador (fino, cinza, tracejado)
@@ -276,7 +330,7 @@ public class ControlerTelaPrincipal {
             gc.setLineDashes(null); // IMPORTANTE: remove o padrao tracejado
           }
 
-          double nivelYAtual = (fluxoBitsTransmitido[i] == 1) ? NIVEL_ALTO_Y : NIVEL_BAIXO_Y;
+          double nivelYAtual = NIVEL_BAIXO_Y - (fluxoBitsTransmitido[i] - NIVEL_MINIMO) * ALTURA_POR_NIVEL;
 
           if (nivelYAtual != nivelYAnterior) {
             gc.strokeLine(startX, nivelYAnterior, startX, nivelYAtual);
@@ -313,7 +367,7 @@ public class ControlerTelaPrincipal {
   public int opcaoSelecionada() {
     String opcaoChoiceBox = opcoesTransmissao.getValue();
 
-    int opcaoSelecionada = 3;
+    int opcaoSelecionada = -1;
 
     switch (opcaoChoiceBox) {
     case "Binario":
@@ -325,6 +379,21 @@ public class ControlerTelaPrincipal {
     case "Manchester Diferencial":
       opcaoSelecionada = 2;
       break;
+    case "4B/5B":
+      opcaoSelecionada = 3;
+      break;
+    case "8B/10B":
+      opcaoSelecionada = 4;
+      break;
+    case "NRZI":
+      opcaoSelecionada = 5;
+      break;
+    case "MLT-3":
+      opcaoSelecionada = 6;
+      break;
+    case "PAM-4":
+      opcaoSelecionada = 7;
+      break;
     default:
       System.out.println("Problemas no metodo opcaoSelecionada do ControlerTelaPrincipal");
       break;
@@ -357,6 +426,9 @@ public class ControlerTelaPrincipal {
     case "Violacao da Camada Fisica":
       opcaoSelecionada = 3;
       break;
+    case "COBS":
+      opcaoSelecionada = 4;
+      break;
     default:
       System.out.println("Problemas no metodo opcaoEnquadramentoSelecionada do ControlerTelaPrincipal");
       break;
@@ -389,6 +461,27 @@ public class ControlerTelaPrincipal {
     case "Codigo de Hamming":
       opcaoSelecionada = 3;
       break;
+    case "Hamming SECDED (72,64)":
+      opcaoSelecionada = 4;
+      break;
+    case "Paridade Bidimensional":
+      opcaoSelecionada = 5;
+      break;
+    case "Reed-Solomon RS(255,223)":
+      opcaoSelecionada = 6;
+      break;
+    case "Convolucional K=7 (Viterbi)":
+      opcaoSelecionada = 7;
+      break;
+    case "Checksum da Internet (RFC 1071)":
+      opcaoSelecionada = 8;
+      break;
+    case "Fletcher-32":
+      opcaoSelecionada = 9;
+      break;
+    case "Adler-32":
+      opcaoSelecionada = 10;
+      break;
     default:
       System.out.println("Problemas no metodo opcaoControleErroSelecionada do ControlerTelaPrincipal");
       break;
@@ -397,6 +490,102 @@ public class ControlerTelaPrincipal {
     return opcaoSelecionada;
   }// fim do metodo
 
+  /**
+   * metodo responsavel por detectar qual algoritmo de CRC esta sendo selecionado
+   * na choice box e o "converter" para um inteiro.
+   * 
+   * @return um inteiro equivalente a opcao selecionada
+   */
+  public int opcaoAlgoritmoCRCSelecionada() {
+    String opcaoChoiceBox = opcaoAlgoritmoCRC.getValue();
+
+    int opcaoSelecionada = 0;
+
+    switch (opcaoChoiceBox) {
+    case "CRC-32 (IEEE 802)":
+      opcaoSelecionada = 0;
+      break;
+    case "CRC-8":
+      opcaoSelecionada = 1;
+      break;
+    case "CRC-16-CCITT":
+      opcaoSelecionada = 2;
+      break;
+    case "CRC-32 (ISO-HDLC)":
+      opcaoSelecionada = 3;
+      break;
+    case "CRC-32C":
+      opcaoSelecionada = 4;
+      break;
+    case "CRC-64":
+      opcaoSelecionada = 5;
+      break;
+    default:
+      System.out.println("Problemas no metodo opcaoAlgoritmoCRCSelecionada do ControlerTelaPrincipal");
+      break;
+    }
+
+    return opcaoSelecionada;
+  }// fim do metodo
+
+  /**
+   * metodo responsavel por detectar qual opcao de entrelacamento esta sendo
+   * selecionada na choice box e a "converter" para um inteiro.
+   * 
+   * @return um inteiro equivalente a opcao selecionada, 0 para desligado
+   */
+  public int opcaoEntrelacamentoSelecionada() {
+    String opcaoChoiceBox = opcaoEntrelacamento.getValue();
+
+    int opcaoSelecionada = 0;
+
+    switch (opcaoChoiceBox) {
+    case "Desligado":
+      opcaoSelecionada = 0;
+      break;
+    case "8 linhas":
+      opcaoSelecionada = 1;
+      break;
+    case "16 linhas":
+      opcaoSelecionada = 2;
+      break;
+    case "32 linhas":
+      opcaoSelecionada = 3;
+      break;
+    default:
+      System.out.println("Problemas no metodo opcaoEntrelacamentoSelecionada do ControlerTelaPrincipal");
+      break;
+    }
+
+    return opcaoSelecionada;
+  }// fim do metodo
+
+  /**
+   * metodo responsavel por detectar se a agregacao de quadros esta ligada na
+   * choice box e a "converter" para um inteiro.
+   * 
+   * @return 1 se a agregacao estiver ligada, 0 se estiver desligada
+   */
+  public int opcaoAgregacaoSelecionada() {
+    String opcaoChoiceBox = opcaoAgregacao.getValue();
+
+    int opcaoSelecionada = 0;
+
+    switch (opcaoChoiceBox) {
+    case "Desligada":
+      opcaoSelecionada = 0;
+      break;
+    case "Ligada":
+      opcaoSelecionada = 1;
+      break;
+    default:
+      System.out.println("Problemas no metodo opcaoAgregacaoSelecionada do ControlerTelaPrincipal");
+      break;
+    }
+
+    return opcaoSelecionada;
+  }// fim do metodo
+
   /**
    * metodo responsavel por detectar qual opcao de controle de fluxo esta sendo
    * selecionada na choice box e a "converter" para um inteiro.
@@ -450,7 +639,7 @@ public class ControlerTelaPrincipal {
   /**
    * coleta a informacao de qual a opcao que esta selecionada na choice box
    * 
-   * @return a string que define qual das 3 opcoes de codificacao
+   * @return a string que define qual das opcoes de codificacao
    */
   public String getOpcaoTransmissao() {
     return opcoesTransmissao.getValue();
@@ -507,6 +696,30 @@ public class ControlerTelaPrincipal {
 
   }// fim metodo
 
+  /**
+   * exibe na caixa reservada ao sinal transmitido os niveis de uma codificacao de
+   * mais de 2 niveis
+   * 
+   * @param simbolos niveis do sinal transmitido
+   */
+  public void exibirRepresentSimbolosTransmitidos(int[] simbolos) {
+    Platform.runLater(() -> {
+      representSinalTransmitido.appendText(CodificacaoMultinivel.exibirSimbolosStr(simbolos));
+    });
+  }// fim metodo
+
+  /**
+   * exibe na caixa reservada ao sinal recebido os niveis de uma codificacao de
+   * mais de 2 niveis
+   * 
+   * @param simbolos niveis do sinal recebido
+   */
+  public void exibirRepresentSimbolosRecebidos(int[] simbolos) {
+    Platform.runLater(() -> {
+      representSinalRecebido.appendText(CodificacaoMultinivel.exibirSimbolosStr(simbolos));
+    });
+  }// fim metodo
+
   public String getTaxaErro() {
     return opcaoTaxaErro.getValue();
   }// fim metodo
@@ -534,6 +747,28 @@ public class ControlerTelaPrincipal {
     } // fim try
   } // fim getValorTaxaErro
 
+  /**
+   * metodo que pega o tamanho maximo de carga util de cada quadro (MTU)
+   * selecionado na choice box
+   * 
+   * @return o MTU em bytes, 4 se nada for selecionado
+   */
+  public int getTamanhoMTUEmBytes() {
+    String valorSelecionado = opcaoMTU.getValue();
+
+    if (valorSelecionado == null || valorSelecionado.isEmpty()) {
+      return 4; // um int por quadro, como antes de existir a opcao
+    }
+
+    try {
+      // remove o " bytes" e converte o resto da string para um numero
+      return Integer.parseInt(valorSelecionado.replace("bytes", "").trim());
+    } catch (NumberFormatException e) {
+      e.printStackTrace();
+      return 4; // retorna o padrao em caso de erro na conversao
+    } // fim try
+  } // fim getTamanhoMTUEmBytes
+
   /**
    * metodo que limpa a interface a cada nova transmissao
    */
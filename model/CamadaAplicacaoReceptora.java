@@ -1,6 +1,7 @@
 package model;
 
 import controller.ControlerTelaPrincipal;
+import util.BitBuffer;
 import util.ManipulacaoBits;
 
 /**
@@ -26,12 +27,13 @@ public class CamadaAplicacaoReceptora {
     this.controlerTelaPrincipal = controlerTelaPrincipal;
   } // fim do construtor
 
-  public void receberQuadro(int[] quadro) {
+  public void receberQuadro(BitBuffer quadro) {
 
-    this.controlerTelaPrincipal.exibirRepresentMensagemBinariaRecebida(quadro); // mostra o binario na tela
+    int[] bitsMensagem = quadro.paraArrayInt();
+    this.controlerTelaPrincipal.exibirRepresentMensagemBinariaRecebida(bitsMensagem); // mostra o binario na tela
 
-    String mensagem = ManipulacaoBits.intAgrupadoParaString(quadro); // converte o array de int
-                                                                     // para string
+    // converte o array de int para string, usando o tamanho exato do quadro
+    String mensagem = ManipulacaoBits.intAgrupadoParaString(bitsMensagem, quadro.tamanho());
     this.aplicacaoReceptora.receberMensagem(mensagem);
   } // fim do metodo receberQuadro
 
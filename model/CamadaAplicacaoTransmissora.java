@@ -2,6 +2,7 @@ package model;
 
 import controller.ControlerTelaPrincipal;
 import javafx.application.Platform;
+import util.BitBuffer;
 import util.ErroDeVerificacaoException;
 import util.ManipulacaoBits;
 
@@ -33,11 +34,14 @@ public class CamadaAplicacaoTransmissora {
    * @param mensagem mensagem tranmitida
    */
   public void transmitirMensagem(String mensagem) throws ErroDeVerificacaoException {
-    int[] quadro = ManipulacaoBits.stringParaIntAgrupado(mensagem); // converte a mensagem para array de int
+    int[] bitsMensagem = ManipulacaoBits.stringParaIntAgrupado(mensagem); // converte a mensagem para array de int
     Platform.runLater(() -> {
-      this.controlerTelaPrincipal.exibirRepresentMensagemBinariaTransmitida(quadro);
+      this.controlerTelaPrincipal.exibirRepresentMensagemBinariaTransmitida(bitsMensagem);
     });
 
+    // o quadro leva o tamanho exato da mensagem, 8 bits por caractere
+    BitBuffer quadro = BitBuffer.deArrayInt(bitsMensagem, mensagem.length() * 8);
+
     if (mensagem.equals("ACK")) { // se a mensagem a ser transmitida for o ACK, chama o metodo proprio para ACK
       this.camadaEnlaceDadosTransmissora.transmitirACK(quadro);
     } else { // caso contrario age normal
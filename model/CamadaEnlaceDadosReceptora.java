@@ -1,5 +1,7 @@
 package model;
 
+import java.util.List;
+
 import controller.ControlerTelaPrincipal;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
@@ -7,9 +9,22 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
 import javafx.util.Duration;
+import util.AgregacaoDeQuadros;
+import util.BitBuffer;
+import util.CalculadoraParidade;
+import util.CodigoConvolucional;
+import util.CodigoHamming;
+import util.CodigoHammingSECDED;
+import util.CodigoReedSolomon;
+import util.EnquadramentoCOBS;
+import util.Entrelacador;
 import util.ErroDeVerificacaoException;
+import util.InsercaoDeBits;
 import util.JanelaDeslizante;
 import util.ManipulacaoBits;
+import util.MotorCRC;
+import util.PoolDeBuffers;
+import util.SomaDeVerificacao;
 
 public class CamadaEnlaceDadosReceptora {
 
@@ -25,6 +40,11 @@ public class CamadaEnlaceDadosReceptora {
   private int numeroSequenciaEsperado = 0; // numero de sequencia esperado para o proximo quadro
   private JanelaDeslizante janelaRecepcao;// janela deslizante da camada receptora
 
+  // ACKs dos subquadros da agregacao sendo processada, juntados em um ACK em
+  // bloco: primeiro numero de sequencia (-1 se nenhum) e mapa. Fica null fora de
+  // uma agregacao, quando cada ACK sai sozinho
+  private int[] blocoDeAcks;
+
   /**
    * construtor da classe
    * 
@@ -65,9 +85,65 @@ public class CamadaEnlaceDadosReceptora {
    *               de erro incluidos
    * @throws ErroDeVerificacaoException trata os erros
    */
-  public void receberQuadro(int[] quadro) throws ErroDeVerificacaoException {
+  public void receberQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
+
+    if (this.controlerTelaPrincipal.opcaoAgregacaoSelecionada() == 1) {
+      receberAgregacao(quadro);
+    } else {
+      processarQuadro(quadro);
+    }
+
+  } // fim do metodo receberQuadro
+
+  /**
+   * metodo que separa uma agregacao nos subquadros, processa cada um como um
+   * quadro recebido e responde com um unico ACK em bloco
+   * 
+   * @param quadro agregacao recebida da camada fisica
+   * @throws ErroDeVerificacaoException trata os erros
+   */
+  private void receberAgregacao(BitBuffer quadro) throws ErroDeVerificacaoException {
+
+    List<BitBuffer> subquadros = AgregacaoDeQuadros.desagregar(quadro);
+    PoolDeBuffers.devolver(quadro);
+    System.out.println("Enlace RX: Agregacao com " + subquadros.size() + " subquadro(s)");
+
+    // um NACK pode provocar uma retransmissao que chega antes desta agregacao
+    // terminar, entao o bloco de fora eh guardado e volta no fim
+    int[] blocoDeFora = blocoDeAcks;
+    int[] bloco = { -1, 0 };
+    blocoDeAcks = bloco;
+    try {
+      for (BitBuffer subquadro : subquadros) {
+        processarQuadro(subquadro);
+      } // fim for
+    } finally {
+      blocoDeAcks = blocoDeFora;
+    }
+
+    if (bloco[0] >= 0) {
+      enviarBlocoDeAcks(bloco[0], bloco[1]);
+    }
+  } // fim do metodo receberAgregacao
+
+  /**
+   * metodo que verifica, desenquadra e repassa um quadro (ou um subquadro de uma
+   * agregacao)
+   * 
+   * @param quadro quadro com enquadramento e controle de erro incluidos
+   * @throws ErroDeVerificacaoException trata os erros
+   */
+  private void processarQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
+
+    // desfaz o entrelacamento antes de qualquer verificacao, os erros em rajada
+    // do meio ficam espalhados pelo quadro
+    BitBuffer quadroDesentrelacado = CamadaEnlaceDadosReceptoraDesentrelacamento(quadro);
+    if (quadroDesentrelacado != quadro) {
+      PoolDeBuffers.devolver(quadro);
+      quadro = quadroDesentrelacado;
+    }
 
-    int[] quadroVerificado;
+    BitBuffer quadroVerificado;
 
     try {
       // tenta verificar o erro
@@ -83,12 +159,15 @@ public class CamadaEnlaceDadosReceptora {
       if (tipoFluxo == 2) {
         try {
           // Tenta extrair o número de sequência do quadro corrompido (se possível)
-          int[] quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramento(quadro);
-          if (quadroDesenquadrado != null && quadroDesenquadrado.length > 0) {
+          BitBuffer quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramento(quadro);
+          if (quadroDesenquadrado != null && quadroDesenquadrado.tamanho() > 0) {
             int seqRecebida = ManipulacaoBits.lerNumeroDeSequencia(quadroDesenquadrado);
             System.out.println("RX: Enviando NACK " + seqRecebida + " (quadro corrompido)");
             enviarNack(seqRecebida);
           }
+          if (quadroDesenquadrado != quadro) {
+            PoolDeBuffers.devolver(quadroDesenquadrado);
+          }
         } catch (Exception ex) {
           // Se não conseguir extrair sequência, apenas descarta
           System.out.println("RX: Quadro muito corrompido, descartando sem NACK.");
@@ -110,19 +189,43 @@ public class CamadaEnlaceDadosReceptora {
         timeline.play();
       });
 
+      PoolDeBuffers.devolver(quadro); // o quadro corrompido eh descartado
       return; // sai do metodo sem processar o quadro
     } // fim try-catch
 
     // se chegou aqui o quadro esta valido
 
-    int[] quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramento(quadroVerificado); // desenquadra o quadro
+    // cada etapa que cria um quadro novo devolve o anterior para o pool, as que
+    // trabalham no proprio quadro (paridade, CRC, violacao) seguem com ele
+    if (quadroVerificado != quadro) {
+      PoolDeBuffers.devolver(quadro);
+    }
+
+    BitBuffer quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramento(quadroVerificado); // desenquadra o quadro
+    if (quadroDesenquadrado != quadroVerificado) {
+      PoolDeBuffers.devolver(quadroVerificado);
+    }
 
     // Verifica se o desenquadramento resultou em um quadro vazio
-    if (quadroDesenquadrado == null || quadroDesenquadrado.length == 0) {
+    if (quadroDesenquadrado == null || quadroDesenquadrado.tamanho() == 0) {
       System.out.println("Camada Enlace Receptora: Quadro desenquadrado está vazio. Descartando.");
+      PoolDeBuffers.devolver(quadroDesenquadrado);
       return; // sai do metodo sem processar o quadro
     }
 
+    if (ManipulacaoBits.ehBlocoDeAcks(quadroDesenquadrado)) {
+      // ACK em bloco, confirma todos os subquadros de uma agregacao
+      int seqInicial = ManipulacaoBits.lerSequenciaInicialDoBlocoDeAcks(quadroDesenquadrado);
+      int mapa = ManipulacaoBits.lerMapaDoBlocoDeAcks(quadroDesenquadrado);
+      System.out.println("RX: ACK em bloco a partir de " + seqInicial + " recebido, repassando para TX.");
+
+      if (this.camadaEnlaceDadosTransmissoraIrma != null) {
+        this.camadaEnlaceDadosTransmissoraIrma.processarBlocoDeAcks(seqInicial, mapa);
+      }
+      PoolDeBuffers.devolver(quadroDesenquadrado);
+      return; // sai do metodo apos processar o bloco
+    }
+
     // Verifica se é ACK ou NACK
     boolean ehNack = ManipulacaoBits.ehNack(quadroDesenquadrado);
     boolean ehAck = ManipulacaoBits.ehAck(quadroDesenquadrado);
@@ -135,6 +238,7 @@ public class CamadaEnlaceDadosReceptora {
       if (this.camadaEnlaceDadosTransmissoraIrma != null) {
         this.camadaEnlaceDadosTransmissoraIrma.processarNackDeControle(seqNack);
       }
+      PoolDeBuffers.devolver(quadroDesenquadrado);
       return; // sai do metodo apos processar o nack
     }
 
@@ -145,12 +249,13 @@ public class CamadaEnlaceDadosReceptora {
       if (this.camadaEnlaceDadosTransmissoraIrma != null) {
         this.camadaEnlaceDadosTransmissoraIrma.processarAckDeControle(seqAck);
       }
+      PoolDeBuffers.devolver(quadroDesenquadrado);
       return; // sai do metodo apos processar o ack
     }
     // nao eh flag, eh dado segue normal
     CamadaEnlaceDadosReceptoraControleDeFluxo(quadroDesenquadrado); // controla o fluxo de dados
 
-  } // fim do metodo receberQuadro
+  } // fim do metodo processarQuadro
 
   /**
    * metodo que escolhe o tipo de desenquadramento a ser aplicado na mensagem
@@ -158,9 +263,9 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro mensagem recebida da camada anterior com os bits enquadrados
    * @return o quadro ja desenquadrado
    */
-  public int[] CamadaEnlaceDadosReceptoraEnquadramento(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramento(BitBuffer quadro) {
     int tipoDeEnquadramento = this.controlerTelaPrincipal.opcaoEnquadramentoSelecionada();
-    int[] quadroDesenquadrado = quadro;
+    BitBuffer quadroDesenquadrado = quadro;
     switch (tipoDeEnquadramento) {
       case 0: // contagem de caracteres
         quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramentoContagemDeCaracteres(quadro);
@@ -174,6 +279,9 @@ public class CamadaEnlaceDadosReceptora {
       case 3: // violacao da camada fisica
         quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramentoViolacaoDaCamadaFisica(quadro);
         break;
+      case 4: // COBS
+        quadroDesenquadrado = CamadaEnlaceDadosReceptoraEnquadramentoCOBS(quadro);
+        break;
     }// fim do switch/case
 
     return quadroDesenquadrado; // retorna o quadro ja desenquadrado
@@ -187,9 +295,9 @@ public class CamadaEnlaceDadosReceptora {
    * @return o quadro verificado e com os bits de verificacao removidos
    * @throws ErroDeVerificacaoException trata os erros detectados
    */
-  public int[] CamadaEnlaceDadosReceptoraControleDeErro(int quadro[]) throws ErroDeVerificacaoException {
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErro(BitBuffer quadro) throws ErroDeVerificacaoException {
     int tipoDeControleDeErro = this.controlerTelaPrincipal.opcaoControleErroSelecionada();
-    int[] quadroVerificado = null;
+    BitBuffer quadroVerificado = null;
     switch (tipoDeControleDeErro) {
       case 0: // paridade par
         quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadePar(quadro);
@@ -203,17 +311,60 @@ public class CamadaEnlaceDadosReceptora {
       case 3: // hamming
         quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroCodigoDeHamming(quadro);
         break;
+      case 4: // hamming SECDED em blocos de 64 bits
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroHammingSECDED(quadro);
+        break;
+      case 5: // paridade bidimensional
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroParidadeBidimensional(quadro);
+        break;
+      case 6: // reed-solomon
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroReedSolomon(quadro);
+        break;
+      case 7: // codigo convolucional
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroConvolucional(quadro);
+        break;
+      case 8: // checksum da internet (RFC 1071)
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.INTERNET);
+        break;
+      case 9: // fletcher-32
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.FLETCHER_32);
+        break;
+      case 10: // adler-32
+        quadroVerificado = CamadaEnlaceDadosReceptoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.ADLER_32);
+        break;
     }// fim do switch/case
     return quadroVerificado;
   }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErro
 
+  /**
+   * metodo que desfaz o entrelacamento feito pela transmissora, devolvendo os
+   * bits a ordem em que o controle de erro os gerou
+   * 
+   * @param quadro quadro recebido da camada fisica
+   * @return o quadro desentrelacado, ou o proprio quadro se a etapa esta
+   *         desligada
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraDesentrelacamento(BitBuffer quadro) {
+
+    int linhas = Entrelacador.linhasDaOpcao(this.controlerTelaPrincipal.opcaoEntrelacamentoSelecionada());
+
+    if (linhas == 0 || quadro.tamanho() == 0) { // etapa desligada
+      return quadro;
+    }
+
+    return Entrelacador.desentrelacar(quadro, linhas);
+  }// fim do metodo CamadaEnlaceDadosReceptoraDesentrelacamento
+
   /**
    * metodo que sabe se o quadro eh de dados ou um ack, envia os acks e repassa os
    * dados para a proxima camada
    * 
    * @param quadro quadro recebido que ta tendo o fluxo controlad
    */
-  public void CamadaEnlaceDadosReceptoraControleDeFluxo(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosReceptoraControleDeFluxo(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     int tipoDeControleFluxo = this.controlerTelaPrincipal.opcaoControleFluxoSelecionada();
     switch (tipoDeControleFluxo) {
@@ -239,16 +390,15 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro quadro recebido com os bits enquadrados
    * @return o quadro ja desenquadrado
    */
-  public int[] CamadaEnlaceDadosReceptoraEnquadramentoContagemDeCaracteres(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramentoContagemDeCaracteres(BitBuffer quadro) {
 
     // usa o tamanho real do sinal para evitar ler lixo
-    int maximoDeBitsNoQuadro = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int maximoDeBitsNoQuadro = quadro.tamanho();
     if (maximoDeBitsNoQuadro == 0)
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
 
-    // usa um buffer grande e depois apara para o tamanho exato
-    int[] bufferTemporario = new int[quadro.length];
-    int bitEscritaGlobal = 0;
+    // a carga util nunca eh maior que o quadro recebido
+    BitBuffer quadroDesenquadrado = PoolDeBuffers.emprestar(maximoDeBitsNoQuadro);
     int bitLeituraGlobal = 0;
 
     while (bitLeituraGlobal < maximoDeBitsNoQuadro) { // loop enquanto tiver bits pra ler
@@ -257,7 +407,7 @@ public class CamadaEnlaceDadosReceptora {
         break;
 
       // le o cabecalho de 8 bits
-      int contagem = ManipulacaoBits.lerBits(quadro, bitLeituraGlobal, 8);
+      int contagem = quadro.lerBits(bitLeituraGlobal, 8);
       bitLeituraGlobal += 8;
 
       if (contagem == 0)
@@ -270,21 +420,12 @@ public class CamadaEnlaceDadosReceptora {
       if (bitLeituraGlobal + bitsCargaUtil > maximoDeBitsNoQuadro)
         break;
 
-      int cargaUtil = ManipulacaoBits.lerBits(quadro, bitLeituraGlobal, bitsCargaUtil);
+      // copia a carga util para o quadro de saida
+      quadroDesenquadrado.anexar(quadro, bitLeituraGlobal, bitsCargaUtil);
       bitLeituraGlobal += bitsCargaUtil;
-
-      // escreve a carga util no buffer de saida
-      ManipulacaoBits.escreverBits(bufferTemporario, bitEscritaGlobal, cargaUtil, bitsCargaUtil);
-      bitEscritaGlobal += bitsCargaUtil;
     } // fim while
 
-    // Cria o array final com o tamanho EXATO dos dados extraidos.
-    int[] quadroDesenquadrado = new int[(bitEscritaGlobal + 31) / 32];
-    for (int i = 0; i < bitEscritaGlobal; i++) {
-      int bit = ManipulacaoBits.lerBits(bufferTemporario, i, 1);
-      ManipulacaoBits.escreverBits(quadroDesenquadrado, i, bit, 1);
-    } // fim for
-
+    // o tamanho do quadro ja eh exatamente o dos dados extraidos
     return quadroDesenquadrado;
   }// fim do metodo CamadaEnlaceDadosReceptoraContagemDeCaracteres
 
@@ -294,81 +435,50 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro quadro recebido com os bits enquadrados
    * @return o quadro ja desenquadrado
    */
-  public int[] CamadaEnlaceDadosReceptoraEnquadramentoInsercaoDeBytes(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramentoInsercaoDeBytes(BitBuffer quadro) {
 
     final int FLAG = 0b01111110; // valor do byte de flag, o mesmo do transmissor
     final int SCAPE = 0b01111101; // valor do byte de escape, o mesmo do transmissor
 
-    // Usa descobrirTotalDeBitsReais para saber o tamanho real dos dados
-    int totalBitsReais = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBitsReais = quadro.tamanho();
     if (totalBitsReais == 0) {
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
     }
 
     int contadorBytesRecebidos = (totalBitsReais + 7) / 8; // converte bits para bytes, arredondando para cima
 
-    // calcular quantos bytes de carga util vao existir apos desenquadramento
-    int contadorBytesCargaUtil = 0;
-    for (int i = 0; i < contadorBytesRecebidos; i++) {
-      // extrai o byte da posicao atual para analise
-      int indiceInteiro = i / 4;
-      int posicaoNoInteiro = i % 4;
-      int byteAtual = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-      if (byteAtual == FLAG) {
-        // Flags nao contam como carga util
-        continue;
-      }
-
-      if (byteAtual == SCAPE) {
-        // O SCAPE eh ignorado, mas o proximo byte conta como carga util.
-        // Avanca o 'i' para pular o proprio SCAPE na contagem.
-        i++;
-        contadorBytesCargaUtil++;
-      } else {
-        // Se nao for FLAG nem SCAPE, eh um byte de carga util
-        contadorBytesCargaUtil++;
-      } // fim if/ else
-    } // fim for
-
-    // cria o array final com o tamanho exato que foi calculado
-    int tamanhoQuadroDesenquadrado = (contadorBytesCargaUtil + 3) / 4;
-    int[] quadroDesenquadrado = new int[tamanhoQuadroDesenquadrado];
-
-    // indice para controlar em qual bit do quadro final o proximo byte sera escrito
-    int indiceBitDestino = 0;
-
-    // percorre os bytes recebidos novamente, desta vez para extrair e escrever a
-    // carga util
-    for (int i = 0; i < contadorBytesRecebidos; i++) {
-      // extrai o byte da posicao atual
-      int indiceInteiro = i / 4;
-      int posicaoNoInteiro = i % 4;
-      int byteAtual = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-      if (byteAtual == FLAG) {
-        // se o byte for flag, ignora
-        continue;
+    // a carga util nunca eh maior que o quadro recebido, entao nao eh preciso
+    // contar os bytes antes
+    BitBuffer quadroDesenquadrado = PoolDeBuffers.emprestar(totalBitsReais);
+
+    // percorre os bytes recebidos 8 por vez: os trechos sem FLAG e sem SCAPE
+    // sao copiados inteiros e so os bytes especiais sao tratados um a um
+    int i = 0;
+    while (i < contadorBytesRecebidos) {
+      int bytesLidos = Math.min(8, contadorBytesRecebidos - i);
+      long palavra = quadro.lerBitsLong(i * 8, 64); // o que passa do fim vem como 0
+      long especiais = ManipulacaoBits.marcarBytesIguais(palavra, FLAG)
+          | ManipulacaoBits.marcarBytesIguais(palavra, SCAPE);
+
+      // bytes de carga util antes do primeiro byte especial
+      int bytesComuns = Math.min(bytesLidos, Long.numberOfLeadingZeros(especiais) >>> 3);
+      if (bytesComuns > 0) {
+        quadroDesenquadrado.anexarBitsLong(palavra >>> (64 - 8 * bytesComuns), 8 * bytesComuns);
+        i += bytesComuns;
       } // fim if
+      if (bytesComuns == bytesLidos) {
+        continue; // nenhum byte especial nesta leitura
+      }
 
+      int byteAtual = (int) (palavra >>> (56 - 8 * bytesComuns)) & 0xFF;
       if (byteAtual == SCAPE) {
-        // se o byte eh um scape, avanca para o proximo byte
-        i++;
-        // extrai o byte de dados que vem apos o SCAPE
-        indiceInteiro = i / 4;
-        posicaoNoInteiro = i % 4;
-        int byteDeDados = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-        // escreve o byte de dados no quadro final
-        ManipulacaoBits.escreverBits(quadroDesenquadrado, indiceBitDestino, byteDeDados, 8);
-        indiceBitDestino += 8; // avanca o ponteiro de escrita em 8 bits
+        // o byte depois do SCAPE eh carga util, mesmo que seja FLAG ou SCAPE
+        quadroDesenquadrado.anexarBits(quadro.lerBits((i + 1) * 8, 8), 8);
+        i += 2;
       } else {
-        // se passou as verificacoes, o byte eh carga util
-        // escreve o byte de dados no quadro final
-        ManipulacaoBits.escreverBits(quadroDesenquadrado, indiceBitDestino, byteAtual, 8);
-        indiceBitDestino += 8; // avanca o ponteiro de escrita em 8 bits
+        i++; // se o byte for flag, ignora
       } // fim if/else
-    } // fim for
+    } // fim while
 
     return quadroDesenquadrado;
   }// fim do metodo CamadaEnlaceDadosReceptoraInsercaoDeBytes
@@ -379,86 +489,14 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro quadro recebido enquadrado
    * @return o quadro ja desenquadrado
    */
-  public int[] CamadaEnlaceDadosReceptoraEnquadramentoInsercaoDeBits(int quadro[]) {
-
-    final int FLAG = 0b01111110; // O mesmo valor de flag do transmissor
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramentoInsercaoDeBits(BitBuffer quadro) {
 
-    // Usa descobrirTotalDeBitsReais para saber o tamanho real dos dados
-    int totalBitsReais = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
-    if (totalBitsReais == 0) {
-      return new int[0];
+    if (quadro.tamanho() == 0) {
+      return PoolDeBuffers.emprestar(0);
     }
 
-    int tamanhoMaximoEstimado = totalBitsReais;
-    int[] bufferTemporario = new int[(tamanhoMaximoEstimado + 31) / 32];
-    int indiceBitDestino = 0;
-    int contadorBitsUm = 0;
-    boolean inicioQuadro = false;
-
-    // itera por todos os bits do quadro recebido
-    for (int i = 0; i < tamanhoMaximoEstimado; i++) {
-      // leitura de um bit do quadro de entrada
-      int indiceInteiro = i / 32;
-      int posicaoNoInteiro = 31 - (i % 32);
-      int bitAtual = (quadro[indiceInteiro] >> posicaoNoInteiro) & 1;
-
-      // dtecta inicio de quaro descarta flag
-      if (!inicioQuadro) {
-        // procura pela primeira flag para começar o processamento
-        if (i + 7 < tamanhoMaximoEstimado) {
-          int possivelFlag = ManipulacaoBits.lerBits(quadro, i, 8);
-          if (possivelFlag == FLAG) {
-            inicioQuadro = true;
-            i += 7; // Pula os bits da flag que já foram lidos
-            continue; // Volta ao início do loop
-          } // fim if
-        } // fim if
-        continue; // Se não for uma flag, continua procurando
-      } // fim if
-
-      // comeca a processar os dados
-      // verifica se os bits formam flag
-      if (i + 7 < tamanhoMaximoEstimado) {
-        int possivelFlag = ManipulacaoBits.lerBits(quadro, i, 8);
-        if (possivelFlag == FLAG) {
-          // Encontrou uma flag, seja intermediária ou final
-          i += 7; // Pula os bits da flag
-          contadorBitsUm = 0; // Reseta o contador de '1's
-          continue; // Continua para o próximo bit após a flag
-        } // fim if
-      } // fi if
-
-      if (contadorBitsUm == 5) {
-        // bit adicionado pelo stuffing eh descartado
-        if (bitAtual == 0) {
-          contadorBitsUm = 0;
-          continue; // descarta o bit '0' e continua o loop
-        } // fim if
-      } // fimif
-
-      // escreve o bit de dado no buffer temporario
-      ManipulacaoBits.escreverBits(bufferTemporario, indiceBitDestino, bitAtual, 1);
-      indiceBitDestino++;
-
-      // atualiza o contador de bits '1'
-      if (bitAtual == 1) {
-        contadorBitsUm++;
-      } else {
-        contadorBitsUm = 0;
-      } // fim if/else
-    } // fim for
-
-    // cria array final com tamanho exato
-    int tamanhoArrayFinal = (indiceBitDestino + 31) / 32;
-    int[] quadroDesenquadrado = new int[tamanhoArrayFinal];
-
-    // Copia os bits do buffer temporário para o array final
-    for (int i = 0; i < indiceBitDestino; i++) {
-      int bit = ManipulacaoBits.lerBits(bufferTemporario, i, 1);
-      ManipulacaoBits.escreverBits(quadroDesenquadrado, i, bit, 1);
-    } // fim for
-
-    return quadroDesenquadrado;
+    // retira as flags e os 0 inseridos consultando a tabela um byte por vez
+    return InsercaoDeBits.desenquadrar(quadro);
   } // fim do metodo CamadaEnlaceDadosReceptoraEnquadramentoInsercaoDeBits
 
   /**
@@ -468,11 +506,28 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro o quadro ja desenquadrado
    * @return o mesmo quadro
    */
-  public int[] CamadaEnlaceDadosReceptoraEnquadramentoViolacaoDaCamadaFisica(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramentoViolacaoDaCamadaFisica(BitBuffer quadro) {
 
     return quadro;
   } // fim CamadaEnlaceDadosReceptoraEnquadramentoViolacaoDaCamadaFisica
 
+  /**
+   * metodo para desenquadrar o quadro enquadrado com COBS, devolvendo os bytes 0
+   * da carga util
+   * 
+   * @param quadro quadro recebido com os bits enquadrados
+   * @return o quadro ja desenquadrado
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraEnquadramentoCOBS(BitBuffer quadro) {
+
+    if (quadro.tamanho() == 0) {
+      return PoolDeBuffers.emprestar(0);
+    }
+
+    // copia cada trecho inteiro e recoloca o 0 implicito no fim dele
+    return EnquadramentoCOBS.desenquadrar(quadro);
+  }// fim do metodo CamadaEnlaceDadosReceptoraEnquadramentoCOBS
+
   /**
    * metodo para verificar erros no quadro utilizando o metodo de bit de paridade
    * par
@@ -482,51 +537,28 @@ public class CamadaEnlaceDadosReceptora {
    *         detectar erro
    * @throws ErroDeVerificacaoException classe que trata os erros de verificacao
    */
-  public int[] CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadePar(int quadro[])
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadePar(BitBuffer quadro)
       throws ErroDeVerificacaoException {
 
-    int totalBitsRecebidos = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);// (incluindo o padding)
+    int totalBitsRecebidos = quadro.tamanho(); // carga + bit de paridade, sem padding
 
     if (totalBitsRecebidos == 0) {
       throw new ErroDeVerificacaoException("QUADRO COM 0 BITS", "quadro nao possui bits!");
     }
 
-    int totalBitsReaisVerificar = totalBitsRecebidos - 7; // remove os bits de padding
+    // paridade da quantidade de bits 1, incluindo o bit de paridade
+    int paridade = CalculadoraParidade.paridade(quadro, totalBitsRecebidos);
 
-    // conta o numero de bits 1
-    int contadorUns = 0;
-    for (int i = 0; i < totalBitsReaisVerificar; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      if (bitAtual == 1) {
-        contadorUns++;
-      }
-    } // fim for
-
-    if (contadorUns % 2 != 0) {
+    if (paridade != 0) {
       // se o numero de uns for impar, entao houve erro
       throw new ErroDeVerificacaoException("ERRO BIT DE PARIDADE PAR!!",
           "O quadro recebido possui um numero impares de bits '1', a verificacao esperava um numero par. \n QUADRO DESCARTADO!!");
     }
 
-    // nao teve erro
-
-    int totalBitsSemControle = totalBitsReaisVerificar - 1; // remove o bit de paridade
-
-    // Se o quadro so tinha o bit de paridade (ou estava vazio), retorna vazio
-    if (totalBitsSemControle <= 0) {
-      return new int[0];
-    }
+    // nao teve erro, retira o bit de paridade do fim sem copiar a carga util
+    quadro.removerDoFim(1);
 
-    int tamanhoArrayFinal = (totalBitsSemControle + 31) / 32;
-    int[] quadroVerificado = new int[tamanhoArrayFinal];
-
-    // escreve no quadro sem o controle os bits uteis
-    for (int i = 0; i < totalBitsSemControle; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroVerificado, i, bitAtual, 1);
-    } // fim for
-
-    return quadroVerificado;
+    return quadro;
   }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadePar
 
   /**
@@ -538,51 +570,64 @@ public class CamadaEnlaceDadosReceptora {
    *         detectar erro
    * @throws ErroDeVerificacaoException trata os erros
    */
-  public int[] CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadeImpar(int quadro[])
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadeImpar(BitBuffer quadro)
       throws ErroDeVerificacaoException {
 
-    int totalBitsRecebidos = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);// (incluindo o padding)
+    int totalBitsRecebidos = quadro.tamanho(); // carga + bit de paridade, sem padding
 
     if (totalBitsRecebidos == 0) {
       throw new ErroDeVerificacaoException("QUADRO COM 0 BITS", "quadro nao possui bits!");
     }
 
-    int totalBitsReaisVerificar = totalBitsRecebidos - 7; // remove os bits de padding
-
-    // conta o numero de bits 1
-    int contadorUns = 0;
-    for (int i = 0; i < totalBitsReaisVerificar; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      if (bitAtual == 1) {
-        contadorUns++;
-      }
-    } // fim for
+    // paridade da quantidade de bits 1, incluindo o bit de paridade
+    int paridade = CalculadoraParidade.paridade(quadro, totalBitsRecebidos);
 
-    if (contadorUns % 2 == 0) {
+    if (paridade == 0) {
       // se o numero de uns for par, entao houve erro
       throw new ErroDeVerificacaoException("ERRO BIT DE PARIDADE IMPAR!!",
           "O quadro recebido possui um numero par de bits '1', a verificacao esperava um numero impar. \n QUADRO DESCARTADO!!");
     }
 
-    // nao teve erro
-    int totalBitsSemControle = totalBitsReaisVerificar - 1; // remove o bit de paridade
+    // nao teve erro, retira o bit de paridade do fim sem copiar a carga util
+    quadro.removerDoFim(1);
+
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadeImpar
 
-    // Se o quadro so tinha o bit de paridade (ou estava vazio), retorna vazio
-    if (totalBitsSemControle <= 0) {
-      return new int[0];
+  /**
+   * metodo para verificar erros no quadro utilizando a paridade bidimensional,
+   * confere a paridade de cada byte e o LRC
+   * 
+   * @param quadro quadro recebido
+   * @return quadro verificado, e removidos os bits de controle
+   * @throws ErroDeVerificacaoException trata os erros
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroParidadeBidimensional(BitBuffer quadro)
+      throws ErroDeVerificacaoException {
+
+    int totalBitsRecebidos = quadro.tamanho();
+
+    if (totalBitsRecebidos == 0) {
+      throw new ErroDeVerificacaoException("QUADRO COM 0 BITS", "quadro nao possui bits!");
     }
 
-    int tamanhoArrayFinal = (totalBitsSemControle + 31) / 32;
-    int[] quadroVerificado = new int[tamanhoArrayFinal];
+    // descobre onde terminam os dados pelo tamanho do quadro
+    int totalBitsDados = CalculadoraParidade.totalBitsDadosBidimensional(totalBitsRecebidos);
+    if (totalBitsDados <= 0) {
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO",
+          "o tamanho do quadro nao corresponde a dados com paridade bidimensional!");
+    }
 
-    // escreve no quadro sem o controle os bits uteis
-    for (int i = 0; i < totalBitsSemControle; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroVerificado, i, bitAtual, 1);
-    } // fim for
+    if (!CalculadoraParidade.conferirParidadeBidimensional(quadro, totalBitsDados)) {
+      throw new ErroDeVerificacaoException("ERRO DE PARIDADE BIDIMENSIONAL!!",
+          "A paridade de algum byte ou de alguma coluna (LRC) do quadro recebido nao eh par. \n QUADRO DESCARTADO!!");
+    }
 
-    return quadroVerificado;
-  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroBitDeParidadeImpar
+    // nao teve erro, retira os bits de paridade do fim sem copiar a carga util
+    quadro.removerDoFim(totalBitsRecebidos - totalBitsDados);
+
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroParidadeBidimensional
 
   /**
    * metodo que verifica o erro dos quadros com o controle CRC
@@ -591,75 +636,80 @@ public class CamadaEnlaceDadosReceptora {
    * @return quadro verificado ou null caso erro detectado
    * @throws ErroDeVerificacaoException trata os erros
    */
-  public int[] CamadaEnlaceDadosReceptoraControleDeErroCRC(int quadro[]) throws ErroDeVerificacaoException {
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroCRC(BitBuffer quadro) throws ErroDeVerificacaoException {
 
-    int totalBitsRecebidos = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);// (incluindo o padding)
+    // algoritmo escolhido na interface (o padrao eh o CRC-32 original, por tabela)
+    MotorCRC motorCRC = MotorCRC.predefinido(this.controlerTelaPrincipal.opcaoAlgoritmoCRCSelecionada());
+    int larguraCRC = motorCRC.getLargura();
 
-    final int POLINOMIO_GERADOR = 0x04C11DB7;
-    final int VALOR_INICIAL = 0xFFFFFFFF;
-    final int VALOR_FINAL_XOR = 0xFFFFFFFF;
+    int totalBitsRecebidos = quadro.tamanho(); // dados + bits do CRC
 
-    int registradorCRC = VALOR_INICIAL;
-
-    if (totalBitsRecebidos < 32) { // se tem menos de 32 bits, nao tem como ter CRC
-      throw new ErroDeVerificacaoException("QUADRO INVALIDO", "menos de 32 bits no quadro!");
+    if (totalBitsRecebidos < larguraCRC) { // se tem menos bits que o CRC, nao tem como ter CRC
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO", "menos de " + larguraCRC + " bits no quadro!");
     } // fim if
 
-    int totalBitsReaisVerificar = totalBitsRecebidos - 32; // remove os bits de padding
-    int crcRecebido = ManipulacaoBits.lerBits(quadro, totalBitsReaisVerificar, 32); // le o CRC recebido
+    int totalBitsReaisVerificar = totalBitsRecebidos - larguraCRC; // remove os bits do CRC
+    long crcRecebido = quadro.lerBitsLong(totalBitsReaisVerificar, larguraCRC); // le o CRC recebido
 
     // calcula o CRC dos dados recebidos
-    for (int i = 0; i < totalBitsReaisVerificar; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      int bitMaisSignificativo = (registradorCRC >> 31) & 1; // pega o bit mais significativo
-      int xorBit = bitMaisSignificativo ^ bitAtual; // calcula o bit de XOR
+    long crcCalculado = motorCRC.calcular(quadro, totalBitsReaisVerificar);
 
-      registradorCRC = registradorCRC << 1; // desloca o registrador para a esquerda
+    if (crcRecebido != crcCalculado) { // se os crcs forem diferentes ocorreu erro
+      String msgErro = String.format(
+          "Erro de %s!\n\nCRC Recebido: 0x%X\nCRC Calculado: 0x%X\n\nO quadro foi descartado.", motorCRC.getNome(),
+          crcRecebido, crcCalculado);
+      System.out.println(msgErro);
 
-      if (xorBit == 1) { // aplica o polinomio gerador
-        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR;
-      } // fim if
+      throw new ErroDeVerificacaoException("FALHA DE CRC (CHECKSUM)", msgErro);
+    }
 
-    } // fim for
+    // se nao foi corrompido entao retira o CRC do fim sem copiar a carga util
+    quadro.removerDoFim(larguraCRC);
 
-    // processamento dos 32 bits de 0 adicionais
-    for (int i = 0; i < 32; i++) {
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroCRC
 
-      int bitAtual = 0; // bits adicionais sao 0
-      int bitMaisSignificativo = (registradorCRC >> 31) & 1; // obtém o bit mais significativo do registrador CRC
+  /**
+   * metodo que verifica o erro dos quadros com uma soma de verificacao (checksum
+   * da Internet, Fletcher-32 ou Adler-32)
+   * 
+   * @param quadro    quadro possivelmente com erro
+   * @param algoritmo constante da SomaDeVerificacao usada pela transmissora
+   * @return quadro verificado, sem a soma no fim
+   * @throws ErroDeVerificacaoException trata os erros
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroSomaDeVerificacao(BitBuffer quadro, int algoritmo)
+      throws ErroDeVerificacaoException {
 
-      int xorBit = bitMaisSignificativo ^ bitAtual; // calcula o bit de XOR
+    SomaDeVerificacao somaDeVerificacao = SomaDeVerificacao.predefinida(algoritmo);
+    int larguraSoma = somaDeVerificacao.getLargura();
 
-      registradorCRC = registradorCRC << 1; // desloca o registrador para a esquerda
+    int totalBitsRecebidos = quadro.tamanho(); // dados + bits da soma
 
-      if (xorBit == 1) {
-        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR; // aplica o polinomio gerador
-      } // fim do if
+    if (totalBitsRecebidos < larguraSoma) { // se tem menos bits que a soma, nao tem como ter soma
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO", "menos de " + larguraSoma + " bits no quadro!");
+    } // fim if
 
-    } // fim do for
+    int totalBitsReaisVerificar = totalBitsRecebidos - larguraSoma; // remove os bits da soma
+    long somaRecebida = quadro.lerBitsLong(totalBitsReaisVerificar, larguraSoma);
 
-    int crcCalculado = registradorCRC ^ VALOR_FINAL_XOR; // aplica o xor final
+    // calcula a soma dos dados recebidos
+    long somaCalculada = somaDeVerificacao.calcular(quadro, totalBitsReaisVerificar);
 
-    if (crcRecebido != crcCalculado) { // se os crcs forem diferentes ocorreu erro
+    if (somaRecebida != somaCalculada) { // se as somas forem diferentes ocorreu erro
       String msgErro = String.format(
-          "Erro de CRC-32!\n\nCRC Recebido: 0x%X\nCRC Calculado: 0x%X\n\nO quadro foi descartado.", crcRecebido,
-          crcCalculado);
+          "Erro de %s!\n\nSoma Recebida: 0x%X\nSoma Calculada: 0x%X\n\nO quadro foi descartado.",
+          somaDeVerificacao.getNome(), somaRecebida, somaCalculada);
       System.out.println(msgErro);
 
-      throw new ErroDeVerificacaoException("FALHA DE CRC (CHECKSUM)", msgErro);
+      throw new ErroDeVerificacaoException("FALHA DE CHECKSUM", msgErro);
     }
 
-    // se nao foi corrompido entao
-    int novoTamanhoArray = (totalBitsReaisVerificar + 31) / 32;
-    int[] quadroVerificado = new int[novoTamanhoArray];
-
-    for (int i = 0; i < totalBitsReaisVerificar; i++) {
-      int bit = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroVerificado, i, bit, 1);
-    } // fim for
+    // se nao foi corrompido entao retira a soma do fim sem copiar a carga util
+    quadro.removerDoFim(larguraSoma);
 
-    return quadroVerificado;
-  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroCRC
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroSomaDeVerificacao
 
   /**
    * metodo que verifica e corrige os quadros com o controle de erro hamming
@@ -667,78 +717,137 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro quadro possivelmente com erro
    * @return quadro corrigido
    */
-  public int[] CamadaEnlaceDadosReceptoraControleDeErroCodigoDeHamming(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroCodigoDeHamming(BitBuffer quadro) {
 
-    int totalBitsReal = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBitsReal = quadro.tamanho();
 
     if (totalBitsReal == 0) {
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
     }
 
-    // descobrir a quantidade de bits de paridade da mensagem
-    int quantBitsParidade = 0;
-    while ((1 << quantBitsParidade) <= totalBitsReal) {
-      quantBitsParidade++;
-    } // fim while
-
-    int posicaoErro = 0;
-
-    // calcula e descobre se tem e onde tem o erro
-    for (int i = 0; i < quantBitsParidade; i++) {
-
-      int posBitParidade = 1 << i; // Posicao do bit de paridade (1, 2, 4, 8, ...)
-      int contadorUns = 0;
-
-      // percorre todos os bits cobertos pelo bit de paridade do momento
-      for (int bit = 1; bit <= totalBitsReal; bit++) {
-        // verifica se o bit deve ser checado
-        if ((bit & posBitParidade) != 0) {
-          // recalcula a paridade incluindo o bit hamming
-          if (ManipulacaoBits.lerBits(quadro, bit - 1, 1) == 1) {
-            contadorUns++;
-          } // fim if
-        } // fim if
-      } // fim for bit
-
-      // Se a contagem total for IMPAR, a paridade PAR falhou.
-      // Adiciona o peso deste bit de paridade (posBitParidade) a posicao do erro.
-      if (contadorUns % 2 != 0) {
-        posicaoErro += posBitParidade;
-      }
-
-    } // fim for i
+    // a sindrome (xor das posicoes dos bits 1) ja eh a posicao do erro, 0 se a
+    // paridade PAR de todos os grupos bateu
+    int posicaoErro = CodigoHamming.calcularSindrome(quadro, totalBitsReal);
 
     // corrigir possivel erro
-    // posicaoErro > 0 significa que um ou mais bits de paridade falharam.
     if (posicaoErro > 0 && posicaoErro <= totalBitsReal) {
       System.out.println("HAMMING RX: Erro detectado na posicao " + posicaoErro + ". Corrigindo bit...");
 
       // inverte o bit na posicao do erro (posicaoErro - 1 para 0-indexado)
-      int bitAtual = ManipulacaoBits.lerBits(quadro, posicaoErro - 1, 1);
-      ManipulacaoBits.escreverBits(quadro, posicaoErro - 1, 1 - bitAtual, 1);
+      quadro.inverterBit(posicaoErro - 1);
     } // fim if
 
     // extrai os dados corrigidos
-    int totalBitsFinal = totalBitsReal - quantBitsParidade;
-    int tamanhoQuadroVerificado = (totalBitsFinal + 31) / 32;
-    int[] quadroVerificado = new int[tamanhoQuadroVerificado];
-
-    int indiceEscrita = 0;
-    for (int i = 1; i <= totalBitsReal; i++) {
-      // se i NAO for potencia de 2 ele eh carga util entao copia
-
-      if (!((i & (i - 1)) == 0)) {
-        int bitCargaUtil = ManipulacaoBits.lerBits(quadro, i - 1, 1);
-        ManipulacaoBits.escreverBits(quadroVerificado, indiceEscrita, bitCargaUtil, 1);
-        indiceEscrita++;
-        if (indiceEscrita >= totalBitsFinal) {
-          break;
-        }
-      }
-    } // fim for
+    return CodigoHamming.extrairDados(quadro);
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroCodigoDeHamming
+
+  /**
+   * metodo que verifica os blocos do Hamming estendido (72,64) SECDED, corrige
+   * os blocos com 1 bit errado e descarta o quadro se algum bloco tiver 2
+   * 
+   * @param quadro quadro possivelmente com erro
+   * @return quadro corrigido e sem os bits de verificacao
+   * @throws ErroDeVerificacaoException se algum bloco tiver erro nao corrigivel
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroHammingSECDED(BitBuffer quadro)
+      throws ErroDeVerificacaoException {
+
+    int totalBitsReal = quadro.tamanho();
+
+    if (totalBitsReal == 0) {
+      return PoolDeBuffers.emprestar(0);
+    }
+
+    if (!CodigoHammingSECDED.tamanhoValido(totalBitsReal)) {
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO",
+          "o ultimo bloco SECDED nao tem bits de dados alem dos " + CodigoHammingSECDED.BITS_DE_VERIFICACAO_POR_BLOCO
+              + " de verificacao!");
+    } // fim if
+
+    // corrige no proprio quadro os blocos com um unico bit errado
+    int blocosCorrigidos = CodigoHammingSECDED.corrigir(quadro);
+    if (blocosCorrigidos < 0) {
+      throw new ErroDeVerificacaoException("ERRO DUPLO DETECTADO (SECDED)",
+          "Um bloco de 64 bits do quadro recebido possui 2 bits errados, o que o Hamming estendido detecta mas nao corrige. \n QUADRO DESCARTADO!!");
+    } else if (blocosCorrigidos > 0) {
+      System.out.println("HAMMING SECDED RX: " + blocosCorrigidos + " bloco(s) com 1 bit errado corrigido(s)");
+    } // fim if/else
+
+    // extrai os dados corrigidos
+    return CodigoHammingSECDED.extrairDados(quadro);
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroHammingSECDED
+
+  /**
+   * metodo que decodifica os blocos de Reed-Solomon RS(255,223), corrigindo ate
+   * 16 bytes errados por bloco, e descarta o quadro se algum bloco tiver mais
+   * 
+   * @param quadro quadro possivelmente com erro
+   * @return quadro corrigido e sem os bytes de paridade
+   * @throws ErroDeVerificacaoException se algum bloco tiver erro nao corrigivel
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroReedSolomon(BitBuffer quadro)
+      throws ErroDeVerificacaoException {
+
+    int totalBitsReal = quadro.tamanho();
+
+    if (totalBitsReal == 0) {
+      return PoolDeBuffers.emprestar(0);
+    }
+
+    if (!CodigoReedSolomon.tamanhoValido(totalBitsReal)) {
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO",
+          "o ultimo bloco Reed-Solomon nao tem bits de dados alem dos "
+              + CodigoReedSolomon.BITS_DE_PARIDADE_POR_BLOCO + " de paridade!");
+    } // fim if
+
+    // corrige no proprio quadro os bytes errados de cada bloco
+    int bytesCorrigidos = CodigoReedSolomon.corrigir(quadro);
+    if (bytesCorrigidos < 0) {
+      throw new ErroDeVerificacaoException("ERRO NAO CORRIGIVEL (REED-SOLOMON)",
+          "Um bloco do quadro recebido possui mais de " + CodigoReedSolomon.BYTES_CORRIGIVEIS_POR_BLOCO
+              + " bytes errados, mais do que o Reed-Solomon consegue corrigir. \n QUADRO DESCARTADO!!");
+    } else if (bytesCorrigidos > 0) {
+      System.out.println("REED-SOLOMON RX: " + bytesCorrigidos + " byte(s) errado(s) corrigido(s)");
+    } // fim if/else
+
+    // extrai os dados corrigidos
+    return CodigoReedSolomon.extrairDados(quadro);
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroReedSolomon
+
+  /**
+   * metodo que decodifica o codigo convolucional pelo algoritmo de Viterbi,
+   * escolhendo a sequencia de dados cujo sinal mais se parece com o recebido
+   * 
+   * @param quadro quadro possivelmente com erro
+   * @return quadro decodificado
+   * @throws ErroDeVerificacaoException se o tamanho do quadro nao eh valido
+   */
+  public BitBuffer CamadaEnlaceDadosReceptoraControleDeErroConvolucional(BitBuffer quadro)
+      throws ErroDeVerificacaoException {
+
+    int totalBitsReal = quadro.tamanho();
+
+    if (totalBitsReal == 0) {
+      return PoolDeBuffers.emprestar(0);
+    }
+
+    if (!CodigoConvolucional.tamanhoValido(totalBitsReal)) {
+      throw new ErroDeVerificacaoException("QUADRO INVALIDO",
+          "o quadro nao tem o tamanho de um sinal convolucional (2 bits por bit de dados mais a cauda)!");
+    } // fim if
+
+    int totalBitsDados = totalBitsReal / 2 - CodigoConvolucional.BITS_DE_CAUDA;
+    BitBuffer quadroVerificado = PoolDeBuffers.emprestar(totalBitsDados);
+
+    // o Viterbi nao detecta erros, ele sempre escolhe o caminho mais provavel; a
+    // distancia ate esse caminho eh a quantidade de bits corrigidos
+    int bitsCorrigidos = CodigoConvolucional.decodificar(quadro, quadroVerificado);
+    if (bitsCorrigidos > 0) {
+      System.out.println("VITERBI RX: " + bitsCorrigidos + " bit(s) do sinal corrigido(s)");
+    } // fim if
 
     return quadroVerificado;
-  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroCodigoDeHamming
+  }// fim do metodo CamadaEnlaceDadosReceptoraControleDeErroConvolucional
 
   /**
    * metodo responsavel por controlar o fluxo com uma janela deslizante de bit
@@ -747,12 +856,12 @@ public class CamadaEnlaceDadosReceptora {
    * @param quadro informacao recebida
    * @throws ErroDeVerificacaoException trata erros
    */
-  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteUmBit(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteUmBit(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     // foi verificado e desenquadrado, mas ainda apresenta anexado ao dados o
     // numSequencia
     int seqRecebido = ManipulacaoBits.lerNumeroDeSequencia(quadro); // pega o numero de sequencia
-    int[] cargaUtil = ManipulacaoBits.removerCabecalho(quadro); // extrai a carga util do quadro
+    BitBuffer cargaUtil = ManipulacaoBits.removerCabecalho(quadro); // extrai a carga util do quadro
 
     System.out.println("RX: Recebido Quadro Seq: " + seqRecebido + " | Esperado: " + numeroSequenciaEsperado);
 
@@ -770,6 +879,8 @@ public class CamadaEnlaceDadosReceptora {
     } else {
       System.out.println("RX: Quadro duplicado/fora de ordem. Descartando dados.");
     }
+    // a aplicacao ja converteu a carga util (ou ela foi descartada)
+    PoolDeBuffers.devolver(cargaUtil);
 
     // envia o ACK para o transmissor
     enviarAckNumerico(seqRecebido);
@@ -777,8 +888,19 @@ public class CamadaEnlaceDadosReceptora {
   }// fim do metodo CamadaEnlaceDadosReceptoraJanelaDeslizanteUmBit
 
   private void enviarAckNumerico(int numeroSequenciaAck) {
+    if (blocoDeAcks != null) {
+      // dentro de uma agregacao o ACK so eh marcado no bloco
+      if (blocoDeAcks[0] < 0) {
+        blocoDeAcks[0] = numeroSequenciaAck;
+      }
+      int distancia = (numeroSequenciaAck - blocoDeAcks[0] + ManipulacaoBits.TAMANHO_MAPA_BLOCO_ACK)
+          % ManipulacaoBits.TAMANHO_MAPA_BLOCO_ACK;
+      blocoDeAcks[1] |= 1 << distancia;
+      return;
+    }
+
     // cria o quadro de ACK
-    int[] quadroAck = ManipulacaoBits.montarQuadroAck(numeroSequenciaAck);
+    BitBuffer quadroAck = ManipulacaoBits.montarQuadroAck(PoolDeBuffers.emprestar(32), numeroSequenciaAck);
 
     System.out.println("RX: Enviando ACK " + numeroSequenciaAck);
 
@@ -793,6 +915,28 @@ public class CamadaEnlaceDadosReceptora {
     } // fim if
   }// fim do metodo enviarAckNumerico
 
+  /**
+   * envia um unico ACK em bloco confirmando os subquadros de uma agregacao
+   * 
+   * @param seqInicial numero de sequencia do bit 0 do mapa
+   * @param mapa       bit i ligado confirma o numero de sequencia seqInicial + i
+   */
+  private void enviarBlocoDeAcks(int seqInicial, int mapa) {
+    BitBuffer quadroAck = ManipulacaoBits.montarQuadroBlocoDeAcks(PoolDeBuffers.emprestar(32), seqInicial, mapa);
+
+    System.out.println("RX: Enviando ACK em bloco a partir de " + seqInicial + " (mapa " + Integer.toBinaryString(mapa)
+        + ")");
+
+    if (this.camadaEnlaceDadosTransmissoraIrma != null) {
+      try {
+        this.camadaEnlaceDadosTransmissoraIrma.transmitirACK(quadroAck);
+      } catch (ErroDeVerificacaoException e) {
+        // ACKs nao devem gerar erros, mas se ocorrer, apenas loga
+        System.out.println("ERRO AO ENVIAR ACK: " + e.getTitulo() + " - " + e.getMensagem());
+      } // fim try-catch
+    } // fim if
+  }// fim do metodo enviarBlocoDeAcks
+
   /**
    * Envia um quadro NACK (Negative Acknowledgment) para a camada transmissora
    * Usado quando um erro é detectado no quadro recebido
@@ -801,7 +945,7 @@ public class CamadaEnlaceDadosReceptora {
    */
   private void enviarNack(int numeroSequenciaNack) {
     // cria o quadro de NACK
-    int[] quadroNack = ManipulacaoBits.montarQuadroNack(numeroSequenciaNack);
+    BitBuffer quadroNack = ManipulacaoBits.montarQuadroNack(PoolDeBuffers.emprestar(32), numeroSequenciaNack);
 
     System.out.println("RX: Enviando NACK " + numeroSequenciaNack + " (solicita retransmissão)");
 
@@ -816,10 +960,10 @@ public class CamadaEnlaceDadosReceptora {
     } // fim if
   }// fim do metodo enviarNack
 
-  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteGoBackN(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteGoBackN(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     int seqRecebido = ManipulacaoBits.lerNumeroDeSequencia(quadro);
-    int[] cargaUtil = ManipulacaoBits.removerCabecalho(quadro);
+    BitBuffer cargaUtil = ManipulacaoBits.removerCabecalho(quadro);
 
     System.out.println("RX (GBN): Recebido Seq: " + seqRecebido + " | Esperado: " + numeroSequenciaEsperado);
 
@@ -830,6 +974,7 @@ public class CamadaEnlaceDadosReceptora {
       if (this.camadaAplicacaoReceptora != null) {
         this.camadaAplicacaoReceptora.receberQuadro(cargaUtil);
       }
+      PoolDeBuffers.devolver(cargaUtil); // a aplicacao ja converteu a carga util
 
       // Atualiza o número de sequência esperado
       numeroSequenciaEsperado = (numeroSequenciaEsperado + 1) % 8;
@@ -840,6 +985,7 @@ public class CamadaEnlaceDadosReceptora {
 
     } else {
       System.out.println("RX (GBN): Fora de ordem! Descartando e re-enviando ACK anterior.");
+      PoolDeBuffers.devolver(cargaUtil);
 
       // se receber fora de ordem, descarta os dados e reenvia ACK do ultimo correto
       if (numeroSequenciaEsperado > 0) {
@@ -860,21 +1006,18 @@ public class CamadaEnlaceDadosReceptora {
    * 
    * @param quadro quadro recebido
    */
-  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteComRetransmissaoSeletiva(int quadro[]) {
+  public void CamadaEnlaceDadosReceptoraJanelaDeslizanteComRetransmissaoSeletiva(BitBuffer quadro) {
 
     if (janelaRecepcao == null) {
       janelaRecepcao = new JanelaDeslizante(4, 3); // tamanho 4, max 3
     }
 
     int seqRecebido = ManipulacaoBits.lerNumeroDeSequencia(quadro);
-    int[] cargaUtil = ManipulacaoBits.removerCabecalho(quadro);
+    BitBuffer cargaUtil = ManipulacaoBits.removerCabecalho(quadro);
 
     System.out.println("RX (SR): Recebido Seq: " + seqRecebido + " | Base Janela: " + janelaRecepcao.getBase());
 
     if (janelaRecepcao.estaDentroDaJanelaRecepcao(seqRecebido)) {
-      // enviar um ack para esse quadro
-      enviarAckNumerico(seqRecebido);
-
       // se esse quadro nao foi recebido antes
       if (!janelaRecepcao.isAckRecebido(seqRecebido)) {
         // salvamos os dados recebidos no buffer da janela
@@ -883,6 +1026,8 @@ public class CamadaEnlaceDadosReceptora {
         // quadro chegou
         janelaRecepcao.marcarAckRecebido(seqRecebido);
 
+      } else {
+        PoolDeBuffers.devolver(cargaUtil); // duplicado, ja tem uma copia na janela
       }
 
       // entrega os quadros em ordem para a camada de aplicacao
@@ -891,7 +1036,7 @@ public class CamadaEnlaceDadosReceptora {
         System.out.println("RX (SR): Entregando sequencia " + baseAtual + " para a aplicação.");
 
         // pega o dado no buffer
-        int[] dadosParaAplicacao = janelaRecepcao.getQuadro(baseAtual);
+        BitBuffer dadosParaAplicacao = janelaRecepcao.getQuadroBits(baseAtual);
 
         if (this.camadaAplicacaoReceptora != null) {
           this.camadaAplicacaoReceptora.receberQuadro(dadosParaAplicacao);
@@ -902,9 +1047,14 @@ public class CamadaEnlaceDadosReceptora {
 
       }
 
+      // envia o ACK DEPOIS de guardar e entregar o quadro, a transmissora pode
+      // mandar o proximo quadro antes de este metodo retornar
+      enviarAckNumerico(seqRecebido);
+
     } else {
       // fora da janela, ack perdido provavelmente
       System.out.println("RX (SR): Quadro fora da janela (" + seqRecebido + "). Reenviando ACK.");
+      PoolDeBuffers.devolver(cargaUtil);
       enviarAckNumerico(seqRecebido);
     }
 
@@ -1,16 +1,31 @@
 package model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import controller.ControlerTelaPrincipal;
+import util.AgregacaoDeQuadros;
+import util.BitBuffer;
+import util.CalculadoraParidade;
+import util.CodigoConvolucional;
+import util.CodigoHamming;
+import util.CodigoHammingSECDED;
+import util.CodigoReedSolomon;
+import util.EnquadramentoCOBS;
+import util.Entrelacador;
 import util.ErroDeVerificacaoException;
+import util.InsercaoDeBits;
 import util.JanelaDeslizante;
 import util.ManipulacaoBits;
+import util.MotorCRC;
+import util.PoolDeBuffers;
+import util.SomaDeVerificacao;
 
 /**
  * classe responsavel por separar o quadro em subquadros aplicando os algoritmos
@@ -26,7 +41,7 @@ public class CamadaEnlaceDadosTransmissora {
   private final int TIMEOUT_MILISEGUNDOS = 5000;
 
   // fila de envio e quadro em espera
-  private Queue<int[]> filaDeEnvio = new LinkedList<>();
+  private Queue<BitBuffer> filaDeEnvio = new LinkedList<>();
 
   // timer
   private Timer timer;
@@ -69,25 +84,33 @@ public class CamadaEnlaceDadosTransmissora {
    * 
    * @param quadro mensagem em bits recebida pela camada anterior
    */
-  public void transmitirQuadro(int[] quadro) throws ErroDeVerificacaoException {
+  public void transmitirQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     System.out.println("Enlace TX: Recebi dados. Fragmentando...");
 
+    // carga util de cada subquadro (MTU escolhido na interface): quanto maior,
+    // menos cabecalhos, ACKs e timers por byte de mensagem
+    final int TAMANHO_SUBQUADRO_EM_BITS = 8 * this.controlerTelaPrincipal.getTamanhoMTUEmBytes();
+
     // debug
-    System.out.println("Camada de Enlace TX: Recebi " + quadro.length + " inteiros para transmitir.");
+    System.out.println("Camada de Enlace TX: Recebi " + quadro.tamanho() + " bits para transmitir.");
 
-    // subdivide a mensagem em quadros de 32 bits
-    for (int i = 0; i < quadro.length; i++) {
-      int totalBitsNoInt = ManipulacaoBits.descobrirTotalDeBitsReais(new int[] { quadro[i] });
-      if (totalBitsNoInt == 0)
-        continue;
+    // subdivide a mensagem em quadros de ate MTU bytes
+    for (int i = 0; i < quadro.tamanho(); i += TAMANHO_SUBQUADRO_EM_BITS) {
+      int bitsNoSubQuadro = Math.min(TAMANHO_SUBQUADRO_EM_BITS, quadro.tamanho() - i);
 
-      int[] subQuadro = new int[] { quadro[i] }; // Carga util pura (32 bits)
+      // carga util pura (ate o MTU), ja com espaco reservado na frente para o
+      // cabecalho, que depois eh colocado sem mover a carga util
+      BitBuffer subQuadro = PoolDeBuffers.emprestar(bitsNoSubQuadro, ManipulacaoBits.TAMANHO_CABECALHO_EM_BITS);
+      subQuadro.anexar(quadro, i, bitsNoSubQuadro);
 
       // Adiciona na fila DESTA classe (filaDeEnvio)
       filaDeEnvio.add(subQuadro);
     }
 
+    // a mensagem ja foi copiada para os subquadros, volta para o pool
+    PoolDeBuffers.devolver(quadro);
+
     // 2. Chama o controle de fluxo para tentar enviar o que estiver na fila
     CamadaEnlaceDadosTransmissoraControleDeFluxo(null);
     // Passamos null pois agora a fila é interna, nao processamos um quadro isolado
@@ -99,22 +122,87 @@ public class CamadaEnlaceDadosTransmissora {
    * 
    * @param quadro
    */
-  public void transmitirACK(int[] quadro) throws ErroDeVerificacaoException {
+  public void transmitirACK(BitBuffer quadro) throws ErroDeVerificacaoException {
     System.out.println("ENLACE DADOS TRANSMISSORA: enviando ACK");
 
     // trata Ack como um unico subquadro
-    if (quadro.length == 0) {
+    if (quadro.tamanho() == 0) {
       return; // quadro vazio nao faz nada
     } // fim, if
 
-    int[] quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadro);
-    int[] quadroComControleErro = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+    BitBuffer quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadro);
+    BitBuffer quadroComControleErro = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
 
     // envia diretamente para evitar loop, nao faz sentido ficar esperando um ack
     // para um ack
-    this.camadaFisicaTransmissora.transmitirQuadro(quadroComControleErro);
+    transmitirNaCamadaFisica(quadroComControleErro);
+
+    // o ACK nao fica guardado para retransmissao, todos os quadros usados voltam
+    // para o pool
+    devolverQuadrosIntermediarios(quadro, quadroEnquadrado, quadroComControleErro);
+    PoolDeBuffers.devolver(quadroComControleErro);
   } // fim do transmitirACK
 
+  /**
+   * devolve para o pool os quadros criados no caminho ate o quadro final, o
+   * enquadramento e o controle de erro podem devolver o proprio quadro recebido
+   * ou um quadro novo, e so os que ficaram para tras sao devolvidos
+   * 
+   * @param quadroComCabecalho quadro antes do enquadramento
+   * @param quadroEnquadrado   quadro apos o enquadramento
+   * @param quadroFinal        quadro apos o controle de erro, que segue adiante
+   */
+  private void devolverQuadrosIntermediarios(BitBuffer quadroComCabecalho, BitBuffer quadroEnquadrado,
+      BitBuffer quadroFinal) {
+    if (quadroComCabecalho != quadroEnquadrado && quadroComCabecalho != quadroFinal) {
+      PoolDeBuffers.devolver(quadroComCabecalho);
+    }
+    if (quadroEnquadrado != quadroFinal) {
+      PoolDeBuffers.devolver(quadroEnquadrado);
+    }
+  } // fim do metodo devolverQuadrosIntermediarios
+
+  /**
+   * diz se a agregacao de quadros esta ligada na interface
+   * 
+   * @return true se os quadros devem sair agregados
+   */
+  private boolean agregacaoLigada() {
+    return this.controlerTelaPrincipal.opcaoAgregacaoSelecionada() == 1;
+  } // fim do metodo agregacaoLigada
+
+  /**
+   * envia um unico quadro pronto para a camada fisica. Com a agregacao ligada a
+   * receptora espera sempre uma agregacao, entao o quadro sai como uma agregacao
+   * de um subquadro so
+   * 
+   * @param quadro quadro pronto, que continua com quem chamou
+   */
+  private void transmitirNaCamadaFisica(BitBuffer quadro) throws ErroDeVerificacaoException {
+    if (!agregacaoLigada()) {
+      this.camadaFisicaTransmissora.transmitirQuadro(quadro);
+      return;
+    }
+    List<BitBuffer> agregacao = new ArrayList<>(1);
+    agregacao.add(quadro);
+    transmitirAgregacao(agregacao);
+  } // fim do metodo transmitirNaCamadaFisica
+
+  /**
+   * envia os quadros juntos em uma unica passagem pela camada fisica e pelo meio
+   * 
+   * @param quadros quadros prontos, que continuam guardados na janela
+   */
+  private void transmitirAgregacao(List<BitBuffer> quadros) throws ErroDeVerificacaoException {
+    if (quadros == null || quadros.isEmpty()) {
+      return;
+    }
+    System.out.println("Enlace TX: Agregando " + quadros.size() + " quadro(s) em uma transmissao");
+    BitBuffer agregado = AgregacaoDeQuadros.agregar(quadros);
+    this.camadaFisicaTransmissora.transmitirQuadro(agregado);
+    PoolDeBuffers.devolver(agregado);
+  } // fim do metodo transmitirAgregacao
+
   /**
    * metodo que escolhe o tipo de enquadramento a ser aplicado na mensagem
    * 
@@ -122,10 +210,10 @@ public class CamadaEnlaceDadosTransmissora {
    *               armazenados recebido da camada anterior
    * @return o quadro ja enquadrado
    */
-  public int[] CamadaEnlaceDadosTransmissoraEnquadramento(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramento(BitBuffer quadro) {
 
     int tipoDeEnquadramento = this.controlerTelaPrincipal.opcaoEnquadramentoSelecionada();
-    int quadroEnquadrado[] = null;
+    BitBuffer quadroEnquadrado = null;
     switch (tipoDeEnquadramento) {
       case 0: // contagem de caracteres
         quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramentoContagemDeCaracteres(quadro);
@@ -139,6 +227,9 @@ public class CamadaEnlaceDadosTransmissora {
       case 3: // violacao da camada fisica
         quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramentoViolacaoDaCamadaFisica(quadro);
         break;
+      case 4: // COBS
+        quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramentoCOBS(quadro);
+        break;
     }// fim do switch/case
 
     return quadroEnquadrado; // retorna o quadro ja enquadrado
@@ -151,10 +242,10 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro mensagem ja com o enquadramento
    * @return mensagem com o controle de erro aplicado
    */
-  public int[] CamadaEnlaceDadosTransmissoraControleDeErro(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErro(BitBuffer quadro) {
 
     int tipoDeControleDeErro = this.controlerTelaPrincipal.opcaoControleErroSelecionada();
-    int quadroComControleDeErro[] = null;
+    BitBuffer quadroComControleDeErro = null;
     switch (tipoDeControleDeErro) {
       case 0: // paridade par
         quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroBitParidadePar(quadro);
@@ -168,18 +259,66 @@ public class CamadaEnlaceDadosTransmissora {
       case 3: // Hamming
         quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroCodigoDeHamming(quadro);
         break;
+      case 4: // Hamming SECDED em blocos de 64 bits
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroHammingSECDED(quadro);
+        break;
+      case 5: // paridade bidimensional
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroParidadeBidimensional(quadro);
+        break;
+      case 6: // Reed-Solomon
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroReedSolomon(quadro);
+        break;
+      case 7: // codigo convolucional
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroConvolucional(quadro);
+        break;
+      case 8: // checksum da Internet (RFC 1071)
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.INTERNET);
+        break;
+      case 9: // Fletcher-32
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.FLETCHER_32);
+        break;
+      case 10: // Adler-32
+        quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErroSomaDeVerificacao(quadro,
+            SomaDeVerificacao.ADLER_32);
+        break;
     }// fim do switch/case
 
-    return quadroComControleDeErro; // retorna o quadro ja com controle de erro aplicado
+    // o entrelacamento eh uma etapa a parte, ligada ou nao independente do codigo
+    BitBuffer quadroEntrelacado = CamadaEnlaceDadosTransmissoraEntrelacamento(quadroComControleDeErro);
+    if (quadroEntrelacado != quadroComControleDeErro && quadroComControleDeErro != quadro) {
+      PoolDeBuffers.devolver(quadroComControleDeErro);
+    }
+
+    return quadroEntrelacado; // retorna o quadro ja com controle de erro aplicado
 
   }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErro
 
+  /**
+   * metodo que entrelaca os bits do quadro ja com o controle de erro, para que
+   * uma rajada de erros no meio chegue ao receptor como erros espalhados
+   * 
+   * @param quadro quadro com o controle de erro aplicado
+   * @return o quadro entrelacado, ou o proprio quadro se a etapa esta desligada
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraEntrelacamento(BitBuffer quadro) {
+
+    int linhas = Entrelacador.linhasDaOpcao(this.controlerTelaPrincipal.opcaoEntrelacamentoSelecionada());
+
+    if (linhas == 0 || quadro.tamanho() == 0) { // etapa desligada
+      return quadro;
+    }
+
+    return Entrelacador.entrelacar(quadro, linhas);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraEntrelacamento
+
   /**
    * metodo de controle de fluxo, controla a logica de ack e retransmissao
    * 
    * @throws ErroDeVerificacaoException trata os erros
    */
-  public void CamadaEnlaceDadosTransmissoraControleDeFluxo(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosTransmissoraControleDeFluxo(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     int tipoDeControleFluxo = this.controlerTelaPrincipal.opcaoControleFluxoSelecionada();
 
@@ -253,19 +392,26 @@ public class CamadaEnlaceDadosTransmissora {
 
       int seqAtual = base;
       int espacoSequencia = janelaDeslizante.getEspacoSequencia();
+      // com a agregacao ligada a janela inteira eh reenviada em uma transmissao
+      List<BitBuffer> agregacao = agregacaoLigada() ? new ArrayList<>() : null;
 
       // percorre circularmente da Base ate o Proximo
       while (seqAtual != proximo) {
-        int[] quadroReenviar = janelaDeslizante.getQuadro(seqAtual);
+        BitBuffer quadroReenviar = janelaDeslizante.getQuadroBits(seqAtual);
 
         if (quadroReenviar != null) { // tem quadro pra reenviar
           System.out.println("TX (GBN): Reenviando seq " + seqAtual);
-          this.camadaFisicaTransmissora.transmitirQuadro(quadroReenviar);
+          if (agregacao != null) {
+            agregacao.add(quadroReenviar);
+          } else {
+            this.camadaFisicaTransmissora.transmitirQuadro(quadroReenviar);
+          }
         }
 
         // Avança para o próximo quadro usando o módulo correto obtido da classe
         seqAtual = (seqAtual + 1) % espacoSequencia;
       } // fim whlie
+      transmitirAgregacao(agregacao);
 
       // reinicia timer ate o ack do mais antigo (base) chegar
       iniciarTimer();
@@ -275,11 +421,11 @@ public class CamadaEnlaceDadosTransmissora {
       int base = janelaDeslizante.getBase();
 
       // pega o quadro salvo no buffer
-      int[] quadroRetransmitir = janelaDeslizante.getQuadro(base);
+      BitBuffer quadroRetransmitir = janelaDeslizante.getQuadroBits(base);
 
       if (quadroRetransmitir != null) {
         System.out.println("TX: Timeout! Retransmitindo sequencia " + base);
-        this.camadaFisicaTransmissora.transmitirQuadro(quadroRetransmitir);
+        transmitirNaCamadaFisica(quadroRetransmitir);
         iniciarTimer();
       }
     } // fim if/else
@@ -292,11 +438,11 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser enquadrado
    * @return o quadro ja enquadrado
    */
-  public int[] CamadaEnlaceDadosTransmissoraEnquadramentoContagemDeCaracteres(int quadro[]) {
-    // descobre o tamanho real dos dados, ignorando o lixo.
-    int totalDeBitsReais = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramentoContagemDeCaracteres(BitBuffer quadro) {
+    // o tamanho real dos dados vem junto com o quadro
+    int totalDeBitsReais = quadro.tamanho();
     if (totalDeBitsReais == 0)
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
 
     final int TAMANHO_MAX_CARGA_UTIL_EM_BITS = 32; // A carga util sera de ATE 4 bytes
     final int TAMANHO_CABECALHO_EM_BITS = 8;
@@ -308,27 +454,23 @@ public class CamadaEnlaceDadosTransmissora {
       tamanhoTotalEstimadoEmBits += TAMANHO_CABECALHO_EM_BITS + bitsNesteFrame;
     }
 
-    int[] quadroEnquadrado = new int[(tamanhoTotalEstimadoEmBits + 31) / 32];
-    int bitEscritaGlobal = 0;
+    BitBuffer quadroEnquadrado = PoolDeBuffers.emprestar(tamanhoTotalEstimadoEmBits);
     int bitLeituraGlobal = 0;
 
     while (bitLeituraGlobal < totalDeBitsReais) {
       // 1. Calcula o tamanho da carga util para ESTE frame
       int bitsParaLer = Math.min(TAMANHO_MAX_CARGA_UTIL_EM_BITS, totalDeBitsReais - bitLeituraGlobal);
-      int cargaUtil = ManipulacaoBits.lerBits(quadro, bitLeituraGlobal, bitsParaLer);
-      bitLeituraGlobal += bitsParaLer;
 
       // 2. Calcula o valor do cabecalho para ESTE frame
       // O valor eh o numero de bytes da carga util + 1 (o proprio cabecalho)
       int valorDoCabecalho = (bitsParaLer / 8) + 1;
 
       // 3. Escreve o cabecalho (8 bits)
-      ManipulacaoBits.escreverBits(quadroEnquadrado, bitEscritaGlobal, valorDoCabecalho, TAMANHO_CABECALHO_EM_BITS);
-      bitEscritaGlobal += TAMANHO_CABECALHO_EM_BITS;
+      quadroEnquadrado.anexarBits(valorDoCabecalho, TAMANHO_CABECALHO_EM_BITS);
 
       // 4. Escreve a carga util (APENAS os bits lidos)
-      ManipulacaoBits.escreverBits(quadroEnquadrado, bitEscritaGlobal, cargaUtil, bitsParaLer);
-      bitEscritaGlobal += bitsParaLer;
+      quadroEnquadrado.anexar(quadro, bitLeituraGlobal, bitsParaLer);
+      bitLeituraGlobal += bitsParaLer;
     }
 
     return quadroEnquadrado;
@@ -340,116 +482,62 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser enquadrado
    * @return o quadro ja enquadrado
    */
-  public int[] CamadaEnlaceDadosTransmissoraEnquadramentoInsercaoDeBytes(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramentoInsercaoDeBytes(BitBuffer quadro) {
 
     final int FLAG = 0b01111110; // valor do byte de flag, equivale a 126 em decimal, em ASCII eh o '~'
     final int SCAPE = 0b01111101; // valor do byte de escape, equivale a 125 em decimal, em ASCII eh o '}'
     final int TAMANHO_SUBQUADRO_EM_BYTES = 4; // define que a cada quntos bytes sera adicionado uma flag
 
-    // Usa descobrirTotalDeBitsReais para saber o tamanho real dos dados
-    int totalBitsReais = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBitsReais = quadro.tamanho();
     if (totalBitsReais == 0) {
       System.out.println("MENSAGEM VAZIA");
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
     }
 
     int contadorBytesCargaUtilQuadro = (totalBitsReais + 7) / 8; // converte bits para bytes, arredondando para cima
-    int contadorBytesEnquadrados = 0; // contador para enquadrar os bits da mensagem
-
-    if (contadorBytesCargaUtilQuadro > 0) { // tem ao menos 1 carga util na mensagem
-      contadorBytesEnquadrados = 1; // comeca com a flag inicial
-      int contadorFlagIntermediaria = 0;
-
-      for (int i = 0; i < contadorBytesCargaUtilQuadro; i++) { // percorre todas as cargas uteis do quadro
-                                                               // contabilizando quantas flags serao necessarias
-        // extrair o byte novamente
-        int indiceInteiro = i / 4;
-        int posicaoNoInteiro = i % 4;
-
-        int umByte = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-        if (umByte == FLAG || umByte == SCAPE) {
-          contadorBytesEnquadrados += 2; // Adiciona SCAPE + byte
-        } else {
-          contadorBytesEnquadrados += 1; // Adiciona o byte
-        }
-
-        contadorFlagIntermediaria++; // conta quantos bytes ja foram lidos
-
-        if (contadorFlagIntermediaria == TAMANHO_SUBQUADRO_EM_BYTES) { // quando chega no byte que tem que adicionar a
-                                                                       // flag ele adiciona e 0 o contador
-          contadorBytesEnquadrados++; // Adiciona a FLAG intermediária
-          contadorFlagIntermediaria = 0;
-        } // fim do if
 
-        // Se a mensagem não terminou exatamente em um bloco de 4, adiciona a FLAG
-        // final.
-        if (contadorFlagIntermediaria != 0) {
-          contadorBytesEnquadrados++;
-        } // fim do if
-
-      } // fim for
-
-    } // fim if
-
-    // Se não havia dados, o quadro terá 0 bytes.
-    if (contadorBytesEnquadrados == 0) {
-      System.out.println("MENSAGEM VAZIA");
-      return new int[0];
-    } // fim do if
-
-    // agora sim cria o array final com os tamanhos corretos e preenche com as FLAGS
-    // e as Cargas uteis
-
-    int tamanhoArrayFinal = (contadorBytesEnquadrados + 3) / 4; // usa o tamanho encontrado arredondando para cima
-    int[] quadroEnquadrado = new int[tamanhoArrayFinal];
-
-    int indiceBitDestino = 0; // controla a posicao inicial do proximoBit a ser escrito
+    // tamanho sem nenhum SCAPE: a flag inicial e uma flag depois de cada
+    // subquadro. Os SCAPEs sao raros e o quadro cresce sozinho se precisar
+    int capacidadeEstimadaEmBytes = contadorBytesCargaUtilQuadro
+        + (contadorBytesCargaUtilQuadro + TAMANHO_SUBQUADRO_EM_BYTES - 1) / TAMANHO_SUBQUADRO_EM_BYTES + 1;
+    BitBuffer quadroEnquadrado = PoolDeBuffers.emprestar(capacidadeEstimadaEmBytes * 8);
 
     // escreve a FLAG inicial
-    ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-    indiceBitDestino += 8;
-
-    int contadorFlagIntermediaria = 0;
-    // percorre todos os bytes de carga util adicionando as FLAGS e SCAPS
-    // necessarios
-    for (int i = 0; i < contadorBytesCargaUtilQuadro; i++) {
-      int indiceInteiro = i / 4;
-      int posicaoNoInteiro = i % 4;
-      int umByte = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF; // extrai o byte(8bits) para comparar
-                                                                                  // se precisa de Scape
-
-      if (umByte == FLAG || umByte == SCAPE) {
-        // Escreve o SCAPE (8 bits).
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, SCAPE, 8);
-        indiceBitDestino += 8;
-
-        // Escreve o byte original (8 bits).
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, umByte, 8);
-        indiceBitDestino += 8;
-      } else {
-        // Escreve o byte normal (8 bits).
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, umByte, 8);
-        indiceBitDestino += 8;
-      } // fim do if/else
-
-      contadorFlagIntermediaria++;
-      if (contadorFlagIntermediaria == TAMANHO_SUBQUADRO_EM_BYTES) {
-        // escreve a flag intermediaria
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-        indiceBitDestino += 8;
-
-        contadorFlagIntermediaria = 0;
-      } // fim if
+    quadroEnquadrado.anexarBits(FLAG, 8);
+
+    // le 8 bytes (dois subquadros) por vez e procura FLAG e SCAPE em todos eles
+    // de uma vez; todo subquadro termina com uma FLAG, intermediaria ou final
+    for (int i = 0; i < contadorBytesCargaUtilQuadro; i += 8) {
+      int bytesLidos = Math.min(8, contadorBytesCargaUtilQuadro - i);
+      long palavra = quadro.lerBitsLong(i * 8, bytesLidos * 8) << (64 - bytesLidos * 8); // alinha a esquerda
+      long especiais = ManipulacaoBits.marcarBytesIguais(palavra, FLAG)
+          | ManipulacaoBits.marcarBytesIguais(palavra, SCAPE);
+
+      for (int inicioSubquadro = 0; inicioSubquadro < bytesLidos; inicioSubquadro += TAMANHO_SUBQUADRO_EM_BYTES) {
+        int bytesDoSubquadro = Math.min(TAMANHO_SUBQUADRO_EM_BYTES, bytesLidos - inicioSubquadro);
+        int deslocamento = 64 - 8 * (inicioSubquadro + bytesDoSubquadro); // leva o subquadro para a direita
+        long subquadro = (palavra >>> deslocamento) & ((1L << (8 * bytesDoSubquadro)) - 1);
+
+        if (((especiais >>> deslocamento) & ((1L << (8 * bytesDoSubquadro)) - 1)) == 0) {
+          // caso comum: nenhum byte precisa de SCAPE, escreve o subquadro e a FLAG
+          // de uma vez so
+          quadroEnquadrado.anexarBitsLong((subquadro << 8) | FLAG, 8 * bytesDoSubquadro + 8);
+          continue;
+        } // fim if
 
+        for (int j = bytesDoSubquadro - 1; j >= 0; j--) {
+          int umByte = (int) (subquadro >>> (8 * j)) & 0xFF;
+          if (umByte == FLAG || umByte == SCAPE) {
+            // Escreve o SCAPE (8 bits).
+            quadroEnquadrado.anexarBits(SCAPE, 8);
+          } // fim do if
+          // Escreve o byte (8 bits).
+          quadroEnquadrado.anexarBits(umByte, 8);
+        } // fim for
+        quadroEnquadrado.anexarBits(FLAG, 8); // flag intermediaria ou final
+      } // fim for
     } // fim for
 
-    if (contadorFlagIntermediaria != 0) { // caso nao tenha acabado um multiplo de 4
-      // Escreve a FLAG final (8 bits).
-      ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-
-    } // fim if
-
     return quadroEnquadrado;
   }// fim do metodo CamadaEnlaceDadosTransmissoraInsercaoDeBytes
 
@@ -459,115 +547,16 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser enquadrado
    * @return o quadro ja enquadrado
    */
-  public int[] CamadaEnlaceDadosTransmissoraEnquadramentoInsercaoDeBits(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramentoInsercaoDeBits(BitBuffer quadro) {
 
-    final int FLAG = 0b01111110; // valor do byte de flag, equivale a 126 em decimal, em ASCII eh o '~'
-
-    final int TAMANHO_SUBQUADRO_EM_BYTES = 4; // a cada 32 bits lidos, ou seja 4 bytes, adiciona a flag de divisao
-
-    // Usa descobrirTotalDeBitsReais para saber o tamanho real dos dados
-    int totalBitsReais = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
-    if (totalBitsReais == 0) {
+    if (quadro.tamanho() == 0) {
       System.out.println("MENSAGEM VAZIA");
-      return new int[0];
+      return PoolDeBuffers.emprestar(0);
     }
 
-    int contadorBytesCargaUtil = (totalBitsReais + 7) / 8; // converte bits para bytes, arredondando para cima
-
-    // calcula o total de bits que o quadro enquadrado vai ter
-    int contadorBitsEnquadrados = 8; // comeca com 8 bits para as FLAG de inicio
-    int contadorBitsUm = 0; // contador para a sequencia de bits 1
-    int contadorFlagIntermediaria = 0; // conta quando colocar a flag intermediaria no quadro
-
-    // percorre apenas os bytes de carga util, bit a bit, para simular o stuffing
-    for (int i = 0; i < contadorBytesCargaUtil; i++) {
-      int indiceInteiro = i / 4;
-      int posicaoNoInteiro = i % 4;
-      int umByte = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-      for (int j = 7; j >= 0; j--) { // percorre os 8 bits do byte
-        int bitAtual = (umByte >> j) & 1;
-        contadorBitsEnquadrados++; // conta o bit de dado
-
-        if (bitAtual == 1) {
-          contadorBitsUm++;
-          if (contadorBitsUm == 5) {
-            contadorBitsEnquadrados++; // conta o bit '0' de stuffing
-            contadorBitsUm = 0;
-          }
-        } else {
-          contadorBitsUm = 0;
-        } // fim do if / else
-      } // fim do for
-
-      contadorFlagIntermediaria++;
-
-      if (contadorFlagIntermediaria == TAMANHO_SUBQUADRO_EM_BYTES) {
-        contadorBitsEnquadrados += 8; // adiciona os 8 bits da flag
-        contadorFlagIntermediaria = 0;
-      }
-
-    } // fim do for
-
-    if (contadorFlagIntermediaria != 0) { // caso nao tenha finalizado com flag adiciona a final
-      contadorBitsEnquadrados += 8;
-    }
-
-    // cria o array final com o tamanho exato calculado
-    int tamanhoArrayFinal = (contadorBitsEnquadrados + 31) / 32;
-    int[] quadroEnquadrado = new int[tamanhoArrayFinal];
-
-    // indice para controlar a posicao do proximo bit a ser escrito
-    int indiceBitDestino = 0;
-    contadorFlagIntermediaria = 0;
-
-    // escreve a FLAG inicial (8 bits)
-    ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-    indiceBitDestino += 8;
-
-    contadorBitsUm = 0; // reseta o contador para a escrita
-    // percorre os bytes de carga util novamente para preencher o quadro
-    for (int i = 0; i < contadorBytesCargaUtil; i++) {
-      int indiceInteiro = i / 4;
-      int posicaoNoInteiro = i % 4;
-      int umByte = (quadro[indiceInteiro] >> (24 - posicaoNoInteiro * 8)) & 0xFF;
-
-      for (int j = 7; j >= 0; j--) {
-        int bitAtual = (umByte >> j) & 1;
-
-        // escreve o bit de dado atual
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, bitAtual, 1);
-        indiceBitDestino++;
-
-        if (bitAtual == 1) {
-          contadorBitsUm++;
-          if (contadorBitsUm == 5) {
-            // escreve o bit '0' de stuffing
-            ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, 0, 1);
-            indiceBitDestino++;
-            contadorBitsUm = 0;
-          } // fim if
-        } else {
-          contadorBitsUm = 0;
-        } // fim if /else
-      } // fim for
-
-      contadorFlagIntermediaria++;
-
-      if (contadorFlagIntermediaria == TAMANHO_SUBQUADRO_EM_BYTES) { // escreve a flag intermediaria
-        ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-        indiceBitDestino += 8;
-        contadorFlagIntermediaria = 0;
-      } // fim if
-
-    } // fim for
-
-    // escreve a FLAG final (8 bits) se nao tiver acabado com flag
-    if (contadorFlagIntermediaria != 0) {
-      ManipulacaoBits.escreverBits(quadroEnquadrado, indiceBitDestino, FLAG, 8);
-    } // fim if
-
-    return quadroEnquadrado;
+    // flag inicial e uma flag a cada 4 bytes, com os 0 inseridos por uma tabela
+    // indexada pela quantidade de bits 1 seguidos e pelo byte lido
+    return InsercaoDeBits.enquadrar(quadro);
   }// fim do metodo CamadaEnlaceDadosTransmissoraInsercaoDeBits
 
   /**
@@ -578,67 +567,55 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro a ser enquadrado
    * @return o mesmo quadro
    */
-  public int[] CamadaEnlaceDadosTransmissoraEnquadramentoViolacaoDaCamadaFisica(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramentoViolacaoDaCamadaFisica(BitBuffer quadro) {
 
     // passa o quadro recebido para a camada fisica e ela se responsabiliza por
     // enquadrar com os sinais de violacao 11, no inicio e no fim
     return quadro;
   }// fim metodo CamadaEnlaceDadosTransmissoraEnquadramentoViolacaoDeCamadaFisica
 
+  /**
+   * metodo para realizar o enquadramento COBS (Consistent Overhead Byte
+   * Stuffing), que tira todos os bytes 0 da carga util e usa o 0 para fechar o
+   * quadro
+   * 
+   * @param quadro quadro original a ser enquadrado
+   * @return o quadro ja enquadrado
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraEnquadramentoCOBS(BitBuffer quadro) {
+
+    if (quadro.tamanho() == 0) {
+      System.out.println("MENSAGEM VAZIA");
+      return PoolDeBuffers.emprestar(0);
+    }
+
+    // no maximo 1 byte de codigo a cada 254 de carga util, mais o 0 do fim
+    return EnquadramentoCOBS.enquadrar(quadro);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraEnquadramentoCOBS
+
   /**
    * metodo que aplica o controle de erro por bit de paridade par
    * 
    * @param quadro quadro original a ser aplicado o controle de erro
    * @return quadro com o bit de paridade anexado
    */
-  public int[] CamadaEnlaceDadosTransmissoraControleDeErroBitParidadePar(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroBitParidadePar(BitBuffer quadro) {
 
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBits = quadro.tamanho();
 
     if (totalBits == 0) {
       return quadro;
     }
 
-    // conta a quantidade de bits 1 no quadro
-    int contadorUns = 0;
-
-    for (int i = 0; i < totalBits; i++) {
-      if (ManipulacaoBits.lerBits(quadro, i, 1) == 1) {
-        contadorUns++;
-      }
-    } // fim for
-
-    // calcula o bit de paridade necessario
-    int bitDeParidade;
-    if (contadorUns % 2 == 0) {
-      bitDeParidade = 0; // ja eh par
-    } else {
-      bitDeParidade = 1; // precisa adicionar 1 para ficar par
-    }
-
-    int novoTotalBits = totalBits + 1;
-    int novoTotalBitsAlinhado = (novoTotalBits + 7) / 8 * 8; // alinha para o proximo byte
-
-    // o + 7 garante padding para alhinhar o bit de paridade mesmo se for 0
-
-    int tamanhoArrayFinal = (novoTotalBitsAlinhado + 31) / 32;
-    int[] quadroComParidade = new int[tamanhoArrayFinal];
-
-    // copia a carga do quadro para o quadro verificado
-    for (int i = 0; i < totalBits; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroComParidade, i, bitAtual, 1);
-    } // fim for
-
-    // adiciona o bit de paridade no final
-    ManipulacaoBits.escreverBits(quadroComParidade, totalBits, bitDeParidade, 1);
+    // paridade da quantidade de bits 1, calculada palavra a palavra; o bit de
+    // paridade par eh ela mesma (1 se precisa de mais um 1 para ficar par)
+    int bitDeParidade = CalculadoraParidade.paridade(quadro, totalBits);
 
-    // Adiciona um "bit marcador" 1 no final do quadro arredondado
-    // Isso garante que descobrirTotalDeBitsReais() no receptor funcione.
-    // O receptor ja ignora esse ultimo 7 bits
-    ManipulacaoBits.escreverBits(quadroComParidade, novoTotalBitsAlinhado - 1, 1, 1);
+    // como o tamanho do quadro eh explicito, o bit de paridade fica logo depois
+    // da carga, sem padding nem bit marcador, escrito no proprio quadro
+    quadro.escreverBits(totalBits, bitDeParidade, 1);
 
-    return quadroComParidade;
+    return quadro;
   }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroBitParidadePar
 
   /**
@@ -647,55 +624,43 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser aplicado o controle de erro
    * @return quadro com o bit de paridade anexado
    */
-  public int[] CamadaEnlaceDadosTransmissoraControleDeErroBitParidadeImpar(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroBitParidadeImpar(BitBuffer quadro) {
 
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBits = quadro.tamanho();
 
     if (totalBits == 0) {
       return quadro;
     }
 
-    // conta a quantidade de bits 1 no quadro
-    int contadorUns = 0;
+    // paridade da quantidade de bits 1, calculada palavra a palavra; o bit de
+    // paridade impar eh o inverso dela (1 se a quantidade ja eh par)
+    int bitDeParidade = CalculadoraParidade.paridade(quadro, totalBits) ^ 1;
 
-    for (int i = 0; i < totalBits; i++) {
-      if (ManipulacaoBits.lerBits(quadro, i, 1) == 1) {
-        contadorUns++;
-      }
-    } // fim for
-
-    // calcula o bit de paridade necessario
-    int bitDeParidade;
-    if (contadorUns % 2 == 0) {
-      bitDeParidade = 1; // precisa adicionar o 1 para ficar impar
-    } else {
-      bitDeParidade = 0; // ja eh impar
-    }
+    // como o tamanho do quadro eh explicito, o bit de paridade fica logo depois
+    // da carga, sem padding nem bit marcador, escrito no proprio quadro
+    quadro.escreverBits(totalBits, bitDeParidade, 1);
 
-    int novoTotalBits = totalBits + 1;
-    int novoTotalBitsAlinhado = (novoTotalBits + 7) / 8 * 8; // alinha para o proximo byte
-
-    // o + 7 garante padding para alhinhar o bit de paridade mesmo se for 0
-
-    int tamanhoArrayFinal = (novoTotalBitsAlinhado + 31) / 32;
-    int[] quadroComParidade = new int[tamanhoArrayFinal];
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroBitParidadeImpar
 
-    // copia a carga do quadro para o quadro verificado
-    for (int i = 0; i < totalBits; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroComParidade, i, bitAtual, 1);
-    } // fim for
+  /**
+   * metodo que aplica o controle de erro por paridade bidimensional: um bit de
+   * paridade par por byte e um byte de paridade longitudinal (LRC) no fim
+   * 
+   * @param quadro quadro original a ser aplicado o controle de erro
+   * @return quadro com os bits de paridade anexados
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroParidadeBidimensional(BitBuffer quadro) {
 
-    // adiciona o bit de paridade no final
-    ManipulacaoBits.escreverBits(quadroComParidade, totalBits, bitDeParidade, 1);
+    if (quadro.tamanho() == 0) {
+      return quadro;
+    }
 
-    // Adiciona um "bit marcador" 1 no final do quadro arredondado
-    // Isso garante que descobrirTotalDeBitsReais() no receptor funcione.
-    // O receptor ja ignora esse ultimo 7 bits
-    ManipulacaoBits.escreverBits(quadroComParidade, novoTotalBitsAlinhado - 1, 1, 1);
+    // os bits de paridade das linhas e o LRC sao escritos no proprio quadro
+    CalculadoraParidade.anexarParidadeBidimensional(quadro);
 
-    return quadroComParidade;
-  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroBitParidadeImpar
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroParidadeBidimensional
 
   /**
    * metodo que aplica o controle de erro com o polinomio CRC32
@@ -703,65 +668,40 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser aplicado controle de erro
    * @return quadro com controle de erro aplicado
    */
-  public int[] CamadaEnlaceDadosTransmissoraControleDeErroCRC(int quadro[]) {
-
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
-
-    final int POLINOMIO_GERADOR = 0x04C11DB7; // Polinomio CRC-32
-    final int VALOR_INICIAL = 0xFFFFFFFF; // Valor inicial do registrador CRC
-    final int VALOR_FINAL_XOR = 0xFFFFFFFF; // Valor final para XOR, adicionar o CRC correto no quadro
-
-    int registradorCRC = VALOR_INICIAL;
-
-    // processamendo dos bits do quadro
-    for (int i = 0; i < totalBits; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1); // lê o bit atual
-      int bitMaisSignificativo = (registradorCRC >> 31) & 1; // obtém o bit mais significativo do registrador CRC
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroCRC(BitBuffer quadro) {
 
-      int xorBit = bitMaisSignificativo ^ bitAtual; // calcula o bit de XOR
+    int totalBits = quadro.tamanho();
 
-      registradorCRC = registradorCRC << 1; // desloca o registrador para a esquerda
+    // algoritmo escolhido na interface (o padrao eh o CRC-32 original, por tabela)
+    MotorCRC motorCRC = MotorCRC.predefinido(this.controlerTelaPrincipal.opcaoAlgoritmoCRCSelecionada());
+    long crcFinal = motorCRC.calcular(quadro, totalBits);
 
-      if (xorBit == 1) {
-        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR; // aplica o polinomio gerador
-      } // fim do if
+    // anexa o CRC no final do proprio quadro, sem copiar os dados
+    quadro.escreverBitsLong(totalBits, crcFinal, motorCRC.getLargura());
 
-    } // fim do for
-
-    // processamento dos 32 bits de 0 adicionais
-    for (int i = 0; i < 32; i++) {
-
-      int bitAtual = 0; // bits adicionais sao 0
-      int bitMaisSignificativo = (registradorCRC >> 31) & 1; // obtém o bit mais significativo do registrador CRC
-
-      int xorBit = bitMaisSignificativo ^ bitAtual; // calcula o bit de XOR
-
-      registradorCRC = registradorCRC << 1; // desloca o registrador para a esquerda
-
-      if (xorBit == 1) {
-        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR; // aplica o polinomio gerador
-      } // fim do if
-
-    } // fim do for
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroCRC
 
-    int crcFinal = registradorCRC ^ VALOR_FINAL_XOR; // valor final do CRC apos o XOR final
+  /**
+   * metodo que aplica o controle de erro com uma soma de verificacao (checksum
+   * da Internet, Fletcher-32 ou Adler-32), mais barata que o CRC
+   * 
+   * @param quadro    quadro original a ser aplicado controle de erro
+   * @param algoritmo constante da SomaDeVerificacao com a soma a usar
+   * @return quadro com controle de erro aplicado
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroSomaDeVerificacao(BitBuffer quadro, int algoritmo) {
 
-    // cria o novo quadro com o CRC anexado
-    int novoTotalBits = totalBits + 32;
-    int tamanhoArrayFinal = (novoTotalBits + 31) / 32;
-    int[] quadroComCRC = new int[tamanhoArrayFinal];
+    int totalBits = quadro.tamanho();
 
-    // copia os dados originais para o inicio do novo quadro
-    for (int i = 0; i < totalBits; i++) {
-      int bitAtual = ManipulacaoBits.lerBits(quadro, i, 1);
-      ManipulacaoBits.escreverBits(quadroComCRC, i, bitAtual, 1);
-    } // fim for
+    SomaDeVerificacao somaDeVerificacao = SomaDeVerificacao.predefinida(algoritmo);
+    long soma = somaDeVerificacao.calcular(quadro, totalBits);
 
-    // anexa o CRC no final do quadro
-    ManipulacaoBits.escreverBits(quadroComCRC, totalBits, crcFinal, 32);
+    // anexa a soma no final do proprio quadro, como o CRC
+    quadro.escreverBitsLong(totalBits, soma, somaDeVerificacao.getLargura());
 
-    return quadroComCRC;
-  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroCRC
+    return quadro;
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroSomaDeVerificacao
 
   /**
    * metodo que aplica o controle de erro com o codigo de Hamming
@@ -769,78 +709,120 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro original a ser aplicado o controle
    * @return quadro com o controle de erro aplicado
    */
-  public int[] CamadaEnlaceDadosTransmissoraControleDeErroCodigoDeHamming(int quadro[]) {
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroCodigoDeHamming(BitBuffer quadro) {
 
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
-
-    if (totalBits == 0) { // caso nao tenha bits validos, retorna quadro com 0
-      return new int[0];
+    if (quadro.tamanho() == 0) { // caso nao tenha bits validos, retorna quadro com 0
+      return PoolDeBuffers.emprestar(0);
     }
 
-    // descobrir quantos bits de paridade serao necessarios
-    // formula 2^r >= (d+r+1); onde r -> quantidade de bits de paridade e d-> total
-    // de bits do quadro
-
-    int quantBitsParidade = 0;
-    while ((1 << quantBitsParidade) < (totalBits + quantBitsParidade + 1)) {
-      quantBitsParidade++;
-    } // fim while
-
-    // cria o array do quadro novo
-    int totalBitsHammming = totalBits + quantBitsParidade;
-    int tamanhoQuadroFinal = (totalBitsHammming + 31) / 32;
-    int[] quadroComHamming = new int[tamanhoQuadroFinal];
+    // posiciona os dados em trechos entre as potencias de 2 e calcula todas as
+    // paridades de uma vez pela sindrome (paridade PAR)
+    return CodigoHamming.codificar(quadro);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroCodigoDeHamming
 
-    // posicionar os bits de paridade
-    int indiceBit = 0;
+  /**
+   * metodo que aplica o controle de erro com o Hamming estendido (72,64) SECDED,
+   * um codigo por bloco de 64 bits de dados
+   * 
+   * @param quadro quadro original a ser aplicado o controle
+   * @return quadro com o controle de erro aplicado
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroHammingSECDED(BitBuffer quadro) {
 
-    for (int posicao = 1; posicao <= totalBitsHammming; posicao++) { // posicao indexada no quadro hamming
+    if (quadro.tamanho() == 0) { // caso nao tenha bits validos, retorna quadro com 0
+      return PoolDeBuffers.emprestar(0);
+    }
 
-      // (posicao & (posicao - 1) eh um truque pra saber se a posicao eh par
-      if ((posicao & (posicao - 1)) == 0) {
-        continue; // pula as posicoes que sao potencia de 2. reservando o espaco
-      } else if (indiceBit < totalBits) { // se nao eh potencia de 2 entao eh espaco de dado
+    // cada bloco de ate 64 bits de dados ganha 8 bits de verificacao
+    return CodigoHammingSECDED.codificar(quadro);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroHammingSECDED
 
-        int bitDado = ManipulacaoBits.lerBits(quadro, indiceBit, 1);
-        ManipulacaoBits.escreverBits(quadroComHamming, posicao - 1, bitDado, 1);
-        indiceBit++;
+  /**
+   * metodo que aplica o controle de erro com o codigo de Reed-Solomon
+   * RS(255,223), 32 bytes de paridade por bloco de ate 223 bytes de dados
+   * 
+   * @param quadro quadro original a ser aplicado o controle
+   * @return quadro com o controle de erro aplicado
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroReedSolomon(BitBuffer quadro) {
 
-      }
+    if (quadro.tamanho() == 0) { // caso nao tenha bits validos, retorna quadro com 0
+      return PoolDeBuffers.emprestar(0);
+    }
 
-    } // fim for
+    // cada bloco de dados ganha a sua paridade, que corrige ate 16 bytes errados
+    return CodigoReedSolomon.codificar(quadro);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroReedSolomon
 
-    // calcular e posicionar os bits de paridade, paridade PAR
+  /**
+   * metodo que aplica o controle de erro com o codigo convolucional de taxa 1/2
+   * e K = 7, que o receptor decodifica pelo algoritmo de Viterbi
+   * 
+   * @param quadro quadro original a ser aplicado o controle
+   * @return quadro com o controle de erro aplicado
+   */
+  public BitBuffer CamadaEnlaceDadosTransmissoraControleDeErroConvolucional(BitBuffer quadro) {
 
-    for (int i = 0; i < quantBitsParidade; i++) {
-      int posBitParidade = 1 << i;
-      ; // Posicao do bit de paridade (1, 2, 4, 8, ...)
+    if (quadro.tamanho() == 0) { // caso nao tenha bits validos, retorna quadro com 0
+      return PoolDeBuffers.emprestar(0);
+    }
 
-      int contadorUns = 0;
-      // verifica os bits cobertos pela paridade
-      for (int bit = 1; bit <= totalBitsHammming; bit++) {
+    // cada bit vira 2, mais os bits de cauda que devolvem o codificador ao estado 0
+    return CodigoConvolucional.codificar(quadro);
+  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroConvolucional
 
-        // verifica se o bit tem que ser verificado pelo BitDeParidade daquela posicao
-        if ((bit & posBitParidade) != 0) {
-          // nao contamos o proprio bit de paridade
-          if (bit != posBitParidade) {
-            if (ManipulacaoBits.lerBits(quadroComHamming, bit - 1, 1) == 1) {
-              contadorUns++;
-            } // fim if
-          } // fim if
-        } // fim if
-      } // fim for
+  /**
+   * processa um ACK recebido e, se ele confirmou algum quadro, tenta enviar os
+   * proximos da fila
+   * 
+   * @param seqAck numero de sequencia confirmado
+   */
+  public synchronized void processarAckDeControle(int seqAck) {
+    if (confirmarAck(seqAck)) {
+      tentarEnviarDaFila();
+    }
+  } // fim do metodo processarAckDeControle
 
-      // Define o bit de paridade p (em k-1) para garantir paridade PAR
-      if ((contadorUns % 2) != 0) {
-        ManipulacaoBits.escreverBits(quadroComHamming, posBitParidade - 1, 1, 1);
+  /**
+   * processa um ACK em bloco, que confirma de uma vez os quadros de uma
+   * agregacao. Os quadros sao confirmados na ordem do mapa e so depois a fila
+   * eh processada, entao os quadros liberados tambem saem em uma agregacao so
+   * 
+   * @param seqInicial numero de sequencia do bit 0 do mapa
+   * @param mapa       bit i ligado confirma o numero de sequencia seqInicial + i
+   */
+  public synchronized void processarBlocoDeAcks(int seqInicial, int mapa) {
+    boolean confirmouAlgum = false;
+    int espacoSequencia = janelaDeslizante.getEspacoSequencia();
+    for (int i = 0; i < ManipulacaoBits.TAMANHO_MAPA_BLOCO_ACK; i++) {
+      if (((mapa >>> i) & 1) != 0) {
+        confirmouAlgum |= confirmarAck((seqInicial + i) % espacoSequencia);
       }
-
     } // fim for
 
-    return quadroComHamming;
-  }// fim do metodo CamadaEnlaceDadosTransmissoraControleDeErroCodigoDeHamming
+    if (confirmouAlgum) {
+      tentarEnviarDaFila();
+    }
+  } // fim do metodo processarBlocoDeAcks
 
-  public synchronized void processarAckDeControle(int seqAck) {
+  /**
+   * tenta enviar mais quadros da fila depois que a janela andou
+   */
+  private void tentarEnviarDaFila() {
+    try {
+      CamadaEnlaceDadosTransmissoraControleDeFluxo(null);
+    } catch (ErroDeVerificacaoException e) {
+      e.printStackTrace();
+    }
+  } // fim do metodo tentarEnviarDaFila
+
+  /**
+   * atualiza a janela e os timers com um ACK, sem enviar nada
+   * 
+   * @param seqAck numero de sequencia confirmado
+   * @return true se o ACK foi aceito
+   */
+  private boolean confirmarAck(int seqAck) {
 
     int tipoFluxo = this.controlerTelaPrincipal.opcaoControleFluxoSelecionada();
 
@@ -854,12 +836,8 @@ public class CamadaEnlaceDadosTransmissora {
         janelaDeslizante.atualizarBase(seqAck);
         cancelarTimer();
 
-        // envia o proximo se tiver
-        try {
-          CamadaEnlaceDadosTransmissoraControleDeFluxo(null);
-        } catch (ErroDeVerificacaoException e) {
-          e.printStackTrace();
-        }
+        // o proximo, se tiver, eh enviado por quem chamou
+        return true;
       } else {
         System.out.println("TX: ACK " + seqAck + " IGNORADO (Esperava: " + janelaDeslizante.getBase() + ")");
       }
@@ -887,12 +865,8 @@ public class CamadaEnlaceDadosTransmissora {
           System.out.println("TX (GBN): Janela vazia. Timer cancelado.");
         }
 
-        // tenta enviar mais quadros se houver na fila
-        try {
-          CamadaEnlaceDadosTransmissoraControleDeFluxo(null);
-        } catch (ErroDeVerificacaoException e) {
-          e.printStackTrace();
-        }
+        // mais quadros da fila sao enviados por quem chamou
+        return true;
       }
     } else if (tipoFluxo == 2) { // Retransmissão Seletiva
 
@@ -911,17 +885,14 @@ public class CamadaEnlaceDadosTransmissora {
         // Tenta deslizar a base (método da sua classe que já faz o loop)
         janelaDeslizante.deslizarBaseSeletiva();
 
-        // Tenta enviar mais dados da fila
-        try {
-          CamadaEnlaceDadosTransmissoraControleDeFluxo(null);
-        } catch (ErroDeVerificacaoException e) {
-          e.printStackTrace();
-        }
+        // mais dados da fila sao enviados por quem chamou
+        return true;
       } else {
         System.out.println("TX (SR): ACK " + seqAck + " fora da janela ou duplicado. Ignorando.");
       }
     }
-  }
+    return false;
+  } // fim do metodo confirmarAck
 
   /**
    * Processa NACK (Negative Acknowledgment) recebido
@@ -945,11 +916,11 @@ public class CamadaEnlaceDadosTransmissora {
 
     // Retransmissão Seletiva: retransmite APENAS o quadro com NACK
     if (janelaDeslizante.estaDentroDaJanela(seqNack)) {
-      int[] quadroRetransmitir = janelaDeslizante.getQuadro(seqNack);
+      BitBuffer quadroRetransmitir = janelaDeslizante.getQuadroBits(seqNack);
       if (quadroRetransmitir != null) {
         System.out.println("TX (SR): Retransmitindo APENAS seq " + seqNack + " por NACK");
         try {
-          this.camadaFisicaTransmissora.transmitirQuadro(quadroRetransmitir);
+          transmitirNaCamadaFisica(quadroRetransmitir);
           // Reinicia timer individual para esse quadro
           if (timersRetransmissao.containsKey(seqNack)) {
             timersRetransmissao.get(seqNack).cancel();
@@ -969,7 +940,7 @@ public class CamadaEnlaceDadosTransmissora {
    * @throws ErroDeVerificacaoException excecao lancada caso ocorra erro na
    *                                    verificacao
    */
-  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteUmBit(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteUmBit(BitBuffer quadro) throws ErroDeVerificacaoException {
 
     if (quadro != null) {
       // adiciona o quadro na fila de envio caso algum quadro real seja passado, caso
@@ -981,24 +952,25 @@ public class CamadaEnlaceDadosTransmissora {
     // transmissao
     while (!filaDeEnvio.isEmpty() && janelaDeslizante.podeEnviar()) {
       // pega os dados da fila, os subquadros divididos
-      int[] dadosSemCabecalho = filaDeEnvio.poll();
+      BitBuffer dadosSemCabecalho = filaDeEnvio.poll();
       // pega o proximo numero de sequencia
       int sequencia = janelaDeslizante.getProximoNumeroSequencia();
 
       System.out.println("TX: Processando sequencia " + sequencia);
 
       // adiciona o cabecalho
-      int[] quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
+      BitBuffer quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
 
       // aplica enquadramento e controle de erro
-      int[] quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
-      int[] quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      BitBuffer quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
+      BitBuffer quadroComControleDeErro = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      devolverQuadrosIntermediarios(quadroComCabecalho, quadroEnquadrado, quadroComControleDeErro);
 
       // salva buffer na janela deslizante para caso de reenvio
       janelaDeslizante.adicionarNoBuffer(sequencia, quadroComControleDeErro);
 
       // transmite
-      this.camadaFisicaTransmissora.transmitirQuadro(quadroComControleDeErro);
+      transmitirNaCamadaFisica(quadroComControleDeErro);
       iniciarTimer();
 
       janelaDeslizante.avancarSequencia();
@@ -1012,25 +984,29 @@ public class CamadaEnlaceDadosTransmissora {
    * @param quadro quadro a ser transmitido, ou null para processar a fila
    * @throws ErroDeVerificacaoException excecao lancada caso ocorra erro na
    */
-  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteGoBackN(int quadro[]) throws ErroDeVerificacaoException {
+  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteGoBackN(BitBuffer quadro) throws ErroDeVerificacaoException {
     if (quadro != null) {
       // adiciona o quadro na fila de envio caso algum quadro real seja passado, caso
       // contrario processa os quadros ja da fila
       filaDeEnvio.add(quadro);
     }
 
+    // com a agregacao ligada os quadros que a janela liberar saem juntos
+    List<BitBuffer> agregacao = agregacaoLigada() ? new ArrayList<>() : null;
+
     // envia quadros enquanto a fila esta com elementos e a janela permite
     while (!filaDeEnvio.isEmpty() && janelaDeslizante.podeEnviar()) {
 
-      int[] dadosSemCabecalho = filaDeEnvio.poll();
+      BitBuffer dadosSemCabecalho = filaDeEnvio.poll();
       int sequencia = janelaDeslizante.getProximoNumeroSequencia();
 
       System.out.println("TX (GBN): Enviando sequencia " + sequencia);
 
       // Monta e codifica o quadro
-      int[] quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
-      int[] quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
-      int[] quadroFinal = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      BitBuffer quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
+      BitBuffer quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
+      BitBuffer quadroFinal = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      devolverQuadrosIntermediarios(quadroComCabecalho, quadroEnquadrado, quadroFinal);
 
       // salva buffer na janela deslizante para caso de reenvio
       janelaDeslizante.adicionarNoBuffer(sequencia, quadroFinal);
@@ -1044,10 +1020,17 @@ public class CamadaEnlaceDadosTransmissora {
       }
 
       // transmite por ultimo
-      this.camadaFisicaTransmissora.transmitirQuadro(quadroFinal);
+      if (agregacao != null) {
+        agregacao.add(quadroFinal);
+      } else {
+        this.camadaFisicaTransmissora.transmitirQuadro(quadroFinal);
+      }
 
     } // fim do while
 
+    // a agregacao sai depois que todos os quadros estao na janela
+    transmitirAgregacao(agregacao);
+
   } // fim do go-back-n
 
   /**
@@ -1057,39 +1040,49 @@ public class CamadaEnlaceDadosTransmissora {
    * @throws ErroDeVerificacaoException excecao lancada caso ocorra erro na
    *                                    verificacao
    */
-  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteComRetransmissaoSeletiva(int quadro[])
+  public void CamadaEnlaceDadosTransmissoraJanelaDeslizanteComRetransmissaoSeletiva(BitBuffer quadro)
       throws ErroDeVerificacaoException {
 
     if (quadro != null) {
       filaDeEnvio.add(quadro);
     }
+    // com a agregacao ligada os quadros que a janela liberar saem juntos
+    List<BitBuffer> agregacao = agregacaoLigada() ? new ArrayList<>() : null;
+
     // envia quadros enquanto a fila esta com elementos e a janela permite
     while (!filaDeEnvio.isEmpty() && janelaDeslizante.podeEnviar()) {
 
-      int[] dadosSemCabecalho = filaDeEnvio.poll();
+      BitBuffer dadosSemCabecalho = filaDeEnvio.poll();
       int sequencia = janelaDeslizante.getProximoNumeroSequencia();
 
       System.out.println("TX (RS): Enviando sequencia " + sequencia);
 
       // Monta e codifica o quadro
-      int[] quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
-      int[] quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
-      int[] quadroFinal = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      BitBuffer quadroComCabecalho = ManipulacaoBits.anexarCabecalho(dadosSemCabecalho, sequencia);
+      BitBuffer quadroEnquadrado = CamadaEnlaceDadosTransmissoraEnquadramento(quadroComCabecalho);
+      BitBuffer quadroFinal = CamadaEnlaceDadosTransmissoraControleDeErro(quadroEnquadrado);
+      devolverQuadrosIntermediarios(quadroComCabecalho, quadroEnquadrado, quadroFinal);
 
       // salva buffer na janela deslizante para caso de reenvio
       janelaDeslizante.adicionarNoBuffer(sequencia, quadroFinal);
 
-      // transmite por ultimo
-      this.camadaFisicaTransmissora.transmitirQuadro(quadroFinal);
-
-      // inicia o timer para este quadro
+      // avanca a sequencia e inicia o timer antes do envio, o ACK pode chegar
+      // durante a transmissao e precisa achar o quadro dentro da janela
+      janelaDeslizante.avancarSequencia();
       iniciarTimerIndividual(sequencia);
 
-      // avanca a sequencia apos o envio
-      janelaDeslizante.avancarSequencia();
+      // transmite por ultimo
+      if (agregacao != null) {
+        agregacao.add(quadroFinal);
+      } else {
+        this.camadaFisicaTransmissora.transmitirQuadro(quadroFinal);
+      }
 
     }
 
+    // a agregacao sai depois que todos os quadros estao na janela
+    transmitirAgregacao(agregacao);
+
   }// fim da retransmissao seletiva
 
   /**
@@ -1112,11 +1105,11 @@ public class CamadaEnlaceDadosTransmissora {
           System.out.println("TX (SR): Timeout da sequencia " + seq + ". Retransmitindo...");
 
           // recupera quadro do buffer da jalena
-          int[] quadro = janelaDeslizante.getQuadro(seq);
+          BitBuffer quadro = janelaDeslizante.getQuadroBits(seq);
 
           // quadro nao confirmado ainda retransmite
           if (quadro != null && !janelaDeslizante.isAckRecebido(seq)) {
-            camadaFisicaTransmissora.transmitirQuadro(quadro);
+            transmitirNaCamadaFisica(quadro);
             iniciarTimerIndividual(seq); // Reinicia o timer dele
           }
         } catch (Exception e) {
@@ -7,8 +7,14 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
 import javafx.util.Duration;
+import util.BitBuffer;
+import util.Codificacao4B5B;
+import util.Codificacao8B10B;
+import util.CodificacaoManchester;
+import util.CodificacaoMultinivel;
+import util.CodificacaoNRZI;
 import util.ErroDeVerificacaoException;
-import util.ManipulacaoBits;
+import util.PoolDeBuffers;
 
 /**
  * camada responsavel por simular a camada fisica do sistema receptor recebe a
@@ -48,14 +54,14 @@ public class CamadaFisicaReceptora {
    * 
    * @param quadro representacaso em bits dos sinal transmitido
    */
-  public void receberQuadro(int[] quadro) throws ErroDeVerificacaoException {
+  public void receberQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
 
-    this.controlerTelaPrincipal.exibirRepresentSinalRecebido(quadro);
+    this.controlerTelaPrincipal.exibirRepresentSinalRecebido(quadro.paraArrayInt());
 
     // sinal recebido
     int tipoDeEnquadramento = this.controlerTelaPrincipal.opcaoEnquadramentoSelecionada();
     int tipoDeDecodificacao = this.controlerTelaPrincipal.opcaoSelecionada();
-    int fluxoBrutoDeBits[] = null;
+    BitBuffer fluxoBrutoDeBits = null;
 
     try {
       if (tipoDeEnquadramento == 3) {
@@ -71,40 +77,91 @@ public class CamadaFisicaReceptora {
           case 2: // codificacao manchester diferencial
             fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacaoManchesterDiferencial(quadro);
             break;
+          case 3: // codificacao 4B/5B
+            fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacao4B5B(quadro);
+            break;
+          case 4: // codificacao 8B/10B
+            fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacao8B10B(quadro);
+            break;
+          case 5: // codificacao NRZI
+            fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacaoNRZI(quadro);
+            break;
         }// fim do switch/case
       } // fim if/else
     } catch (ErroDeVerificacaoException e) {
       // A decodificacao FALHOU! (Ex: Manchester invalido 00 ou 11)
-      System.out.println("Camada Fisica Receptora: ERRO DETECTADO. " + e.getTitulo());
-
-      // Informar o usuario com o Alerta personalizado
-      Platform.runLater(() -> {
-        Alert alert = new Alert(AlertType.ERROR); // ERRO, pois a fisica falhou
-        alert.setTitle("Deteccao de Erro");
-        alert.setHeaderText(e.getTitulo());
-        alert.setContentText(e.getMensagem());
-        alert.show();
-
-        // Fechar automaticamente após 5 segundos
-        Timeline timeline = new Timeline(new KeyFrame(
-            Duration.seconds(4),
-            ae -> alert.close()));
-        timeline.play();
-      });
+      alertarErroDeDecodificacao(e);
+      PoolDeBuffers.devolver(quadro); // o sinal descartado volta para o pool
       return; // Descarta o quadro, nao envia para a camada de Enlace
     }
 
+    // o sinal recebido do meio ja foi decodificado em outro quadro, volta para o
+    // pool (na codificacao binaria eh o proprio quadro e segue adiante)
+    if (fluxoBrutoDeBits != quadro) {
+      PoolDeBuffers.devolver(quadro);
+    }
+
     // chama proxima camada
     this.camadaEnlaceDadosReceptora.receberQuadro(fluxoBrutoDeBits);
   }// fim do metodo CamadaFisicaTransmissora
 
+  /**
+   * metodo responsavel por receber os simbolos de uma codificacao de mais de 2
+   * niveis do meio de comunicacao, decodifica-los e enviar para a proxima camada
+   * 
+   * @param simbolos niveis do sinal transmitido
+   */
+  public void receberSimbolos(int[] simbolos) throws ErroDeVerificacaoException {
+
+    this.controlerTelaPrincipal.exibirRepresentSimbolosRecebidos(simbolos);
+
+    BitBuffer fluxoBrutoDeBits;
+    try {
+      if (this.controlerTelaPrincipal.opcaoSelecionada() == 6) { // MLT-3
+        fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacaoMLT3(simbolos);
+      } else { // PAM-4
+        fluxoBrutoDeBits = CamadaFisicaReceptoraDecodificacaoPAM4(simbolos);
+      }
+    } catch (ErroDeVerificacaoException e) {
+      alertarErroDeDecodificacao(e);
+      return; // Descarta o quadro, nao envia para a camada de Enlace
+    }
+
+    // chama proxima camada
+    this.camadaEnlaceDadosReceptora.receberQuadro(fluxoBrutoDeBits);
+  }// fim do metodo receberSimbolos
+
+  /**
+   * avisa o usuario de um sinal que nao pode ser decodificado
+   * 
+   * @param e o erro de decodificacao
+   */
+  private void alertarErroDeDecodificacao(ErroDeVerificacaoException e) {
+    System.out.println("Camada Fisica Receptora: ERRO DETECTADO. " + e.getTitulo());
+
+    // Informar o usuario com o Alerta personalizado
+    Platform.runLater(() -> {
+      Alert alert = new Alert(AlertType.ERROR); // ERRO, pois a fisica falhou
+      alert.setTitle("Deteccao de Erro");
+      alert.setHeaderText(e.getTitulo());
+      alert.setContentText(e.getMensagem());
+      alert.show();
+
+      // Fechar automaticamente após 5 segundos
+      Timeline timeline = new Timeline(new KeyFrame(
+          Duration.seconds(4),
+          ae -> alert.close()));
+      timeline.play();
+    });
+  } // fim do metodo alertarErroDeDecodificacao
+
   /**
    * metodo para decodificar o Binario, basicamente retorna o mesmo array
    * 
    * @param quadro conjunto de bits recebido
    * @return o conjunto de bits decodificado
    */
-  public int[] CamadaFisicaReceptoraDecodificacaoBinaria(int[] quadro) {
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoBinaria(BitBuffer quadro) {
     return quadro;
   } // fim do metodo
 
@@ -116,43 +173,26 @@ public class CamadaFisicaReceptora {
    * @throws ErroDeVerificacaoException trata erros de violacao dos pares de sinal
    *                                    recebido
    */
-  public int[] CamadaFisicaReceptoraDecodificacaoManchester(int[] quadro) throws ErroDeVerificacaoException {
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoManchester(BitBuffer quadro) throws ErroDeVerificacaoException {
 
-    int totalBitsManchester = ManipulacaoBits.descobrirTotalDeBitsReais(quadro); // descobre quantos bits tem a mensagem
-                                                                                 // recebida
+    int totalBitsManchester = quadro.tamanho(); // quantos bits tem a mensagem recebida
     int totalBitsOriginal = totalBitsManchester / 2; // calcula quantos bits tem a mensagem original e por consequencia
                                                      // tera a mensagem decodificada
-    int tamanhoArrayDecodificado = (totalBitsOriginal + 31) / 32;
-    int[] mensagemDecodificada = new int[tamanhoArrayDecodificado];
-
-    // itera os bits em pares, uma vez que a cada 2 bits do manchester tem 1 bit do
-    // original
-    for (int i = 0; i < totalBitsManchester; i += 2) {
-
-      // le e recupera o bit1 do par
-      int bit1 = ManipulacaoBits.lerBits(quadro, i, 1);
-      // le e recupera o bit2 do par
-      int bit2 = ManipulacaoBits.lerBits(quadro, i + 1, 1);
-
-      // determina qual o bit original
-      int bitOriginal;
-      if (bit1 == 1 && bit2 == 0) { // se o par de bit for 10 entao o bit original eh 1, caso contrario ele eh 0
-        bitOriginal = 1;
-      } else if (bit1 == 0 && bit2 == 1) {
-        bitOriginal = 0;
-      } else {
-        // Par invalido (00 ou 11) detectado! Isso e um erro de codificacao fisica.
-        String parInvalido = "" + bit1 + bit2;
-        throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (MANCHESTER)",
-            "Erro de decodificacao Manchester: O par de bits [" + parInvalido + "] e invalido.\n"
-                + "Esperava-se '01' ou '10'.\n\n"
-                + "Isto indica que um erro de 1 bit no canal corrompeu o sinal. O quadro sera descartado.");
-      }
-
-      int posicaoGlobalOriginal = i / 2; // mapea a posicao do fluxo manchester de volta na posicao original
-      ManipulacaoBits.escreverBits(mensagemDecodificada, posicaoGlobalOriginal, bitOriginal, 1);
-
-    } // fim for
+    BitBuffer mensagemDecodificada = PoolDeBuffers.emprestar(totalBitsOriginal);
+
+    // cada 4 pares de sinais viram 4 bits com uma consulta a tabela, que tambem
+    // marca os pares invalidos
+    int posicaoDoErro = CodificacaoManchester.decodificar(quadro, mensagemDecodificada);
+
+    if (posicaoDoErro >= 0) {
+      // Par invalido (00 ou 11) detectado! Isso e um erro de codificacao fisica.
+      PoolDeBuffers.devolver(mensagemDecodificada);
+      String parInvalido = "" + quadro.lerBits(posicaoDoErro, 1) + quadro.lerBits(posicaoDoErro + 1, 1);
+      throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (MANCHESTER)",
+          "Erro de decodificacao Manchester: O par de bits [" + parInvalido + "] e invalido.\n"
+              + "Esperava-se '01' ou '10'.\n\n"
+              + "Isto indica que um erro de 1 bit no canal corrompeu o sinal. O quadro sera descartado.");
+    } // fim if
 
     return mensagemDecodificada;
   }// fim do metodo
@@ -166,148 +206,200 @@ public class CamadaFisicaReceptora {
    * @return o pacote de inteiros decodificado, com a informacao da mensagem em
    *         binario
    */
-  public int[] CamadaFisicaReceptoraDecodificacaoManchesterDiferencial(int[] quadro) {
-
-    int totalBitsDiferencial = ManipulacaoBits.descobrirTotalDeBitsReais(quadro); // descobre quantos bits tem a
-                                                                                  // mensagem recebida
-    int totalBitsOriginal = totalBitsDiferencial / 2; // calcula quantos bits tem a mensagem original e por consequencia
-                                                      // tera a mensagem decodificada
-    int tamanhoArrayDecodificado = (totalBitsOriginal + 31) / 32;
-    int[] mensagemDecodificada = new int[tamanhoArrayDecodificado];
-
-    int nivelAnterior = 1; // variavel padronizada para iniciar a leitura, TEM que ser igual ao
-                           // "nivelAtual" do transmissor
-
-    // percorre os bits codificados em pares
-    for (int i = 0; i < totalBitsDiferencial; i += 2) {
-
-      // leitura da primeira parte do sinal
-      int posicaoGeralSinal1 = i;
-      int indiceSinal1 = posicaoGeralSinal1 / 32;
-      int posicaoSinal1 = 31 - (posicaoGeralSinal1 % 32);
-      int primeiroNivelSinal = (quadro[indiceSinal1] >> posicaoSinal1) & 1; // le no array o sinal1 e o armazena
-
-      // define o bit original comparando o nivel do sinal encontrado com o anterior
-      int bitOriginal;
-      if (primeiroNivelSinal == nivelAnterior) { // se o sinal se manteve, nao ouve transicao logo bit = 1
-        bitOriginal = 1;
-      } else { // caso contrario ouve transicao logo bit = 0
-        bitOriginal = 0;
-      }
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoManchesterDiferencial(BitBuffer quadro) {
 
-      // escreve o bit decodificado no array de decodificacao
-      if (bitOriginal == 1) {
-        int posicaoGlobalOriginal = i / 2; // mapea a posicao do fluxo diferencil de volta na posicao original
-        int indiceOriginal = posicaoGlobalOriginal / 32;
-        int posicaoOriginal = 31 - (posicaoGlobalOriginal % 32);
-        mensagemDecodificada[indiceOriginal] = mensagemDecodificada[indiceOriginal] | (1 << posicaoOriginal);
-      }
+    // sem transicao -> 1, com transicao -> 0, 4 pares de sinais por consulta a
+    // tabela, partindo do mesmo nivel inicial da transmissora
+    return CodificacaoManchester.decodificarDiferencial(quadro);
+  }// fim do metodo
 
-      // atualiza o nivel anterior como a segunda parte do sinal, uma vez que eh a
-      // aprtir dele que se sabe se ouvbe ou nao transicao
-      int posicaoGeralSinal2 = i + 1;
-      int indiceSinal2 = posicaoGeralSinal2 / 32;
-      int posicaoSinal2 = 31 - (posicaoGeralSinal2 % 32);
-      nivelAnterior = (quadro[indiceSinal2] >> posicaoSinal2) & 1; // le o sinal2 ou seja a segunda parte do sinal e
-      // armazena no nivel anterior
+  /**
+   * decodifica o NRZI, ha bit 1 onde o nivel mudou e bit 0 onde se manteve
+   * 
+   * @param quadro conjunto de sinais recebido
+   * @return o conjunto de bits decodificado
+   */
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoNRZI(BitBuffer quadro) {
+    return CodificacaoNRZI.decodificar(quadro);
+  }// fim do metodo
 
-    }
+  /**
+   * decodifica o MLT-3, o mesmo nivel eh o bit 0 e o proximo nivel do ciclo eh o
+   * bit 1
+   * 
+   * @param simbolos simbolos recebidos
+   * @return o conjunto de bits decodificado
+   * @throws ErroDeVerificacaoException trata os simbolos fora da ordem do ciclo
+   */
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoMLT3(int[] simbolos) throws ErroDeVerificacaoException {
+    BitBuffer mensagemDecodificada = PoolDeBuffers.emprestar(simbolos.length);
+
+    int posicaoDoErro = CodificacaoMultinivel.decodificarMLT3(simbolos, mensagemDecodificada);
+
+    if (posicaoDoErro >= 0) {
+      PoolDeBuffers.devolver(mensagemDecodificada);
+      throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (MLT-3)",
+          "Erro de decodificacao MLT-3: o simbolo [" + simbolos[posicaoDoErro] + "] na posicao " + posicaoDoErro
+              + " nao segue o ciclo 0, +1, 0, -1.\n\n"
+              + "Isto indica que o ruido no canal corrompeu o sinal. O quadro sera descartado.");
+    } // fim if
 
     return mensagemDecodificada;
   }// fim do metodo
 
   /**
-   * Encontra os marcadores de violacao (11), decodifica os dados entre eles e
-   * entrega o quadro limpo.
+   * decodifica o PAM-4, cada nivel volta a ser 2 bits
+   * 
+   * @param simbolos simbolos recebidos
+   * @return o conjunto de bits decodificado
+   * @throws ErroDeVerificacaoException trata os simbolos fora dos 4 niveis
+   */
+  public BitBuffer CamadaFisicaReceptoraDecodificacaoPAM4(int[] simbolos) throws ErroDeVerificacaoException {
+    BitBuffer mensagemDecodificada = PoolDeBuffers.emprestar(2 * simbolos.length);
+
+    int posicaoDoErro = CodificacaoMultinivel.decodificarPAM4(simbolos, mensagemDecodificada);
+
+    if (posicaoDoErro >= 0) {
+      PoolDeBuffers.devolver(mensagemDecodificada);
+      throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (PAM-4)",
+          "Erro de decodificacao PAM-4: o simbolo [" + simbolos[posicaoDoErro] + "] na posicao " + posicaoDoErro
+              + " nao eh um nivel de dados.\n\n"
+              + "Isto indica que o ruido no canal corrompeu o sinal. O quadro sera descartado.");
+    } // fim if
+
+    return mensagemDecodificada;
+  }// fim do metodo
+
+  /**
+   * decodifica o 4B/5B, cada grupo de 5 sinais volta a ser 4 bits ate o grupo T
+   * 
+   * @param quadro conjunto de sinais recebido
+   * @return o conjunto de bits decodificado
+   * @throws ErroDeVerificacaoException trata os grupos que nao existem no 4B/5B
+   */
+  public BitBuffer CamadaFisicaReceptoraDecodificacao4B5B(BitBuffer quadro) throws ErroDeVerificacaoException {
+    BitBuffer mensagemDecodificada = PoolDeBuffers.emprestar(quadro.tamanho());
+
+    int posicaoDoErro = Codificacao4B5B.decodificar(quadro, mensagemDecodificada);
+
+    if (posicaoDoErro >= 0) {
+      PoolDeBuffers.devolver(mensagemDecodificada);
+      throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (4B/5B)",
+          "Erro de decodificacao 4B/5B: grupo de sinais invalido na posicao " + posicaoDoErro
+              + " ou fim do quadro (grupo T) nao encontrado.\n\n"
+              + "Isto indica que um erro de 1 bit no canal corrompeu o sinal. O quadro sera descartado.");
+    } // fim if
+
+    return mensagemDecodificada;
+  }// fim do metodo
+
+  /**
+   * decodifica o 8B/10B, cada simbolo de 10 sinais volta a ser um byte, a partir
+   * da virgula K28.5 ate o K28 do fim
+   * 
+   * @param quadro conjunto de sinais recebido
+   * @return o conjunto de bits decodificado
+   * @throws ErroDeVerificacaoException trata os simbolos que nao existem ou que
+   *                                    nao valem na disparidade corrente
+   */
+  public BitBuffer CamadaFisicaReceptoraDecodificacao8B10B(BitBuffer quadro) throws ErroDeVerificacaoException {
+    BitBuffer mensagemDecodificada = PoolDeBuffers.emprestar(quadro.tamanho());
+
+    int posicaoDoErro = Codificacao8B10B.decodificar(quadro, mensagemDecodificada);
+
+    if (posicaoDoErro >= 0) {
+      PoolDeBuffers.devolver(mensagemDecodificada);
+      throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (8B/10B)",
+          "Erro de decodificacao 8B/10B: simbolo invalido ou fora da disparidade corrente na posicao "
+              + posicaoDoErro + ", ou virgula/fim do quadro nao encontrados.\n\n"
+              + "Isto indica que um erro de 1 bit no canal corrompeu o sinal. O quadro sera descartado.");
+    } // fim if
+
+    return mensagemDecodificada;
+  }// fim do metodo
+
+  /**
+   * Encontra os marcadores de violacao (1111), decodifica os dados entre eles e
+   * entrega o quadro limpo. As violacoes sao procuradas 60 posicoes por vez e
+   * cada subquadro entre duas delas eh decodificado pela tabela direto do sinal
+   * para o quadro de saida.
    * 
    * @param quadro              O sinal bruto vindo do meio fisico.
    * @param tipoDeDecodificacao A decodificacao a ser utilizada.
    * @return O quadro de dados decodificado e desenquadrado.
    * @throws ErroDeVerificacaoException controla os erros de sinais invalidos
    */
-  private int[] CamadaFisicaReceptoraDecodificacaoComViolacao(int[] quadro, int tipoDeDecodificacao)
+  private BitBuffer CamadaFisicaReceptoraDecodificacaoComViolacao(BitBuffer quadro, int tipoDeDecodificacao)
       throws ErroDeVerificacaoException {
 
-    final int VIOLACAO = 0b1111;
     final int TAMANHO_VIOLACAO_BITS = 4;
 
-    int totalBitsSinal = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBitsSinal = quadro.tamanho();
     if (totalBitsSinal == 0)
-      return new int[0];
-
-    int[] quadroDecodificado = new int[quadro.length]; // buffer temporario
-    int bitEscritaGlobal = 0;
-    boolean quadroIniciado = false;
-    int nivelAnterior = 1; // para Manchester Diferencial
-
-    int i = 0; // usando while para melhor controle do indice manualmente
-    while (i <= totalBitsSinal - TAMANHO_VIOLACAO_BITS) { // garante que pelo menos a chance de leitura de 1 flag
+      return PoolDeBuffers.emprestar(0);
 
-      // verifica se ha uma VIOLACAO (1111) na posicao atual
+    BitBuffer quadroDecodificado = PoolDeBuffers.emprestar(totalBitsSinal / 2); // nunca passa da metade do sinal
+    int ultimoInicioDePar = totalBitsSinal - TAMANHO_VIOLACAO_BITS; // os 3 ultimos sinais nunca comecam um par
 
-      int possivelViolacao = ManipulacaoBits.lerBits(quadro, i, TAMANHO_VIOLACAO_BITS);
-      if (possivelViolacao == VIOLACAO) {
-        quadroIniciado = true; // marca que o processamento de dados pode comecar
-        i += TAMANHO_VIOLACAO_BITS; // pula os 4 bits da violacao
+    // qualquer "ruido" antes da primeira violacao eh ignorado, entao ela pode
+    // estar em qualquer posicao; as seguintes ficam alinhadas com os pares
+    int violacao = proximaViolacao(quadro, 0, false);
 
-        nivelAnterior = 1;
-
-        if (i >= totalBitsSinal) { // se nao tem mais bits a verificar para o loop
-          break;
-        }
-
-        continue; // volta ao inicio do loop para processar o que vem depois
-      } // fim if
-      // fim if
-
-      // se o quadro ainda nao foi iniciado, simplesmente avanca, ignorando qualquer
-      // "ruido" inicial.
-      if (!quadroIniciado) {
-        i++;
-        continue;
-      } // fim do if
+    while (violacao >= 0) {
+      int inicio = violacao + TAMANHO_VIOLACAO_BITS; // pula os 4 bits da violacao
+      if (inicio > ultimoInicioDePar) { // se nao tem mais bits a verificar para o loop
+        break;
+      }
 
-      // decodifica os dados
-      int bit1 = ManipulacaoBits.lerBits(quadro, i, 1);
-      int bit2 = ManipulacaoBits.lerBits(quadro, i + 1, 1);
+      violacao = proximaViolacao(quadro, inicio, true);
+      int pares = (violacao >= 0) ? (violacao - inicio) / 2 : (ultimoInicioDePar - inicio) / 2 + 1;
 
-      int bitOriginal = 0;
       if (tipoDeDecodificacao == 1) { // Manchester
-        if (bit1 == 1 && bit2 == 0) { // 10->1
-          bitOriginal = 1;
-        } else if (bit1 == 0 && bit2 == 1) { // 01 -> 0
-          bitOriginal = 0;
-        } else {
-          String parInvalido = "" + bit1 + bit2;
+        int posicaoDoErro = CodificacaoManchester.decodificar(quadro, inicio, pares, quadroDecodificado);
+        if (posicaoDoErro >= 0) {
+          PoolDeBuffers.devolver(quadroDecodificado);
+          String parInvalido = "" + quadro.lerBits(posicaoDoErro, 1) + quadro.lerBits(posicaoDoErro + 1, 1);
           throw new ErroDeVerificacaoException("ERRO NA CAMADA FISICA (MANCHESTER)",
               "Erro de decodificacao Manchester: O par de bits [" + parInvalido
                   + "] e invalido (detectado dentro do quadro de violacao).\n" + "O quadro sera descartado.");
-        } // fim if/else
-
-      } else { // Manchester Diferencial
-        if (bit1 == nivelAnterior) { // sem transicao -> 1
-          bitOriginal = 1;
-        }
-        nivelAnterior = bit2; // atualiza o nivel para a proxima comparacao
+        } // fim if
+      } else { // Manchester Diferencial, recomeca do nivel inicial em cada subquadro
+        CodificacaoManchester.decodificarDiferencial(quadro, inicio, pares, quadroDecodificado);
       }
-
-      ManipulacaoBits.escreverBits(quadroDecodificado, bitEscritaGlobal++, bitOriginal, 1);
-
-      i += 2; // avanca para o proximo par de bits do sinal
-
     } // fim while
 
-    // ajusta o array final para o tamanho exato dos bits decodificados
-    int tamanhoFinalArray = (bitEscritaGlobal + 31) / 32;
-    int[] resultadoFinal = new int[tamanhoFinalArray];
-    for (int j = 0; j < bitEscritaGlobal; j++) {
-      int bit = ManipulacaoBits.lerBits(quadroDecodificado, j, 1);
-      ManipulacaoBits.escreverBits(resultadoFinal, j, bit, 1);
-    }
-    return resultadoFinal;
+    // o quadro ja tem o tamanho exato dos bits decodificados
+    return quadroDecodificado;
 
   } // fim metodo CamadaFisicaReceptoraDecodificacaoComViolacao
 
+  /**
+   * procura a proxima violacao (1111) a partir de uma posicao, 64 sinais por
+   * leitura: o AND da palavra com ela mesma deslocada de 1, 2 e 3 posicoes so
+   * tem bit ligado onde comecam 4 uns seguidos. Cada leitura confere 60 posicoes
+   * de inicio, as que tem os 4 sinais dentro da palavra
+   * 
+   * @param quadro   sinal recebido
+   * @param posicao  primeira posicao onde a violacao pode comecar
+   * @param alinhada se so valem as posicoes de inicio de par a partir da posicao
+   * @return a posicao da violacao, ou -1 se nao houver
+   */
+  private int proximaViolacao(BitBuffer quadro, int posicao, boolean alinhada) {
+    final long INICIOS_DE_PAR = 0xAAAAAAAAAAAAAAAAL; // posicoes pares a partir do inicio da leitura
+
+    for (int p = posicao; p <= quadro.tamanho() - 4; p += 60) {
+      long sinais = quadro.lerBitsLong(p, 64);
+      long inicios = sinais & (sinais << 1) & (sinais << 2) & (sinais << 3);
+      if (alinhada) {
+        inicios &= INICIOS_DE_PAR;
+      }
+      if (inicios != 0) {
+        return p + Long.numberOfLeadingZeros(inicios);
+      }
+    } // fim for
+    return -1;
+  } // fim do metodo proximaViolacao
+
   public MeioDeComunicacao getMeio() {
     return this.meioDeComunicacao;
   }
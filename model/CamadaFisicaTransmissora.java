@@ -7,8 +7,14 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
 import javafx.util.Duration;
+import util.BitBuffer;
+import util.Codificacao4B5B;
+import util.Codificacao8B10B;
+import util.CodificacaoManchester;
+import util.CodificacaoMultinivel;
+import util.CodificacaoNRZI;
 import util.ErroDeVerificacaoException;
-import util.ManipulacaoBits;
+import util.PoolDeBuffers;
 
 /**
  * classe responsavel por simular a funcao da Camada Fissica Transmissora pega a
@@ -47,19 +53,20 @@ public class CamadaFisicaTransmissora {
    * 
    * @param quadro o quadro de bits ja passado pela enlace
    */
-  public void transmitirQuadro(int quadro[]) throws ErroDeVerificacaoException {
+  public void transmitirQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
     int tipoDeCodificacao = this.controleTelaPrincipal.opcaoSelecionada();
-    int fluxoBrutoDeBits[] = null; // eh a representacao do sinal que sera enviado
+    BitBuffer fluxoBrutoDeBits = null; // eh a representacao do sinal que sera enviado
 
     int tipoDeEnquadramento = this.controleTelaPrincipal.opcaoEnquadramentoSelecionada();
 
-    if (tipoDeCodificacao == 0 && tipoDeEnquadramento == 3) {
+    // a violacao usa os pares 11 que so existem no manchester
+    if ((tipoDeCodificacao == 0 || tipoDeCodificacao >= 3) && tipoDeEnquadramento == 3) {
       Platform.runLater(() -> { // mostra visualmente o alerta de que a combinacao nao eh permitida
         Alert alert;
         alert = new Alert(AlertType.INFORMATION);
         alert.setTitle("Mensagem de Erro");
         alert.setHeaderText("ERRO! COMBINACAO NAO PERMITIDA");
-        alert.setContentText("Nao eh possivel utilizar codificacao binaria e violacao da camada fisica");
+        alert.setContentText("A violacao da camada fisica so pode ser utilizada com as codificacoes manchester");
         alert.show();
 
         // Fechar automaticamente após 5 segundos
@@ -75,6 +82,11 @@ public class CamadaFisicaTransmissora {
 
       fluxoBrutoDeBits = CamadaFisicaTransmissoraComViolacao(quadro, tipoDeCodificacao);
 
+    } else if (tipoDeCodificacao == 6 || tipoDeCodificacao == 7) { // mais de 2 niveis, viaja como simbolos
+
+      transmitirSimbolos(quadro, tipoDeCodificacao);
+      return;
+
     } else { // se nao faz o normal
       switch (tipoDeCodificacao) {
         case 0: // codificao binaria
@@ -86,15 +98,30 @@ public class CamadaFisicaTransmissora {
         case 2: // codificacao manchester diferencial
           fluxoBrutoDeBits = CamadaFisicaTransmissoraCodificacaoManchesterDiferencial(quadro);
           break;
+        case 3: // codificacao 4B/5B
+          fluxoBrutoDeBits = CamadaFisicaTransmissoraCodificacao4B5B(quadro);
+          break;
+        case 4: // codificacao 8B/10B
+          fluxoBrutoDeBits = CamadaFisicaTransmissoraCodificacao8B10B(quadro);
+          break;
+        case 5: // codificacao NRZI
+          fluxoBrutoDeBits = CamadaFisicaTransmissoraCodificacaoNRZI(quadro);
+          break;
       }// fim do switch/case
     }
-    final int[] fluxoBrutoBitsExibir = fluxoBrutoDeBits;
+    final int[] fluxoBrutoBitsExibir = fluxoBrutoDeBits.paraArrayInt();
     Platform.runLater(() -> {
       this.controleTelaPrincipal.exibirRepresentSinalTransmitido(fluxoBrutoBitsExibir);
     });
 
     // manda pra proxima camada
     meioDeComunicacao.transmitirMensagem(fluxoBrutoDeBits, this);
+
+    // o meio transmite uma copia, entao o sinal codificado ja pode voltar para o
+    // pool (na codificacao binaria eh o proprio quadro, que continua com a enlace)
+    if (fluxoBrutoDeBits != quadro) {
+      PoolDeBuffers.devolver(fluxoBrutoDeBits);
+    }
   } // fim do construtor
 
   /**
@@ -105,7 +132,7 @@ public class CamadaFisicaTransmissora {
    * @return como o sinal em binario eh uma traducao direta da mensagem em bits,
    *         retorna a propria
    */
-  public int[] CamadaFisicaTransmissoraCodificacaoBinaria(int[] quadro) {
+  public BitBuffer CamadaFisicaTransmissoraCodificacaoBinaria(BitBuffer quadro) {
     return quadro;
   }// fim do metodo
 
@@ -117,59 +144,12 @@ public class CamadaFisicaTransmissora {
    *               inteiro possui ate 32 bits (4 char) da mensagem
    * @return retorna no array como sera o sinal transmitido em manchester
    */
-  public int[] CamadaFisicaTransmissoraCodificacaoManchester(int[] quadro) {
-
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro); // quantidade de bit validos armazenado no array
-                                                                       // de int
-    int totalBitsManchester = totalBits * 2; // // quatidade de bits que tera o array pos codificacao
-    int tamanhoArrayManchester = (totalBitsManchester + 31) / 32; // para garantir que arredonde pra cima em casos nao
-                                                                  // exatos
-
-    int[] pacoteManchester = new int[tamanhoArrayManchester]; // cria o array que vai ser devolvido
-
-    // percorre cada bit do fluxo original e aplica codificacao manchester
-    for (int i = 0; i < totalBits; i++) {
-
-      // ler o bit original
-      int indiceNoPacoteOriginal = i / 32;
-      int posicaobitOriginal = 31 - (i % 32);
-
-      int bitOriginal = (quadro[indiceNoPacoteOriginal] >> posicaobitOriginal) & 1;
-
-      int sinal1, sinal2; // definir quais os sinais que o bit tera codificado
-      if (bitOriginal == 1) {
-        sinal1 = 1;
-        sinal2 = 0;
-        // 1 -> 10
-      } else {
-        sinal1 = 0;
-        sinal2 = 1;
-        // 0 ->01
-      }
-
-      // escreve o sinal 1 no pacoteManchester
-      int posicaoSinal1 = i * 2;
-      int indiceNoPacoteManchesterSinal1 = posicaoSinal1 / 32;
-      int posicaoBitSinal1 = 31 - (posicaoSinal1 % 32);
-
-      if (sinal1 == 1) {
-        pacoteManchester[indiceNoPacoteManchesterSinal1] = pacoteManchester[indiceNoPacoteManchesterSinal1]
-            | (1 << posicaoBitSinal1); // liga o bit no local certo
-      }
-
-      // escreve o sinal 2 no pacote manchester
-      int posicaoSinal2 = (i * 2) + 1;
-      int indiceNoPacoteManchesterSinal2 = posicaoSinal2 / 32;
-      int posicaoBitSinal2 = 31 - (posicaoSinal2 % 32);
-
-      if (sinal2 == 1) {
-        pacoteManchester[indiceNoPacoteManchesterSinal2] = pacoteManchester[indiceNoPacoteManchesterSinal2]
-            | (1 << posicaoBitSinal2);
-      } // fim if
+  public BitBuffer CamadaFisicaTransmissoraCodificacaoManchester(BitBuffer quadro) {
 
-    } // fim for
-
-    return pacoteManchester;
+    // 1 -> 10
+    // 0 -> 01
+    // cada byte do quadro eh expandido nos seus 16 sinais com uma consulta a tabela
+    return CodificacaoManchester.codificar(quadro);
   }// fim do metodo
 
   /**
@@ -181,54 +161,93 @@ public class CamadaFisicaTransmissora {
    * @return retorna no array como sera o sinal transmitido em
    *         manchesterdiferencial
    */
-  public int[] CamadaFisicaTransmissoraCodificacaoManchesterDiferencial(int[] quadro) {
+  public BitBuffer CamadaFisicaTransmissoraCodificacaoManchesterDiferencial(BitBuffer quadro) {
 
-    int totalBits = ManipulacaoBits.descobrirTotalDeBitsReais(quadro); // calcula o total de bit validos enviados pelo
-                                                                       // array
-    int totalBitsDiferencial = totalBits * 2; // define qual o total dde bits final do manchester diferencial
-    int tamanhoArrayDiferencial = (totalBitsDiferencial + 31) / 32; // define o tamanho necessario para o novo array
-                                                                    // arredondando para cima
-    int[] pacoteMancheterDiferencial = new int[tamanhoArrayDiferencial]; // cria o array
-
-    int nivelAtual = 1; // variavel que controla o nivel atual do sinal, inicializacdo arbitrariamente
+    // bit 0 -> transicao no inicio do sinal, bit 1 -> sem transicao
+    // o nivel em que cada byte termina eh passado para a consulta do proximo
+    return CodificacaoManchester.codificarDiferencial(quadro);
+  }// fim do metodo
 
-    // percorrer bit da mensagem original e aplicar manchester diferencial
-    for (int i = 0; i < totalBits; i++) {
+  /**
+   * codifica o quadro em uma codificacao de mais de 2 niveis e o manda pelo
+   * caminho de simbolos do meio
+   * 
+   * @param quadro            o quadro de bits ja passado pela enlace
+   * @param tipoDeCodificacao 6 para MLT-3 e 7 para PAM-4
+   */
+  private void transmitirSimbolos(BitBuffer quadro, int tipoDeCodificacao) throws ErroDeVerificacaoException {
+    int[] simbolos;
+    int[] niveis;
+    if (tipoDeCodificacao == 6) {
+      simbolos = CamadaFisicaTransmissoraCodificacaoMLT3(quadro);
+      niveis = CodificacaoMultinivel.NIVEIS_MLT3;
+    } else {
+      simbolos = CamadaFisicaTransmissoraCodificacaoPAM4(quadro);
+      niveis = CodificacaoMultinivel.NIVEIS_PAM4;
+    }
 
-      // ler o bit original
-      int indiceNoPacoteOriginal = i / 32;
-      int posicaobitOriginal = 31 - (i % 32);
+    Platform.runLater(() -> {
+      this.controleTelaPrincipal.exibirRepresentSimbolosTransmitidos(simbolos);
+    });
 
-      int bitOriginal = (quadro[indiceNoPacoteOriginal] >> posicaobitOriginal) & 1;
+    // manda pra proxima camada
+    meioDeComunicacao.transmitirSimbolos(simbolos, niveis, this);
+  } // fim do metodo transmitirSimbolos
 
-      if (bitOriginal == 0) { // caso o bit seja 0 forca transicao invertendo o nivel do sinalatual
-        nivelAtual = 1 - nivelAtual; // inverte (0 -> 1 e 1 -> 0)
-      }
-      // caso o bit original seja 1, mantem o mesmo sinal
-
-      // escreve a primeira parte do sinal
-      int posicaoSinal1 = i * 2;
-      if (nivelAtual == 1) {
-        int indicePacoteDiferencial = posicaoSinal1 / 32;
-        int posicaoNovaDiferencial = 31 - (posicaoSinal1 % 32);
-        pacoteMancheterDiferencial[indicePacoteDiferencial] = pacoteMancheterDiferencial[indicePacoteDiferencial]
-            | (1 << posicaoNovaDiferencial);
-      }
+  /**
+   * aplica a codificacao NRZI na mensagem a ser transmitida 1 -> inverte o nivel
+   * 0 -> mantem o nivel
+   * 
+   * @param quadro conjunto de bits a ser transmitido
+   * @return o sinal em NRZI, do mesmo tamanho do quadro
+   */
+  public BitBuffer CamadaFisicaTransmissoraCodificacaoNRZI(BitBuffer quadro) {
+    return CodificacaoNRZI.codificar(quadro);
+  }// fim do metodo
 
-      nivelAtual = 1 - nivelAtual; // faz a inversao padrao para codificar o bit como um par de sinais
+  /**
+   * aplica a codificacao MLT-3 na mensagem a ser transmitida, o bit 1 avanca o
+   * sinal no ciclo 0, +1, 0, -1 e o bit 0 mantem o nivel
+   * 
+   * @param quadro conjunto de bits a ser transmitido
+   * @return os simbolos do sinal, um por bit
+   */
+  public int[] CamadaFisicaTransmissoraCodificacaoMLT3(BitBuffer quadro) {
+    return CodificacaoMultinivel.codificarMLT3(quadro);
+  }// fim do metodo
 
-      // escreve a segunda parte do sinal
-      int posicaoSinal2 = i * 2 + 1;
-      if (nivelAtual == 1) {
-        int indicePacoteDiferencial = posicaoSinal2 / 32;
-        int posicaoNovaDiferencial = 31 - (posicaoSinal2 % 32);
-        pacoteMancheterDiferencial[indicePacoteDiferencial] = pacoteMancheterDiferencial[indicePacoteDiferencial]
-            | (1 << posicaoNovaDiferencial);
-      }
+  /**
+   * aplica a codificacao PAM-4 na mensagem a ser transmitida, cada 2 bits viram
+   * um dos niveis -3, -1, +1 e +3
+   * 
+   * @param quadro conjunto de bits a ser transmitido
+   * @return os simbolos do sinal, um a cada 2 bits
+   */
+  public int[] CamadaFisicaTransmissoraCodificacaoPAM4(BitBuffer quadro) {
+    return CodificacaoMultinivel.codificarPAM4(quadro);
+  }// fim do metodo
 
-    }
+  /**
+   * aplica a codificacao 4B/5B na mensagem a ser transmitida, cada 4 bits viram
+   * um grupo de 5 sinais e o fim eh marcado pelo grupo T
+   * 
+   * @param quadro conjunto de bits a ser transmitido
+   * @return o sinal em 4B/5B, com 25% de sinais a mais que o quadro
+   */
+  public BitBuffer CamadaFisicaTransmissoraCodificacao4B5B(BitBuffer quadro) {
+    return Codificacao4B5B.codificar(quadro);
+  }// fim do metodo
 
-    return pacoteMancheterDiferencial;
+  /**
+   * aplica a codificacao 8B/10B na mensagem a ser transmitida, cada byte vira um
+   * simbolo de 10 sinais escolhido pela disparidade corrente, entre a virgula
+   * K28.5 do inicio e o K28 do fim
+   * 
+   * @param quadro conjunto de bits a ser transmitido
+   * @return o sinal em 8B/10B, com 25% de sinais a mais que o quadro
+   */
+  public BitBuffer CamadaFisicaTransmissoraCodificacao8B10B(BitBuffer quadro) {
+    return Codificacao8B10B.codificar(quadro);
   }// fim do metodo
 
   /**
@@ -239,83 +258,40 @@ public class CamadaFisicaTransmissora {
    * @param tipoDeCodificacao A codificacao a ser usada (Manchester, etc.).
    * @return O fluxo de bits pronto para o meio fisico.
    */
-  private int[] CamadaFisicaTransmissoraComViolacao(int quadro[], int tipoDeCodificacao) {
+  private BitBuffer CamadaFisicaTransmissoraComViolacao(BitBuffer quadro, int tipoDeCodificacao) {
 
     final int VIOLACAO = 0b1111;
     final int TAMANHO_VIOLACAO_BITS = 4;
 
     final int TAMANHO_SUBQUADRO_EM_BITS = 32; // a cada 32 bits adiciona uma flag
 
-    int totalBitsMensagem = ManipulacaoBits.descobrirTotalDeBitsReais(quadro);
+    int totalBitsMensagem = quadro.tamanho();
     if (totalBitsMensagem == 0)
-      return new int[0]; // se a mensagem ta vazia nem finaliza o processamento
+      return PoolDeBuffers.emprestar(0); // se a mensagem ta vazia nem finaliza o processamento
 
-    // calcula um tamanho MAXIMO estimado para o buffer temporario, nao exato pois
-    // sera aparado depois
-    int numSubquadrosEstimado = (totalBitsMensagem + TAMANHO_SUBQUADRO_EM_BITS - 1) / TAMANHO_SUBQUADRO_EM_BITS;
-    int totalBitsSinalEstimado = (TAMANHO_VIOLACAO_BITS * (numSubquadrosEstimado + 1)) + (totalBitsMensagem * 2);
-    int[] bufferTemporario = new int[(totalBitsSinalEstimado + 31) / 32];
-    int bitEscritaGlobal = 0;
+    // tamanho exato do sinal: uma violacao no inicio e uma no fim de cada
+    // subquadro, mais 2 sinais por bit
+    int numSubquadros = (totalBitsMensagem + TAMANHO_SUBQUADRO_EM_BITS - 1) / TAMANHO_SUBQUADRO_EM_BITS;
+    int totalBitsSinal = (TAMANHO_VIOLACAO_BITS * (numSubquadros + 1)) + (totalBitsMensagem * 2);
+    BitBuffer fluxoBrutoDeBitsFinal = PoolDeBuffers.emprestar(totalBitsSinal);
 
     // escreve a violacao de INICIO (1111)
-    ManipulacaoBits.escreverBits(bufferTemporario, bitEscritaGlobal, VIOLACAO, TAMANHO_VIOLACAO_BITS);
-    bitEscritaGlobal += TAMANHO_VIOLACAO_BITS; // pula os 4 bits que foram escritos pra violacao
-
-    // codifica os dados da mensagem
-    int nivelAtual = 1; // para Manchester Diferencial
-
-    int contadorBitsSubquadro = 0;
-
-    for (int i = 0; i < totalBitsMensagem; i++) {
-      int bitOriginal = ManipulacaoBits.lerBits(quadro, i, 1);
-
-      if (tipoDeCodificacao == 1 || tipoDeCodificacao == 2) { // Manchester ou Diferencial
-        int sinal1, sinal2;
-        if (tipoDeCodificacao == 1) { // Manchester
-          sinal1 = (bitOriginal == 1) ? 1 : 0;
-          sinal2 = (bitOriginal == 1) ? 0 : 1;
-        } else { // Manchester Diferencial
-          if (bitOriginal == 0)
-            nivelAtual = 1 - nivelAtual;
-          sinal1 = nivelAtual;
-          nivelAtual = 1 - nivelAtual;
-          sinal2 = nivelAtual;
-        }
-        ManipulacaoBits.escreverBits(bufferTemporario, bitEscritaGlobal++, sinal1, 1);
-        ManipulacaoBits.escreverBits(bufferTemporario, bitEscritaGlobal++, sinal2, 1);
-      } // fim if
-
-      contadorBitsSubquadro++;
-
-      // verifica se o quadro acabou ou se eh o fim da mensagem para adiconar a flag
-      boolean ehFimDoSubquadro = (contadorBitsSubquadro == TAMANHO_SUBQUADRO_EM_BITS);
-      boolean ehFimDaMensagem = (i == totalBitsMensagem - 1);
-
-      if (ehFimDoSubquadro || ehFimDaMensagem) {
-        // Escreve a violacao de FIM de subquadro (que tambem serve como FIM da
-        // mensagem)
-        ManipulacaoBits.escreverBits(bufferTemporario, bitEscritaGlobal, VIOLACAO, TAMANHO_VIOLACAO_BITS);
-        bitEscritaGlobal += TAMANHO_VIOLACAO_BITS;
-
-        // Zera o contador para o proximo subquadro
-        contadorBitsSubquadro = 0;
-
-        nivelAtual = 1;
-      } // fim do if
-
-    } // fim for
-
-    // reorganiza o array para ficar com tamanho exato
-    int tamanhoArrayFinal = (bitEscritaGlobal + 31) / 32;
-    int[] fluxoBrutoDeBitsFinal = new int[tamanhoArrayFinal];
-
-    // copia apenas os bits validos do buffer temporario para o array final
-    for (int i = 0; i < bitEscritaGlobal; i++) {
-      int bit = ManipulacaoBits.lerBits(bufferTemporario, i, 1);
-      ManipulacaoBits.escreverBits(fluxoBrutoDeBitsFinal, i, bit, 1);
+    fluxoBrutoDeBitsFinal.anexarBits(VIOLACAO, TAMANHO_VIOLACAO_BITS);
+
+    // cada subquadro eh codificado pela tabela direto no sinal, seguido da
+    // violacao de FIM de subquadro (que tambem serve como FIM da mensagem); o
+    // manchester diferencial recomeca do nivel inicial em cada subquadro
+    for (int inicio = 0; inicio < totalBitsMensagem; inicio += TAMANHO_SUBQUADRO_EM_BITS) {
+      int bitsDoSubquadro = Math.min(TAMANHO_SUBQUADRO_EM_BITS, totalBitsMensagem - inicio);
+      if (tipoDeCodificacao == 1) { // Manchester
+        CodificacaoManchester.codificar(quadro, inicio, bitsDoSubquadro, fluxoBrutoDeBitsFinal);
+      } else { // Manchester Diferencial
+        CodificacaoManchester.codificarDiferencial(quadro, inicio, bitsDoSubquadro, fluxoBrutoDeBitsFinal);
+      }
+      fluxoBrutoDeBitsFinal.anexarBits(VIOLACAO, TAMANHO_VIOLACAO_BITS);
     } // fim for
 
-    return fluxoBrutoDeBitsFinal; // retorna o array perfeitamente ajustado
+    return fluxoBrutoDeBitsFinal; // o quadro ja tem o tamanho exato do sinal
   }// fim metodo CamadaFisicaTransmissoraComViolacao
 
   /**
@@ -2,8 +2,11 @@ package model;
 
 import controller.ControlerTelaPrincipal;
 import javafx.application.Platform;
+import util.BitBuffer;
 import util.ErroDeVerificacaoException;
 import util.ManipulacaoBits;
+import util.PoolDeBuffers;
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -62,19 +65,15 @@ public class MeioDeComunicacao {
    *                         pela camada anterior
    * @param remetente        que mandou a mensagem
    */
-  public void transmitirMensagem(int fluxoBrutoDeBits[], CamadaFisicaTransmissora remetente)
+  public void transmitirMensagem(BitBuffer fluxoBrutoDeBits, CamadaFisicaTransmissora remetente)
       throws ErroDeVerificacaoException {
 
     // transferir bits e aplicar erro
 
     double taxaErro = this.controlerTelaPrincipal.getValorTaxaErro();
 
-    int[] fluxoBrutoDeBitsPontoInicial = fluxoBrutoDeBits;
-    int[] fluxoBrutoDeBitsPontoFinal = new int[fluxoBrutoDeBitsPontoInicial.length]; // array de destino tem o mesmo
-                                                                                     // tamanho do
-    // array partida
-
-    int totalDeBits = ManipulacaoBits.descobrirTotalDeBitsReais(fluxoBrutoDeBitsPontoInicial);
+    BitBuffer fluxoBrutoDeBitsPontoInicial = fluxoBrutoDeBits;
+    int totalDeBits = fluxoBrutoDeBitsPontoInicial.tamanho();
     int tipoDeCodificacao = this.controlerTelaPrincipal.opcaoSelecionada();
 
     // um strigBuider pra construir o relatorio de erro (debug)
@@ -91,44 +90,34 @@ public class MeioDeComunicacao {
       tamanhoFisicoDoQuadroEmBits *= 2;
     } // fim do if
 
-    // simulacao da transferencia bit a bit
-    int posicaoDoErroNesteQuadro = -1; // -1 significa que nao ha erro planejado
+    // a transferencia em si eh uma copia direta do sinal, palavra por palavra, em
+    // um quadro do pool que passa a pertencer a camada fisica receptora
+    BitBuffer fluxoBrutoDeBitsPontoFinal = PoolDeBuffers.emprestar(totalDeBits);
+    fluxoBrutoDeBitsPontoFinal.anexar(fluxoBrutoDeBitsPontoInicial);
+
     int contadorDeErros = 0;
 
-    for (int i = 0; i < totalDeBits; i++) {
-
-      // no inicio de cada quadro, decide se havera um erro
-      if (tamanhoFisicoDoQuadroEmBits > 0 && i % tamanhoFisicoDoQuadroEmBits == 0) {
-        posicaoDoErroNesteQuadro = -1; // reseta o erro do quadro anterior
-
-        // sorteia se o quadro ATUAL tera um erro
-        if (random.nextDouble() < taxaErro) {
-          // sorteia a POSICAO do erro dentro do quadro
-          int bitAleatorioNoQuadro = random.nextInt(tamanhoFisicoDoQuadroEmBits);
-          // calcula a posicao global onde o erro acontecera
-          posicaoDoErroNesteQuadro = i + bitAleatorioNoQuadro;
-          // Garante que o erro nao caia fora do total de bits
-          if (posicaoDoErroNesteQuadro >= totalDeBits) {
-            posicaoDoErroNesteQuadro = totalDeBits - 1;
-          } // fim if
+    // percorre apenas os inicios de quadro, decidindo se havera um erro em cada
+    for (int i = 0; i < totalDeBits && tamanhoFisicoDoQuadroEmBits > 0; i += tamanhoFisicoDoQuadroEmBits) {
+
+      // sorteia se o quadro ATUAL tera um erro
+      if (random.nextDouble() < taxaErro) {
+        // sorteia a POSICAO do erro dentro do quadro
+        int bitAleatorioNoQuadro = random.nextInt(tamanhoFisicoDoQuadroEmBits);
+        // calcula a posicao global onde o erro acontecera
+        int posicaoDoErroNesteQuadro = i + bitAleatorioNoQuadro;
+        // Garante que o erro nao caia fora do total de bits
+        if (posicaoDoErroNesteQuadro >= totalDeBits) {
+          posicaoDoErroNesteQuadro = totalDeBits - 1;
         } // fim if
-      } // fim if
 
-      // le o bit do A
-      int bit = ManipulacaoBits.lerBits(fluxoBrutoDeBitsPontoInicial, i, 1);
-
-      // verifica se este bit deve ser corrompido
-      if (i == posicaoDoErroNesteQuadro) {
-        // se for, inverte o bit
-        bit = 1 - bit;
+        // inverte o bit no B
+        fluxoBrutoDeBitsPontoFinal.inverterBit(posicaoDoErroNesteQuadro);
 
         contadorDeErros++;
-        relatorio.append("-> Erro inserido no bit de índice: ").append(i).append("\n");
+        relatorio.append("-> Erro inserido no bit de índice: ").append(posicaoDoErroNesteQuadro).append("\n");
       } // fim if
 
-      // escreve o bit no B
-      ManipulacaoBits.escreverBits(fluxoBrutoDeBitsPontoFinal, i, bit, 1);
-
     } // fim for
 
     relatorio.append("\nTransferência concluída.");
@@ -146,10 +135,9 @@ public class MeioDeComunicacao {
       // se foi o hostA que enviou os dados:
       System.out.println("MEIO: Enviando A -> B");
 
-      // faz a animacao
-      int totalBitsEnviados = ManipulacaoBits.descobrirTotalDeBitsReais(fluxoBrutoDeBitsPontoFinal);
+      // faz a animacao, o tamanho do sinal eh o mesmo que ja foi calculado acima
       // gera o array simplificado para a animacao
-      final int[] bitsAnimacao = ManipulacaoBits.desempacotarBits(fluxoBrutoDeBitsPontoFinal, totalBitsEnviados);
+      final int[] bitsAnimacao = ManipulacaoBits.desempacotarBits(fluxoBrutoDeBitsPontoFinal);
       // garante que a animacao seja sempre chamada pela thread de javaFX
       Platform.runLater(() -> {
         this.controlerTelaPrincipal.desenharSinalTransmissao(bitsAnimacao);
@@ -173,4 +161,78 @@ public class MeioDeComunicacao {
 
   } // fim do MeioComunicacao
 
+  /**
+   * simula a transmissao de um sinal de mais de 2 niveis, que viaja como
+   * simbolos e nao como bits. Assim como nos bits, no maximo 1 erro eh aplicado
+   * por quadro: o ruido leva um simbolo para o nivel vizinho, acima ou abaixo,
+   * que eh o erro mais provavel quando os niveis ficam proximos
+   * 
+   * @param simbolos  niveis do sinal codificado pela camada anterior
+   * @param niveis    niveis que a codificacao usa, em ordem crescente
+   * @param remetente quem mandou a mensagem
+   */
+  public void transmitirSimbolos(int[] simbolos, int[] niveis, CamadaFisicaTransmissora remetente)
+      throws ErroDeVerificacaoException {
+
+    double taxaErro = this.controlerTelaPrincipal.getValorTaxaErro();
+
+    StringBuilder relatorio = new StringBuilder();
+    relatorio.append("Taxa de Erro configurada: ").append(String.format("%.1f%%", taxaErro * 100))
+        .append(" por quadro.\n");
+    relatorio.append("Iniciando transferência de ").append(simbolos.length).append(" símbolos de ")
+        .append(niveis.length).append(" níveis...\n\n");
+
+    // o meio entrega uma copia, o sinal original continua com a transmissora
+    int[] simbolosPontoFinal = Arrays.copyOf(simbolos, simbolos.length);
+
+    int contadorDeErros = 0;
+    if (simbolos.length > 0 && random.nextDouble() < taxaErro) {
+      int posicaoDoErro = random.nextInt(simbolos.length);
+      int nivelOriginal = simbolosPontoFinal[posicaoDoErro];
+
+      // niveis vizinhos do simbolo sorteado (o nivel dele pode nem ser um dos
+      // niveis, como a marca de fim do PAM-4)
+      int abaixo = Integer.MIN_VALUE;
+      int acima = Integer.MAX_VALUE;
+      for (int nivel : niveis) {
+        if (nivel < nivelOriginal) {
+          abaixo = nivel;
+        } else if (nivel > nivelOriginal && acima == Integer.MAX_VALUE) {
+          acima = nivel;
+        }
+      } // fim for
+      boolean paraCima = (abaixo == Integer.MIN_VALUE) || (acima != Integer.MAX_VALUE && random.nextBoolean());
+      simbolosPontoFinal[posicaoDoErro] = paraCima ? acima : abaixo;
+
+      contadorDeErros++;
+      relatorio.append("-> Erro inserido no símbolo de índice: ").append(posicaoDoErro).append(" (")
+          .append(nivelOriginal).append(" -> ").append(simbolosPontoFinal[posicaoDoErro]).append(")\n");
+    } // fim if
+
+    relatorio.append("\nTransferência concluída.");
+    relatorio.append("\nTotal de símbolos corrompidos = " + contadorDeErros);
+
+    System.out.println("--- RELATORIO DO MEIO DE COMUNICACAO (DEBUG) ---");
+    System.out.println(relatorio.toString());
+
+    // mesmo roteamento dos bits: de A saem os dados e de B os ACKs
+    if (remetente == this.fisicaTransmissoraHostA) {
+      System.out.println("MEIO: Enviando A -> B");
+
+      // a animacao desenha um simbolo por posicao, entao com a mesma velocidade
+      // de desenho o PAM-4 termina na metade do tempo
+      final int[] simbolosAnimacao = simbolosPontoFinal;
+      Platform.runLater(() -> {
+        this.controlerTelaPrincipal.desenharSinalTransmissao(simbolosAnimacao);
+      });
+
+      this.fisicaReceptoraHostB.receberSimbolos(simbolosPontoFinal);
+    } else if (remetente == this.fisicaTransmissoraHostB) {
+      System.out.println("MEIO: Enviando (ACK) B -> A ");
+
+      this.fisicaReceptoraHostA.receberSimbolos(simbolosPontoFinal);
+    } // fim else/if
+
+  } // fim do metodo transmitirSimbolos
+
 } // fim da classe
\ No newline at end of file
@@ -0,0 +1,101 @@
+package test;
+
+import java.util.Random;
+
+import util.BitBuffer;
+import util.CalculadoraCRC32;
+
+/**
+ * BENCHMARK - CRC-32 bit a bit (calculo original da camada de enlace) contra o
+ * CRC-32 por tabela (slicing-by-8) da CalculadoraCRC32
+ *
+ * Confere primeiro que os dois calculos dao o mesmo resultado e depois mede o
+ * tempo medio de cada um para quadros de varios tamanhos.
+ */
+public class BenchmarkCRC32 {
+
+  private static final int POLINOMIO_GERADOR = 0x04C11DB7;
+  private static final int VALOR_INICIAL = 0xFFFFFFFF;
+  private static final int VALOR_FINAL_XOR = 0xFFFFFFFF;
+
+  private static volatile int sumidouro; // impede que o JIT descarte o calculo
+
+  public static void main(String[] args) {
+    System.out.println("===============================================================");
+    System.out.println("  BENCHMARK - CRC-32 bit a bit x CRC-32 por tabela");
+    System.out.println("===============================================================\n");
+
+    Random random = new Random(2025);
+    int[] tamanhosEmBits = { 72, 1024, 12000, 1 << 20 };
+
+    // conferencia: mesmos resultados, inclusive tamanhos que nao fecham um byte
+    for (int tentativa = 0; tentativa < 2000; tentativa++) {
+      BitBuffer quadro = quadroAleatorio(random, random.nextInt(700));
+      if (crcBitABit(quadro, quadro.tamanho()) != CalculadoraCRC32.calcular(quadro, quadro.tamanho())) {
+        System.out.println("X FALHOU: resultados diferentes para " + quadro.tamanho() + " bits");
+        return;
+      }
+    } // fim for
+    System.out.println("Resultados identicos em 2000 quadros aleatorios.\n");
+
+    System.out.println(String.format("%12s %16s %16s %10s", "bits", "bit a bit (ns)", "tabela (ns)", "ganho"));
+    for (int tamanho : tamanhosEmBits) {
+      BitBuffer quadro = quadroAleatorio(random, tamanho);
+      int repeticoes = Math.max(20, (1 << 24) / tamanho);
+
+      // aquecimento para o JIT compilar os dois caminhos
+      medir(quadro, repeticoes, true);
+      medir(quadro, repeticoes, false);
+
+      double nsBitABit = medir(quadro, repeticoes, true);
+      double nsTabela = medir(quadro, repeticoes, false);
+      System.out.println(String.format("%12d %16.0f %16.0f %9.1fx", tamanho, nsBitABit, nsTabela, nsBitABit / nsTabela));
+    } // fim for
+  } // fim do main
+
+  /**
+   * mede o tempo medio de um calculo de CRC
+   *
+   * @param quadro     o quadro usado
+   * @param repeticoes quantas vezes calcular
+   * @param bitABit    true para o calculo original, false para a tabela
+   * @return o tempo medio de cada calculo em nanossegundos
+   */
+  private static double medir(BitBuffer quadro, int repeticoes, boolean bitABit) {
+    int acumulado = 0;
+    long inicio = System.nanoTime();
+    for (int i = 0; i < repeticoes; i++) {
+      acumulado ^= bitABit ? crcBitABit(quadro, quadro.tamanho()) : CalculadoraCRC32.calcular(quadro, quadro.tamanho());
+    }
+    long fim = System.nanoTime();
+    sumidouro = acumulado;
+    return (fim - inicio) / (double) repeticoes;
+  } // fim do metodo medir
+
+  /**
+   * CRC-32 calculado um bit por vez, como a camada de enlace fazia antes das
+   * tabelas (inclusive os 32 bits 0 de aumento)
+   */
+  private static int crcBitABit(BitBuffer quadro, int totalBits) {
+    int registradorCRC = VALOR_INICIAL;
+    for (int i = 0; i < totalBits + 32; i++) {
+      int bitAtual = (i < totalBits) ? quadro.lerBits(i, 1) : 0; // bits adicionais sao 0
+      int xorBit = ((registradorCRC >> 31) & 1) ^ bitAtual;
+      registradorCRC = registradorCRC << 1;
+      if (xorBit == 1) {
+        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR;
+      }
+    } // fim for
+    return registradorCRC ^ VALOR_FINAL_XOR;
+  } // fim do metodo crcBitABit
+
+  private static BitBuffer quadroAleatorio(Random random, int totalDeBits) {
+    BitBuffer quadro = new BitBuffer(totalDeBits);
+    for (int i = 0; i < totalDeBits; i += 32) {
+      int bits = Math.min(32, totalDeBits - i);
+      quadro.anexarBits(random.nextInt(), bits);
+    }
+    return quadro;
+  } // fim do metodo quadroAleatorio
+
+} // fim da classe BenchmarkCRC32
@@ -0,0 +1,149 @@
+package test;
+
+import java.util.Random;
+
+import util.BitBuffer;
+import util.MotorCRC;
+import util.SomaDeVerificacao;
+
+/**
+ * COMPARATIVO - custo x capacidade de deteccao dos CRCs do MotorCRC e das
+ * somas de verificacao (Internet, Fletcher-32 e Adler-32)
+ *
+ * Para cada detector e cada tamanho de quadro mostra o overhead (bits de
+ * verificacao sobre o total transmitido), a vazao do calculo e a fracao de
+ * quadros corrompidos que passaram sem ser detectados, com rajadas de erro
+ * maiores que a largura da verificacao e com erros aleatorios espalhados.
+ */
+public class ComparativoCRC {
+
+  private static final int TENTATIVAS_POR_CASO = 20000; // quadros corrompidos sorteados por caso
+  private static volatile long sumidouro; // impede que o JIT descarte o calculo
+
+  /**
+   * um CRC ou uma soma de verificacao, visto so pelo calculo
+   */
+  private interface Detector {
+    long calcular(BitBuffer quadro, int totalDeBits);
+  } // fim da interface Detector
+
+  public static void main(String[] args) {
+    System.out.println("===============================================================");
+    System.out.println("  COMPARATIVO - Overhead x Deteccao dos CRCs e Checksums");
+    System.out.println("===============================================================\n");
+
+    Random random = new Random(7);
+    int[] tamanhosEmBits = { 64, 256, 1024, 12000 };
+
+    System.out.println(String.format("%-32s %7s %9s %10s %14s %14s", "Detector", "bits", "overhead", "MB/s",
+        "rajada n/det.", "4 bits n/det."));
+    for (int opcao = 0; opcao < 6; opcao++) {
+      MotorCRC motor = MotorCRC.predefinido(opcao);
+      imprimirCasos(motor.getNome(), motor.getLargura(), motor::calcular, tamanhosEmBits, random);
+    } // fim for
+    for (int algoritmo = 0; algoritmo < 3; algoritmo++) {
+      SomaDeVerificacao soma = SomaDeVerificacao.predefinida(algoritmo);
+      imprimirCasos(soma.getNome(), soma.getLargura(), soma::calcular, tamanhosEmBits, random);
+    } // fim for
+  } // fim do main
+
+  /**
+   * imprime uma linha da tabela para cada tamanho de quadro
+   */
+  private static void imprimirCasos(String nome, int largura, Detector detector, int[] tamanhosEmBits,
+      Random random) {
+    for (int tamanho : tamanhosEmBits) {
+      BitBuffer quadro = quadroAleatorio(random, tamanho);
+      double overhead = 100.0 * largura / (tamanho + largura);
+      double vazao = medirVazao(detector, quadro);
+      double rajada = naoDetectados(detector, largura, quadro, random, true);
+      double espalhado = naoDetectados(detector, largura, quadro, random, false);
+      System.out.println(String.format("%-32s %7d %8.2f%% %10.1f %14.6f %14.6f", nome, tamanho, overhead, vazao,
+          rajada, espalhado));
+    } // fim for
+  } // fim do metodo imprimirCasos
+
+  /**
+   * mede quantos megabytes por segundo o detector processa para o quadro
+   */
+  private static double medirVazao(Detector motor, BitBuffer quadro) {
+    int repeticoes = Math.max(50, (1 << 22) / quadro.tamanho());
+    for (int i = 0; i < repeticoes; i++) { // aquecimento
+      sumidouro ^= motor.calcular(quadro, quadro.tamanho());
+    }
+    long inicio = System.nanoTime();
+    for (int i = 0; i < repeticoes; i++) {
+      sumidouro ^= motor.calcular(quadro, quadro.tamanho());
+    }
+    long fim = System.nanoTime();
+    double bytesProcessados = (double) repeticoes * quadro.tamanho() / 8;
+    return bytesProcessados / ((fim - inicio) / 1e9) / 1e6;
+  } // fim do metodo medirVazao
+
+  /**
+   * corrompe o quadro varias vezes e conta quantas corrupcoes o detector nao
+   * percebeu
+   *
+   * @param largura quantos bits de verificacao o detector gera
+   * @param rajada  true para uma rajada maior que a largura da verificacao,
+   *                false para 4 bits em posicoes aleatorias
+   * @return a fracao de quadros corrompidos nao detectados
+   */
+  private static double naoDetectados(Detector motor, int largura, BitBuffer quadro, Random random,
+      boolean rajada) {
+    int totalDeBits = quadro.tamanho();
+    long crcOriginal = motor.calcular(quadro, totalDeBits);
+    int naoDetectados = 0;
+    int[] posicoes = new int[2 * largura + 2];
+
+    for (int tentativa = 0; tentativa < TENTATIVAS_POR_CASO; tentativa++) {
+      int quantidade = 0;
+      if (rajada) {
+        // rajada de comprimento entre largura+1 e 2*largura, com as pontas invertidas
+        int comprimento = Math.min(totalDeBits, largura + 1 + random.nextInt(largura));
+        int inicio = random.nextInt(totalDeBits - comprimento + 1);
+        posicoes[quantidade++] = inicio;
+        for (int i = 1; i < comprimento - 1; i++) {
+          if (random.nextBoolean()) {
+            posicoes[quantidade++] = inicio + i;
+          }
+        }
+        if (comprimento > 1) {
+          posicoes[quantidade++] = inicio + comprimento - 1;
+        }
+      } else {
+        for (int i = 0; i < 4; i++) {
+          int posicao = random.nextInt(totalDeBits);
+          boolean repetida = false;
+          for (int j = 0; j < quantidade; j++) {
+            repetida |= posicoes[j] == posicao;
+          }
+          if (!repetida) {
+            posicoes[quantidade++] = posicao;
+          }
+        }
+      } // fim if/else
+
+      for (int i = 0; i < quantidade; i++) {
+        quadro.inverterBit(posicoes[i]);
+      }
+      if (motor.calcular(quadro, totalDeBits) == crcOriginal) {
+        naoDetectados++;
+      }
+      for (int i = 0; i < quantidade; i++) { // desfaz a corrupcao
+        quadro.inverterBit(posicoes[i]);
+      }
+    } // fim for
+
+    return naoDetectados / (double) TENTATIVAS_POR_CASO;
+  } // fim do metodo naoDetectados
+
+  private static BitBuffer quadroAleatorio(Random random, int totalDeBits) {
+    BitBuffer quadro = new BitBuffer(totalDeBits);
+    for (int i = 0; i < totalDeBits; i += 32) {
+      quadro.anexarBits(random.nextInt(), Math.min(32, totalDeBits - i));
+    }
+    return quadro;
+  } // fim do metodo quadroAleatorio
+
+} // fim da classe ComparativoCRC
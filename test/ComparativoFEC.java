@@ -0,0 +1,132 @@
+package test;
+
+import java.util.Random;
+
+import util.BitBuffer;
+import util.CodigoConvolucional;
+import util.CodigoHamming;
+import util.CodigoHammingSECDED;
+import util.CodigoReedSolomon;
+import util.MotorCRC;
+
+/**
+ * COMPARATIVO - quanto de retransmissao (ARQ) cada controle de erro evita
+ *
+ * Passa quadros por um canal que inverte cada bit com uma probabilidade fixa e
+ * conta, para cada controle de erro, a fracao de quadros que precisaria ser
+ * retransmitida (erro detectado e nao corrigido), a fracao entregue errada
+ * (erro que passou) e o overhead dos bits de controle.
+ */
+public class ComparativoFEC {
+
+  private static final int QUADROS_POR_CASO = 3000;
+  private static final String[] NOMES = { "CRC-32", "Hamming", "SECDED(72,64)", "RS(255,223)", "Viterbi K=7" };
+
+  public static void main(String[] args) {
+    System.out.println("===============================================================");
+    System.out.println("  COMPARATIVO - Retransmissoes evitadas pela correcao de erros");
+    System.out.println("===============================================================\n");
+
+    Random random = new Random(12);
+    int[] tamanhosEmBits = { 64, 1024 };
+    double[] probabilidades = { 1e-4, 1e-3, 1e-2 };
+
+    System.out.println(String.format("%-14s %6s %8s %9s %12s %12s", "controle", "bits", "p(bit)", "overhead",
+        "retransmite", "entrega errada"));
+    for (int controle = 0; controle < NOMES.length; controle++) {
+      for (int tamanho : tamanhosEmBits) {
+        for (double probabilidade : probabilidades) {
+          int retransmitidos = 0;
+          int entreguesErrados = 0;
+          int bitsNoCanal = 0;
+          for (int q = 0; q < QUADROS_POR_CASO; q++) {
+            BitBuffer dados = quadroAleatorio(random, tamanho);
+            BitBuffer protegido = proteger(controle, dados);
+            bitsNoCanal = protegido.tamanho();
+            for (int i = 0; i < protegido.tamanho(); i++) {
+              if (random.nextDouble() < probabilidade) {
+                protegido.inverterBit(i);
+              }
+            }
+            BitBuffer recebido = recuperar(controle, protegido);
+            if (recebido == null) {
+              retransmitidos++;
+            } else if (!mesmosBits(recebido, dados)) {
+              entreguesErrados++;
+            }
+          } // fim for
+          System.out.println(String.format("%-14s %6d %8.0e %8.1f%% %11.2f%% %11.2f%%", NOMES[controle], tamanho,
+              probabilidade, 100.0 * (bitsNoCanal - tamanho) / bitsNoCanal, 100.0 * retransmitidos / QUADROS_POR_CASO,
+              100.0 * entreguesErrados / QUADROS_POR_CASO));
+        } // fim for
+      } // fim for
+    } // fim for
+  } // fim do main
+
+  private static BitBuffer proteger(int controle, BitBuffer dados) {
+    switch (controle) {
+      case 0:
+        BitBuffer comCRC = dados.copia();
+        comCRC.escreverBitsLong(dados.tamanho(), MotorCRC.CRC_32.calcular(dados, dados.tamanho()), 32);
+        return comCRC;
+      case 1:
+        return CodigoHamming.codificar(dados);
+      case 2:
+        return CodigoHammingSECDED.codificar(dados);
+      case 3:
+        return CodigoReedSolomon.codificar(dados);
+      default:
+        return CodigoConvolucional.codificar(dados);
+    }
+  } // fim do metodo proteger
+
+  /**
+   * @return os dados recebidos, ou null se o erro foi detectado sem correcao
+   */
+  private static BitBuffer recuperar(int controle, BitBuffer quadro) {
+    switch (controle) {
+      case 0:
+        int totalDados = quadro.tamanho() - 32;
+        if (MotorCRC.CRC_32.calcular(quadro, totalDados) != quadro.lerBitsLong(totalDados, 32)) {
+          return null;
+        }
+        quadro.removerDoFim(32);
+        return quadro;
+      case 1:
+        int sindrome = CodigoHamming.calcularSindrome(quadro, quadro.tamanho());
+        if (sindrome > 0 && sindrome <= quadro.tamanho()) {
+          quadro.inverterBit(sindrome - 1);
+        }
+        return CodigoHamming.extrairDados(quadro);
+      case 2:
+        return CodigoHammingSECDED.corrigir(quadro) < 0 ? null : CodigoHammingSECDED.extrairDados(quadro);
+      case 3:
+        return CodigoReedSolomon.corrigir(quadro) < 0 ? null : CodigoReedSolomon.extrairDados(quadro);
+      default:
+        BitBuffer decodificado = new BitBuffer(quadro.tamanho() / 2);
+        CodigoConvolucional.decodificar(quadro, decodificado);
+        return decodificado;
+    }
+  } // fim do metodo recuperar
+
+  private static BitBuffer quadroAleatorio(Random random, int totalDeBits) {
+    BitBuffer quadro = new BitBuffer(totalDeBits);
+    for (int i = 0; i < totalDeBits; i += 32) {
+      quadro.anexarBits(random.nextInt(), Math.min(32, totalDeBits - i));
+    }
+    return quadro;
+  } // fim do metodo quadroAleatorio
+
+  private static boolean mesmosBits(BitBuffer a, BitBuffer b) {
+    if (a.tamanho() != b.tamanho()) {
+      return false;
+    }
+    for (int i = 0; i < a.tamanho(); i++) {
+      if (a.lerBits(i, 1) != b.lerBits(i, 1)) {
+        return false;
+      }
+    }
+    return true;
+  } // fim do metodo mesmosBits
+
+} // fim da classe ComparativoFEC
@@ -18,9 +18,35 @@ package test;
  */
 
 import util.ManipulacaoBits;
+import util.AgregacaoDeQuadros;
 import util.JanelaDeslizante;
+import util.BitBuffer;
+import util.CalculadoraCRC32;
+import util.CalculadoraParidade;
+import util.Codificacao4B5B;
+import util.Codificacao8B10B;
+import util.CodificacaoManchester;
+import util.CodificacaoMultinivel;
+import util.CodificacaoNRZI;
+import util.CodigoConvolucional;
+import util.CodigoHamming;
+import util.CodigoHammingSECDED;
+import util.CodigoReedSolomon;
+import util.EnquadramentoCOBS;
+import util.SeparadorDeSubquadros;
+import util.Entrelacador;
+import util.InsercaoDeBits;
+import util.MotorCRC;
+import util.PoolDeBuffers;
+import util.SomaDeVerificacao;
 import util.ErroDeVerificacaoException;
 
+import controller.ControlerTelaPrincipal;
+import model.CamadaAplicacaoReceptora;
+import model.CamadaEnlaceDadosReceptora;
+import model.CamadaEnlaceDadosTransmissora;
+import model.CamadaFisicaTransmissora;
+
 import java.util.Arrays;
 
 public class TesteSuiteCompleta {
@@ -52,6 +78,29 @@ public class TesteSuiteCompleta {
     testarManipulacaoBitsEdgeCases();
     testarConversaoStringInt();
     testarLeituraEscritaBits();
+    testarOperacoesEmBloco();
+    testarBitBuffer();
+    testarPoolDeBuffers();
+    testarCRC32PorTabela();
+    testarMotorCRC();
+    testarCodigoHamming();
+    testarHammingSECDED();
+    testarCalculadoraParidade();
+    testarReedSolomon();
+    testarCodigoConvolucional();
+    testarEntrelacador();
+    testarSomasDeVerificacao();
+    testarBuscaDeBytes();
+    testarInsercaoDeBits();
+    testarEnquadramentoCOBS();
+    testarAgregacaoDeQuadros();
+    testarSeparadorDeSubquadros();
+    testarCodificacaoManchester();
+    testarManchesterDiferencial();
+    testarCodificacoesDeBloco();
+    testarCodificacoesMultinivel();
+    testarManchesterPorTrecho();
+    testarMensagensMaioresQueOMTU();
     testarCabecalhos();
     testarACKsENACKs();
 
@@ -268,6 +317,1467 @@ public class TesteSuiteCompleta {
     });
   }
 
+  private static void testarOperacoesEmBloco() {
+    System.out.println("\n【TESTE 21】 Manipulação de Bits - Operações em Bloco");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 21.1: lerBits e escreverBits por palavra equivalem ao bit a bit
+    testar("Leitura/escrita por palavra equivale a leitura bit a bit", () -> {
+      java.util.Random random = new java.util.Random(42);
+      for (int tentativa = 0; tentativa < 2000; tentativa++) {
+        int[] array = new int[4];
+        int inicio = random.nextInt(90);
+        int quantidade = 1 + random.nextInt(32);
+        int valor = random.nextInt();
+        ManipulacaoBits.escreverBits(array, inicio, valor, quantidade);
+        for (int i = 0; i < quantidade; i++) {
+          int esperado = (valor >> (quantidade - 1 - i)) & 1;
+          int lido = (array[(inicio + i) / 32] >> (31 - ((inicio + i) % 32))) & 1;
+          if (esperado != lido)
+            return false;
+        }
+        if (ManipulacaoBits.lerBits(array, inicio, quantidade) != (quantidade == 32 ? valor
+            : valor & ((1 << quantidade) - 1)))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 21.2: Leitura de 64 bits atravessando 3 inteiros
+    testar("Ler/escrever 64 bits atravessando 3 inteiros", () -> {
+      int[] array = new int[3];
+      long valor = 0x0123456789ABCDEFL;
+      ManipulacaoBits.escreverBitsLong(array, 17, valor, 64);
+      return ManipulacaoBits.lerBitsLong(array, 17, 64) == valor && ManipulacaoBits.lerBits(array, 0, 17) == 0;
+    });
+
+    // Teste 21.3: Copia alinhada e desalinhada
+    testar("copiarBits() com origem e destino alinhados e desalinhados", () -> {
+      java.util.Random random = new java.util.Random(7);
+      for (int tentativa = 0; tentativa < 500; tentativa++) {
+        int[] origem = new int[8];
+        for (int i = 0; i < origem.length; i++) {
+          origem[i] = random.nextInt();
+        }
+        int[] destino = new int[8];
+        int bitOrigem = random.nextInt(64);
+        int bitDestino = (tentativa % 2 == 0) ? bitOrigem : random.nextInt(64);
+        int quantidade = random.nextInt(190);
+        ManipulacaoBits.copiarBits(origem, bitOrigem, destino, bitDestino, quantidade);
+        for (int i = 0; i < quantidade; i++) {
+          if (ManipulacaoBits.lerBits(origem, bitOrigem + i, 1) != ManipulacaoBits.lerBits(destino, bitDestino + i, 1))
+            return false;
+        }
+        // nada fora do intervalo pode ter sido alterado
+        for (int i = 0; i < destino.length * 32; i++) {
+          boolean dentro = i >= bitDestino && i < bitDestino + quantidade;
+          if (!dentro && ManipulacaoBits.lerBits(destino, i, 1) != 0)
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 21.4: Tamanho real pela busca por palavra
+    testar("descobrirTotalDeBitsReais() por palavra igual à busca bit a bit", () -> {
+      java.util.Random random = new java.util.Random(11);
+      for (int tentativa = 0; tentativa < 1000; tentativa++) {
+        int[] array = new int[1 + random.nextInt(6)];
+        int ultimoBitUm = random.nextInt(array.length * 32);
+        ManipulacaoBits.escreverBits(array, ultimoBitUm, 1, 1);
+        for (int i = 0; i < ultimoBitUm; i++) { // ruido antes do ultimo '1'
+          ManipulacaoBits.escreverBits(array, i, random.nextInt(2), 1);
+        }
+        if (ManipulacaoBits.descobrirTotalDeBitsReais(array) != (ultimoBitUm / 8 + 1) * 8)
+          return false;
+      }
+      return ManipulacaoBits.descobrirTotalDeBitsReais(new int[] { 0, 0, 0 }) == 0;
+    });
+
+    // Teste 21.5: Mensagem so de zeros sem tamanho conhecido vira um NUL
+    testar("desempacotarBits() sem tamanho trata quadro zerado como NUL", () -> {
+      int[] nul = ManipulacaoBits.desempacotarBits(new int[] { 0 }, -1);
+      int[] vazio = ManipulacaoBits.desempacotarBits(new int[0], -1);
+      int[] conhecido = ManipulacaoBits.desempacotarBits(new int[] { 0, 0 }, 40);
+      int[] letra = ManipulacaoBits.desempacotarBits(new int[] { 0x41000000 }, -1);
+      return nul.length == 8 && vazio.length == 0 && conhecido.length == 40 && letra.length == 8
+          && letra[1] == 1 && letra[7] == 1;
+    });
+  }
+
+  private static void testarBitBuffer() {
+    System.out.println("\n【TESTE 22】 BitBuffer - Quadro com Tamanho Explícito");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 22.1: Ida e volta pelo formato de int[]
+    testar("BitBuffer.deArrayInt() e paraArrayInt() preservam os bits", () -> {
+      int[] original = new int[] { 0x12345678, 0x9ABCDEF0, 0x0F000000 };
+      BitBuffer quadro = BitBuffer.deArrayInt(original, 72);
+      int[] convertido = quadro.paraArrayInt();
+      return quadro.tamanho() == 72 && convertido.length == 3 && convertido[0] == 0x12345678
+          && convertido[1] == 0x9ABCDEF0 && convertido[2] == 0x0F000000;
+    });
+
+    // Teste 22.2: Bytes zerados no final nao se perdem
+    testar("Tamanho explícito mantém bytes 0 no final do quadro", () -> {
+      BitBuffer quadro = new BitBuffer();
+      quadro.anexarBits('A', 8);
+      quadro.anexarBits(0, 8);
+      quadro.anexarBits(0, 8);
+      return quadro.tamanho() == 24
+          && ManipulacaoBits.intAgrupadoParaString(quadro.paraArrayInt(), quadro.tamanho()).equals("A\0\0");
+    });
+
+    // Teste 22.3: Anexar e consumir atravessando palavras de 64 bits
+    testar("anexarBits()/consumirBits() atravessam a fronteira de 64 bits", () -> {
+      BitBuffer quadro = new BitBuffer(8); // forca o crescimento
+      for (int i = 0; i < 20; i++) {
+        quadro.anexarBits(i * 0x1357 + 1, 13);
+      }
+      for (int i = 0; i < 20; i++) {
+        if (quadro.consumirBits(13) != ((i * 0x1357 + 1) & 0x1FFF))
+          return false;
+      }
+      return quadro.tamanho() == 260 && quadro.bitsRestantes() == 0;
+    });
+
+    // Teste 22.4: Fatia compartilha os bits sem copiar
+    testar("fatia() enxerga e altera os bits do quadro de origem", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xFFFF0000, 0x00FF00FF }, 64);
+      BitBuffer fatia = quadro.fatia(12, 40);
+      boolean leituraOk = fatia.tamanho() == 40 && fatia.lerBits(0, 8) == 0xF0 && fatia.lerBits(32, 8) == 0xF0;
+      fatia.inverterBit(0); // bit 12 do quadro de origem
+      return leituraOk && quadro.lerBits(8, 8) == 0xF7;
+    });
+
+    // Teste 22.5: Leitura alem do tamanho devolve 0
+    testar("Leitura além do tamanho completa com zeros", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xFFFFFFFF }, 32);
+      BitBuffer fatia = quadro.fatia(0, 4);
+      return fatia.lerBits(0, 8) == 0xF0 && fatia.lerBits(4, 4) == 0;
+    });
+
+    // Teste 22.6: Cabecalho e flags de controle pelo BitBuffer
+    testar("Cabeçalho e ACK funcionam com BitBuffer", () -> {
+      BitBuffer dados = BitBuffer.deArrayInt(new int[] { 0x41000000 }, 8);
+      BitBuffer comCabecalho = ManipulacaoBits.anexarCabecalho(dados, 5);
+      boolean cabecalhoOk = comCabecalho.tamanho() == 40 && ManipulacaoBits.lerNumeroDeSequencia(comCabecalho) == 5
+          && !ManipulacaoBits.ehAck(comCabecalho);
+      BitBuffer semCabecalho = ManipulacaoBits.removerCabecalho(comCabecalho);
+      BitBuffer ack = BitBuffer.deArrayInt(ManipulacaoBits.montarQuadroAck(3), 32);
+      return cabecalhoOk && semCabecalho.tamanho() == 8 && semCabecalho.lerBits(0, 8) == 0x41
+          && ManipulacaoBits.ehAck(ack) && !ManipulacaoBits.ehNack(ack) && ManipulacaoBits.lerNumeroDeSequencia(ack) == 3;
+    });
+
+    // Teste 22.7: Cabecalho no espaco reservado sem mover a carga util
+    testar("adicionarNaFrente()/removerDaFrente() só movem o início", () -> {
+      BitBuffer quadro = new BitBuffer(32, ManipulacaoBits.TAMANHO_CABECALHO_EM_BITS);
+      quadro.anexarBits(0xCAFEBABE, 32);
+      int capacidadeAntes = quadro.capacidade();
+      ManipulacaoBits.anexarCabecalho(quadro, 9);
+      boolean comCabecalhoOk = quadro.tamanho() == 64 && quadro.espacoNaFrente() == 0
+          && quadro.capacidade() == capacidadeAntes + 32 && ManipulacaoBits.lerNumeroDeSequencia(quadro) == 9
+          && quadro.lerBits(32, 32) == 0xCAFEBABE;
+      ManipulacaoBits.removerCabecalho(quadro);
+      return comCabecalhoOk && quadro.tamanho() == 32 && quadro.espacoNaFrente() == 32
+          && quadro.lerBits(0, 32) == 0xCAFEBABE;
+    });
+
+    // Teste 22.8: Fatias nao crescem por cima do quadro de origem
+    testar("Cabeçalho e anexo em fatia não alteram o quadro de origem", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0x12345678, 0x9ABCDEF0 }, 64);
+      BitBuffer fatia = quadro.fatia(16, 16);
+      ManipulacaoBits.anexarCabecalho(fatia, 1);
+      fatia.anexarBits(0xFFFF, 16);
+      return quadro.lerBits(0, 32) == 0x12345678 && quadro.lerBits(32, 32) == 0x9ABCDEF0 && fatia.tamanho() == 64
+          && fatia.lerBits(32, 16) == 0x5678 && fatia.lerBits(48, 16) == 0xFFFF;
+    });
+
+    // Teste 22.9: Retirar o campo de verificacao do fim
+    testar("removerDoFim() descarta o final e permite anexar de novo", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xABCDEF01 }, 32);
+      quadro.removerDoFim(8);
+      boolean cortadoOk = quadro.tamanho() == 24 && quadro.lerBits(24, 8) == 0;
+      quadro.anexarBits(0x77, 8);
+      return cortadoOk && quadro.lerBits(0, 32) == 0xABCDEF77;
+    });
+  }
+
+  private static void testarPoolDeBuffers() {
+    System.out.println("\n【TESTE 23】 PoolDeBuffers - Reuso de Quadros");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 23.1: Quadro devolvido eh reaproveitado vazio
+    testar("Quadro devolvido volta vazio no próximo empréstimo", () -> {
+      BitBuffer quadro = PoolDeBuffers.emprestar(100);
+      quadro.anexarBits(0xFFFFFFFF, 32);
+      PoolDeBuffers.devolver(quadro);
+      BitBuffer reusado = PoolDeBuffers.emprestar(90);
+      boolean mesmoQuadro = reusado == quadro;
+      reusado.anexarBits(0x5, 4);
+      PoolDeBuffers.devolver(reusado);
+      return mesmoQuadro && reusado.tamanho() == 4 && reusado.lerBits(0, 8) == 0x50 && reusado.capacidade() >= 128;
+    });
+
+    // Teste 23.2: Classes de tamanho diferentes nao se misturam
+    testar("Pedido maior que a classe livre aloca outro quadro", () -> {
+      BitBuffer pequeno = PoolDeBuffers.emprestar(64);
+      PoolDeBuffers.devolver(pequeno);
+      BitBuffer grande = PoolDeBuffers.emprestar(1000, ManipulacaoBits.TAMANHO_CABECALHO_EM_BITS);
+      boolean ok = grande != pequeno && grande.capacidade() >= 1000
+          && grande.espacoNaFrente() == ManipulacaoBits.TAMANHO_CABECALHO_EM_BITS;
+      PoolDeBuffers.devolver(grande);
+      return ok && PoolDeBuffers.emprestar(64) == pequeno;
+    });
+
+    // Teste 23.3: Devolucao repetida e fatias sao ignoradas
+    testar("Devolver duas vezes ou devolver fatia não duplica o quadro", () -> {
+      BitBuffer quadro = PoolDeBuffers.emprestar(200);
+      quadro.anexarBits(0xABCD, 16);
+      int livresAntes = PoolDeBuffers.quadrosLivres();
+      PoolDeBuffers.devolver(quadro.fatia(0, 8));
+      PoolDeBuffers.devolver(quadro);
+      PoolDeBuffers.devolver(quadro);
+      boolean contagemOk = PoolDeBuffers.quadrosLivres() == livresAntes + 1;
+      return contagemOk && PoolDeBuffers.emprestar(200) == quadro && PoolDeBuffers.emprestar(200) != quadro;
+    });
+
+    // Teste 23.4: Cada thread tem o proprio pool
+    testar("Quadro devolvido em uma thread não aparece em outra", () -> {
+      BitBuffer quadro = PoolDeBuffers.emprestar(300);
+      PoolDeBuffers.devolver(quadro);
+      BitBuffer[] daOutraThread = new BitBuffer[1];
+      Thread outra = new Thread(() -> daOutraThread[0] = PoolDeBuffers.emprestar(300));
+      outra.start();
+      outra.join();
+      return daOutraThread[0] != quadro && PoolDeBuffers.emprestar(300) == quadro;
+    });
+  }
+
+  private static void testarCRC32PorTabela() {
+    System.out.println("\n【TESTE 24】 CRC-32 por Tabela (slicing-by-8)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 24.1: Mesmo resultado do calculo bit a bit
+    testar("CRC-32 por tabela igual ao bit a bit para qualquer tamanho", () -> {
+      java.util.Random random = new java.util.Random(24);
+      for (int tamanho = 0; tamanho < 300; tamanho++) {
+        BitBuffer quadro = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+          quadro.anexarBits(random.nextInt(2), 1);
+        }
+        if (CalculadoraCRC32.calcular(quadro, tamanho) != crc32BitABit(quadro, tamanho))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 24.2: Quadro que nao comeca no inicio da palavra (com cabecalho)
+    testar("CRC-32 por tabela em quadro com cabeçalho no espaço reservado", () -> {
+      BitBuffer quadro = new BitBuffer(100, ManipulacaoBits.TAMANHO_CABECALHO_EM_BITS);
+      quadro.anexarBits(0x48656C6C, 32);
+      quadro.anexarBits(0x6F21, 16);
+      ManipulacaoBits.anexarCabecalho(quadro, 3);
+      return CalculadoraCRC32.calcular(quadro, quadro.tamanho()) == crc32BitABit(quadro, quadro.tamanho());
+    });
+  }
+
+  /**
+   * CRC-32 um bit por vez, referencia para conferir a versao por tabela
+   */
+  private static int crc32BitABit(BitBuffer quadro, int totalBits) {
+    int registradorCRC = CalculadoraCRC32.VALOR_INICIAL;
+    for (int i = 0; i < totalBits + 32; i++) { // mais os 32 bits 0 de aumento
+      int bitAtual = (i < totalBits) ? quadro.lerBits(i, 1) : 0;
+      int xorBit = ((registradorCRC >> 31) & 1) ^ bitAtual;
+      registradorCRC = registradorCRC << 1;
+      if (xorBit == 1) {
+        registradorCRC = registradorCRC ^ CalculadoraCRC32.POLINOMIO_GERADOR;
+      }
+    }
+    return registradorCRC ^ CalculadoraCRC32.VALOR_FINAL_XOR;
+  }
+
+  private static void testarMotorCRC() {
+    System.out.println("\n【TESTE 25】 MotorCRC - Família de CRCs Parametrizados");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 25.1: Valores de verificacao do catalogo ("123456789")
+    testar("CRC-8/16/32/32C/64 batem com o valor de verificação do catálogo", () -> {
+      BitBuffer quadro = new BitBuffer(72);
+      for (char c : "123456789".toCharArray()) {
+        quadro.anexarBits(c, 8);
+      }
+      return MotorCRC.CRC_8.calcular(quadro, 72) == 0xF4L && MotorCRC.CRC_16_CCITT.calcular(quadro, 72) == 0x29B1L
+          && MotorCRC.CRC_32.calcular(quadro, 72) == 0xCBF43926L && MotorCRC.CRC_32C.calcular(quadro, 72) == 0xE3069283L
+          && MotorCRC.CRC_64.calcular(quadro, 72) == 0x6C40DF5F0B497347L;
+    });
+
+    // Teste 25.2: Delegacao para a plataforma igual a tabela, inclusive nos bits
+    // que nao fecham um byte
+    testar("CRC-32 pelo java.util.zip igual ao calculo por tabela", () -> {
+      MotorCRC semPlataforma = new MotorCRC("CRC-32 (tabela)", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true, 0xFFFFFFFEL);
+      java.util.Random random = new java.util.Random(25);
+      for (int tamanho = 0; tamanho < 200; tamanho++) {
+        BitBuffer quadro = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+          quadro.anexarBits(random.nextInt(2), 1);
+        }
+        // mesmo registrador, so o xor final difere em 1 bit
+        if ((semPlataforma.calcular(quadro, tamanho) ^ 1L) != MotorCRC.CRC_32.calcular(quadro, tamanho))
+          return false;
+      }
+      return MotorCRC.CRC_32.usaImplementacaoDaPlataforma() && !semPlataforma.usaImplementacaoDaPlataforma();
+    });
+
+    // Teste 25.3: Preset original do simulador igual a CalculadoraCRC32
+    testar("Preset CRC-32 (IEEE 802) igual ao CRC original do simulador", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xDEADBEEF, 0x12345678 }, 61);
+      return MotorCRC.predefinido(0) == MotorCRC.CRC_32_SIMULADOR && MotorCRC.CRC_32_SIMULADOR
+          .calcular(quadro, 61) == (CalculadoraCRC32.calcular(quadro, 61) & 0xFFFFFFFFL);
+    });
+
+    // Teste 25.4: Qualquer erro de 1 bit eh detectado por todos
+    testar("Todos os CRCs detectam qualquer erro de 1 bit", () -> {
+      for (int opcao = 0; opcao < 6; opcao++) {
+        MotorCRC motor = MotorCRC.predefinido(opcao);
+        BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xCAFEBABE, 0x0BADF00D }, 64);
+        long original = motor.calcular(quadro, 64);
+        for (int bit = 0; bit < 64; bit++) {
+          quadro.inverterBit(bit);
+          boolean detectado = motor.calcular(quadro, 64) != original;
+          quadro.inverterBit(bit);
+          if (!detectado)
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarCodigoHamming() {
+    System.out.println("\n【TESTE 26】 CodigoHamming - Síndrome por XOR das Posições");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 26.1: Mesmo quadro que o calculo original, bit a bit por paridade
+    testar("Codificação igual ao Hamming bit a bit original", () -> {
+      java.util.Random random = new java.util.Random(26);
+      for (int tamanho = 1; tamanho < 300; tamanho++) {
+        BitBuffer dados = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+          dados.anexarBits(random.nextInt(2), 1);
+        }
+        BitBuffer codificado = CodigoHamming.codificar(dados);
+        int[] esperado = hammingBitABit(dados);
+        if (codificado.tamanho() != esperado.length)
+          return false;
+        for (int i = 0; i < esperado.length; i++) {
+          if (codificado.lerBits(i, 1) != esperado[i])
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 26.2: Sindrome zero sem erro e igual a posicao com 1 bit errado
+    testar("Síndrome aponta a posição de qualquer erro de 1 bit", () -> {
+      BitBuffer dados = BitBuffer.deArrayInt(new int[] { 0xCAFEBABE, 0x0BADF00D, 0x12345678 }, 90);
+      BitBuffer codificado = CodigoHamming.codificar(dados);
+      int total = codificado.tamanho();
+      if (CodigoHamming.calcularSindrome(codificado, total) != 0)
+        return false;
+      for (int bit = 0; bit < total; bit++) {
+        codificado.inverterBit(bit);
+        int sindrome = CodigoHamming.calcularSindrome(codificado, total);
+        codificado.inverterBit(bit);
+        if (sindrome != bit + 1)
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 26.3: Extracao devolve exatamente os dados
+    testar("Extração dos dados desfaz a codificação", () -> {
+      java.util.Random random = new java.util.Random(260);
+      for (int tamanho = 1; tamanho < 300; tamanho += 7) {
+        BitBuffer dados = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i += 32) {
+          dados.anexarBits(random.nextInt(), Math.min(32, tamanho - i));
+        }
+        BitBuffer extraido = CodigoHamming.extrairDados(CodigoHamming.codificar(dados));
+        if (extraido.tamanho() != tamanho)
+          return false;
+        for (int i = 0; i < tamanho; i++) {
+          if (extraido.lerBits(i, 1) != dados.lerBits(i, 1))
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  /**
+   * Hamming como era calculado antes: dados um a um fora das potencias de 2 e
+   * cada paridade recontando os bits que cobre
+   */
+  private static int[] hammingBitABit(BitBuffer dados) {
+    int totalBits = dados.tamanho();
+    int r = 0;
+    while ((1 << r) < (totalBits + r + 1)) {
+      r++;
+    }
+    int[] quadro = new int[totalBits + r];
+    int indiceBit = 0;
+    for (int posicao = 1; posicao <= quadro.length; posicao++) {
+      if ((posicao & (posicao - 1)) != 0) {
+        quadro[posicao - 1] = dados.lerBits(indiceBit++, 1);
+      }
+    }
+    for (int i = 0; i < r; i++) {
+      int posBitParidade = 1 << i;
+      int contadorUns = 0;
+      for (int bit = 1; bit <= quadro.length; bit++) {
+        if ((bit & posBitParidade) != 0 && bit != posBitParidade) {
+          contadorUns += quadro[bit - 1];
+        }
+      }
+      quadro[posBitParidade - 1] = contadorUns % 2;
+    }
+    return quadro;
+  }
+
+  private static void testarHammingSECDED() {
+    System.out.println("\n【TESTE 27】 CodigoHammingSECDED - Blocos (72,64)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 27.1: Tamanho e ida e volta, inclusive com ultimo bloco incompleto
+    testar("Blocos de 64 bits ganham 8 de verificação e voltam iguais", () -> {
+      java.util.Random random = new java.util.Random(27);
+      for (int tamanho = 1; tamanho < 400; tamanho += 13) {
+        BitBuffer dados = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i += 32) {
+          dados.anexarBits(random.nextInt(), Math.min(32, tamanho - i));
+        }
+        BitBuffer protegido = CodigoHammingSECDED.codificar(dados);
+        if (protegido.tamanho() != tamanho + 8 * ((tamanho + 63) / 64)
+            || !CodigoHammingSECDED.tamanhoValido(protegido.tamanho()) || CodigoHammingSECDED.corrigir(protegido) != 0)
+          return false;
+        BitBuffer extraido = CodigoHammingSECDED.extrairDados(protegido);
+        for (int i = 0; i < tamanho; i++) {
+          if (extraido.lerBits(i, 1) != dados.lerBits(i, 1))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 27.2: Um erro por bloco, em qualquer posicao, eh corrigido
+    testar("Corrige 1 bit errado em cada bloco", () -> {
+      BitBuffer dados = BitBuffer.deArrayInt(new int[] { 0xCAFEBABE, 0x0BADF00D, 0x12345678, 0x9ABCDEF0 }, 100);
+      BitBuffer protegido = CodigoHammingSECDED.codificar(dados); // 72 + 44 bits
+      for (int bit = 0; bit < 72; bit++) {
+        BitBuffer corrompido = protegido.copia();
+        corrompido.inverterBit(bit);
+        corrompido.inverterBit(72 + bit % 44);
+        if (CodigoHammingSECDED.corrigir(corrompido) != 2)
+          return false;
+        BitBuffer extraido = CodigoHammingSECDED.extrairDados(corrompido);
+        for (int i = 0; i < 100; i++) {
+          if (extraido.lerBits(i, 1) != dados.lerBits(i, 1))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 27.3: Qualquer par de erros no mesmo bloco eh detectado
+    testar("Detecta qualquer erro de 2 bits no bloco", () -> {
+      BitBuffer protegido = CodigoHammingSECDED.codificar(BitBuffer.deArrayInt(new int[] { 0xDEADBEEF, 0x01234567 }, 64));
+      for (int a = 0; a < 72; a++) {
+        for (int b = a + 1; b < 72; b++) {
+          protegido.inverterBit(a);
+          protegido.inverterBit(b);
+          int resultado = CodigoHammingSECDED.corrigir(protegido.copia());
+          protegido.inverterBit(a);
+          protegido.inverterBit(b);
+          if (resultado != -1)
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarCalculadoraParidade() {
+    System.out.println("\n【TESTE 28】 CalculadoraParidade - bitCount e Paridade Bidimensional");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 28.1: Paridade por palavras igual a contagem bit a bit
+    testar("Paridade por xor das palavras igual à contagem de 1s", () -> {
+      java.util.Random random = new java.util.Random(28);
+      for (int tamanho = 0; tamanho < 300; tamanho++) {
+        BitBuffer quadro = new BitBuffer(tamanho);
+        int contadorUns = 0;
+        for (int i = 0; i < tamanho; i++) {
+          int bit = random.nextInt(2);
+          quadro.anexarBits(bit, 1);
+          contadorUns += bit;
+        }
+        if (CalculadoraParidade.paridade(quadro, tamanho) != contadorUns % 2)
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 28.2: O tamanho dos dados eh recuperado a partir do quadro recebido
+    testar("Paridade bidimensional: tamanho dos dados recuperado do quadro", () -> {
+      for (int tamanho = 1; tamanho < 500; tamanho++) {
+        BitBuffer quadro = new BitBuffer(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+          quadro.anexarBits(i % 3 == 0 ? 1 : 0, 1);
+        }
+        CalculadoraParidade.anexarParidadeBidimensional(quadro);
+        if (quadro.tamanho() != tamanho + CalculadoraParidade.bitsDeParidadeBidimensional(tamanho)
+            || CalculadoraParidade.totalBitsDadosBidimensional(quadro.tamanho()) != tamanho
+            || !CalculadoraParidade.conferirParidadeBidimensional(quadro, tamanho))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 28.3: Qualquer erro de 1, 2 ou 3 bits eh detectado
+    testar("Paridade bidimensional detecta qualquer erro de até 3 bits", () -> {
+      BitBuffer quadro = BitBuffer.deArrayInt(new int[] { 0xC0FFEE00, 0x5A000000 }, 40);
+      CalculadoraParidade.anexarParidadeBidimensional(quadro); // 40 + 5 + 9 bits
+      int total = quadro.tamanho();
+      for (int a = 0; a < total; a++) {
+        for (int b = a; b < total; b++) {
+          for (int c = b; c < total; c++) {
+            // posicoes repetidas contam uma vez so: cobre erros de 1, 2 e 3 bits
+            int[] posicoes = (a == b) ? new int[] { a, c } : (b == c) ? new int[] { a, b } : new int[] { a, b, c };
+            if (posicoes[0] == posicoes[posicoes.length - 1])
+              posicoes = new int[] { a };
+            for (int p : posicoes)
+              quadro.inverterBit(p);
+            boolean detectado = !CalculadoraParidade.conferirParidadeBidimensional(quadro, 40);
+            for (int p : posicoes)
+              quadro.inverterBit(p);
+            if (!detectado)
+              return false;
+          }
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarReedSolomon() {
+    System.out.println("\n【TESTE 29】 CodigoReedSolomon - RS(255,223)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 29.1: Sem erros os dados voltam iguais, com blocos cheios e encurtados
+    testar("Blocos de até 223 bytes ganham 32 de paridade e voltam iguais", () -> {
+      java.util.Random random = new java.util.Random(29);
+      for (int tamanho : new int[] { 1, 7, 64, 100, 1784, 1785, 4000 }) {
+        BitBuffer dados = quadroAleatorio(random, tamanho);
+        BitBuffer protegido = CodigoReedSolomon.codificar(dados);
+        if (protegido.tamanho() != tamanho + 256 * ((tamanho + 1783) / 1784)
+            || !CodigoReedSolomon.tamanhoValido(protegido.tamanho()) || CodigoReedSolomon.corrigir(protegido) != 0
+            || !mesmosBits(CodigoReedSolomon.extrairDados(protegido), dados))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 29.2: Ate 16 bytes errados por bloco sao corrigidos, inclusive rajadas
+    testar("Corrige até 16 bytes errados por bloco", () -> {
+      java.util.Random random = new java.util.Random(290);
+      for (int tentativa = 0; tentativa < 200; tentativa++) {
+        int tamanho = 8 * (1 + random.nextInt(250)); // bytes inteiros: cada erro cai em um so simbolo
+        BitBuffer dados = quadroAleatorio(random, tamanho);
+        BitBuffer protegido = CodigoReedSolomon.codificar(dados);
+        int bytesNoPrimeiroBloco = Math.min(protegido.tamanho(), 2040) / 8;
+        int quantidadeDeErros = 1 + random.nextInt(16);
+        boolean[] usados = new boolean[bytesNoPrimeiroBloco];
+        for (int e = 0; e < quantidadeDeErros; e++) {
+          int indice = random.nextInt(bytesNoPrimeiroBloco);
+          if (usados[indice])
+            continue;
+          usados[indice] = true;
+          // estraga o byte inteiro, como uma rajada faria
+          protegido.escreverBits(8 * indice, protegido.lerBits(8 * indice, 8) ^ (1 + random.nextInt(255)), 8);
+        }
+        if (CodigoReedSolomon.corrigir(protegido) < 0 || !mesmosBits(CodigoReedSolomon.extrairDados(protegido), dados))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 29.3: Com 17 bytes errados o bloco nao eh entregue como se estivesse certo
+    testar("Mais de 16 bytes errados não passam como corretos", () -> {
+      java.util.Random random = new java.util.Random(2900);
+      for (int tentativa = 0; tentativa < 50; tentativa++) {
+        BitBuffer dados = quadroAleatorio(random, 800);
+        BitBuffer protegido = CodigoReedSolomon.codificar(dados);
+        for (int indice = 0; indice < 17; indice++) {
+          protegido.escreverBits(8 * 3 * indice, protegido.lerBits(8 * 3 * indice, 8) ^ 0xA5, 8);
+        }
+        if (CodigoReedSolomon.corrigir(protegido) >= 0 && mesmosBits(CodigoReedSolomon.extrairDados(protegido), dados))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static BitBuffer quadroAleatorio(java.util.Random random, int totalDeBits) {
+    BitBuffer quadro = new BitBuffer(totalDeBits);
+    for (int i = 0; i < totalDeBits; i += 32) {
+      quadro.anexarBits(random.nextInt(), Math.min(32, totalDeBits - i));
+    }
+    return quadro;
+  }
+
+  private static boolean mesmosBits(BitBuffer a, BitBuffer b) {
+    if (a.tamanho() != b.tamanho())
+      return false;
+    for (int i = 0; i < a.tamanho(); i++) {
+      if (a.lerBits(i, 1) != b.lerBits(i, 1))
+        return false;
+    }
+    return true;
+  }
+
+  private static void testarCodigoConvolucional() {
+    System.out.println("\n【TESTE 30】 CodigoConvolucional - K=7 Taxa 1/2 com Viterbi");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 30.1: Sequencia conhecida: um unico 1 gera a resposta ao impulso
+    testar("Impulso gera os polinômios 171 e 133 intercalados", () -> {
+      BitBuffer quadro = new BitBuffer(1);
+      quadro.anexarBits(1, 1);
+      BitBuffer codificado = CodigoConvolucional.codificar(quadro);
+      // 171 = 1111001 e 133 = 1011011, bit a bit: 11 10 11 11 00 01 11
+      return codificado.tamanho() == 14 && codificado.lerBits(0, 14) == 0b11101111000111;
+    });
+
+    // Teste 30.2: Sem erros a decodificacao devolve os dados, em varios tamanhos
+    testar("Viterbi devolve os dados sem erros (quadros curtos e longos)", () -> {
+      java.util.Random random = new java.util.Random(30);
+      for (int tamanho : new int[] { 1, 5, 57, 58, 121, 122, 123, 200, 1000, 4099 }) {
+        BitBuffer dados = quadroAleatorio(random, tamanho);
+        BitBuffer codificado = CodigoConvolucional.codificar(dados);
+        BitBuffer decodificado = new BitBuffer(tamanho);
+        if (!CodigoConvolucional.tamanhoValido(codificado.tamanho())
+            || CodigoConvolucional.decodificar(codificado, decodificado) != 0 || !mesmosBits(decodificado, dados))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 30.3: Erros espalhados (distancia livre 10) sao corrigidos
+    testar("Viterbi corrige erros espalhados pelo sinal", () -> {
+      java.util.Random random = new java.util.Random(300);
+      for (int tentativa = 0; tentativa < 100; tentativa++) {
+        int tamanho = 50 + random.nextInt(2000);
+        BitBuffer dados = quadroAleatorio(random, tamanho);
+        BitBuffer codificado = CodigoConvolucional.codificar(dados);
+        // um erro a cada 40 bits do sinal, em posicao sorteada dentro do trecho
+        int erros = 0;
+        for (int inicio = 0; inicio + 40 <= codificado.tamanho(); inicio += 40) {
+          codificado.inverterBit(inicio + random.nextInt(40));
+          erros++;
+        }
+        BitBuffer decodificado = new BitBuffer(tamanho);
+        if (CodigoConvolucional.decodificar(codificado, decodificado) != erros || !mesmosBits(decodificado, dados))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static void testarEntrelacador() {
+    System.out.println("\n【TESTE 31】 Entrelacador - Bloco Linhas x Colunas");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 31.1: Leitura por colunas de uma matriz conhecida
+    testar("Matriz 2x4 é lida coluna por coluna", () -> {
+      BitBuffer quadro = new BitBuffer(8);
+      quadro.anexarBits(0b11110000, 8); // linhas 1111 e 0000
+      BitBuffer entrelacado = Entrelacador.entrelacar(quadro, 2);
+      return entrelacado.tamanho() == 8 && entrelacado.lerBits(0, 8) == 0b10101010;
+    });
+
+    // Teste 31.2: Desentrelacar desfaz o entrelacamento, inclusive com a ultima
+    // linha incompleta
+    testar("Desentrelaçamento devolve o quadro original", () -> {
+      java.util.Random random = new java.util.Random(31);
+      for (int linhas : new int[] { 8, 16, 32 }) {
+        for (int tamanho = 1; tamanho < 700; tamanho += 23) {
+          BitBuffer quadro = quadroAleatorio(random, tamanho);
+          BitBuffer entrelacado = Entrelacador.entrelacar(quadro, linhas);
+          if (!mesmosBits(Entrelacador.desentrelacar(entrelacado, linhas), quadro))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 31.3: Uma rajada no meio vira um erro por bloco SECDED, todos corrigidos
+    testar("Rajada de 8 bits vira erros isolados que o SECDED corrige", () -> {
+      java.util.Random random = new java.util.Random(310);
+      BitBuffer dados = quadroAleatorio(random, 512);
+      BitBuffer protegido = CodigoHammingSECDED.codificar(dados); // 8 blocos de 72 bits
+      BitBuffer entrelacado = Entrelacador.entrelacar(protegido, 8);
+      for (int i = 200; i < 208; i++) {
+        entrelacado.inverterBit(i);
+      }
+      BitBuffer recebido = Entrelacador.desentrelacar(entrelacado, 8);
+      return CodigoHammingSECDED.corrigir(recebido) == 8 && mesmosBits(CodigoHammingSECDED.extrairDados(recebido), dados);
+    });
+  }
+
+  private static void testarSomasDeVerificacao() {
+    System.out.println("\n【TESTE 32】 Somas de Verificacao - Internet, Fletcher-32, Adler-32");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 32.1: Exemplo numerico da RFC 1071 (soma 0xDDF2, checksum 0x220D)
+    testar("Checksum da Internet bate com o exemplo da RFC 1071", () -> {
+      BitBuffer quadro = new BitBuffer(64);
+      quadro.anexarBitsLong(0x0001F203F4F5F6F7L, 64);
+      return SomaDeVerificacao.SOMA_INTERNET.calcular(quadro, 64) == 0x220D;
+    });
+
+    // Teste 32.2: Adler-32 igual ao da plataforma em quadros de bytes inteiros
+    testar("Adler-32 igual ao java.util.zip.Adler32", () -> {
+      java.util.Random random = new java.util.Random(32);
+      for (int bytes = 0; bytes < 40000; bytes = 2 * bytes + 1 + random.nextInt(7)) {
+        BitBuffer quadro = quadroAleatorio(random, 8 * bytes);
+        byte[] dados = new byte[bytes];
+        for (int i = 0; i < bytes; i++) {
+          dados[i] = (byte) quadro.lerBits(8 * i, 8);
+        }
+        java.util.zip.Adler32 adler = new java.util.zip.Adler32();
+        adler.update(dados, 0, bytes);
+        if (SomaDeVerificacao.SOMA_ADLER_32.calcular(quadro, 8 * bytes) != adler.getValue())
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 32.3: Fletcher-32 igual a soma feita palavra por palavra, inclusive com
+    // a ultima palavra incompleta e com o resto adiado em quadros grandes
+    testar("Fletcher-32 igual ao calculo palavra por palavra", () -> {
+      java.util.Random random = new java.util.Random(320);
+      for (int tamanho = 1; tamanho < 400000; tamanho = 3 * tamanho + random.nextInt(17)) {
+        BitBuffer quadro = quadroAleatorio(random, tamanho);
+        long soma1 = 0, soma2 = 0;
+        for (int posicao = 0; posicao < tamanho; posicao += 16) {
+          int bits = Math.min(16, tamanho - posicao);
+          soma1 = (soma1 + (quadro.lerBits(posicao, bits) << (16 - bits))) % 65535;
+          soma2 = (soma2 + soma1) % 65535;
+        }
+        if (SomaDeVerificacao.SOMA_FLETCHER_32.calcular(quadro, tamanho) != ((soma2 << 16) | soma1))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 32.4: Qualquer bit invertido muda as tres somas
+    testar("Erro de 1 bit é detectado pelas três somas", () -> {
+      BitBuffer quadro = quadroAleatorio(new java.util.Random(3200), 300);
+      for (int algoritmo = 0; algoritmo < 3; algoritmo++) {
+        SomaDeVerificacao soma = SomaDeVerificacao.predefinida(algoritmo);
+        long original = soma.calcular(quadro, 300);
+        for (int i = 0; i < 300; i++) {
+          quadro.inverterBit(i);
+          boolean igual = soma.calcular(quadro, 300) == original;
+          quadro.inverterBit(i);
+          if (igual)
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarBuscaDeBytes() {
+    System.out.println("\n【TESTE 33】 Busca de Bytes em Palavras de 64 bits (SWAR)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 33.1: Marca exatamente os bytes iguais, sem falso positivo nos vizinhos
+    testar("Marca só os bytes iguais ao procurado", () -> {
+      long palavra = 0x7E017D7E00FF7F7EL;
+      return ManipulacaoBits.marcarBytesIguais(palavra, 0x7E) == 0x8000008000000080L
+          && ManipulacaoBits.marcarBytesIguais(palavra, 0x7D) == 0x0000800000000000L
+          && ManipulacaoBits.marcarBytesIguais(palavra, 0x00) == 0x0000000080000000L;
+    });
+
+    // Teste 33.2: Igual a comparacao byte a byte em palavras aleatorias
+    testar("Igual à comparação byte a byte", () -> {
+      java.util.Random random = new java.util.Random(33);
+      for (int i = 0; i < 100000; i++) {
+        long palavra = random.nextLong();
+        int procurado = random.nextInt(256);
+        if (random.nextBoolean()) { // garante alguns acertos
+          int byteAlvo = random.nextInt(8);
+          palavra = (palavra & ~(0xFFL << (8 * byteAlvo))) | ((long) procurado << (8 * byteAlvo));
+        }
+        long esperado = 0;
+        for (int b = 0; b < 8; b++) {
+          if (((palavra >>> (8 * b)) & 0xFF) == procurado) {
+            esperado |= 0x80L << (8 * b);
+          }
+        }
+        if (ManipulacaoBits.marcarBytesIguais(palavra, procurado) != esperado)
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static void testarInsercaoDeBits() {
+    System.out.println("\n【TESTE 34】 Insercao de Bits por Tabela (HDLC)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 34.1: 0xFF ganha um 0 depois do quinto bit 1, entre duas flags
+    testar("Byte 0xFF vira 111110111 entre flags", () -> {
+      BitBuffer quadro = new BitBuffer(8);
+      quadro.anexarBits(0xFF, 8);
+      BitBuffer enquadrado = InsercaoDeBits.enquadrar(quadro);
+      return enquadrado.tamanho() == 25 && enquadrado.lerBits(0, 25) == ((0x7E << 17) | (0b111110111 << 8) | 0x7E);
+    });
+
+    // Teste 34.2: A contagem de bits 1 recomeca em cada flag, dos dois lados
+    testar("Subquadros terminados e iniciados em 1 voltam iguais", () -> {
+      BitBuffer quadro = new BitBuffer(64);
+      quadro.anexarBitsLong(0x0000000FF0000000L, 64); // 4 uns no fim do 1o subquadro, 4 no inicio do 2o
+      return mesmosBits(InsercaoDeBits.desenquadrar(InsercaoDeBits.enquadrar(quadro)), quadro);
+    });
+
+    // Teste 34.3: Ida e volta com muitos bytes 0xFF e 0x7E na carga util
+    testar("Desenquadrar desfaz o enquadrar", () -> {
+      java.util.Random random = new java.util.Random(34);
+      for (int i = 0; i < 2000; i++) {
+        int bytes = 1 + random.nextInt(100);
+        BitBuffer quadro = new BitBuffer(8 * bytes);
+        for (int b = 0; b < bytes; b++) {
+          int sorteio = random.nextInt(4);
+          quadro.anexarBits(sorteio == 0 ? 0xFF : sorteio == 1 ? 0x7E : random.nextInt(256), 8);
+        }
+        if (!mesmosBits(InsercaoDeBits.desenquadrar(InsercaoDeBits.enquadrar(quadro)), quadro))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static void testarEnquadramentoCOBS() {
+    System.out.println("\n【TESTE 35】 Enquadramento COBS");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 35.1: Exemplos classicos de codificacao
+    testar("Exemplos conhecidos de COBS", () -> {
+      int[][][] casos = {
+          { { 0x00 }, { 0x01, 0x01, 0x00 } },
+          { { 0x00, 0x00 }, { 0x01, 0x01, 0x01, 0x00 } },
+          { { 0x11, 0x22, 0x00, 0x33 }, { 0x03, 0x11, 0x22, 0x02, 0x33, 0x00 } },
+          { { 0x11, 0x22, 0x33, 0x44 }, { 0x05, 0x11, 0x22, 0x33, 0x44, 0x00 } },
+          { { 0x11, 0x00, 0x00, 0x00 }, { 0x02, 0x11, 0x01, 0x01, 0x01, 0x00 } } };
+      for (int[][] caso : casos) {
+        BitBuffer enquadrado = EnquadramentoCOBS.enquadrar(bytesParaQuadro(caso[0]));
+        if (!mesmosBits(enquadrado, bytesParaQuadro(caso[1])))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 35.2: Trechos de 254 bytes sem zero usam o codigo 0xFF
+    testar("Trecho cheio vira codigo 0xFF sem zero implícito", () -> {
+      int[] dados = new int[255];
+      for (int i = 0; i < 255; i++) {
+        dados[i] = i + 1; // 0x01 a 0xFF
+      }
+      BitBuffer enquadrado = EnquadramentoCOBS.enquadrar(bytesParaQuadro(dados));
+      BitBuffer soOsPrimeiros = EnquadramentoCOBS.enquadrar(bytesParaQuadro(Arrays.copyOf(dados, 254)));
+      return enquadrado.tamanho() == 8 * 258 && enquadrado.lerBits(0, 8) == 0xFF
+          && enquadrado.lerBits(8 * 255, 24) == 0x02FF00
+          && soOsPrimeiros.tamanho() == 8 * 256 && soOsPrimeiros.lerBits(8 * 255, 8) == 0x00
+          && mesmosBits(EnquadramentoCOBS.desenquadrar(enquadrado), bytesParaQuadro(dados));
+    });
+
+    // Teste 35.3: Ida e volta e limite de tamanho em quadros aleatorios com muitos zeros
+    testar("Desenquadrar desfaz o enquadrar dentro do limite de tamanho", () -> {
+      java.util.Random random = new java.util.Random(35);
+      for (int i = 0; i < 2000; i++) {
+        int[] dados = new int[1 + random.nextInt(1200)];
+        for (int b = 0; b < dados.length; b++) {
+          dados[b] = random.nextInt(3) == 0 ? 0 : 1 + random.nextInt(255);
+        }
+        if (i % 3 == 0) {
+          Arrays.fill(dados, 1 + random.nextInt(255)); // sem nenhum zero
+        }
+        BitBuffer quadro = bytesParaQuadro(dados);
+        BitBuffer enquadrado = EnquadramentoCOBS.enquadrar(quadro);
+        if (enquadrado.tamanho() > 8 * EnquadramentoCOBS.tamanhoMaximoEmBytes(dados.length)
+            || !mesmosBits(EnquadramentoCOBS.desenquadrar(enquadrado), quadro))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static BitBuffer bytesParaQuadro(int[] bytes) {
+    BitBuffer quadro = new BitBuffer(8 * bytes.length);
+    for (int umByte : bytes) {
+      quadro.anexarBits(umByte, 8);
+    }
+    return quadro;
+  }
+
+  private static void testarAgregacaoDeQuadros() {
+    System.out.println("\n【TESTE 36】 Agregação de Quadros e ACK em Bloco");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 36.1: Subquadros de tamanhos quaisquer voltam iguais e na ordem
+    testar("Desagregar devolve os subquadros agregados", () -> {
+      java.util.Random random = new java.util.Random(36);
+      for (int i = 0; i < 500; i++) {
+        java.util.List<BitBuffer> subquadros = new java.util.ArrayList<>();
+        for (int q = 1 + random.nextInt(6); q > 0; q--) {
+          BitBuffer subquadro = new BitBuffer();
+          for (int b = 1 + random.nextInt(400); b > 0; b--) {
+            subquadro.anexarBits(random.nextInt(2), 1);
+          }
+          subquadros.add(subquadro);
+        }
+        java.util.List<BitBuffer> separados = AgregacaoDeQuadros.desagregar(AgregacaoDeQuadros.agregar(subquadros));
+        if (separados.size() != subquadros.size())
+          return false;
+        for (int q = 0; q < subquadros.size(); q++) {
+          if (!mesmosBits(separados.get(q), subquadros.get(q)))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 36.2: Um delimitador corrompido so perde o proprio subquadro
+    testar("Delimitador com erro eh pulado e os outros subquadros chegam", () -> {
+      java.util.List<BitBuffer> subquadros = new java.util.ArrayList<>();
+      subquadros.add(bytesParaQuadro(new int[] { 0x11, 0x22, 0x33 }));
+      subquadros.add(bytesParaQuadro(new int[] { 0x4E, 0x4E, 0x4E, 0x4E, 0x4E }));
+      subquadros.add(bytesParaQuadro(new int[] { 0x44 }));
+      BitBuffer agregado = AgregacaoDeQuadros.agregar(subquadros);
+      agregado.inverterBit(AgregacaoDeQuadros.TAMANHO_DELIMITADOR_EM_BITS + 24 + 5); // tamanho do segundo
+      java.util.List<BitBuffer> separados = AgregacaoDeQuadros.desagregar(agregado);
+      return separados.size() == 2 && mesmosBits(separados.get(0), subquadros.get(0))
+          && mesmosBits(separados.get(1), subquadros.get(2));
+    });
+
+    // Teste 36.3: ACK em bloco guarda a sequencia inicial e o mapa
+    testar("ACK em bloco com sequência inicial e mapa", () -> {
+      BitBuffer bloco = ManipulacaoBits.montarQuadroBlocoDeAcks(new BitBuffer(32), 6, 0b1011);
+      BitBuffer ackSimples = ManipulacaoBits.montarQuadroAck(new BitBuffer(32), 6);
+      BitBuffer dados = ManipulacaoBits.anexarCabecalho(bytesParaQuadro(new int[] { 0xFF }), 6);
+      return ManipulacaoBits.ehBlocoDeAcks(bloco) && ManipulacaoBits.ehAck(bloco) && !ManipulacaoBits.ehNack(bloco)
+          && ManipulacaoBits.lerSequenciaInicialDoBlocoDeAcks(bloco) == 6
+          && ManipulacaoBits.lerMapaDoBlocoDeAcks(bloco) == 0b1011
+          && !ManipulacaoBits.ehBlocoDeAcks(ackSimples) && !ManipulacaoBits.ehBlocoDeAcks(dados);
+    });
+  }
+
+  private static void testarSeparadorDeSubquadros() {
+    System.out.println("\n【TESTE 37】 Separação em Subquadros (fluxo em pedaços)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 37.1: Um quadro COBS sai na entrega que traz o 0 do fim dele
+    testar("Quadro COBS dividido em duas entregas sai quando o 0 chega", () -> {
+      BitBuffer fluxo = EnquadramentoCOBS.enquadrar(bytesParaQuadro(new int[] { 0x11, 0x00, 0x22 }));
+      fluxo.anexar(EnquadramentoCOBS.enquadrar(bytesParaQuadro(new int[] { 0x33 })));
+      SeparadorDeSubquadros separador = new SeparadorDeSubquadros(SeparadorDeSubquadros.COBS);
+      java.util.List<BitBuffer> primeira = separador.receber(fluxo.fatia(0, 13)); // corta no meio de um byte
+      java.util.List<BitBuffer> segunda = separador.receber(fluxo.fatia(13, 8 * 5 - 13)); // ate o 1o delimitador
+      java.util.List<BitBuffer> terceira = separador.receber(fluxo.fatia(8 * 5, fluxo.tamanho() - 8 * 5));
+      return primeira.isEmpty() && segunda.size() == 1 && terceira.size() == 1
+          && mesmosBits(segunda.get(0), bytesParaQuadro(new int[] { 0x11, 0x00, 0x22 }))
+          && mesmosBits(terceira.get(0), bytesParaQuadro(new int[] { 0x33 })) && separador.finalizar() == null;
+    });
+
+    // Teste 37.2: Em pedacos aleatorios do quadro que sai da enlace transmissora,
+    // os subquadros juntos sao o que a enlace receptora desenquadra de uma vez
+    testar("Pedaços aleatórios dão os subquadros da enlace em todos os enquadramentos", () -> {
+      java.util.Random random = new java.util.Random(37);
+      int[] tipos = { SeparadorDeSubquadros.CONTAGEM_DE_CARACTERES, SeparadorDeSubquadros.INSERCAO_DE_BYTES,
+          SeparadorDeSubquadros.INSERCAO_DE_BITS, SeparadorDeSubquadros.COBS };
+      for (int tipo : tipos) {
+        ControleDeTeste controle = new ControleDeTeste(tipo, 0, 0, 4, 0);
+        CamadaEnlaceDadosTransmissora transmissora = new CamadaEnlaceDadosTransmissora(null, controle);
+        CamadaEnlaceDadosReceptora receptora = new CamadaEnlaceDadosReceptora(null, controle);
+        for (int i = 0; i < 300; i++) {
+          int[] dados = new int[1 + random.nextInt(60)];
+          for (int b = 0; b < dados.length; b++) {
+            int sorteio = random.nextInt(5);
+            dados[b] = sorteio == 0 ? 0x7E : sorteio == 1 ? 0x7D : sorteio == 2 ? 0x00 : random.nextInt(256);
+          }
+          BitBuffer fluxo = transmissora.CamadaEnlaceDadosTransmissoraEnquadramento(bytesParaQuadro(dados));
+          BitBuffer desenquadrado = receptora.CamadaEnlaceDadosReceptoraEnquadramento(fluxo.copia());
+          SeparadorDeSubquadros separador = new SeparadorDeSubquadros(tipo);
+          BitBuffer juntos = new BitBuffer();
+          int subquadros = 0;
+          for (int posicao = 0; posicao < fluxo.tamanho();) {
+            int pedaco = Math.min(1 + random.nextInt(40), fluxo.tamanho() - posicao);
+            for (BitBuffer subquadro : separador.receber(fluxo.fatia(posicao, pedaco))) {
+              if (tipo != SeparadorDeSubquadros.COBS && subquadro.tamanho() > 32)
+                return false;
+              juntos.anexar(subquadro);
+              subquadros++;
+            }
+            posicao += pedaco;
+          }
+          // contagem, bytes e bits fecham um subquadro a cada 4 bytes, sem marcar o
+          // fim do quadro; o COBS so fecha no 0 do fim, entao devolve o quadro todo
+          int esperados = (tipo == SeparadorDeSubquadros.COBS) ? 1 : (dados.length + 3) / 4;
+          if (subquadros != esperados || !mesmosBits(juntos, desenquadrado)
+              || !mesmosBits(juntos, bytesParaQuadro(dados)) || separador.finalizar() != null)
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarCodificacaoManchester() {
+    System.out.println("\n【TESTE 38】 Manchester por Tabela");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 38.1: Mesmo sinal da regra bit a bit (1 -> 10, 0 -> 01) e ida e volta
+    testar("Tabela igual à regra bit a bit e decodificação inversa", () -> {
+      java.util.Random random = new java.util.Random(38);
+      for (int i = 0; i < 2000; i++) {
+        int totalBits = random.nextInt(300);
+        BitBuffer quadro = new BitBuffer();
+        BitBuffer esperado = new BitBuffer();
+        for (int b = 0; b < totalBits; b++) {
+          int bit = random.nextInt(2);
+          quadro.anexarBits(bit, 1);
+          esperado.anexarBits(bit == 1 ? 0b10 : 0b01, 2);
+        }
+        BitBuffer sinal = CodificacaoManchester.codificar(quadro);
+        BitBuffer decodificado = new BitBuffer();
+        if (!mesmosBits(sinal, esperado) || CodificacaoManchester.decodificar(sinal, decodificado) != -1
+            || !mesmosBits(decodificado, quadro))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 38.2: Qualquer bit invertido cria um par 00 ou 11 na posicao certa
+    testar("Par inválido é apontado na posição do erro", () -> {
+      java.util.Random random = new java.util.Random(380);
+      for (int i = 0; i < 2000; i++) {
+        BitBuffer quadro = new BitBuffer();
+        for (int b = 1 + random.nextInt(200); b > 0; b--) {
+          quadro.anexarBits(random.nextInt(2), 1);
+        }
+        BitBuffer sinal = CodificacaoManchester.codificar(quadro);
+        int erro = random.nextInt(sinal.tamanho());
+        sinal.inverterBit(erro);
+        if (CodificacaoManchester.decodificar(sinal, new BitBuffer()) != (erro & ~1))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static void testarManchesterDiferencial() {
+    System.out.println("\n【TESTE 39】 Manchester Diferencial por Tabela");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 39.1: Mesmo sinal da versao bit a bit, com o nivel passando entre bytes
+    testar("Codificação igual à versão bit a bit e ida e volta", () -> {
+      java.util.Random random = new java.util.Random(39);
+      for (int i = 0; i < 2000; i++) {
+        BitBuffer quadro = new BitBuffer();
+        BitBuffer esperado = new BitBuffer();
+        int nivel = 1;
+        for (int b = random.nextInt(300); b > 0; b--) {
+          int bit = random.nextInt(2);
+          quadro.anexarBits(bit, 1);
+          if (bit == 0) {
+            nivel = 1 - nivel;
+          }
+          esperado.anexarBits(nivel, 1);
+          nivel = 1 - nivel;
+          esperado.anexarBits(nivel, 1);
+        }
+        BitBuffer sinal = CodificacaoManchester.codificarDiferencial(quadro);
+        if (!mesmosBits(sinal, esperado) || !mesmosBits(CodificacaoManchester.decodificarDiferencial(sinal), quadro))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 39.2: Qualquer sinal, ate com erros e bit sobrando, decodifica como
+    // na versao bit a bit
+    testar("Decodificação de sinal qualquer igual à versão bit a bit", () -> {
+      java.util.Random random = new java.util.Random(390);
+      for (int i = 0; i < 2000; i++) {
+        BitBuffer sinal = new BitBuffer();
+        for (int b = random.nextInt(301); b > 0; b--) {
+          sinal.anexarBits(random.nextInt(2), 1);
+        }
+        BitBuffer esperado = new BitBuffer();
+        int nivelAnterior = 1;
+        for (int b = 0; b + 1 < sinal.tamanho(); b += 2) {
+          esperado.anexarBits(sinal.lerBits(b, 1) == nivelAnterior ? 1 : 0, 1);
+          nivelAnterior = sinal.lerBits(b + 1, 1);
+        }
+        if (!mesmosBits(CodificacaoManchester.decodificarDiferencial(sinal), esperado))
+          return false;
+      }
+      return true;
+    });
+  }
+
+  private static void testarCodificacoesDeBloco() {
+    System.out.println("\n【TESTE 40】 Codificações 4B/5B e 8B/10B");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 40.1: Ida e volta com qualquer tamanho, inclusive sem bytes inteiros
+    testar("4B/5B e 8B/10B: ida e volta com 25% de sinais a mais", () -> {
+      java.util.Random random = new java.util.Random(40);
+      for (int i = 0; i < 2000; i++) {
+        int totalBits = random.nextInt(400);
+        BitBuffer quadro = new BitBuffer();
+        for (int b = 0; b < totalBits; b++) {
+          quadro.anexarBits(random.nextInt(2), 1);
+        }
+        BitBuffer sinal4B5B = Codificacao4B5B.codificar(quadro);
+        BitBuffer sinal8B10B = Codificacao8B10B.codificar(quadro);
+        BitBuffer volta4B5B = new BitBuffer();
+        BitBuffer volta8B10B = new BitBuffer();
+        if (sinal4B5B.tamanho() != Codificacao4B5B.tamanhoDoSinal(totalBits)
+            || sinal8B10B.tamanho() != Codificacao8B10B.tamanhoDoSinal(totalBits)
+            || Codificacao4B5B.decodificar(sinal4B5B, volta4B5B) != -1
+            || Codificacao8B10B.decodificar(sinal8B10B, volta8B10B) != -1 || !mesmosBits(volta4B5B, quadro)
+            || !mesmosBits(volta8B10B, quadro))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 40.2: Simbolos conhecidos do 8B/10B: K28.5 abre o quadro, D21.5 e
+    // D0.0 com disparidade positiva e K28.0 fecha um quadro de bytes inteiros
+    testar("8B/10B gera os símbolos da tabela padrão", () -> {
+      BitBuffer quadro = new BitBuffer();
+      quadro.anexarBits((5 << 5) | 21, 8);
+      quadro.anexarBits(0, 8);
+      BitBuffer sinal = Codificacao8B10B.codificar(quadro);
+      return sinal.tamanho() == 40 && sinal.lerBits(0, 10) == 0b0011111010
+          && sinal.lerBits(10, 10) == 0b1010101010 && sinal.lerBits(20, 10) == 0b0110001011
+          && sinal.lerBits(30, 10) == 0b1100001011;
+    });
+
+    // Teste 40.3: Disparidade corrente sempre -1 ou +1 nas fronteiras dos simbolos
+    // e nunca mais de 5 sinais iguais seguidos
+    testar("8B/10B mantém a disparidade e limita sinais iguais seguidos", () -> {
+      java.util.Random random = new java.util.Random(400);
+      for (int i = 0; i < 500; i++) {
+        BitBuffer quadro = new BitBuffer();
+        for (int b = 8 * random.nextInt(64); b > 0; b--) {
+          quadro.anexarBits(random.nextInt(4) == 0 ? 1 : 0, 1); // poucos uns, para forcar a disparidade
+        }
+        BitBuffer sinal = Codificacao8B10B.codificar(quadro);
+        int soma = 0;
+        int iguais = 0;
+        for (int b = 0; b < sinal.tamanho(); b++) {
+          int bit = sinal.lerBits(b, 1);
+          soma += (bit == 1) ? 1 : -1;
+          iguais = (b > 0 && bit == sinal.lerBits(b - 1, 1)) ? iguais + 1 : 1;
+          if (iguais > 5 || ((b + 1) % 10 == 0 && soma != 0 && soma != 2))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 40.4: Um bit trocado nunca devolve os mesmos dados sem avisar (quadro
+    // sem bits de preenchimento, que podem mudar sem afetar os dados)
+    testar("Erro de 1 bit é recusado ou muda os dados", () -> {
+      BitBuffer quadro = new BitBuffer();
+      quadro.anexarBits(0x5A3CA5, 24);
+      for (int tipo = 0; tipo < 2; tipo++) {
+        BitBuffer sinal = (tipo == 0) ? Codificacao4B5B.codificar(quadro) : Codificacao8B10B.codificar(quadro);
+        for (int b = 0; b < sinal.tamanho(); b++) {
+          BitBuffer comErro = sinal.copia();
+          comErro.inverterBit(b);
+          BitBuffer decodificado = new BitBuffer();
+          int posicao = (tipo == 0) ? Codificacao4B5B.decodificar(comErro, decodificado)
+              : Codificacao8B10B.decodificar(comErro, decodificado);
+          if (posicao == -1 && mesmosBits(decodificado, quadro))
+            return false;
+        }
+      }
+      return true;
+    });
+  }
+
+  private static void testarCodificacoesMultinivel() {
+    System.out.println("\n【TESTE 41】 NRZI, MLT-3 e PAM-4");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 41.1: Mesmo sinal da regra bit a bit e ida e volta nas 3 codificacoes
+    testar("Codificação igual à regra bit a bit e ida e volta", () -> {
+      java.util.Random random = new java.util.Random(41);
+      int[] ciclo = { 0, 1, 0, -1 };
+      for (int i = 0; i < 2000; i++) {
+        int totalBits = random.nextInt(300);
+        BitBuffer quadro = new BitBuffer();
+        BitBuffer esperadoNRZI = new BitBuffer();
+        int[] esperadoMLT3 = new int[totalBits];
+        int nivel = 0;
+        int estado = 0;
+        for (int b = 0; b < totalBits; b++) {
+          int bit = random.nextInt(2);
+          quadro.anexarBits(bit, 1);
+          nivel ^= bit;
+          esperadoNRZI.anexarBits(nivel, 1);
+          estado = (estado + bit) & 3;
+          esperadoMLT3[b] = ciclo[estado];
+        }
+        BitBuffer nrzi = CodificacaoNRZI.codificar(quadro);
+        int[] mlt3 = CodificacaoMultinivel.codificarMLT3(quadro);
+        int[] pam4 = CodificacaoMultinivel.codificarPAM4(quadro);
+        BitBuffer voltaMLT3 = new BitBuffer();
+        BitBuffer voltaPAM4 = new BitBuffer();
+        if (!mesmosBits(nrzi, esperadoNRZI) || !mesmosBits(CodificacaoNRZI.decodificar(nrzi), quadro)
+            || !java.util.Arrays.equals(mlt3, esperadoMLT3)
+            || CodificacaoMultinivel.decodificarMLT3(mlt3, voltaMLT3) != -1 || !mesmosBits(voltaMLT3, quadro)
+            || pam4.length != (totalBits + 1) / 2 + totalBits % 2
+            || CodificacaoMultinivel.decodificarPAM4(pam4, voltaPAM4) != -1 || !mesmosBits(voltaPAM4, quadro))
+          return false;
+      }
+      return true;
+    });
+
+    // Teste 41.2: No PAM-4 em codigo Gray um nivel vizinho muda exatamente 1 bit
+    testar("PAM-4: erro para o nível vizinho troca só 1 bit", () -> {
+      BitBuffer quadro = new BitBuffer();
+      quadro.anexarBits(0b00011110, 8); // passa pelos 4 niveis
+      int[] simbolos = CodificacaoMultinivel.codificarPAM4(quadro);
+      for (int i = 0; i < simbolos.length; i++) {
+        for (int passo = -2; passo <= 2; passo += 4) {
+          int[] comErro = simbolos.clone();
+          comErro[i] += passo;
+          if (comErro[i] < -3 || comErro[i] > 3)
+            continue;
+          BitBuffer decodificado = new BitBuffer();
+          if (CodificacaoMultinivel.decodificarPAM4(comErro, decodificado) != -1
+              || Integer.bitCount(decodificado.lerBits(0, 8) ^ quadro.lerBits(0, 8)) != 1)
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 41.3: No MLT-3 um simbolo fora da ordem do ciclo eh recusado
+    testar("MLT-3: símbolo fora do ciclo é apontado", () -> {
+      int[] simbolos = { 0, 1, 1, 0, -1, -1, 0, 1 };
+      int[] foraDoCiclo = { 0, 1, 1, 0, 1, -1, 0, 1 }; // depois de +1 e 0 vem -1
+      BitBuffer decodificado = new BitBuffer();
+      return CodificacaoMultinivel.decodificarMLT3(simbolos, decodificado) == -1
+          && decodificado.lerBits(0, 8) == 0b01011011
+          && CodificacaoMultinivel.decodificarMLT3(foraDoCiclo, new BitBuffer()) == 4;
+    });
+  }
+
+  private static void testarManchesterPorTrecho() {
+    System.out.println("\n【TESTE 42】 Manchester por Trecho (Violação da Camada Física)");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 42.1: Trechos codificados em sequencia no mesmo sinal, entre
+    // violacoes, voltam iguais lidos direto do sinal
+    testar("Trechos entre violações codificados e lidos sem cópia", () -> {
+      java.util.Random random = new java.util.Random(42);
+      for (int i = 0; i < 1000; i++) {
+        BitBuffer quadro = new BitBuffer();
+        for (int b = 1 + random.nextInt(200); b > 0; b--) {
+          quadro.anexarBits(random.nextInt(2), 1);
+        }
+        for (int tipo = 1; tipo <= 2; tipo++) {
+          BitBuffer sinal = new BitBuffer();
+          BitBuffer volta = new BitBuffer();
+          for (int inicio = 0; inicio < quadro.tamanho(); inicio += 32) {
+            int bits = Math.min(32, quadro.tamanho() - inicio);
+            sinal.anexarBits(0b1111, 4);
+            int inicioNoSinal = sinal.tamanho();
+            BitBuffer trecho = quadro.fatia(inicio, bits);
+            BitBuffer esperado = (tipo == 1) ? CodificacaoManchester.codificar(trecho)
+                : CodificacaoManchester.codificarDiferencial(trecho);
+            if (tipo == 1) {
+              CodificacaoManchester.codificar(quadro, inicio, bits, sinal);
+              if (CodificacaoManchester.decodificar(sinal, inicioNoSinal, bits, volta) != -1)
+                return false;
+            } else {
+              CodificacaoManchester.codificarDiferencial(quadro, inicio, bits, sinal);
+              CodificacaoManchester.decodificarDiferencial(sinal, inicioNoSinal, bits, volta);
+            }
+            if (!mesmosBits(sinal.fatia(inicioNoSinal, 2 * bits), esperado))
+              return false;
+          }
+          if (!mesmosBits(volta, quadro))
+            return false;
+        }
+      }
+      return true;
+    });
+
+    // Teste 42.2: Par invalido em um trecho eh apontado na posicao do sinal todo
+    testar("Par inválido no trecho aponta a posição no sinal", () -> {
+      BitBuffer quadro = new BitBuffer();
+      quadro.anexarBits(0xC3A5, 16);
+      BitBuffer sinal = new BitBuffer();
+      sinal.anexarBits(0b1111, 4);
+      CodificacaoManchester.codificar(quadro, 0, 16, sinal);
+      sinal.inverterBit(4 + 2 * 9 + 1);
+      return CodificacaoManchester.decodificar(sinal, 4, 16, new BitBuffer()) == 4 + 2 * 9;
+    });
+  }
+
+  private static void testarMensagensMaioresQueOMTU() {
+    System.out.println("\n【TESTE 43】 Enlace - Mensagens Maiores que o MTU, Ponta a Ponta");
+    System.out.println("─────────────────────────────────────────────────────────────────");
+
+    // Teste 43.1 a 43.3: a mensagem eh dividida pelo MTU na transmissora e
+    // remontada na receptora em todos os enquadramentos, controles de erro e
+    // controles de fluxo, com e sem agregacao. Sao 9 ou 10 quadros, mais que a
+    // janela (4) e que o espaco de sequencia (8). A violacao so existe na camada
+    // fisica (TESTE 42), entao aqui o quadro dela passa sem as violacoes
+    for (int mtu : new int[] { 4, 64, 4096 }) {
+      testar("MTU de " + mtu + " bytes: todas as opções do enlace remontam a mensagem", () -> {
+        java.util.Random random = new java.util.Random(mtu);
+        for (int enquadramento = 0; enquadramento <= 4; enquadramento++) {
+          for (int controleErro = 0; controleErro <= 10; controleErro++) {
+            for (int fluxo = 0; fluxo <= 2; fluxo++) {
+              for (int agregacao = 0; agregacao <= 1; agregacao++) {
+                BitBuffer mensagem = new BitBuffer();
+                for (int b = 9 * mtu + 1 + random.nextInt(mtu); b > 0; b--) {
+                  mensagem.anexarBits(random.nextInt(256), 8);
+                }
+                ControleDeTeste controle = new ControleDeTeste(enquadramento, controleErro, fluxo, mtu, agregacao);
+                if (!mesmosBits(transmitirPeloEnlace(controle, mensagem), mensagem))
+                  return false;
+              }
+            }
+          }
+        }
+        return true;
+      });
+    }
+  }
+
+  /**
+   * liga duas pilhas de enlace (dados de A para B, ACKs de B para A) por um meio
+   * sem erros e sem codificacao, envia a mensagem e devolve o que chegou na
+   * aplicacao de B. A entrega eh sincrona, entao tudo ja chegou no retorno
+   */
+  private static BitBuffer transmitirPeloEnlace(ControleDeTeste controle, BitBuffer mensagem) throws Exception {
+    BitBuffer recebido = new BitBuffer();
+    CamadaAplicacaoReceptora aplicacaoB = new CamadaAplicacaoReceptora(null, controle) {
+      @Override
+      public void receberQuadro(BitBuffer quadro) {
+        recebido.anexar(quadro);
+      }
+    };
+    CamadaEnlaceDadosReceptora receptoraA = new CamadaEnlaceDadosReceptora(null, controle);
+    CamadaEnlaceDadosReceptora receptoraB = new CamadaEnlaceDadosReceptora(aplicacaoB, controle);
+    CamadaEnlaceDadosTransmissora transmissoraA = new CamadaEnlaceDadosTransmissora(
+        new LigacaoDireta(controle, receptoraB), controle);
+    CamadaEnlaceDadosTransmissora transmissoraB = new CamadaEnlaceDadosTransmissora(
+        new LigacaoDireta(controle, receptoraA), controle);
+    receptoraA.setCamadaEnlaceTransmissoraIrma(transmissoraA);
+    receptoraB.setCamadaEnlaceTransmissoraIrma(transmissoraB);
+
+    java.io.PrintStream saida = System.out; // as camadas imprimem cada passo
+    System.setOut(new java.io.PrintStream(new java.io.ByteArrayOutputStream()));
+    try {
+      transmissoraA.transmitirQuadro(mensagem.copia());
+    } finally {
+      transmissoraA.reset(); // cancela os timers que ainda estiverem ativos
+      transmissoraB.reset();
+      System.setOut(saida);
+    }
+    return recebido;
+  }
+
+  /**
+   * camada fisica que entrega uma copia do quadro direto na enlace do outro
+   * host, sem codificacao e sem a interface grafica
+   */
+  private static class LigacaoDireta extends CamadaFisicaTransmissora {
+    private final CamadaEnlaceDadosReceptora destino;
+
+    LigacaoDireta(ControlerTelaPrincipal controle, CamadaEnlaceDadosReceptora destino) {
+      super(controle);
+      this.destino = destino;
+    }
+
+    @Override
+    public void transmitirQuadro(BitBuffer quadro) throws ErroDeVerificacaoException {
+      destino.receberQuadro(quadro.copia());
+    }
+  }
+
+  /**
+   * opcoes da interface fixadas pelo teste
+   */
+  private static class ControleDeTeste extends ControlerTelaPrincipal {
+    private final int enquadramento, controleErro, fluxo, mtu, agregacao;
+
+    ControleDeTeste(int enquadramento, int controleErro, int fluxo, int mtu, int agregacao) {
+      this.enquadramento = enquadramento;
+      this.controleErro = controleErro;
+      this.fluxo = fluxo;
+      this.mtu = mtu;
+      this.agregacao = agregacao;
+    }
+
+    @Override
+    public int opcaoEnquadramentoSelecionada() {
+      return enquadramento;
+    }
+
+    @Override
+    public int opcaoControleErroSelecionada() {
+      return controleErro;
+    }
+
+    @Override
+    public int opcaoControleFluxoSelecionada() {
+      return fluxo;
+    }
+
+    @Override
+    public int getTamanhoMTUEmBytes() {
+      return mtu;
+    }
+
+    @Override
+    public int opcaoAgregacaoSelecionada() {
+      return agregacao;
+    }
+
+    @Override
+    public int opcaoAlgoritmoCRCSelecionada() {
+      return 0;
+    }
+
+    @Override
+    public int opcaoEntrelacamentoSelecionada() {
+      return 0;
+    }
+  }
+
   private static void testarCabecalhos() {
     System.out.println("\n【TESTE 5】 Cabeçalhos e Números de Sequência");
     System.out.println("─────────────────────────────────────────────────────────────────");
@@ -0,0 +1,107 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * classe que junta varios quadros ja prontos (enquadrados, com controle de erro
+ * e entrelacados) em uma unica transmissao, no estilo do A-MPDU do 802.11n:
+ * cada subquadro vem precedido de um delimitador de 40 bits com o tamanho dele
+ * em bits (24 bits), um CRC-8 desse tamanho e uma assinatura fixa, e eh
+ * completado com 0 ate um numero inteiro de bytes.
+ *
+ * Cada subquadro continua com o proprio controle de erro, entao um erro no meio
+ * derruba so o subquadro atingido. Se o erro cai em um delimitador a receptora
+ * procura o proximo byte a byte, aceitando so delimitadores com o CRC-8 e a
+ * assinatura certos, e aproveita o resto da agregacao.
+ */
+public class AgregacaoDeQuadros {
+
+  public static final int ASSINATURA = 0x4E; // mesmo valor do delimitador do A-MPDU, 'N' em ASCII
+  public static final int BITS_DO_TAMANHO = 24;
+  public static final int TAMANHO_DELIMITADOR_EM_BITS = BITS_DO_TAMANHO + 8 + 8; // tamanho, CRC-8 e assinatura
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private AgregacaoDeQuadros() {
+  } // fim do construtor
+
+  /**
+   * junta os subquadros, na ordem da lista, em um unico quadro
+   *
+   * @param subquadros quadros prontos para a camada fisica
+   * @return um quadro do pool com a agregacao
+   */
+  public static BitBuffer agregar(List<BitBuffer> subquadros) {
+    int capacidade = 0;
+    for (BitBuffer subquadro : subquadros) {
+      capacidade += TAMANHO_DELIMITADOR_EM_BITS + bitsComPreenchimento(subquadro.tamanho());
+    } // fim for
+
+    BitBuffer agregado = PoolDeBuffers.emprestar(capacidade);
+    for (BitBuffer subquadro : subquadros) {
+      int tamanho = subquadro.tamanho();
+      int posicaoDoDelimitador = agregado.tamanho();
+      agregado.anexarBits(tamanho, BITS_DO_TAMANHO);
+      agregado.anexarBits((int) crcDoTamanho(agregado, posicaoDoDelimitador), 8);
+      agregado.anexarBits(ASSINATURA, 8);
+      agregado.anexar(subquadro, 0, tamanho);
+      agregado.anexarBits(0, bitsComPreenchimento(tamanho) - tamanho);
+    } // fim for
+    return agregado;
+  } // fim do metodo agregar
+
+  /**
+   * separa a agregacao nos subquadros, pulando os trechos cujo delimitador nao
+   * confere
+   *
+   * @param agregado quadro recebido da camada fisica
+   * @return os subquadros, cada um em um quadro do pool, na ordem em que vieram
+   */
+  public static List<BitBuffer> desagregar(BitBuffer agregado) {
+    List<BitBuffer> subquadros = new ArrayList<>();
+    int totalBits = agregado.tamanho();
+    int posicao = 0;
+
+    while (posicao + TAMANHO_DELIMITADOR_EM_BITS <= totalBits) {
+      int tamanho = agregado.lerBits(posicao, BITS_DO_TAMANHO);
+      int inicioDoSubquadro = posicao + TAMANHO_DELIMITADOR_EM_BITS;
+
+      if (!delimitadorValido(agregado, posicao) || tamanho == 0 || tamanho > totalBits - inicioDoSubquadro) {
+        posicao += 8; // delimitador corrompido, procura o proximo no byte seguinte
+        continue;
+      }
+
+      BitBuffer subquadro = PoolDeBuffers.emprestar(tamanho);
+      subquadro.anexar(agregado, inicioDoSubquadro, tamanho);
+      subquadros.add(subquadro);
+      posicao = inicioDoSubquadro + bitsComPreenchimento(tamanho);
+    } // fim while
+
+    return subquadros;
+  } // fim do metodo desagregar
+
+  /**
+   * confere a assinatura e o CRC-8 do tamanho de um delimitador
+   */
+  private static boolean delimitadorValido(BitBuffer agregado, int posicao) {
+    return agregado.lerBits(posicao + BITS_DO_TAMANHO + 8, 8) == ASSINATURA
+        && agregado.lerBits(posicao + BITS_DO_TAMANHO, 8) == crcDoTamanho(agregado, posicao);
+  } // fim do metodo delimitadorValido
+
+  /**
+   * CRC-8 dos 24 bits de tamanho de um delimitador, lidos direto da agregacao
+   */
+  private static long crcDoTamanho(BitBuffer agregado, int posicao) {
+    return MotorCRC.CRC_8.calcular(agregado.fatia(posicao, BITS_DO_TAMANHO), BITS_DO_TAMANHO);
+  } // fim do metodo crcDoTamanho
+
+  /**
+   * tamanho do subquadro arredondado para cima ate um numero inteiro de bytes
+   */
+  private static int bitsComPreenchimento(int tamanho) {
+    return (tamanho + 7) & ~7;
+  } // fim do metodo bitsComPreenchimento
+
+} // fim da classe AgregacaoDeQuadros
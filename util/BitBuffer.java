@@ -0,0 +1,444 @@
+package util;
+
+/**
+ * classe que representa um quadro de bits com tamanho explicito. Os bits ficam
+ * agrupados em palavras de 64 bits (o bit de posicao 0 eh o bit 63 da primeira
+ * palavra, igual a ordem usada no ManipulacaoBits), e o tamanho eh guardado a
+ * parte, entao o quadro nunca precisa ser reinspecionado para descobrir quantos
+ * bits tem, e bits 0 no final da carga util nao se perdem.
+ *
+ * Possui um cursor de escrita (para anexar bits no fim) e um cursor de leitura
+ * (para consumir bits do inicio), alem de fatias que compartilham as mesmas
+ * palavras do quadro de origem sem copiar nada.
+ *
+ * O quadro pode reservar um espaco livre antes do primeiro bit, assim colocar
+ * ou tirar um cabecalho na frente so move o inicio, sem copiar a carga util.
+ */
+public class BitBuffer {
+
+  private static final int CAPACIDADE_PADRAO_EM_BITS = 64; // capacidade inicial quando nao informada
+
+  private long[] palavras; // armazenamento dos bits, 64 por palavra
+  private int inicio; // bit das palavras onde o quadro comeca (diferente de 0 nas fatias)
+  private int tamanho; // quantidade de bits validos no quadro
+  private int cursorLeitura; // proximo bit a ser consumido, relativo ao inicio
+  private int cursorEscrita; // proximo bit a ser anexado, relativo ao inicio
+  private boolean compartilhado; // fatias dividem as palavras com a origem e copiam antes de crescer
+  private boolean devolvido; // o quadro esta guardado no PoolDeBuffers esperando reuso
+
+  /**
+   * construtor da classe, cria um quadro vazio com a capacidade padrao
+   */
+  public BitBuffer() {
+    this(CAPACIDADE_PADRAO_EM_BITS);
+  } // fim do construtor
+
+  /**
+   * construtor da classe, cria um quadro vazio que comporta a quantidade de bits
+   * informada sem precisar crescer
+   *
+   * @param capacidadeEmBits quantos bits o quadro deve comportar
+   */
+  public BitBuffer(int capacidadeEmBits) {
+    this(capacidadeEmBits, 0);
+  } // fim do construtor
+
+  /**
+   * construtor da classe, cria um quadro vazio com espaco reservado na frente,
+   * para cabecalhos que serao colocados depois sem mover a carga util
+   *
+   * @param capacidadeEmBits quantos bits o quadro deve comportar
+   * @param espacoNaFrente   quantos bits reservar antes do primeiro bit
+   */
+  public BitBuffer(int capacidadeEmBits, int espacoNaFrente) {
+    this.palavras = new long[Math.max(1, (espacoNaFrente + capacidadeEmBits + 63) >>> 6)];
+    this.inicio = espacoNaFrente;
+  } // fim do construtor
+
+  /**
+   * construtor usado pelas fatias, compartilha as palavras do quadro de origem
+   *
+   * @param palavras as palavras compartilhadas
+   * @param inicio   bit das palavras onde a fatia comeca
+   * @param tamanho  quantidade de bits da fatia
+   */
+  private BitBuffer(long[] palavras, int inicio, int tamanho) {
+    this.palavras = palavras;
+    this.inicio = inicio;
+    this.tamanho = tamanho;
+    this.cursorEscrita = tamanho;
+    this.compartilhado = true;
+  } // fim do construtor
+
+  /**
+   * cria um quadro a partir de um array de inteiros no formato usado pelo
+   * ManipulacaoBits (32 bits por inteiro)
+   *
+   * @param origem      o array com os bits agrupados
+   * @param totalDeBits quantos bits do array fazem parte do quadro
+   * @return o quadro com exatamente totalDeBits bits
+   */
+  public static BitBuffer deArrayInt(int[] origem, int totalDeBits) {
+    BitBuffer quadro = new BitBuffer(totalDeBits);
+    int totalDePalavras = (totalDeBits + 63) >>> 6;
+
+    // junta os inteiros de 2 em 2 em cada palavra
+    for (int i = 0; i < totalDePalavras; i++) {
+      long alta = origem[2 * i] & 0xFFFFFFFFL;
+      long baixa = (2 * i + 1 < origem.length) ? origem[2 * i + 1] & 0xFFFFFFFFL : 0L;
+      quadro.palavras[i] = (alta << 32) | baixa;
+    } // fim for
+
+    // zera o que estiver depois do ultimo bit valido
+    int bitsNaUltima = totalDeBits & 63;
+    if (bitsNaUltima != 0) {
+      quadro.palavras[totalDePalavras - 1] &= -1L << (64 - bitsNaUltima);
+    }
+
+    quadro.tamanho = totalDeBits;
+    quadro.cursorEscrita = totalDeBits;
+    return quadro;
+  } // fim do metodo deArrayInt
+
+  /**
+   * converte o quadro para um array de inteiros no formato usado pelo
+   * ManipulacaoBits, os bits depois do tamanho ficam zerados
+   *
+   * @return o array com os bits agrupados de 32 em 32
+   */
+  public int[] paraArrayInt() {
+    int[] resultado = new int[(tamanho + 31) >>> 5];
+    for (int i = 0; i < resultado.length; i++) {
+      resultado[i] = lerBits(i << 5, 32);
+    }
+    return resultado;
+  } // fim do metodo paraArrayInt
+
+  /**
+   * le um conjunto de ate 32 bits do quadro, os bits alem do tamanho sao lidos
+   * como 0
+   *
+   * @param posicao          a posicao do primeiro bit a ser lido
+   * @param quantidadeDeBits quantos bits ler (no maximo 32)
+   * @return os bits lidos alinhados a direita
+   */
+  public int lerBits(int posicao, int quantidadeDeBits) {
+    if (quantidadeDeBits > 32) {
+      throw new IllegalArgumentException("Nao eh possivel ler mais de 32 bits para um unico int.");
+    }
+    return (int) lerBitsLong(posicao, quantidadeDeBits);
+  } // fim do metodo lerBits
+
+  /**
+   * le um conjunto de ate 64 bits do quadro, os bits alem do tamanho sao lidos
+   * como 0
+   *
+   * @param posicao          a posicao do primeiro bit a ser lido
+   * @param quantidadeDeBits quantos bits ler (no maximo 64)
+   * @return os bits lidos alinhados a direita
+   */
+  public long lerBitsLong(int posicao, int quantidadeDeBits) {
+    if (quantidadeDeBits <= 0 || posicao >= tamanho) {
+      return 0;
+    }
+    int disponiveis = tamanho - posicao;
+    if (quantidadeDeBits <= disponiveis) {
+      return ManipulacaoBits.lerBits(palavras, inicio + posicao, quantidadeDeBits);
+    }
+    // le o que existe e completa com zeros a direita
+    return ManipulacaoBits.lerBits(palavras, inicio + posicao, disponiveis) << (quantidadeDeBits - disponiveis);
+  } // fim do metodo lerBitsLong
+
+  /**
+   * escreve ate 32 bits em uma posicao do quadro, se a escrita passar do tamanho
+   * atual o quadro cresce
+   *
+   * @param posicao          a posicao do primeiro bit a ser escrito
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits escrever (no maximo 32)
+   */
+  public void escreverBits(int posicao, int valorEscrever, int quantidadeDeBits) {
+    escreverBitsLong(posicao, valorEscrever & 0xFFFFFFFFL, quantidadeDeBits);
+  } // fim do metodo escreverBits
+
+  /**
+   * escreve ate 64 bits em uma posicao do quadro, se a escrita passar do tamanho
+   * atual o quadro cresce
+   *
+   * @param posicao          a posicao do primeiro bit a ser escrito
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits escrever (no maximo 64)
+   */
+  public void escreverBitsLong(int posicao, long valorEscrever, int quantidadeDeBits) {
+    if (quantidadeDeBits <= 0) {
+      return;
+    }
+    int fim = posicao + quantidadeDeBits;
+    garantirCapacidade(fim);
+    ManipulacaoBits.escreverBits(palavras, inicio + posicao, valorEscrever, quantidadeDeBits);
+    if (fim > tamanho) {
+      tamanho = fim;
+    }
+  } // fim do metodo escreverBitsLong
+
+  /**
+   * inverte um unico bit do quadro
+   *
+   * @param posicao a posicao do bit a ser invertido
+   */
+  public void inverterBit(int posicao) {
+    int bitAbsoluto = inicio + posicao;
+    palavras[bitAbsoluto >>> 6] ^= 1L << (63 - (bitAbsoluto & 63));
+  } // fim do metodo inverterBit
+
+  /**
+   * anexa ate 32 bits na posicao do cursor de escrita e avanca o cursor
+   *
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits anexar
+   */
+  public void anexarBits(int valorEscrever, int quantidadeDeBits) {
+    escreverBits(cursorEscrita, valorEscrever, quantidadeDeBits);
+    cursorEscrita += Math.max(0, quantidadeDeBits);
+  } // fim do metodo anexarBits
+
+  /**
+   * anexa ate 64 bits na posicao do cursor de escrita e avanca o cursor
+   *
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits anexar
+   */
+  public void anexarBitsLong(long valorEscrever, int quantidadeDeBits) {
+    escreverBitsLong(cursorEscrita, valorEscrever, quantidadeDeBits);
+    cursorEscrita += Math.max(0, quantidadeDeBits);
+  } // fim do metodo anexarBitsLong
+
+  /**
+   * anexa todos os bits de outro quadro na posicao do cursor de escrita
+   *
+   * @param outro o quadro cujos bits serao copiados
+   */
+  public void anexar(BitBuffer outro) {
+    anexar(outro, 0, outro.tamanho);
+  } // fim do metodo anexar
+
+  /**
+   * anexa um intervalo de bits de outro quadro na posicao do cursor de escrita
+   *
+   * @param outro      o quadro de onde os bits serao copiados
+   * @param posicao    a posicao do primeiro bit no outro quadro
+   * @param quantidade quantos bits copiar
+   */
+  public void anexar(BitBuffer outro, int posicao, int quantidade) {
+    if (quantidade <= 0) {
+      return;
+    }
+    int fim = cursorEscrita + quantidade;
+    garantirCapacidade(fim);
+    ManipulacaoBits.copiarBits(outro.palavras, outro.inicio + posicao, palavras, inicio + cursorEscrita, quantidade);
+    cursorEscrita = fim;
+    if (fim > tamanho) {
+      tamanho = fim;
+    }
+  } // fim do metodo anexar
+
+  /**
+   * le ate 32 bits na posicao do cursor de leitura e avanca o cursor
+   *
+   * @param quantidadeDeBits quantos bits consumir
+   * @return os bits lidos alinhados a direita
+   */
+  public int consumirBits(int quantidadeDeBits) {
+    int valor = lerBits(cursorLeitura, quantidadeDeBits);
+    cursorLeitura += Math.max(0, quantidadeDeBits);
+    return valor;
+  } // fim do metodo consumirBits
+
+  /**
+   * quantos bits ainda podem ser consumidos pelo cursor de leitura
+   *
+   * @return bits entre o cursor de leitura e o fim do quadro
+   */
+  public int bitsRestantes() {
+    return Math.max(0, tamanho - cursorLeitura);
+  } // fim do metodo bitsRestantes
+
+  /**
+   * cria uma fatia do quadro que compartilha as mesmas palavras, nada eh
+   * copiado. Escrever dentro da fatia altera o quadro de origem
+   *
+   * @param posicao    a posicao do primeiro bit da fatia
+   * @param quantidade quantos bits a fatia tera
+   * @return a fatia
+   */
+  public BitBuffer fatia(int posicao, int quantidade) {
+    if (posicao < 0 || quantidade < 0 || posicao + quantidade > tamanho) {
+      throw new IndexOutOfBoundsException(
+          "Fatia [" + posicao + ", " + (posicao + quantidade) + ") fora do quadro de " + tamanho + " bits");
+    }
+    return new BitBuffer(palavras, inicio + posicao, quantidade);
+  } // fim do metodo fatia
+
+  /**
+   * cria uma copia independente do quadro, com as palavras ajustadas ao tamanho
+   *
+   * @return a copia
+   */
+  public BitBuffer copia() {
+    BitBuffer copia = new BitBuffer(tamanho);
+    copia.anexar(this);
+    return copia;
+  } // fim do metodo copia
+
+  /**
+   * coloca bits na frente do primeiro bit do quadro (um cabecalho), usando o
+   * espaco reservado. So move o inicio, a carga util nao eh copiada. Se nao houver
+   * espaco reservado suficiente o quadro eh realocado uma unica vez
+   *
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits colocar na frente (no maximo 32)
+   */
+  public void adicionarNaFrente(int valorEscrever, int quantidadeDeBits) {
+    if (quantidadeDeBits <= 0) {
+      return;
+    }
+    if (compartilhado || inicio < quantidadeDeBits) {
+      realocar(quantidadeDeBits, tamanho);
+    }
+    inicio -= quantidadeDeBits;
+    tamanho += quantidadeDeBits;
+    cursorEscrita += quantidadeDeBits;
+    ManipulacaoBits.escreverBits(palavras, inicio, valorEscrever & 0xFFFFFFFFL, quantidadeDeBits);
+  } // fim do metodo adicionarNaFrente
+
+  /**
+   * retira bits da frente do quadro (um cabecalho) apenas avancando o inicio, os
+   * bits retirados viram espaco reservado para um proximo cabecalho
+   *
+   * @param quantidadeDeBits quantos bits retirar
+   */
+  public void removerDaFrente(int quantidadeDeBits) {
+    int retirados = Math.min(Math.max(0, quantidadeDeBits), tamanho);
+    inicio += retirados;
+    tamanho -= retirados;
+    cursorEscrita = Math.max(0, cursorEscrita - retirados);
+    cursorLeitura = Math.max(0, cursorLeitura - retirados);
+  } // fim do metodo removerDaFrente
+
+  /**
+   * retira bits do fim do quadro (um campo de verificacao) apenas diminuindo o
+   * tamanho
+   *
+   * @param quantidadeDeBits quantos bits retirar
+   */
+  public void removerDoFim(int quantidadeDeBits) {
+    tamanho -= Math.min(Math.max(0, quantidadeDeBits), tamanho);
+    cursorEscrita = Math.min(cursorEscrita, tamanho);
+    cursorLeitura = Math.min(cursorLeitura, tamanho);
+  } // fim do metodo removerDoFim
+
+  /**
+   * esvazia o quadro para ser reescrito, mantendo as palavras ja alocadas
+   */
+  public void limpar() {
+    tamanho = 0;
+    cursorLeitura = 0;
+    cursorEscrita = 0;
+  } // fim do metodo limpar
+
+  /**
+   * garante que as palavras comportem o quadro ate o bit informado, crescendo o
+   * armazenamento (no minimo dobrando) quando necessario
+   *
+   * @param bitsNecessarios quantos bits, a partir do inicio, devem caber
+   */
+  private void garantirCapacidade(int bitsNecessarios) {
+    if (compartilhado && bitsNecessarios > tamanho) {
+      // uma fatia nao pode crescer por cima dos bits da origem
+      realocar(0, bitsNecessarios);
+      return;
+    }
+    int palavrasNecessarias = (inicio + bitsNecessarios + 63) >>> 6;
+    if (palavrasNecessarias > palavras.length) {
+      long[] novasPalavras = new long[Math.max(palavrasNecessarias, palavras.length * 2)];
+      System.arraycopy(palavras, 0, novasPalavras, 0, palavras.length);
+      palavras = novasPalavras;
+    } // fim if
+  } // fim do metodo garantirCapacidade
+
+  /**
+   * copia o quadro para palavras proprias, com espaco reservado na frente
+   *
+   * @param espacoNaFrente   quantos bits reservar antes do primeiro bit
+   * @param capacidadeEmBits quantos bits o quadro deve comportar
+   */
+  private void realocar(int espacoNaFrente, int capacidadeEmBits) {
+    long[] novasPalavras = new long[Math.max(1, (espacoNaFrente + Math.max(capacidadeEmBits, tamanho) + 63) >>> 6)];
+    ManipulacaoBits.copiarBits(palavras, inicio, novasPalavras, espacoNaFrente, tamanho);
+    palavras = novasPalavras;
+    inicio = espacoNaFrente;
+    compartilhado = false;
+  } // fim do metodo realocar
+
+  /**
+   * prepara um quadro que estava no PoolDeBuffers para ser reusado, os bits
+   * antigos nao sao zerados pois ficam alem do tamanho
+   *
+   * @param espacoNaFrente quantos bits reservar antes do primeiro bit
+   */
+  void reiniciar(int espacoNaFrente) {
+    inicio = espacoNaFrente;
+    tamanho = 0;
+    cursorLeitura = 0;
+    cursorEscrita = 0;
+    devolvido = false;
+  } // fim do metodo reiniciar
+
+  /**
+   * marca o quadro como guardado no PoolDeBuffers, fatias e quadros ja
+   * devolvidos nao podem ser guardados
+   *
+   * @return true se o quadro pode ser guardado
+   */
+  boolean marcarDevolvido() {
+    if (compartilhado || devolvido) {
+      return false;
+    }
+    devolvido = true;
+    return true;
+  } // fim do metodo marcarDevolvido
+
+  int palavrasAlocadas() {
+    return palavras.length;
+  } // fim do metodo palavrasAlocadas
+
+  // --- gets e sets ---
+  public int tamanho() {
+    return tamanho;
+  }
+
+  public int capacidade() {
+    return (palavras.length << 6) - inicio;
+  }
+
+  public int espacoNaFrente() {
+    return compartilhado ? 0 : inicio;
+  }
+
+  public int getCursorLeitura() {
+    return cursorLeitura;
+  }
+
+  public void setCursorLeitura(int cursorLeitura) {
+    this.cursorLeitura = cursorLeitura;
+  }
+
+  public int getCursorEscrita() {
+    return cursorEscrita;
+  }
+
+  public void setCursorEscrita(int cursorEscrita) {
+    this.cursorEscrita = cursorEscrita;
+  }
+
+} // fim da classe BitBuffer
@@ -0,0 +1,105 @@
+package util;
+
+/**
+ * classe que calcula o CRC-32 usado pela camada de enlace: polinomio 0x04C11DB7,
+ * valor inicial e xor final 0xFFFFFFFF, bits processados do mais para o menos
+ * significativo (sem reflexao) e, no final, mais 32 bits 0 de aumento, igual ao
+ * calculo bit a bit original.
+ *
+ * Em vez de um passo por bit, usa 8 tabelas de 256 entradas (slicing-by-8): cada
+ * palavra de 64 bits do quadro eh processada com 8 consultas. O que sobra no fim
+ * eh processado byte a byte e os ultimos bits (menos de 8) bit a bit. Os 32 bits
+ * 0 de aumento viram uma unica rodada de 4 consultas.
+ */
+public class CalculadoraCRC32 {
+
+  public static final int POLINOMIO_GERADOR = 0x04C11DB7; // Polinomio CRC-32
+  public static final int VALOR_INICIAL = 0xFFFFFFFF; // Valor inicial do registrador CRC
+  public static final int VALOR_FINAL_XOR = 0xFFFFFFFF; // Valor final para XOR
+
+  // as 8 tabelas ficam em sequencia: a tabela k comeca no indice 256 * k. A
+  // tabela k eh o resto de (byte seguido de k bytes 0)
+  private static final int[] TABELA = criarTabelas();
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CalculadoraCRC32() {
+  } // fim do construtor
+
+  /**
+   * calcula o CRC-32 dos primeiros bits do quadro
+   *
+   * @param quadro      quadro com os dados
+   * @param totalDeBits quantos bits, a partir do inicio, entram no calculo
+   * @return o CRC-32 ja com o xor final aplicado
+   */
+  public static int calcular(BitBuffer quadro, int totalDeBits) {
+    int registradorCRC = VALOR_INICIAL;
+    int posicao = 0;
+
+    // 64 bits por vez: os 32 bits do registrador entram nos 4 primeiros bytes
+    for (; posicao + 64 <= totalDeBits; posicao += 64) {
+      long palavra = quadro.lerBitsLong(posicao, 64) ^ ((long) registradorCRC << 32);
+      registradorCRC = TABELA[0x700 | (int) (palavra >>> 56)]
+          ^ TABELA[0x600 | ((int) (palavra >>> 48) & 0xFF)]
+          ^ TABELA[0x500 | ((int) (palavra >>> 40) & 0xFF)]
+          ^ TABELA[0x400 | ((int) (palavra >>> 32) & 0xFF)]
+          ^ TABELA[0x300 | ((int) (palavra >>> 24) & 0xFF)]
+          ^ TABELA[0x200 | ((int) (palavra >>> 16) & 0xFF)]
+          ^ TABELA[0x100 | ((int) (palavra >>> 8) & 0xFF)]
+          ^ TABELA[(int) palavra & 0xFF];
+    } // fim for
+
+    // o que sobrou, byte a byte
+    for (; posicao + 8 <= totalDeBits; posicao += 8) {
+      int umByte = quadro.lerBits(posicao, 8);
+      registradorCRC = (registradorCRC << 8) ^ TABELA[((registradorCRC >>> 24) ^ umByte) & 0xFF];
+    } // fim for
+
+    // ultimos bits, quando o quadro nao termina em um byte inteiro
+    for (; posicao < totalDeBits; posicao++) {
+      int xorBit = (registradorCRC >>> 31) ^ quadro.lerBits(posicao, 1);
+      registradorCRC = registradorCRC << 1;
+      if (xorBit == 1) {
+        registradorCRC = registradorCRC ^ POLINOMIO_GERADOR;
+      } // fim if
+    } // fim for
+
+    // os 32 bits 0 de aumento sao 4 bytes 0, processados de uma vez
+    registradorCRC = TABELA[0x300 | (registradorCRC >>> 24)]
+        ^ TABELA[0x200 | ((registradorCRC >>> 16) & 0xFF)]
+        ^ TABELA[0x100 | ((registradorCRC >>> 8) & 0xFF)]
+        ^ TABELA[registradorCRC & 0xFF];
+
+    return registradorCRC ^ VALOR_FINAL_XOR;
+  } // fim do metodo calcular
+
+  /**
+   * monta as 8 tabelas do slicing-by-8, a primeira eh o resto de cada byte
+   * sozinho e cada tabela seguinte desloca a anterior por mais um byte 0
+   *
+   * @return as tabelas em sequencia, 256 entradas cada
+   */
+  private static int[] criarTabelas() {
+    int[] tabela = new int[8 * 256];
+
+    for (int umByte = 0; umByte < 256; umByte++) {
+      int resto = umByte << 24;
+      for (int bit = 0; bit < 8; bit++) {
+        resto = (resto & 0x80000000) != 0 ? (resto << 1) ^ POLINOMIO_GERADOR : resto << 1;
+      } // fim for
+      tabela[umByte] = resto;
+    } // fim for
+
+    for (int k = 1; k < 8; k++) {
+      for (int umByte = 0; umByte < 256; umByte++) {
+        int anterior = tabela[((k - 1) << 8) | umByte];
+        tabela[(k << 8) | umByte] = (anterior << 8) ^ tabela[anterior >>> 24];
+      } // fim for
+    } // fim for
+
+    return tabela;
+  } // fim do metodo criarTabelas
+
+} // fim da classe CalculadoraCRC32
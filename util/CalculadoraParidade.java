@@ -0,0 +1,176 @@
+package util;
+
+/**
+ * classe que calcula as paridades usadas pela camada de enlace.
+ *
+ * A paridade simples do quadro inteiro junta todas as palavras de 64 bits com
+ * xor e conta os bits 1 do resultado uma unica vez com Long.bitCount, ja que o
+ * xor preserva a paridade.
+ *
+ * A paridade bidimensional trata o quadro como linhas de 8 bits (bytes, o
+ * ultimo completado com 0): cada linha ganha um bit de paridade PAR e, no fim,
+ * vem o byte de paridade longitudinal (LRC), o xor de todas as linhas, que eh a
+ * paridade PAR de cada coluna, e por fim o bit de canto, paridade PAR tanto do
+ * LRC quanto da coluna de bits das linhas. Os bits de verificacao ficam depois
+ * dos dados:
+ *
+ * [dados][1 bit por linha][LRC de 8 bits][bit de canto]
+ *
+ * Custa 1 bit a cada 8 mais 9 bits, contra 1 bit da paridade simples, e detecta
+ * qualquer erro de ate 3 bits e a maioria dos erros em rajada.
+ */
+public class CalculadoraParidade {
+
+  public static final int BITS_POR_LINHA = 8; // a paridade bidimensional usa um bit por byte de dados
+  public static final int TAMANHO_LRC_EM_BITS = 8; // byte de paridade das colunas
+  private static final int BITS_FIXOS = TAMANHO_LRC_EM_BITS + 1; // LRC e bit de canto
+
+  private static final long BIT_MENOS_SIGNIFICATIVO_DE_CADA_BYTE = 0x0101010101010101L;
+  // leva o bit 0 do byte k (contando do mais significativo) para o bit 63 - k,
+  // juntando as 8 paridades no byte mais alto sem que os produtos se somem
+  private static final long JUNTAR_BITS_NO_BYTE_ALTO = 0x0102040810204080L;
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CalculadoraParidade() {
+  } // fim do construtor
+
+  /**
+   * calcula a paridade dos primeiros bits do quadro
+   *
+   * @param quadro      quadro com os dados
+   * @param totalDeBits quantos bits, a partir do inicio, entram no calculo
+   * @return 1 se a quantidade de bits 1 eh impar, 0 se eh par
+   */
+  public static int paridade(BitBuffer quadro, int totalDeBits) {
+    long acumulado = 0;
+    for (int posicao = 0; posicao < totalDeBits; posicao += 64) {
+      acumulado ^= quadro.lerBitsLong(posicao, Math.min(64, totalDeBits - posicao));
+    } // fim for
+    return Long.bitCount(acumulado) & 1;
+  } // fim do metodo paridade
+
+  /**
+   * quantos bits de verificacao a paridade bidimensional acrescenta
+   *
+   * @param totalBitsDados quantidade de bits de dados
+   * @return um bit por linha mais o LRC e o bit de canto
+   */
+  public static int bitsDeParidadeBidimensional(int totalBitsDados) {
+    return (totalBitsDados + BITS_POR_LINHA - 1) / BITS_POR_LINHA + BITS_FIXOS;
+  } // fim do metodo bitsDeParidadeBidimensional
+
+  /**
+   * descobre quantos bits de dados tem um quadro com paridade bidimensional,
+   * desfazendo a conta do bitsDeParidadeBidimensional
+   *
+   * @param totalBitsRecebidos tamanho do quadro com a verificacao
+   * @return a quantidade de bits de dados, ou -1 se nenhum quadro de dados gera
+   *         esse tamanho
+   */
+  public static int totalBitsDadosBidimensional(int totalBitsRecebidos) {
+    int semLRC = totalBitsRecebidos - BITS_FIXOS;
+    if (semLRC < 0) {
+      return -1;
+    }
+    // cada linha completa ocupa 9 bits (8 de dados + 1 de paridade); uma linha
+    // incompleta com r bits de dados ocupa r + 1
+    int linhasCompletas = semLRC / (BITS_POR_LINHA + 1);
+    int resto = semLRC % (BITS_POR_LINHA + 1);
+    if (resto == 1) {
+      return -1; // sobraria um bit de paridade sem nenhum dado
+    }
+    return linhasCompletas * BITS_POR_LINHA + Math.max(0, resto - 1);
+  } // fim do metodo totalBitsDadosBidimensional
+
+  /**
+   * anexa, no proprio quadro, os bits de paridade de cada linha, o LRC e o bit
+   * de canto
+   *
+   * @param quadro quadro com os dados, cresce com os bits de verificacao
+   */
+  public static void anexarParidadeBidimensional(BitBuffer quadro) {
+    int totalBitsDados = quadro.tamanho();
+    long colunas = 0;
+
+    for (int posicao = 0; posicao < totalBitsDados; posicao += 64) {
+      long palavra = lerPalavra(quadro, posicao, totalBitsDados);
+      int linhasNaPalavra = Math.min(BITS_POR_LINHA, (totalBitsDados - posicao + BITS_POR_LINHA - 1) / BITS_POR_LINHA);
+      // os bits das linhas desta palavra vao para o trecho correspondente, depois
+      // dos dados; os dados ja lidos nao sao tocados
+      quadro.escreverBits(totalBitsDados + posicao / BITS_POR_LINHA,
+          paridadesDasLinhas(palavra) >>> (BITS_POR_LINHA - linhasNaPalavra), linhasNaPalavra);
+      colunas ^= palavra;
+    } // fim for
+
+    // o bit de canto eh a paridade do LRC, que eh a paridade de todos os dados e
+    // portanto tambem a dos bits das linhas
+    int lrc = juntarColunas(colunas);
+    quadro.escreverBits(quadro.tamanho(), (lrc << 1) | (Integer.bitCount(lrc) & 1), BITS_FIXOS);
+  } // fim do metodo anexarParidadeBidimensional
+
+  /**
+   * confere os bits de paridade de cada linha, o LRC e o bit de canto do quadro
+   *
+   * @param quadro         quadro recebido com a verificacao no fim
+   * @param totalBitsDados quantidade de bits de dados do quadro
+   * @return true se todas as linhas e colunas tem paridade PAR
+   */
+  public static boolean conferirParidadeBidimensional(BitBuffer quadro, int totalBitsDados) {
+    long colunas = 0;
+    int bitsDasLinhas = 0; // xor dos bits das linhas recebidos, para a paridade da coluna deles
+
+    for (int posicao = 0; posicao < totalBitsDados; posicao += 64) {
+      long palavra = lerPalavra(quadro, posicao, totalBitsDados);
+      int linhasNaPalavra = Math.min(BITS_POR_LINHA, (totalBitsDados - posicao + BITS_POR_LINHA - 1) / BITS_POR_LINHA);
+      int recebidas = quadro.lerBits(totalBitsDados + posicao / BITS_POR_LINHA, linhasNaPalavra);
+      if (recebidas != paridadesDasLinhas(palavra) >>> (BITS_POR_LINHA - linhasNaPalavra)) {
+        return false;
+      }
+      bitsDasLinhas ^= recebidas;
+      colunas ^= palavra;
+    } // fim for
+
+    int posicaoLRC = totalBitsDados + (totalBitsDados + BITS_POR_LINHA - 1) / BITS_POR_LINHA;
+    int lrcEBitDeCanto = quadro.lerBits(posicaoLRC, BITS_FIXOS);
+    int lrc = lrcEBitDeCanto >>> 1;
+    int bitDeCanto = lrcEBitDeCanto & 1;
+    // colunas dos dados, linha do LRC e coluna dos bits das linhas
+    return lrc == juntarColunas(colunas) && (Integer.bitCount(lrc) & 1) == bitDeCanto
+        && (Integer.bitCount(bitsDasLinhas) & 1) == bitDeCanto;
+  } // fim do metodo conferirParidadeBidimensional
+
+  /**
+   * le 64 bits de dados alinhados a esquerda, com 0 no lugar do que passa do
+   * fim dos dados (mesmo que o quadro continue com os bits de verificacao)
+   */
+  private static long lerPalavra(BitBuffer quadro, int posicao, int totalBitsDados) {
+    int bitsValidos = Math.min(64, totalBitsDados - posicao);
+    return quadro.lerBitsLong(posicao, bitsValidos) << (64 - bitsValidos);
+  } // fim do metodo lerPalavra
+
+  /**
+   * paridade de cada um dos 8 bytes da palavra, a do byte mais significativo no
+   * bit 7 do resultado
+   */
+  private static int paridadesDasLinhas(long palavra) {
+    // dobra cada byte sobre si mesmo ate a paridade dele ficar no bit 0 do byte
+    palavra ^= palavra >>> 4;
+    palavra ^= palavra >>> 2;
+    palavra ^= palavra >>> 1;
+    return (int) (((palavra & BIT_MENOS_SIGNIFICATIVO_DE_CADA_BYTE) * JUNTAR_BITS_NO_BYTE_ALTO) >>> 56);
+  } // fim do metodo paridadesDasLinhas
+
+  /**
+   * junta os 8 bytes de uma palavra com xor, resultando na paridade de cada
+   * coluna
+   */
+  private static int juntarColunas(long colunas) {
+    colunas ^= colunas >>> 32;
+    colunas ^= colunas >>> 16;
+    colunas ^= colunas >>> 8;
+    return (int) colunas & 0xFF;
+  } // fim do metodo juntarColunas
+
+} // fim da classe CalculadoraParidade
@@ -0,0 +1,146 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * classe que implementa a codificacao 4B/5B (a do FDDI e do 100BASE-TX) usada
+ * pela camada fisica: cada 4 bits de dados viram um grupo de 5 sinais escolhido
+ * para nunca ter mais de um 0 no inicio nem mais de dois no fim, entao o sinal
+ * sempre tem transicoes suficientes. O custo eh de 25% de sinais a mais, contra
+ * 100% do Manchester.
+ *
+ * Os dados sao completados com 0 ate um numero inteiro de grupos e o fim vem
+ * marcado pelo grupo de controle T seguido de um grupo de dados com quantos
+ * bits de 0 foram acrescentados, que a receptora retira. Dos 32 grupos de 5
+ * bits so 16 sao de dados; os que nao sao nem de dados nem o T sao recusados.
+ *
+ * As duas pontas usam tabelas: na codificacao cada byte vira seus 10 sinais em
+ * uma consulta, e na decodificacao cada 10 sinais (dois grupos) viram um byte,
+ * ou a marca de grupo invalido, em uma consulta a uma tabela de 1024 entradas.
+ */
+public class Codificacao4B5B {
+
+  public static final int BITS_POR_GRUPO = 5;
+  public static final int GRUPO_T = 0b01101; // fim do quadro (terminate)
+
+  private static final int GRUPO_INVALIDO = -1;
+
+  // grupo de 5 sinais de cada nibble de dados
+  private static final int[] GRUPOS = { 0b11110, 0b01001, 0b10100, 0b10101, 0b01010, 0b01011, 0b01110, 0b01111,
+      0b10010, 0b10011, 0b10110, 0b10111, 0b11010, 0b11011, 0b11100, 0b11101 };
+
+  // byte de dados -> 10 sinais
+  private static final int[] EXPANSAO = new int[256];
+
+  // 5 sinais -> nibble de dados, ou GRUPO_INVALIDO
+  private static final int[] NIBBLE_DO_GRUPO = new int[32];
+
+  // 10 sinais -> byte de dados, ou GRUPO_INVALIDO se algum dos dois grupos nao
+  // for de dados
+  private static final short[] COMPRESSAO = new short[1024];
+
+  static {
+    Arrays.fill(NIBBLE_DO_GRUPO, GRUPO_INVALIDO);
+    for (int nibble = 0; nibble < 16; nibble++) {
+      NIBBLE_DO_GRUPO[GRUPOS[nibble]] = nibble;
+    } // fim for
+
+    for (int umByte = 0; umByte < 256; umByte++) {
+      EXPANSAO[umByte] = (GRUPOS[umByte >>> 4] << BITS_POR_GRUPO) | GRUPOS[umByte & 0xF];
+    } // fim for
+
+    for (int sinais = 0; sinais < 1024; sinais++) {
+      int alto = NIBBLE_DO_GRUPO[sinais >>> BITS_POR_GRUPO];
+      int baixo = NIBBLE_DO_GRUPO[sinais & 0x1F];
+      COMPRESSAO[sinais] = (short) ((alto == GRUPO_INVALIDO || baixo == GRUPO_INVALIDO) ? GRUPO_INVALIDO
+          : (alto << 4) | baixo);
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private Codificacao4B5B() {
+  } // fim do construtor
+
+  /**
+   * quantos sinais o quadro codificado tem
+   *
+   * @param bitsDeDados tamanho do quadro em bits
+   * @return um grupo a cada 4 bits (arredondado para cima), mais o T e o grupo
+   *         com o preenchimento
+   */
+  public static int tamanhoDoSinal(int bitsDeDados) {
+    return BITS_POR_GRUPO * ((bitsDeDados + 3) / 4 + 2);
+  } // fim do metodo tamanhoDoSinal
+
+  /**
+   * codifica o quadro, 32 bits de dados (4 consultas) viram 40 sinais
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    BitBuffer sinal = PoolDeBuffers.emprestar(tamanhoDoSinal(totalBits));
+
+    for (int posicao = 0; posicao < totalBits; posicao += 32) {
+      int quantidade = Math.min(32, totalBits - posicao);
+      int grupos = (quantidade + 3) / 4; // o ultimo nibble incompleto eh completado com 0
+      int dados = quadro.lerBits(posicao, quantidade) << (32 - quantidade); // alinha a esquerda
+      long sinais = ((long) EXPANSAO[dados >>> 24] << 30) | ((long) EXPANSAO[(dados >>> 16) & 0xFF] << 20)
+          | ((long) EXPANSAO[(dados >>> 8) & 0xFF] << 10) | EXPANSAO[dados & 0xFF];
+      sinal.anexarBitsLong(sinais >>> (BITS_POR_GRUPO * (8 - grupos)), BITS_POR_GRUPO * grupos);
+    } // fim for
+
+    int preenchimento = (4 - totalBits % 4) % 4;
+    sinal.anexarBits((GRUPO_T << BITS_POR_GRUPO) | GRUPOS[preenchimento], 2 * BITS_POR_GRUPO);
+    return sinal;
+  } // fim do metodo codificar
+
+  /**
+   * decodifica o sinal ate o grupo T, dois grupos por consulta, e retira os bits
+   * de preenchimento indicados depois dele
+   *
+   * @param sinal              sinal recebido
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se o quadro estiver correto, senao a posicao no sinal do primeiro
+   *         grupo invalido, ou o tamanho do sinal se o T nao foi encontrado
+   *         (nesse caso o quadro decodificado deve ser descartado)
+   */
+  public static int decodificar(BitBuffer sinal, BitBuffer quadroDecodificado) {
+    int totalGrupos = sinal.tamanho() / BITS_POR_GRUPO;
+
+    int grupo = 0;
+    while (grupo + 1 < totalGrupos) {
+      int dados = COMPRESSAO[sinal.lerBits(BITS_POR_GRUPO * grupo, 2 * BITS_POR_GRUPO)];
+      if (dados == GRUPO_INVALIDO) {
+        break; // o T ou um erro, separados grupo a grupo abaixo
+      }
+      quadroDecodificado.anexarBits(dados, 8);
+      grupo += 2;
+    } // fim while
+
+    for (; grupo < totalGrupos; grupo++) {
+      int sinais = sinal.lerBits(BITS_POR_GRUPO * grupo, BITS_POR_GRUPO);
+      if (sinais == GRUPO_T) {
+        int preenchimento = (grupo + 1 < totalGrupos)
+            ? NIBBLE_DO_GRUPO[sinal.lerBits(BITS_POR_GRUPO * (grupo + 1), BITS_POR_GRUPO)]
+            : GRUPO_INVALIDO;
+        if (preenchimento < 0 || preenchimento > 3 || preenchimento > quadroDecodificado.tamanho()) {
+          return BITS_POR_GRUPO * (grupo + 1);
+        }
+        quadroDecodificado.removerDoFim(preenchimento);
+        return -1;
+      }
+      int nibble = NIBBLE_DO_GRUPO[sinais];
+      if (nibble == GRUPO_INVALIDO) {
+        return BITS_POR_GRUPO * grupo;
+      }
+      quadroDecodificado.anexarBits(nibble, 4);
+    } // fim for
+
+    return sinal.tamanho();
+  } // fim do metodo decodificar
+
+} // fim da classe Codificacao4B5B
@@ -0,0 +1,216 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * classe que implementa a codificacao 8B/10B (a do Gigabit Ethernet e do PCIe
+ * 1.x e 2.x) usada pela camada fisica: cada byte vira um simbolo de 10 sinais,
+ * os 5 bits baixos em um subbloco de 6 e os 3 altos em um de 4. A disparidade
+ * (uns menos zeros) de cada simbolo eh 0 ou 2, e a disparidade corrente decide
+ * entre as duas versoes de cada subbloco desbalanceado, entao o sinal nunca
+ * acumula mais uns que zeros. O custo eh de 25% de sinais a mais.
+ *
+ * O quadro comeca com o simbolo de controle K28.5, cuja virgula (0011111 ou
+ * 1100000) nao aparece em nenhuma sequencia de simbolos de dados e serve para a
+ * receptora se alinhar com os simbolos, e termina com um K28.p, em que p (0 a
+ * 7) eh quantos bits de 0 completaram o ultimo byte. A receptora recusa
+ * simbolos que nao existem e simbolos que nao valem na disparidade corrente,
+ * entao boa parte dos erros de 1 bit ja eh pega aqui.
+ *
+ * As duas pontas usam tabelas indexadas por (disparidade corrente, entrada):
+ * 512 entradas na codificacao e 2048 na decodificacao, cada consulta devolvendo
+ * tambem a disparidade seguinte.
+ */
+public class Codificacao8B10B {
+
+  public static final int BITS_POR_SIMBOLO = 10;
+  public static final int K28_5 = (5 << 5) | 28; // virgula que abre o quadro
+  public static final int VIRGULA_NEGATIVA = 0b0011111; // comeco do K28.5 com disparidade corrente negativa
+  public static final int VIRGULA_POSITIVA = 0b1100000;
+
+  private static final int NEGATIVA = 0; // disparidade corrente -1, a inicial
+  private static final int POSITIVA = 1;
+  private static final int SIMBOLO_INVALIDO = -1;
+  private static final int CONTROLE = 1 << 1; // marca dos simbolos K nas entradas da decodificacao
+
+  // subblocos na versao usada com disparidade corrente negativa
+  private static final int[] SUBBLOCO_6B = { 0b100111, 0b011101, 0b101101, 0b110001, 0b110101, 0b101001, 0b011001,
+      0b111000, 0b111001, 0b100101, 0b010101, 0b110100, 0b001101, 0b101100, 0b011100, 0b010111, 0b011011, 0b100011,
+      0b010011, 0b110010, 0b001011, 0b101010, 0b011010, 0b111010, 0b110011, 0b100110, 0b010110, 0b110110, 0b001110,
+      0b101110, 0b011110, 0b101011 };
+  private static final int SUBBLOCO_6B_K28 = 0b001111;
+  private static final int[] SUBBLOCO_4B = { 0b1011, 0b1001, 0b0101, 0b1100, 0b1101, 0b1010, 0b0110, 0b1110 };
+  private static final int SUBBLOCO_4B_A7 = 0b0111; // D.x.7 que evitaria uma sequencia de 5 sinais iguais
+  private static final int[] SUBBLOCO_4B_K = { 0b1011, 0b0110, 0b1010, 0b1100, 0b1101, 0b0101, 0b1001, 0b0111 };
+
+  // (disparidade, byte) -> simbolo a partir do bit 1 e disparidade seguinte no
+  // bit 0; as 8 ultimas entradas de cada disparidade sao os K28.y
+  private static final int[] CODIFICACAO = new int[2 * (256 + 8)];
+
+  // (disparidade, simbolo) -> byte a partir do bit 2, CONTROLE se for um K28.y
+  // (com y no lugar do byte) e disparidade seguinte no bit 0, ou
+  // SIMBOLO_INVALIDO
+  private static final short[] DECODIFICACAO = new short[2 * 1024];
+
+  static {
+    Arrays.fill(DECODIFICACAO, (short) SIMBOLO_INVALIDO);
+    for (int disparidade = NEGATIVA; disparidade <= POSITIVA; disparidade++) {
+      for (int valor = 0; valor < 256 + 8; valor++) {
+        boolean controle = valor >= 256;
+        int x = controle ? 28 : valor & 0x1F;
+        int y = controle ? valor - 256 : valor >>> 5;
+
+        // subbloco de 6
+        int seis = controle ? SUBBLOCO_6B_K28 : SUBBLOCO_6B[x];
+        int dispSeis = disparidade;
+        if (Integer.bitCount(seis) != 3) { // desbalanceado: a versao inverte a disparidade
+          seis = (disparidade == NEGATIVA) ? seis : ~seis & 0x3F;
+          dispSeis = 1 - disparidade;
+        } else if (seis == 0b111000 && disparidade == POSITIVA) {
+          seis = 0b000111;
+        }
+
+        // subbloco de 4
+        int quatro;
+        if (controle) {
+          quatro = SUBBLOCO_4B_K[y];
+        } else if (y == 7 && ((dispSeis == NEGATIVA && (x == 17 || x == 18 || x == 20))
+            || (dispSeis == POSITIVA && (x == 11 || x == 13 || x == 14)))) {
+          quatro = SUBBLOCO_4B_A7;
+        } else {
+          quatro = SUBBLOCO_4B[y];
+        }
+        int dispFinal = dispSeis;
+        if (Integer.bitCount(quatro) != 2) {
+          quatro = (dispSeis == NEGATIVA) ? quatro : ~quatro & 0xF;
+          dispFinal = 1 - dispSeis;
+        } else if (dispSeis == POSITIVA && (controle || quatro == 0b1100)) {
+          quatro = ~quatro & 0xF; // os K e o D.x.3 tambem trocam de versao
+        }
+
+        int simbolo = (seis << 4) | quatro;
+        CODIFICACAO[disparidade * (256 + 8) + valor] = (simbolo << 1) | dispFinal;
+        DECODIFICACAO[disparidade * 1024 + simbolo] = (short) (controle ? (y << 2) | CONTROLE | dispFinal
+            : (valor << 2) | dispFinal);
+      } // fim for
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private Codificacao8B10B() {
+  } // fim do construtor
+
+  /**
+   * quantos sinais o quadro codificado tem
+   *
+   * @param bitsDeDados tamanho do quadro em bits
+   * @return um simbolo por byte (arredondado para cima), mais a virgula e o fim
+   */
+  public static int tamanhoDoSinal(int bitsDeDados) {
+    return BITS_POR_SIMBOLO * ((bitsDeDados + 7) / 8 + 2);
+  } // fim do metodo tamanhoDoSinal
+
+  /**
+   * codifica o quadro, 48 bits de dados (6 consultas) por escrita
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    BitBuffer sinal = PoolDeBuffers.emprestar(tamanhoDoSinal(totalBits));
+
+    int entrada = CODIFICACAO[NEGATIVA * (256 + 8) + 256 + (K28_5 >>> 5)];
+    sinal.anexarBits(entrada >>> 1, BITS_POR_SIMBOLO);
+    int disparidade = entrada & 1;
+
+    for (int posicao = 0; posicao < totalBits; posicao += 48) {
+      int quantidade = Math.min(48, totalBits - posicao);
+      int bytes = (quantidade + 7) / 8; // o ultimo byte incompleto eh completado com 0
+      long dados = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade); // alinha a esquerda
+      long sinais = 0;
+      for (int i = 0; i < bytes; i++) {
+        entrada = CODIFICACAO[disparidade * (256 + 8) + (int) ((dados >>> (56 - 8 * i)) & 0xFF)];
+        sinais = (sinais << BITS_POR_SIMBOLO) | (entrada >>> 1);
+        disparidade = entrada & 1;
+      } // fim for
+      sinal.anexarBitsLong(sinais, BITS_POR_SIMBOLO * bytes);
+    } // fim for
+
+    int preenchimento = (8 - totalBits % 8) % 8;
+    entrada = CODIFICACAO[disparidade * (256 + 8) + 256 + preenchimento];
+    sinal.anexarBits(entrada >>> 1, BITS_POR_SIMBOLO);
+    return sinal;
+  } // fim do metodo codificar
+
+  /**
+   * procura a virgula, decodifica os simbolos seguintes um por consulta ate o
+   * K28.p do fim e retira os p bits de preenchimento
+   *
+   * @param sinal              sinal recebido
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se o quadro estiver correto, senao a posicao no sinal do primeiro
+   *         simbolo invalido, ou o tamanho do sinal se a virgula ou o fim nao
+   *         foram encontrados (nesse caso o quadro decodificado deve ser
+   *         descartado)
+   */
+  public static int decodificar(BitBuffer sinal, BitBuffer quadroDecodificado) {
+    int totalBits = sinal.tamanho();
+
+    int posicao = posicaoDaVirgula(sinal);
+    if (posicao < 0) {
+      return totalBits;
+    }
+    int disparidade = (sinal.lerBits(posicao, 7) == VIRGULA_NEGATIVA) ? NEGATIVA : POSITIVA;
+    int entrada = DECODIFICACAO[disparidade * 1024 + sinal.lerBits(posicao, BITS_POR_SIMBOLO)];
+    if (entrada == SIMBOLO_INVALIDO || (entrada >>> 2) != (K28_5 >>> 5) || (entrada & CONTROLE) == 0) {
+      return posicao;
+    }
+    disparidade = entrada & 1;
+    posicao += BITS_POR_SIMBOLO;
+
+    // 6 simbolos por leitura
+    while (posicao + BITS_POR_SIMBOLO <= totalBits) {
+      int simbolos = Math.min(6, (totalBits - posicao) / BITS_POR_SIMBOLO);
+      long sinais = sinal.lerBitsLong(posicao, BITS_POR_SIMBOLO * simbolos);
+      for (int i = simbolos - 1; i >= 0; i--) {
+        entrada = DECODIFICACAO[disparidade * 1024 + (int) ((sinais >>> (BITS_POR_SIMBOLO * i)) & 0x3FF)];
+        if (entrada == SIMBOLO_INVALIDO) {
+          return posicao;
+        }
+        if ((entrada & CONTROLE) != 0) { // K28.p: fim do quadro
+          int preenchimento = entrada >>> 2;
+          if (preenchimento > quadroDecodificado.tamanho()) {
+            return posicao;
+          }
+          quadroDecodificado.removerDoFim(preenchimento);
+          return -1;
+        }
+        quadroDecodificado.anexarBits(entrada >>> 2, 8);
+        disparidade = entrada & 1;
+        posicao += BITS_POR_SIMBOLO;
+      } // fim for
+    } // fim while
+
+    return totalBits;
+  } // fim do metodo decodificar
+
+  /**
+   * procura bit a bit a primeira virgula; a transmissora sempre comeca o quadro
+   * com ela, entao normalmente a busca para na posicao 0
+   *
+   * @return a posicao da virgula, ou -1 se nao houver
+   */
+  private static int posicaoDaVirgula(BitBuffer sinal) {
+    for (int i = 0; i + BITS_POR_SIMBOLO <= sinal.tamanho(); i++) {
+      int seteSinais = sinal.lerBits(i, 7);
+      if (seteSinais == VIRGULA_NEGATIVA || seteSinais == VIRGULA_POSITIVA) {
+        return i;
+      }
+    } // fim for
+    return -1;
+  } // fim do metodo posicaoDaVirgula
+
+} // fim da classe Codificacao8B10B
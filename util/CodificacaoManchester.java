@@ -0,0 +1,271 @@
+package util;
+
+/**
+ * classe que implementa a codificacao Manchester usada pela camada fisica: o bit
+ * 1 vira o par de sinais 10 e o bit 0 vira 01, entao todo par valido tem uma
+ * transicao no meio e os pares 00 e 11 so aparecem com erro no meio.
+ *
+ * As duas pontas trabalham com tabelas em vez de um bit por vez: na
+ * codificacao cada byte de dados eh expandido de uma vez nos seus 16 bits de
+ * sinal, e na decodificacao cada 8 bits de sinal (4 pares) viram 4 bits de
+ * dados, ou a marca de par invalido, em uma consulta. A tabela da decodificacao
+ * tem so 256 entradas, entao as duas cabem inteiras no cache.
+ *
+ * O Manchester diferencial segue a mesma ideia, mas o sinal de cada bit depende
+ * do nivel em que o bit anterior terminou: o bit 0 comeca com uma transicao e o
+ * bit 1 nao, e todo bit tem a transicao do meio. As tabelas dele sao indexadas
+ * por (nivel anterior, entrada) e devolvem junto o nivel em que a consulta
+ * termina, que eh passado para a proxima.
+ */
+public class CodificacaoManchester {
+
+  private static final long PARES_VALIDOS = 0x5555555555555555L; // pares 01, usados para completar a ultima leitura
+  private static final byte PAR_INVALIDO = -1;
+
+  // byte de dados -> 16 bits de sinal
+  private static final int[] EXPANSAO = new int[256];
+
+  // 8 bits de sinal -> 4 bits de dados, ou PAR_INVALIDO se algum par for 00 ou 11
+  private static final byte[] COMPRESSAO = new byte[256];
+
+  public static final int NIVEL_INICIAL_DIFERENCIAL = 1; // nivel antes do primeiro bit, igual nas duas pontas
+
+  // (nivel anterior, byte de dados) -> 16 bits de sinal a partir do bit 1 e
+  // nivel final no bit 0
+  private static final int[] EXPANSAO_DIFERENCIAL = new int[2 * 256];
+
+  // (nivel anterior, 8 bits de sinal) -> 4 bits de dados a partir do bit 1 e
+  // nivel final (o segundo sinal do ultimo par) no bit 0
+  private static final byte[] COMPRESSAO_DIFERENCIAL = new byte[2 * 256];
+
+  static {
+    for (int umByte = 0; umByte < 256; umByte++) {
+      int sinal = 0;
+      for (int j = 7; j >= 0; j--) {
+        sinal = (sinal << 2) | ((((umByte >>> j) & 1) == 1) ? 0b10 : 0b01);
+      } // fim for
+      EXPANSAO[umByte] = sinal;
+    } // fim for
+
+    for (int sinal = 0; sinal < 256; sinal++) {
+      int dados = 0;
+      for (int par = 3; par >= 0; par--) {
+        int sinais = (sinal >>> (2 * par)) & 0b11;
+        if (sinais == 0b00 || sinais == 0b11) {
+          dados = PAR_INVALIDO;
+          break;
+        }
+        dados = (dados << 1) | (sinais >>> 1); // 10 -> 1 e 01 -> 0
+      } // fim for
+      COMPRESSAO[sinal] = (byte) dados;
+    } // fim for
+
+    for (int nivelAnterior = 0; nivelAnterior <= 1; nivelAnterior++) {
+      for (int umByte = 0; umByte < 256; umByte++) {
+        int sinal = 0;
+        int nivel = nivelAnterior;
+        for (int j = 7; j >= 0; j--) {
+          if (((umByte >>> j) & 1) == 0) { // bit 0: transicao no inicio
+            nivel = 1 - nivel;
+          }
+          sinal = (sinal << 2) | (nivel << 1) | (1 - nivel); // transicao do meio
+          nivel = 1 - nivel;
+        } // fim for
+        EXPANSAO_DIFERENCIAL[nivelAnterior * 256 + umByte] = (sinal << 1) | nivel;
+      } // fim for
+
+      for (int sinal = 0; sinal < 256; sinal++) {
+        int dados = 0;
+        int nivel = nivelAnterior;
+        for (int par = 3; par >= 0; par--) {
+          int primeiro = (sinal >>> (2 * par + 1)) & 1;
+          dados = (dados << 1) | ((primeiro == nivel) ? 1 : 0); // sem transicao no inicio -> 1
+          nivel = (sinal >>> (2 * par)) & 1;
+        } // fim for
+        COMPRESSAO_DIFERENCIAL[nivelAnterior * 256 + sinal] = (byte) ((dados << 1) | nivel);
+      } // fim for
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodificacaoManchester() {
+  } // fim do construtor
+
+  /**
+   * codifica o quadro, 32 bits de dados (4 consultas) viram 64 bits de sinal
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal, com o dobro de bits
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    BitBuffer sinal = PoolDeBuffers.emprestar(2 * quadro.tamanho());
+    codificar(quadro, 0, quadro.tamanho(), sinal);
+    return sinal;
+  } // fim do metodo codificar
+
+  /**
+   * codifica um trecho do quadro no fim de outro quadro, usado pela violacao da
+   * camada fisica para escrever cada subquadro direto entre as violacoes
+   *
+   * @param quadro     quadro com os dados
+   * @param inicio     posicao do primeiro bit do trecho
+   * @param quantidade quantos bits codificar
+   * @param sinal      quadro onde os sinais sao anexados
+   */
+  public static void codificar(BitBuffer quadro, int inicio, int quantidade, BitBuffer sinal) {
+    for (int posicao = inicio; posicao < inicio + quantidade; posicao += 32) {
+      int bits = Math.min(32, inicio + quantidade - posicao);
+      int dados = quadro.lerBits(posicao, bits) << (32 - bits); // alinha a esquerda
+      long sinais = ((long) EXPANSAO[dados >>> 24] << 48) | ((long) EXPANSAO[(dados >>> 16) & 0xFF] << 32)
+          | ((long) EXPANSAO[(dados >>> 8) & 0xFF] << 16) | EXPANSAO[dados & 0xFF];
+      sinal.anexarBitsLong(sinais >>> (64 - 2 * bits), 2 * bits);
+    } // fim for
+  } // fim do metodo codificar
+
+  /**
+   * decodifica o sinal, 64 bits de sinal (8 consultas) viram 32 bits de dados. Um
+   * bit que sobre sozinho no fim do sinal eh ignorado
+   *
+   * @param sinal              sinal recebido
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se todos os pares forem validos, senao a posicao no sinal do
+   *         primeiro par 00 ou 11 (nesse caso o quadro decodificado fica
+   *         incompleto e deve ser descartado)
+   */
+  public static int decodificar(BitBuffer sinal, BitBuffer quadroDecodificado) {
+    return decodificar(sinal, 0, sinal.tamanho() / 2, quadroDecodificado);
+  } // fim do metodo decodificar
+
+  /**
+   * decodifica um trecho do sinal, usado pela violacao da camada fisica para ler
+   * cada subquadro direto do sinal recebido
+   *
+   * @param sinal              sinal recebido
+   * @param inicio             posicao do primeiro sinal do trecho
+   * @param totalPares         quantos pares decodificar
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se todos os pares forem validos, senao a posicao no sinal do
+   *         primeiro par 00 ou 11
+   */
+  public static int decodificar(BitBuffer sinal, int inicio, int totalPares, BitBuffer quadroDecodificado) {
+    for (int par = 0; par < totalPares; par += 32) {
+      int pares = Math.min(32, totalPares - par);
+      long sinais = sinal.lerBitsLong(inicio + 2 * par, 2 * pares) << (64 - 2 * pares);
+      if (pares < 32) { // o que passa do fim vira pares validos, descartados depois
+        sinais |= PARES_VALIDOS >>> (2 * pares);
+      }
+
+      long dados = 0;
+      for (int deslocamento = 56; deslocamento >= 0; deslocamento -= 8) {
+        int oitoSinais = (int) (sinais >>> deslocamento) & 0xFF;
+        int quatroBits = COMPRESSAO[oitoSinais];
+        if (quatroBits == PAR_INVALIDO) {
+          return inicio + 2 * par + (56 - deslocamento) + 2 * primeiroParInvalido(oitoSinais);
+        }
+        dados = (dados << 4) | quatroBits;
+      } // fim for
+      quadroDecodificado.anexarBitsLong(dados >>> (32 - pares), pares);
+    } // fim for
+
+    return -1;
+  } // fim do metodo decodificar
+
+  /**
+   * codifica o quadro em Manchester diferencial, um byte de dados por consulta e
+   * 32 bits de dados por escrita
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal, com o dobro de bits
+   */
+  public static BitBuffer codificarDiferencial(BitBuffer quadro) {
+    BitBuffer sinal = PoolDeBuffers.emprestar(2 * quadro.tamanho());
+    codificarDiferencial(quadro, 0, quadro.tamanho(), sinal);
+    return sinal;
+  } // fim do metodo codificarDiferencial
+
+  /**
+   * codifica um trecho do quadro em Manchester diferencial no fim de outro
+   * quadro, partindo do nivel inicial
+   *
+   * @param quadro     quadro com os dados
+   * @param inicio     posicao do primeiro bit do trecho
+   * @param totalBits  quantos bits codificar
+   * @param sinal      quadro onde os sinais sao anexados
+   */
+  public static void codificarDiferencial(BitBuffer quadro, int inicio, int totalBits, BitBuffer sinal) {
+    int nivel = NIVEL_INICIAL_DIFERENCIAL;
+
+    for (int posicao = 0; posicao < totalBits; posicao += 32) {
+      int quantidade = Math.min(32, totalBits - posicao);
+      int dados = quadro.lerBits(inicio + posicao, quantidade) << (32 - quantidade); // alinha a esquerda
+      long sinais = 0;
+      // os bits de preenchimento do fim mudam so o nivel final, que nao eh mais usado
+      for (int deslocamento = 24; deslocamento >= 0; deslocamento -= 8) {
+        int entrada = EXPANSAO_DIFERENCIAL[nivel * 256 + ((dados >>> deslocamento) & 0xFF)];
+        sinais = (sinais << 16) | (entrada >>> 1);
+        nivel = entrada & 1;
+      } // fim for
+      sinal.anexarBitsLong(sinais >>> (64 - 2 * quantidade), 2 * quantidade);
+    } // fim for
+  } // fim do metodo codificarDiferencial
+
+  /**
+   * decodifica o sinal em Manchester diferencial, 4 pares por consulta. Como na
+   * versao bit a bit, o bit sai da comparacao do primeiro sinal do par com o
+   * nivel anterior e o segundo sinal vira o nivel seguinte; um bit que sobre
+   * sozinho no fim do sinal eh ignorado
+   *
+   * @param sinal sinal recebido
+   * @return um quadro do pool com os dados
+   */
+  public static BitBuffer decodificarDiferencial(BitBuffer sinal) {
+    BitBuffer quadroDecodificado = PoolDeBuffers.emprestar(sinal.tamanho() / 2);
+    decodificarDiferencial(sinal, 0, sinal.tamanho() / 2, quadroDecodificado);
+    return quadroDecodificado;
+  } // fim do metodo decodificarDiferencial
+
+  /**
+   * decodifica um trecho do sinal em Manchester diferencial, partindo do nivel
+   * inicial
+   *
+   * @param sinal              sinal recebido
+   * @param inicio             posicao do primeiro sinal do trecho
+   * @param totalPares         quantos pares decodificar
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   */
+  public static void decodificarDiferencial(BitBuffer sinal, int inicio, int totalPares,
+      BitBuffer quadroDecodificado) {
+    int nivel = NIVEL_INICIAL_DIFERENCIAL;
+
+    for (int par = 0; par < totalPares; par += 32) {
+      int pares = Math.min(32, totalPares - par);
+      long sinais = sinal.lerBitsLong(inicio + 2 * par, 2 * pares) << (64 - 2 * pares);
+
+      long dados = 0;
+      for (int deslocamento = 56; deslocamento >= 0; deslocamento -= 8) {
+        int entrada = COMPRESSAO_DIFERENCIAL[nivel * 256 + ((int) (sinais >>> deslocamento) & 0xFF)];
+        dados = (dados << 4) | (entrada >>> 1);
+        nivel = entrada & 1;
+      } // fim for
+      quadroDecodificado.anexarBitsLong(dados >>> (32 - pares), pares);
+    } // fim for
+  } // fim do metodo decodificarDiferencial
+
+  /**
+   * qual dos 4 pares de 8 bits de sinal eh o primeiro 00 ou 11
+   *
+   * @return de 0 (o par mais a esquerda) a 3
+   */
+  private static int primeiroParInvalido(int oitoSinais) {
+    for (int par = 0; par < 3; par++) {
+      int sinais = (oitoSinais >>> (6 - 2 * par)) & 0b11;
+      if (sinais == 0b00 || sinais == 0b11) {
+        return par;
+      }
+    } // fim for
+    return 3;
+  } // fim do metodo primeiroParInvalido
+
+} // fim da classe CodificacaoManchester
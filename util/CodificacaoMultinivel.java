@@ -0,0 +1,178 @@
+package util;
+
+/**
+ * classe que implementa as codificacoes de mais de 2 niveis usadas pela camada
+ * fisica, que por isso viajam no meio como simbolos (um int por nivel) e nao
+ * como bits:
+ *
+ * MLT-3 (a do 100BASE-TX): o sinal percorre o ciclo 0, +1, 0, -1; o bit 1 anda
+ * um passo e o bit 0 fica no mesmo nivel. Um simbolo por bit, mas o sinal leva
+ * no minimo 4 bits 1 para um ciclo completo, o que reduz a frequencia dele.
+ *
+ * PAM-4 (a do 100G/400G Ethernet): cada 2 bits viram um dos niveis -3, -1, +1
+ * e +3, em codigo Gray (00, 01, 11, 10), entao niveis vizinhos diferem em so um
+ * bit. Metade dos simbolos para os mesmos bits: com a taxa de simbolos do meio
+ * fixa, a vazao dobra. Se o quadro tem um numero impar de bits o ultimo simbolo
+ * leva um 0 de preenchimento e vem seguido de um simbolo de nivel 0, que nao
+ * eh um nivel de dados e avisa a receptora para retirar esse 0.
+ *
+ * As receptoras recusam os simbolos que nao podem aparecer: fora dos niveis ou,
+ * no MLT-3, fora da ordem do ciclo.
+ */
+public class CodificacaoMultinivel {
+
+  public static final int[] NIVEIS_MLT3 = { -1, 0, 1 };
+  public static final int[] NIVEIS_PAM4 = { -3, -1, 1, 3 };
+  public static final int FIM_COM_PREENCHIMENTO_PAM4 = 0;
+
+  private static final int[] CICLO_MLT3 = { 0, 1, 0, -1 };
+
+  // dois bits -> nivel (Gray) e nivel + 3 -> dois bits, -1 nos que nao sao niveis
+  private static final int[] NIVEL_DOS_BITS_PAM4 = { -3, -1, 3, 1 };
+  private static final int[] BITS_DO_NIVEL_PAM4 = { 0b00, -1, 0b01, -1, 0b11, -1, 0b10 };
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodificacaoMultinivel() {
+  } // fim do construtor
+
+  /**
+   * codifica o quadro em MLT-3, um simbolo por bit
+   *
+   * @param quadro quadro com os dados
+   * @return os simbolos, um nivel por posicao
+   */
+  public static int[] codificarMLT3(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int[] simbolos = new int[totalBits];
+    int estado = 0; // posicao no ciclo
+
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long dados = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade); // alinha a esquerda
+      for (int i = 0; i < quantidade; i++) {
+        estado = (estado + (int) (dados >>> 63)) & 3;
+        simbolos[posicao + i] = CICLO_MLT3[estado];
+        dados <<= 1;
+      } // fim for
+    } // fim for
+
+    return simbolos;
+  } // fim do metodo codificarMLT3
+
+  /**
+   * decodifica os simbolos em MLT-3: o mesmo nivel eh o bit 0 e o proximo nivel
+   * do ciclo eh o bit 1
+   *
+   * @param simbolos           simbolos recebidos
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se todos os simbolos forem validos, senao a posicao do primeiro
+   *         que nao eh nem o nivel atual nem o proximo do ciclo
+   */
+  public static int decodificarMLT3(int[] simbolos, BitBuffer quadroDecodificado) {
+    int estado = 0;
+    long dados = 0;
+    int bitsNaPalavra = 0;
+
+    for (int i = 0; i < simbolos.length; i++) {
+      int bit;
+      if (simbolos[i] == CICLO_MLT3[estado]) {
+        bit = 0;
+      } else if (simbolos[i] == CICLO_MLT3[(estado + 1) & 3]) {
+        bit = 1;
+        estado = (estado + 1) & 3;
+      } else {
+        return i;
+      }
+      dados = (dados << 1) | bit;
+      if (++bitsNaPalavra == 64) { // escreve 64 bits por vez
+        quadroDecodificado.anexarBitsLong(dados, 64);
+        bitsNaPalavra = 0;
+      }
+    } // fim for
+
+    quadroDecodificado.anexarBitsLong(dados, bitsNaPalavra);
+    return -1;
+  } // fim do metodo decodificarMLT3
+
+  /**
+   * codifica o quadro em PAM-4, um simbolo a cada 2 bits
+   *
+   * @param quadro quadro com os dados
+   * @return os simbolos, um nivel por posicao
+   */
+  public static int[] codificarPAM4(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int simbolosDeDados = (totalBits + 1) / 2;
+    int[] simbolos = new int[simbolosDeDados + (totalBits % 2)];
+
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long dados = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade); // o impar completa com 0
+      for (int i = 0; i < quantidade; i += 2) {
+        simbolos[(posicao + i) / 2] = NIVEL_DOS_BITS_PAM4[(int) (dados >>> 62)];
+        dados <<= 2;
+      } // fim for
+    } // fim for
+
+    if (totalBits % 2 != 0) {
+      simbolos[simbolosDeDados] = FIM_COM_PREENCHIMENTO_PAM4;
+    }
+    return simbolos;
+  } // fim do metodo codificarPAM4
+
+  /**
+   * decodifica os simbolos em PAM-4
+   *
+   * @param simbolos           simbolos recebidos
+   * @param quadroDecodificado quadro onde os bits de dados sao anexados
+   * @return -1 se todos os simbolos forem validos, senao a posicao do primeiro
+   *         que nao eh um nivel de dados (o nivel 0 so vale no fim)
+   */
+  public static int decodificarPAM4(int[] simbolos, BitBuffer quadroDecodificado) {
+    int totalSimbolos = simbolos.length;
+    boolean preenchido = totalSimbolos > 1 && simbolos[totalSimbolos - 1] == FIM_COM_PREENCHIMENTO_PAM4;
+    if (preenchido) {
+      totalSimbolos--;
+    }
+
+    long dados = 0;
+    int simbolosNaPalavra = 0;
+    for (int i = 0; i < totalSimbolos; i++) {
+      int indice = simbolos[i] + 3;
+      int bits = (indice >= 0 && indice < BITS_DO_NIVEL_PAM4.length) ? BITS_DO_NIVEL_PAM4[indice] : -1;
+      if (bits < 0) {
+        return i;
+      }
+      dados = (dados << 2) | bits;
+      if (++simbolosNaPalavra == 32) { // escreve 64 bits por vez
+        quadroDecodificado.anexarBitsLong(dados, 64);
+        simbolosNaPalavra = 0;
+      }
+    } // fim for
+    quadroDecodificado.anexarBitsLong(dados, 2 * simbolosNaPalavra);
+
+    if (preenchido) {
+      quadroDecodificado.removerDoFim(1);
+    }
+    return -1;
+  } // fim do metodo decodificarPAM4
+
+  /**
+   * monta a representacao dos simbolos para exibicao, com sinal e 8 simbolos
+   * por grupo
+   *
+   * @param simbolos simbolos a serem exibidos
+   * @return a string com os niveis
+   */
+  public static String exibirSimbolosStr(int[] simbolos) {
+    StringBuilder simbolosString = new StringBuilder(3 * simbolos.length);
+    for (int i = 0; i < simbolos.length; i++) {
+      simbolosString.append(simbolos[i] > 0 ? "+" : (simbolos[i] == 0 ? " " : "")).append(simbolos[i]);
+      simbolosString.append((i % 8 == 7) ? "  " : " ");
+    } // fim for
+    return simbolosString.toString();
+  } // fim do metodo exibirSimbolosStr
+
+} // fim da classe CodificacaoMultinivel
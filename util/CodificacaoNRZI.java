@@ -0,0 +1,79 @@
+package util;
+
+/**
+ * classe que implementa a codificacao NRZI (non-return-to-zero inverted) usada
+ * pela camada fisica: o bit 1 inverte o nivel do sinal e o bit 0 mantem, entao
+ * o sinal tem o mesmo tamanho do quadro e o que importa eh a transicao, nao o
+ * nivel.
+ *
+ * As duas pontas trabalham com 64 bits por vez em vez de um: cada nivel eh o
+ * XOR de todos os bits ate ele (um XOR prefixado, calculado em 6 deslocamentos)
+ * e cada bit decodificado eh o XOR de um nivel com o anterior (um deslocamento
+ * so). O nivel em que uma palavra termina eh passado para a proxima.
+ */
+public class CodificacaoNRZI {
+
+  public static final int NIVEL_INICIAL = 0; // nivel antes do primeiro bit, igual nas duas pontas
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodificacaoNRZI() {
+  } // fim do construtor
+
+  /**
+   * codifica o quadro, 64 bits por vez
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal, do mesmo tamanho do quadro
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    BitBuffer sinal = PoolDeBuffers.emprestar(totalBits);
+    long nivel = NIVEL_INICIAL;
+
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long niveis = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade); // alinha a esquerda
+
+      // XOR prefixado da esquerda para a direita: cada bit vira o XOR dele com
+      // todos os anteriores da palavra
+      niveis ^= niveis >>> 1;
+      niveis ^= niveis >>> 2;
+      niveis ^= niveis >>> 4;
+      niveis ^= niveis >>> 8;
+      niveis ^= niveis >>> 16;
+      niveis ^= niveis >>> 32;
+      niveis ^= -nivel; // nivel anterior 1 inverte a palavra inteira
+
+      sinal.anexarBitsLong(niveis >>> (64 - quantidade), quantidade);
+      nivel = (niveis >>> (64 - quantidade)) & 1;
+    } // fim for
+
+    return sinal;
+  } // fim do metodo codificar
+
+  /**
+   * decodifica o sinal, 64 niveis por vez: ha bit 1 onde o nivel mudou
+   *
+   * @param sinal sinal recebido
+   * @return um quadro do pool com os dados
+   */
+  public static BitBuffer decodificar(BitBuffer sinal) {
+    int totalBits = sinal.tamanho();
+    BitBuffer quadroDecodificado = PoolDeBuffers.emprestar(totalBits);
+    long nivel = NIVEL_INICIAL;
+
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long niveis = sinal.lerBitsLong(posicao, quantidade) << (64 - quantidade); // alinha a esquerda
+      long dados = niveis ^ ((niveis >>> 1) | (nivel << 63)); // cada nivel com o anterior
+
+      quadroDecodificado.anexarBitsLong(dados >>> (64 - quantidade), quantidade);
+      nivel = (niveis >>> (64 - quantidade)) & 1;
+    } // fim for
+
+    return quadroDecodificado;
+  } // fim do metodo decodificar
+
+} // fim da classe CodificacaoNRZI
@@ -0,0 +1,217 @@
+package util;
+
+/**
+ * classe que implementa o codigo convolucional de taxa 1/2 e comprimento de
+ * restricao K = 7 (polinomios 171 e 133 em octal, o par classico de satelites e
+ * do 802.11) usado pela camada de enlace, com decodificacao de Viterbi por
+ * decisao abrupta.
+ *
+ * Cada bit de dados gera 2 bits no quadro, calculados a partir dele e dos 6 bits
+ * anteriores (o estado do codificador). No fim sao enviados 6 bits 0 de cauda
+ * para o codificador voltar ao estado 0, entao o quadro fica com
+ * 2 * (dados + 6) bits.
+ *
+ * O decodificador percorre os 64 estados a cada par recebido guardando, para
+ * cada estado, o menor numero de bits discordantes (metrica) de um caminho que
+ * chega nele; a escolha feita em cada estado cabe em um bit, entao as 64
+ * escolhas de um passo ficam em um unico long. As escolhas ficam em um anel de
+ * 128 passos: a cada 64 passos novos o caminho eh refeito a partir do melhor
+ * estado e os 64 passos mais antigos do anel viram bits decodificados. Metricas
+ * e anel ficam guardados por thread, entao decodificar nao aloca nada alem do
+ * quadro de saida.
+ */
+public class CodigoConvolucional {
+
+  public static final int COMPRIMENTO_DE_RESTRICAO = 7; // K
+  public static final int BITS_DE_CAUDA = COMPRIMENTO_DE_RESTRICAO - 1; // zeros que fecham o quadro
+  public static final int POLINOMIO_1 = 0171; // 1111001
+  public static final int POLINOMIO_2 = 0133; // 1011011
+
+  private static final int QUANTIDADE_DE_ESTADOS = 1 << BITS_DE_CAUDA; // 64
+  private static final int TAMANHO_DO_ANEL = 128; // passos guardados para refazer o caminho
+  private static final int PROFUNDIDADE = TAMANHO_DO_ANEL / 2; // passos que confirmam um trecho antes de decodifica-lo
+  private static final int METRICA_INALCANCAVEL = 1 << 24; // estados que o caminho ainda nao alcancou
+
+  // para cada registrador de 7 bits (bit novo no bit 6, estado nos bits 5..0),
+  // os 2 bits transmitidos: o do polinomio 1 no bit 1 e o do polinomio 2 no 0
+  private static final int[] SAIDA = new int[1 << COMPRIMENTO_DE_RESTRICAO];
+
+  static {
+    for (int registrador = 0; registrador < SAIDA.length; registrador++) {
+      SAIDA[registrador] = ((Integer.bitCount(registrador & POLINOMIO_1) & 1) << 1)
+          | (Integer.bitCount(registrador & POLINOMIO_2) & 1);
+    } // fim for
+  } // fim do bloco estatico
+
+  // metricas e anel de escolhas reaproveitados por cada thread
+  private static final ThreadLocal<EstadoDoDecodificador> ESTADO = new ThreadLocal<EstadoDoDecodificador>() {
+    @Override
+    protected EstadoDoDecodificador initialValue() {
+      return new EstadoDoDecodificador();
+    }
+  };
+
+  /**
+   * guarda as estruturas do decodificador de Viterbi de uma thread
+   */
+  private static class EstadoDoDecodificador {
+    int[] metricas = new int[QUANTIDADE_DE_ESTADOS];
+    int[] novasMetricas = new int[QUANTIDADE_DE_ESTADOS];
+    long[] escolhas = new long[TAMANHO_DO_ANEL]; // bit e do passo t: qual antecessor o estado e escolheu
+  } // fim da classe EstadoDoDecodificador
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodigoConvolucional() {
+  } // fim do construtor
+
+  /**
+   * codifica o quadro, 2 bits por bit de dados mais a cauda
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com o sinal codificado
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    BitBuffer quadroCodificado = PoolDeBuffers.emprestar(2 * (totalBits + BITS_DE_CAUDA));
+    int estado = 0;
+
+    // 32 bits de dados por vez viram 64 bits codificados
+    for (int posicao = 0; posicao < totalBits + BITS_DE_CAUDA; posicao += 32) {
+      int quantidade = Math.min(32, totalBits + BITS_DE_CAUDA - posicao);
+      int dados = quadro.lerBits(posicao, quantidade); // a cauda eh lida como 0
+      long codificados = 0;
+      for (int i = quantidade - 1; i >= 0; i--) {
+        int registrador = (((dados >>> i) & 1) << BITS_DE_CAUDA) | estado;
+        codificados = (codificados << 2) | SAIDA[registrador];
+        estado = registrador >>> 1;
+      } // fim for
+      quadroCodificado.anexarBitsLong(codificados, 2 * quantidade);
+    } // fim for
+
+    return quadroCodificado;
+  } // fim do metodo codificar
+
+  /**
+   * diz se um quadro com essa quantidade de bits pode ter vindo do codificar
+   *
+   * @param totalDeBits tamanho do quadro recebido
+   * @return true se o tamanho eh par e comporta pelo menos 1 bit de dados e a
+   *         cauda
+   */
+  public static boolean tamanhoValido(int totalDeBits) {
+    return totalDeBits % 2 == 0 && totalDeBits / 2 > BITS_DE_CAUDA;
+  } // fim do metodo tamanhoValido
+
+  /**
+   * decodifica o quadro pelo algoritmo de Viterbi
+   *
+   * @param quadro      quadro recebido, possivelmente com erros
+   * @param quadroDados quadro onde os bits de dados serao escritos a partir da
+   *                    posicao 0
+   * @return quantos bits recebidos discordam do caminho escolhido, ou seja,
+   *         quantos erros do canal foram corrigidos
+   */
+  public static int decodificar(BitBuffer quadro, BitBuffer quadroDados) {
+    int totalDePassos = quadro.tamanho() / 2; // dados mais cauda
+    int totalBitsDados = totalDePassos - BITS_DE_CAUDA;
+    EstadoDoDecodificador estadoDoDecodificador = ESTADO.get();
+    int[] metricas = estadoDoDecodificador.metricas;
+    int[] novasMetricas = estadoDoDecodificador.novasMetricas;
+    long[] escolhas = estadoDoDecodificador.escolhas;
+
+    // o codificador comeca no estado 0
+    java.util.Arrays.fill(metricas, METRICA_INALCANCAVEL);
+    metricas[0] = 0;
+
+    long pares = 0;
+    for (int passo = 0; passo < totalDePassos; passo++) {
+      if ((passo & 31) == 0) { // 32 pares recebidos por leitura
+        pares = quadro.lerBitsLong(2 * passo, 64);
+      }
+      int parRecebido = (int) (pares >>> (62 - 2 * (passo & 31))) & 0b11;
+
+      // somar, comparar e selecionar: o estado novo e vem de (e << 1) | x, com x
+      // sendo o bit mais antigo que sai do registrador
+      long escolhasDoPasso = 0;
+      for (int novoEstado = 0; novoEstado < QUANTIDADE_DE_ESTADOS; novoEstado++) {
+        int registrador0 = novoEstado << 1;
+        int registrador1 = registrador0 | 1;
+        int metrica0 = metricas[registrador0 & (QUANTIDADE_DE_ESTADOS - 1)]
+            + Integer.bitCount(SAIDA[registrador0] ^ parRecebido);
+        int metrica1 = metricas[registrador1 & (QUANTIDADE_DE_ESTADOS - 1)]
+            + Integer.bitCount(SAIDA[registrador1] ^ parRecebido);
+        if (metrica1 < metrica0) {
+          novasMetricas[novoEstado] = metrica1;
+          escolhasDoPasso |= 1L << novoEstado;
+        } else {
+          novasMetricas[novoEstado] = metrica0;
+        }
+      } // fim for
+      escolhas[passo & (TAMANHO_DO_ANEL - 1)] = escolhasDoPasso;
+      int[] troca = metricas;
+      metricas = novasMetricas;
+      novasMetricas = troca;
+
+      // anel cheio e mais 64 passos: refaz o caminho pelos 64 passos mais novos e
+      // decodifica os 64 mais antigos
+      if (passo + 1 >= TAMANHO_DO_ANEL && (passo + 1) % PROFUNDIDADE == 0 && passo + 1 < totalDePassos) {
+        refazerCaminho(escolhas, melhorEstado(metricas), passo, passo - TAMANHO_DO_ANEL + 1, passo - PROFUNDIDADE,
+            quadroDados, totalBitsDados);
+      }
+    } // fim for
+
+    // o caminho termina no estado 0 por causa da cauda; decodifica o que faltou
+    // desde o ultimo trecho, que acabou 64 passos antes do ultimo multiplo de 64
+    int ultimoPasso = totalDePassos - 1;
+    int ultimoMultiplo = (ultimoPasso / PROFUNDIDADE) * PROFUNDIDADE;
+    int primeiroPendente = (ultimoMultiplo >= TAMANHO_DO_ANEL) ? ultimoMultiplo - PROFUNDIDADE : 0;
+    refazerCaminho(escolhas, 0, ultimoPasso, primeiroPendente, ultimoPasso, quadroDados, totalBitsDados);
+
+    int errosCorrigidos = metricas[0];
+    // devolve as metricas na ordem original ao estado da thread
+    estadoDoDecodificador.metricas = metricas;
+    estadoDoDecodificador.novasMetricas = novasMetricas;
+    return errosCorrigidos;
+  } // fim do metodo decodificar
+
+  /**
+   * volta pelo anel de escolhas do passo final ate o primeiro passo, escrevendo
+   * o bit de dados dos passos ate o ultimo a decodificar (os mais novos so servem
+   * para confirmar o caminho)
+   *
+   * @param escolhas           anel de escolhas
+   * @param estado             estado em que o caminho termina no passo final
+   * @param passoFinal         passo onde a volta comeca
+   * @param primeiroPasso      passo mais antigo, onde a volta termina
+   * @param ultimoADecodificar passo mais novo que vira bit de dados
+   * @param quadroDados        quadro onde os bits sao escritos
+   * @param totalBitsDados     quantos passos sao dados (o resto eh cauda)
+   */
+  private static void refazerCaminho(long[] escolhas, int estado, int passoFinal, int primeiroPasso,
+      int ultimoADecodificar, BitBuffer quadroDados, int totalBitsDados) {
+    for (int passo = passoFinal; passo >= primeiroPasso; passo--) {
+      // o bit de dados do passo eh o bit mais novo do estado depois dele
+      if (passo <= ultimoADecodificar && passo < totalBitsDados) {
+        quadroDados.escreverBits(passo, estado >>> (BITS_DE_CAUDA - 1), 1);
+      }
+      int escolha = (int) (escolhas[passo & (TAMANHO_DO_ANEL - 1)] >>> estado) & 1;
+      estado = ((estado << 1) | escolha) & (QUANTIDADE_DE_ESTADOS - 1);
+    } // fim for
+  } // fim do metodo refazerCaminho
+
+  /**
+   * estado com a menor metrica
+   */
+  private static int melhorEstado(int[] metricas) {
+    int melhor = 0;
+    for (int estado = 1; estado < QUANTIDADE_DE_ESTADOS; estado++) {
+      if (metricas[estado] < metricas[melhor]) {
+        melhor = estado;
+      }
+    } // fim for
+    return melhor;
+  } // fim do metodo melhorEstado
+
+} // fim da classe CodigoConvolucional
@@ -0,0 +1,118 @@
+package util;
+
+/**
+ * classe que implementa o codigo de Hamming usado pela camada de enlace: os bits
+ * de paridade (paridade PAR) ficam nas posicoes potencia de 2 (1, 2, 4, 8, ...,
+ * contando a partir de 1) e os dados ocupam as demais posicoes, em ordem.
+ *
+ * Em vez de recontar os bits cobertos por cada paridade, usa o fato de que a
+ * sindrome eh o xor das posicoes de todos os bits 1 do quadro: o quadro eh lido
+ * em palavras de 64 bits e so os bits 1 sao visitados, com
+ * Long.numberOfTrailingZeros. Os dados entre duas potencias de 2 formam um
+ * trecho continuo, entao sao copiados de uma vez na insercao e na extracao.
+ */
+public class CodigoHamming {
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodigoHamming() {
+  } // fim do construtor
+
+  /**
+   * calcula quantos bits de paridade sao necessarios para os dados, menor r tal
+   * que 2^r >= d + r + 1
+   *
+   * @param totalBitsDados quantidade de bits de dados
+   * @return a quantidade de bits de paridade
+   */
+  public static int quantidadeBitsParidade(int totalBitsDados) {
+    int quantBitsParidade = 0;
+    while ((1 << quantBitsParidade) < (totalBitsDados + quantBitsParidade + 1)) {
+      quantBitsParidade++;
+    } // fim while
+    return quantBitsParidade;
+  } // fim do metodo quantidadeBitsParidade
+
+  /**
+   * monta o quadro de Hamming: reserva as posicoes de paridade, copia os dados em
+   * trechos e preenche as paridades com a sindrome dos dados
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com dados e paridades
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int quantBitsParidade = quantidadeBitsParidade(totalBits);
+    BitBuffer quadroComHamming = PoolDeBuffers.emprestar(totalBits + quantBitsParidade);
+
+    int indiceDado = 0;
+    for (int i = 0; i < quantBitsParidade; i++) {
+      // a posicao 2^i fica com 0 ate a paridade ser calculada (o quadro do pool
+      // nao vem zerado), seguida do trecho de dados ate a proxima potencia de 2
+      quadroComHamming.anexarBits(0, 1);
+      int tamanhoTrecho = Math.min((1 << i) - 1, totalBits - indiceDado);
+      quadroComHamming.anexar(quadro, indiceDado, tamanhoTrecho);
+      indiceDado += tamanhoTrecho;
+    } // fim for
+
+    // com as paridades em 0, a sindrome eh o xor das posicoes dos dados em 1; o
+    // bit i dela vira a paridade da posicao 2^i e zera a sindrome do quadro
+    int sindrome = calcularSindrome(quadroComHamming, quadroComHamming.tamanho());
+    for (int i = 0; i < quantBitsParidade; i++) {
+      quadroComHamming.escreverBits((1 << i) - 1, (sindrome >>> i) & 1, 1);
+    } // fim for
+
+    return quadroComHamming;
+  } // fim do metodo codificar
+
+  /**
+   * calcula a sindrome do quadro, o xor das posicoes (a partir de 1) de todos os
+   * bits 1. Com paridade PAR, 0 indica quadro sem erro e qualquer outro valor eh
+   * a posicao do bit errado (para um erro de 1 bit)
+   *
+   * @param quadro      quadro de Hamming
+   * @param totalDeBits quantos bits, a partir do inicio, entram no calculo
+   * @return a sindrome
+   */
+  public static int calcularSindrome(BitBuffer quadro, int totalDeBits) {
+    int sindrome = 0;
+    for (int posicao = 0; posicao < totalDeBits; posicao += 64) {
+      long palavra = quadro.lerBitsLong(posicao, 64);
+      int bitsValidos = totalDeBits - posicao;
+      if (bitsValidos < 64) {
+        palavra &= -1L << (64 - bitsValidos); // descarta o que passa do total
+      }
+      // o bit de numero b da palavra eh o bit posicao + 63 - b do quadro, ou seja,
+      // a posicao posicao + 64 - b contando a partir de 1
+      while (palavra != 0) {
+        sindrome ^= posicao + 64 - Long.numberOfTrailingZeros(palavra);
+        palavra &= palavra - 1; // apaga o bit 1 visitado
+      } // fim while
+    } // fim for
+    return sindrome;
+  } // fim do metodo calcularSindrome
+
+  /**
+   * extrai os dados do quadro de Hamming, copiando os trechos entre as posicoes
+   * de paridade
+   *
+   * @param quadro quadro de Hamming (ja corrigido)
+   * @return um quadro do pool so com os dados
+   */
+  public static BitBuffer extrairDados(BitBuffer quadro) {
+    int totalBitsReal = quadro.tamanho();
+    // as posicoes de paridade sao as potencias de 2 ate o tamanho do quadro
+    int quantBitsParidade = 32 - Integer.numberOfLeadingZeros(totalBitsReal);
+    BitBuffer quadroVerificado = PoolDeBuffers.emprestar(totalBitsReal - quantBitsParidade);
+
+    for (int i = 0; i < quantBitsParidade; i++) {
+      // o trecho comeca logo apos a posicao 2^i, que eh o indice 2^i
+      int inicioTrecho = 1 << i;
+      quadroVerificado.anexar(quadro, inicioTrecho, Math.min(inicioTrecho - 1, totalBitsReal - inicioTrecho));
+    } // fim for
+
+    return quadroVerificado;
+  } // fim do metodo extrairDados
+
+} // fim da classe CodigoHamming
@@ -0,0 +1,195 @@
+package util;
+
+/**
+ * classe que implementa o Hamming estendido (72,64) SECDED usado pela camada de
+ * enlace: o quadro eh dividido em blocos de 64 bits de dados, cada um seguido de
+ * 8 bits de verificacao, entao cada bloco corrige 1 bit errado e detecta 2, e o
+ * custo por bloco eh fixo qualquer que seja o tamanho do quadro.
+ *
+ * Dentro do bloco os 64 bits de dados ocupam as posicoes de 3 a 71 que nao sao
+ * potencia de 2, como no Hamming comum. Os 8 bits de verificacao sao os 7 bits
+ * da sindrome (xor das posicoes dos dados em 1) seguidos de um bit de paridade
+ * PAR do bloco inteiro. A sindrome dos dados sai de 8 consultas a uma tabela
+ * (uma por byte) e a posicao apontada pela sindrome vira o bit a corrigir por
+ * outra tabela.
+ *
+ * O ultimo bloco pode ter menos de 64 bits de dados: os bits que faltam contam
+ * como 0 e nao sao transmitidos.
+ */
+public class CodigoHammingSECDED {
+
+  public static final int BITS_DE_DADOS_POR_BLOCO = 64; // dados protegidos por bloco
+  public static final int BITS_DE_VERIFICACAO_POR_BLOCO = 8; // 7 de sindrome + 1 de paridade geral
+  public static final int TAMANHO_BLOCO_EM_BITS = BITS_DE_DADOS_POR_BLOCO + BITS_DE_VERIFICACAO_POR_BLOCO;
+
+  private static final int SINDROME_DE_BIT_DE_VERIFICACAO = -1; // a posicao eh potencia de 2
+  private static final int SINDROME_INVALIDA = -2; // posicao alem da 71, so aparece com 3 ou mais erros
+
+  // a tabela k, que comeca no indice 256 * k, guarda a sindrome de cada valor do
+  // byte k dos dados (byte 0 = bits 0 a 7 do bloco)
+  private static final int[] SINDROME_POR_BYTE = new int[8 * 256];
+
+  // para cada sindrome, qual bit de dados do bloco esta errado
+  private static final int[] BIT_POR_SINDROME = new int[128];
+
+  static {
+    int[] posicaoDoBit = new int[BITS_DE_DADOS_POR_BLOCO];
+    java.util.Arrays.fill(BIT_POR_SINDROME, SINDROME_INVALIDA);
+    int bitDeDados = 0;
+    for (int posicao = 1; posicao < TAMANHO_BLOCO_EM_BITS; posicao++) {
+      if ((posicao & (posicao - 1)) == 0) {
+        BIT_POR_SINDROME[posicao] = SINDROME_DE_BIT_DE_VERIFICACAO;
+      } else {
+        posicaoDoBit[bitDeDados] = posicao;
+        BIT_POR_SINDROME[posicao] = bitDeDados;
+        bitDeDados++;
+      }
+    } // fim for
+
+    for (int k = 0; k < 8; k++) {
+      for (int valor = 0; valor < 256; valor++) {
+        int sindrome = 0;
+        for (int b = 0; b < 8; b++) {
+          if ((valor & (0x80 >>> b)) != 0) {
+            sindrome ^= posicaoDoBit[8 * k + b];
+          }
+        } // fim for
+        SINDROME_POR_BYTE[256 * k + valor] = sindrome;
+      } // fim for
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodigoHammingSECDED() {
+  } // fim do construtor
+
+  /**
+   * protege o quadro: cada trecho de ate 64 bits de dados eh copiado seguido dos
+   * seus 8 bits de verificacao
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com os blocos protegidos
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int quantidadeDeBlocos = (totalBits + BITS_DE_DADOS_POR_BLOCO - 1) / BITS_DE_DADOS_POR_BLOCO;
+    BitBuffer quadroProtegido = PoolDeBuffers
+        .emprestar(totalBits + quantidadeDeBlocos * BITS_DE_VERIFICACAO_POR_BLOCO);
+
+    for (int posicao = 0; posicao < totalBits; posicao += BITS_DE_DADOS_POR_BLOCO) {
+      int bitsDeDados = Math.min(BITS_DE_DADOS_POR_BLOCO, totalBits - posicao);
+      long dados = quadro.lerBitsLong(posicao, BITS_DE_DADOS_POR_BLOCO); // o que falta vem como 0
+      quadroProtegido.anexar(quadro, posicao, bitsDeDados);
+      quadroProtegido.anexarBits(calcularVerificacao(dados), BITS_DE_VERIFICACAO_POR_BLOCO);
+    } // fim for
+
+    return quadroProtegido;
+  } // fim do metodo codificar
+
+  /**
+   * verifica todos os blocos do quadro e corrige, no proprio quadro, os bits de
+   * dados errados dos blocos com um unico erro
+   *
+   * @param quadro quadro com os blocos protegidos
+   * @return quantos blocos tinham 1 erro, ou -1 se algum bloco tem um erro que
+   *         nao pode ser corrigido (2 bits ou mais)
+   */
+  public static int corrigir(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int blocosCorrigidos = 0;
+
+    for (int posicao = 0; posicao < totalBits; posicao += TAMANHO_BLOCO_EM_BITS) {
+      int bitsDeDados = Math.min(TAMANHO_BLOCO_EM_BITS, totalBits - posicao) - BITS_DE_VERIFICACAO_POR_BLOCO;
+      // alinha os dados a esquerda, como no bloco completo
+      long dados = quadro.lerBitsLong(posicao, bitsDeDados) << (BITS_DE_DADOS_POR_BLOCO - bitsDeDados);
+      int verificacao = quadro.lerBits(posicao + bitsDeDados, BITS_DE_VERIFICACAO_POR_BLOCO);
+
+      int sindrome = calcularSindrome(dados) ^ (verificacao >>> 1);
+      int paridadeDoBloco = (Long.bitCount(dados) + Integer.bitCount(verificacao)) & 1;
+
+      if (paridadeDoBloco == 0) {
+        if (sindrome != 0) {
+          return -1; // a paridade bate mas a sindrome nao: erro duplo
+        }
+        continue; // bloco sem erro
+      }
+
+      // paridade impar: um unico erro, a sindrome diz onde (0 eh o proprio bit de
+      // paridade geral)
+      if (sindrome != 0) {
+        int bitErrado = BIT_POR_SINDROME[sindrome];
+        if (bitErrado == SINDROME_INVALIDA || bitErrado >= bitsDeDados) {
+          return -1; // aponta para fora do bloco, so acontece com 3 ou mais erros
+        }
+        if (bitErrado != SINDROME_DE_BIT_DE_VERIFICACAO) {
+          quadro.inverterBit(posicao + bitErrado);
+        }
+      }
+      blocosCorrigidos++;
+    } // fim for
+
+    return blocosCorrigidos;
+  } // fim do metodo corrigir
+
+  /**
+   * copia so os bits de dados de cada bloco
+   *
+   * @param quadro quadro com os blocos protegidos (ja corrigido)
+   * @return um quadro do pool so com os dados
+   */
+  public static BitBuffer extrairDados(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int quantidadeDeBlocos = (totalBits + TAMANHO_BLOCO_EM_BITS - 1) / TAMANHO_BLOCO_EM_BITS;
+    BitBuffer quadroVerificado = PoolDeBuffers
+        .emprestar(totalBits - quantidadeDeBlocos * BITS_DE_VERIFICACAO_POR_BLOCO);
+
+    for (int posicao = 0; posicao < totalBits; posicao += TAMANHO_BLOCO_EM_BITS) {
+      int bitsDeDados = Math.min(TAMANHO_BLOCO_EM_BITS, totalBits - posicao) - BITS_DE_VERIFICACAO_POR_BLOCO;
+      quadroVerificado.anexar(quadro, posicao, bitsDeDados);
+    } // fim for
+
+    return quadroVerificado;
+  } // fim do metodo extrairDados
+
+  /**
+   * diz se um quadro com essa quantidade de bits pode ter vindo do codificar:
+   * o ultimo bloco precisa ter pelo menos 1 bit de dados alem da verificacao
+   *
+   * @param totalDeBits tamanho do quadro recebido
+   * @return true se o tamanho eh valido
+   */
+  public static boolean tamanhoValido(int totalDeBits) {
+    int resto = totalDeBits % TAMANHO_BLOCO_EM_BITS;
+    return resto == 0 || resto > BITS_DE_VERIFICACAO_POR_BLOCO;
+  } // fim do metodo tamanhoValido
+
+  /**
+   * calcula os 8 bits de verificacao de um bloco: sindrome dos dados e, no bit
+   * menos significativo, a paridade PAR de dados e sindrome juntos
+   *
+   * @param dados os 64 bits de dados do bloco
+   * @return os 8 bits de verificacao
+   */
+  static int calcularVerificacao(long dados) {
+    int sindrome = calcularSindrome(dados);
+    int paridade = (Long.bitCount(dados) + Integer.bitCount(sindrome)) & 1;
+    return (sindrome << 1) | paridade;
+  } // fim do metodo calcularVerificacao
+
+  /**
+   * sindrome dos 64 bits de dados, xor das posicoes dos bits 1, por tabela
+   */
+  private static int calcularSindrome(long dados) {
+    return SINDROME_POR_BYTE[(int) (dados >>> 56)]
+        ^ SINDROME_POR_BYTE[0x100 | ((int) (dados >>> 48) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x200 | ((int) (dados >>> 40) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x300 | ((int) (dados >>> 32) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x400 | ((int) (dados >>> 24) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x500 | ((int) (dados >>> 16) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x600 | ((int) (dados >>> 8) & 0xFF)]
+        ^ SINDROME_POR_BYTE[0x700 | ((int) dados & 0xFF)];
+  } // fim do metodo calcularSindrome
+
+} // fim da classe CodigoHammingSECDED
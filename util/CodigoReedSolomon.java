@@ -0,0 +1,334 @@
+package util;
+
+/**
+ * classe que implementa o codigo de Reed-Solomon RS(255,223) usado pela camada
+ * de enlace: cada bloco de ate 223 bytes de dados ganha 32 bytes de paridade e
+ * qualquer combinacao de ate 16 bytes errados no bloco eh corrigida, nao importa
+ * quantos bits de cada byte mudaram. Por isso aguenta rajadas de erro que o
+ * Hamming nao corrige, sem precisar de retransmissao.
+ *
+ * A aritmetica eh no corpo GF(256) com o polinomio primitivo 0x11D; soma eh xor
+ * e a multiplicacao usa as tabelas de logaritmo e antilogaritmo. O polinomio
+ * gerador tem as raizes alfa^0 ate alfa^31. Na recepcao as sindromes dizem se o
+ * bloco esta certo; se nao estiver, o Berlekamp-Massey acha o polinomio
+ * localizador de erros, a busca de Chien acha as posicoes e o algoritmo de
+ * Forney os valores a corrigir.
+ *
+ * Blocos com menos de 223 bytes (o ultimo do quadro, ou quadros pequenos) sao
+ * encurtados: os bytes que faltam contam como 0 e nao sao transmitidos. Se o
+ * quadro nao termina em um byte inteiro, o ultimo byte de dados eh completado
+ * com 0 so para o calculo.
+ */
+public class CodigoReedSolomon {
+
+  public static final int BYTES_DE_DADOS_POR_BLOCO = 223; // k
+  public static final int BYTES_DE_PARIDADE_POR_BLOCO = 32; // n - k = 2t
+  public static final int BYTES_CORRIGIVEIS_POR_BLOCO = BYTES_DE_PARIDADE_POR_BLOCO / 2; // t
+  public static final int BITS_DE_DADOS_POR_BLOCO = BYTES_DE_DADOS_POR_BLOCO * 8;
+  public static final int BITS_DE_PARIDADE_POR_BLOCO = BYTES_DE_PARIDADE_POR_BLOCO * 8;
+  public static final int TAMANHO_BLOCO_EM_BITS = BITS_DE_DADOS_POR_BLOCO + BITS_DE_PARIDADE_POR_BLOCO;
+
+  private static final int POLINOMIO_PRIMITIVO = 0x11D; // x^8 + x^4 + x^3 + x^2 + 1
+
+  // ANTILOG[i] = alfa^i, duplicada para que ANTILOG[LOG[a] + LOG[b]] dispense o
+  // modulo 255
+  private static final int[] ANTILOG = new int[512];
+  private static final int[] LOG = new int[256];
+
+  // coeficientes do gerador, do termo x^31 ao x^0 (o x^32 vale 1), em logaritmo
+  private static final int[] LOG_GERADOR = new int[BYTES_DE_PARIDADE_POR_BLOCO];
+
+  static {
+    int valor = 1;
+    for (int i = 0; i < 255; i++) {
+      ANTILOG[i] = valor;
+      LOG[valor] = i;
+      valor <<= 1;
+      if (valor > 0xFF) {
+        valor ^= POLINOMIO_PRIMITIVO;
+      }
+    } // fim for
+    for (int i = 255; i < ANTILOG.length; i++) {
+      ANTILOG[i] = ANTILOG[i - 255];
+    } // fim for
+
+    // gerador = (x - alfa^0)(x - alfa^1)...(x - alfa^31), guardado do grau mais
+    // alto para o mais baixo
+    int[] gerador = new int[BYTES_DE_PARIDADE_POR_BLOCO + 1];
+    gerador[0] = 1;
+    for (int raiz = 0; raiz < BYTES_DE_PARIDADE_POR_BLOCO; raiz++) {
+      // multiplica por (x + alfa^raiz): cada coeficiente recebe o anterior vezes a raiz
+      for (int j = raiz + 1; j > 0; j--) {
+        gerador[j] ^= multiplicar(gerador[j - 1], ANTILOG[raiz]);
+      } // fim for
+    } // fim for
+    for (int j = 0; j < BYTES_DE_PARIDADE_POR_BLOCO; j++) {
+      LOG_GERADOR[j] = LOG[gerador[j + 1]]; // nenhum coeficiente do gerador eh 0
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private CodigoReedSolomon() {
+  } // fim do construtor
+
+  /**
+   * protege o quadro: cada trecho de ate 223 bytes de dados eh copiado seguido
+   * dos seus 32 bytes de paridade
+   *
+   * @param quadro quadro com os dados
+   * @return um quadro do pool com os blocos protegidos
+   */
+  public static BitBuffer codificar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int quantidadeDeBlocos = (totalBits + BITS_DE_DADOS_POR_BLOCO - 1) / BITS_DE_DADOS_POR_BLOCO;
+    BitBuffer quadroProtegido = PoolDeBuffers.emprestar(totalBits + quantidadeDeBlocos * BITS_DE_PARIDADE_POR_BLOCO);
+    int[] paridade = new int[BYTES_DE_PARIDADE_POR_BLOCO];
+
+    for (int posicao = 0; posicao < totalBits; posicao += BITS_DE_DADOS_POR_BLOCO) {
+      int bitsDeDados = Math.min(BITS_DE_DADOS_POR_BLOCO, totalBits - posicao);
+
+      // resto da divisao dos dados (vezes x^32) pelo gerador, byte a byte
+      java.util.Arrays.fill(paridade, 0);
+      for (int bit = 0; bit < bitsDeDados; bit += 8) {
+        int umByte = lerByte(quadro, posicao + bit, bitsDeDados - bit);
+        int realimentacao = umByte ^ paridade[0];
+        System.arraycopy(paridade, 1, paridade, 0, BYTES_DE_PARIDADE_POR_BLOCO - 1);
+        paridade[BYTES_DE_PARIDADE_POR_BLOCO - 1] = 0;
+        if (realimentacao != 0) {
+          int logRealimentacao = LOG[realimentacao];
+          for (int j = 0; j < BYTES_DE_PARIDADE_POR_BLOCO; j++) {
+            paridade[j] ^= ANTILOG[logRealimentacao + LOG_GERADOR[j]];
+          } // fim for
+        } // fim if
+      } // fim for
+
+      quadroProtegido.anexar(quadro, posicao, bitsDeDados);
+      for (int j = 0; j < BYTES_DE_PARIDADE_POR_BLOCO; j++) {
+        quadroProtegido.anexarBits(paridade[j], 8);
+      } // fim for
+    } // fim for
+
+    return quadroProtegido;
+  } // fim do metodo codificar
+
+  /**
+   * verifica todos os blocos do quadro e corrige, no proprio quadro, os bytes
+   * errados dos blocos com ate 16 bytes errados
+   *
+   * @param quadro quadro com os blocos protegidos
+   * @return quantos bytes foram corrigidos, ou -1 se algum bloco tem mais erros
+   *         do que o codigo consegue corrigir
+   */
+  public static int corrigir(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int bytesCorrigidos = 0;
+    int[] bloco = new int[255];
+
+    for (int posicao = 0; posicao < totalBits; posicao += TAMANHO_BLOCO_EM_BITS) {
+      int bitsDeDados = Math.min(TAMANHO_BLOCO_EM_BITS, totalBits - posicao) - BITS_DE_PARIDADE_POR_BLOCO;
+      int bytesDeDados = (bitsDeDados + 7) / 8;
+      int tamanhoDoBloco = bytesDeDados + BYTES_DE_PARIDADE_POR_BLOCO;
+
+      for (int i = 0; i < bytesDeDados; i++) {
+        bloco[i] = lerByte(quadro, posicao + 8 * i, bitsDeDados - 8 * i);
+      } // fim for
+      for (int j = 0; j < BYTES_DE_PARIDADE_POR_BLOCO; j++) {
+        bloco[bytesDeDados + j] = quadro.lerBits(posicao + bitsDeDados + 8 * j, 8);
+      } // fim for
+
+      int corrigidosNoBloco = corrigirBloco(bloco, tamanhoDoBloco);
+      if (corrigidosNoBloco < 0) {
+        return -1;
+      }
+
+      if (corrigidosNoBloco > 0) {
+        // devolve ao quadro os bytes corrigidos; no ultimo byte de dados
+        // incompleto a correcao nao pode mexer no complemento com 0
+        for (int i = 0; i < bytesDeDados; i++) {
+          int bitsNoByte = Math.min(8, bitsDeDados - 8 * i);
+          int original = lerByte(quadro, posicao + 8 * i, bitsNoByte);
+          if (bloco[i] != original) {
+            if ((bloco[i] & (0xFF >>> bitsNoByte)) != 0) {
+              return -1;
+            }
+            quadro.escreverBits(posicao + 8 * i, bloco[i] >>> (8 - bitsNoByte), bitsNoByte);
+          }
+        } // fim for
+        for (int j = 0; j < BYTES_DE_PARIDADE_POR_BLOCO; j++) {
+          quadro.escreverBits(posicao + bitsDeDados + 8 * j, bloco[bytesDeDados + j], 8);
+        } // fim for
+        bytesCorrigidos += corrigidosNoBloco;
+      } // fim if
+    } // fim for
+
+    return bytesCorrigidos;
+  } // fim do metodo corrigir
+
+  /**
+   * copia so os bits de dados de cada bloco
+   *
+   * @param quadro quadro com os blocos protegidos (ja corrigido)
+   * @return um quadro do pool so com os dados
+   */
+  public static BitBuffer extrairDados(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    int quantidadeDeBlocos = (totalBits + TAMANHO_BLOCO_EM_BITS - 1) / TAMANHO_BLOCO_EM_BITS;
+    BitBuffer quadroVerificado = PoolDeBuffers.emprestar(totalBits - quantidadeDeBlocos * BITS_DE_PARIDADE_POR_BLOCO);
+
+    for (int posicao = 0; posicao < totalBits; posicao += TAMANHO_BLOCO_EM_BITS) {
+      int bitsDeDados = Math.min(TAMANHO_BLOCO_EM_BITS, totalBits - posicao) - BITS_DE_PARIDADE_POR_BLOCO;
+      quadroVerificado.anexar(quadro, posicao, bitsDeDados);
+    } // fim for
+
+    return quadroVerificado;
+  } // fim do metodo extrairDados
+
+  /**
+   * diz se um quadro com essa quantidade de bits pode ter vindo do codificar:
+   * o ultimo bloco precisa ter pelo menos 1 bit de dados alem da paridade
+   *
+   * @param totalDeBits tamanho do quadro recebido
+   * @return true se o tamanho eh valido
+   */
+  public static boolean tamanhoValido(int totalDeBits) {
+    int resto = totalDeBits % TAMANHO_BLOCO_EM_BITS;
+    return resto == 0 || resto > BITS_DE_PARIDADE_POR_BLOCO;
+  } // fim do metodo tamanhoValido
+
+  /**
+   * decodifica um bloco (dados seguidos da paridade, o primeiro byte eh o
+   * coeficiente de maior grau) e corrige os bytes errados no proprio array
+   *
+   * @param bloco          os bytes do bloco
+   * @param tamanhoDoBloco quantos bytes o bloco tem (menos de 255 se encurtado)
+   * @return quantos bytes foram corrigidos, ou -1 se nao for possivel corrigir
+   */
+  static int corrigirBloco(int[] bloco, int tamanhoDoBloco) {
+    // sindromes: o bloco avaliado em alfa^0 ate alfa^31, pelo metodo de Horner
+    int[] sindromes = new int[BYTES_DE_PARIDADE_POR_BLOCO];
+    boolean semErro = true;
+    for (int i = 0; i < BYTES_DE_PARIDADE_POR_BLOCO; i++) {
+      int soma = 0;
+      for (int j = 0; j < tamanhoDoBloco; j++) {
+        soma = (soma == 0 ? 0 : ANTILOG[LOG[soma] + i]) ^ bloco[j];
+      } // fim for
+      sindromes[i] = soma;
+      semErro &= soma == 0;
+    } // fim for
+    if (semErro) {
+      return 0;
+    }
+
+    // Berlekamp-Massey: menor polinomio localizador (coeficientes do grau 0 em
+    // diante) que gera a sequencia de sindromes
+    int[] localizador = new int[BYTES_DE_PARIDADE_POR_BLOCO + 1];
+    int[] anterior = new int[BYTES_DE_PARIDADE_POR_BLOCO + 1];
+    int[] temporario = new int[BYTES_DE_PARIDADE_POR_BLOCO + 1];
+    localizador[0] = 1;
+    anterior[0] = 1;
+    int grau = 0; // quantidade de erros suposta
+    int deslocamento = 1; // passos desde a ultima troca do polinomio anterior
+    int discrepanciaAnterior = 1;
+
+    for (int n = 0; n < BYTES_DE_PARIDADE_POR_BLOCO; n++) {
+      int discrepancia = sindromes[n];
+      for (int i = 1; i <= grau; i++) {
+        discrepancia ^= multiplicar(localizador[i], sindromes[n - i]);
+      } // fim for
+
+      if (discrepancia == 0) {
+        deslocamento++;
+        continue;
+      }
+      // localizador -= (discrepancia / discrepanciaAnterior) * x^deslocamento * anterior
+      int fator = ANTILOG[LOG[discrepancia] + 255 - LOG[discrepanciaAnterior]];
+      boolean trocar = 2 * grau <= n;
+      if (trocar) {
+        System.arraycopy(localizador, 0, temporario, 0, localizador.length);
+      }
+      for (int i = 0; i + deslocamento < localizador.length; i++) {
+        localizador[i + deslocamento] ^= multiplicar(fator, anterior[i]);
+      } // fim for
+      if (trocar) {
+        grau = n + 1 - grau;
+        System.arraycopy(temporario, 0, anterior, 0, anterior.length);
+        discrepanciaAnterior = discrepancia;
+        deslocamento = 1;
+      } else {
+        deslocamento++;
+      }
+    } // fim for
+
+    if (grau > BYTES_CORRIGIVEIS_POR_BLOCO) {
+      return -1;
+    }
+
+    // avaliador de erros: sindromes(x) * localizador(x) mod x^32
+    int[] avaliador = new int[BYTES_DE_PARIDADE_POR_BLOCO];
+    for (int i = 0; i < BYTES_DE_PARIDADE_POR_BLOCO; i++) {
+      for (int j = 0; j <= Math.min(i, grau); j++) {
+        avaliador[i] ^= multiplicar(sindromes[i - j], localizador[j]);
+      } // fim for
+    } // fim for
+
+    // busca de Chien: o byte de indice j tem grau p = tamanhoDoBloco - 1 - j e
+    // esta errado se o localizador se anula em alfa^-p
+    int encontrados = 0;
+    for (int j = 0; j < tamanhoDoBloco; j++) {
+      int p = tamanhoDoBloco - 1 - j;
+      int inverso = (255 - p) % 255; // logaritmo de alfa^-p
+      int valorLocalizador = 0;
+      int derivada = 0; // so os termos de grau impar sobrevivem na derivada
+      for (int i = grau; i >= 0; i--) {
+        if (localizador[i] != 0) {
+          int termo = ANTILOG[LOG[localizador[i]] + (inverso * i) % 255];
+          valorLocalizador ^= termo;
+          if ((i & 1) == 1) {
+            derivada ^= ANTILOG[LOG[localizador[i]] + (inverso * (i - 1)) % 255];
+          }
+        }
+      } // fim for
+      if (valorLocalizador != 0) {
+        continue;
+      }
+
+      // Forney: valor = X * avaliador(X^-1) / localizador'(X^-1), com X = alfa^p
+      int valorAvaliador = 0;
+      for (int i = BYTES_DE_PARIDADE_POR_BLOCO - 1; i >= 0; i--) {
+        valorAvaliador = (valorAvaliador == 0 ? 0 : ANTILOG[LOG[valorAvaliador] + inverso]) ^ avaliador[i];
+      } // fim for
+      if (derivada == 0) {
+        return -1;
+      }
+      if (valorAvaliador != 0) {
+        bloco[j] ^= ANTILOG[(p + LOG[valorAvaliador] + 255 - LOG[derivada]) % 255];
+      }
+      encontrados++;
+    } // fim for
+
+    // se nem todas as raizes caem dentro do bloco, ha mais erros que o
+    // corrigivel
+    return (encontrados == grau) ? encontrados : -1;
+  } // fim do metodo corrigirBloco
+
+  /**
+   * le um byte de dados, completando com 0 a direita se restam menos de 8 bits
+   */
+  private static int lerByte(BitBuffer quadro, int posicao, int bitsRestantes) {
+    int bitsNoByte = Math.min(8, bitsRestantes);
+    return quadro.lerBits(posicao, bitsNoByte) << (8 - bitsNoByte);
+  } // fim do metodo lerByte
+
+  /**
+   * multiplicacao em GF(256) pelas tabelas de logaritmo
+   */
+  private static int multiplicar(int a, int b) {
+    if (a == 0 || b == 0) {
+      return 0;
+    }
+    return ANTILOG[LOG[a] + LOG[b]];
+  } // fim do metodo multiplicar
+
+} // fim da classe CodigoReedSolomon
@@ -0,0 +1,162 @@
+package util;
+
+/**
+ * classe que implementa o enquadramento COBS (Consistent Overhead Byte
+ * Stuffing) usado pela camada de enlace: o byte 0 fica reservado para marcar o
+ * fim do quadro e some da carga util. Cada trecho da carga util vem precedido
+ * de um byte de codigo igual a 1 + quantidade de bytes nao nulos do trecho; o
+ * 0 que terminava o trecho fica implicito. Trechos sem 0 sao cortados a cada
+ * 254 bytes (codigo 0xFF, sem 0 implicito).
+ *
+ * Ao contrario da insercao de bytes, que pode dobrar o quadro, o COBS acrescenta
+ * no maximo 1 byte a cada 254 (cerca de 0,4%) mais o 0 do fim, qualquer que
+ * seja o conteudo, entao o tamanho do quadro no meio eh previsivel.
+ *
+ * As duas pontas fazem uma unica passada: os zeros sao procurados 8 bytes por
+ * vez e os trechos entre eles sao copiados inteiros.
+ */
+public class EnquadramentoCOBS {
+
+  public static final int DELIMITADOR = 0x00; // byte que fecha o quadro
+  public static final int MAXIMO_DE_BYTES_POR_TRECHO = 254; // codigo 0xFF
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private EnquadramentoCOBS() {
+  } // fim do construtor
+
+  /**
+   * quantos bytes o quadro enquadrado tem no pior caso
+   *
+   * @param bytesDeCargaUtil tamanho da carga util em bytes
+   * @return a carga util, um codigo a cada 254 bytes (mais o primeiro) e o
+   *         delimitador
+   */
+  public static int tamanhoMaximoEmBytes(int bytesDeCargaUtil) {
+    return bytesDeCargaUtil + bytesDeCargaUtil / MAXIMO_DE_BYTES_POR_TRECHO + 2;
+  } // fim do metodo tamanhoMaximoEmBytes
+
+  /**
+   * enquadra a carga util em uma passada: o byte de codigo de cada trecho eh
+   * reservado no inicio dele e escrito quando o trecho termina
+   *
+   * @param quadro carga util (o ultimo byte incompleto eh completado com 0)
+   * @return um quadro do pool com o quadro enquadrado
+   */
+  public static BitBuffer enquadrar(BitBuffer quadro) {
+    int totalBytes = (quadro.tamanho() + 7) / 8;
+    BitBuffer quadroEnquadrado = PoolDeBuffers.emprestar(8 * tamanhoMaximoEmBytes(totalBytes));
+
+    int posicaoDoCodigo = reservarCodigo(quadroEnquadrado);
+    int bytesNoTrecho = 0;
+    int i = 0;
+    while (i < totalBytes) {
+      // bytes nao nulos seguidos a partir de i, sem passar do limite do trecho
+      int limite = Math.min(totalBytes - i, MAXIMO_DE_BYTES_POR_TRECHO - bytesNoTrecho);
+      int naoNulos = contarBytesNaoNulos(quadro, i, limite);
+      copiarBytes(quadro, i, naoNulos, quadroEnquadrado);
+      bytesNoTrecho += naoNulos;
+      i += naoNulos;
+
+      if (i < totalBytes && naoNulos < limite) { // parou em um 0: fecha o trecho e some com o 0
+        quadroEnquadrado.escreverBits(posicaoDoCodigo, bytesNoTrecho + 1, 8);
+        posicaoDoCodigo = reservarCodigo(quadroEnquadrado);
+        bytesNoTrecho = 0;
+        i++;
+      } else if (bytesNoTrecho == MAXIMO_DE_BYTES_POR_TRECHO) { // trecho cheio, sem 0 implicito
+        quadroEnquadrado.escreverBits(posicaoDoCodigo, MAXIMO_DE_BYTES_POR_TRECHO + 1, 8);
+        // so abre outro trecho se ainda ha carga util, senao o quadro acabaria
+        // com um codigo 1 desnecessario
+        posicaoDoCodigo = (i < totalBytes) ? reservarCodigo(quadroEnquadrado) : -1;
+        bytesNoTrecho = 0;
+      }
+    } // fim while
+
+    if (posicaoDoCodigo >= 0) { // ultimo trecho
+      quadroEnquadrado.escreverBits(posicaoDoCodigo, bytesNoTrecho + 1, 8);
+    }
+    quadroEnquadrado.anexarBits(DELIMITADOR, 8);
+    return quadroEnquadrado;
+  } // fim do metodo enquadrar
+
+  /**
+   * desenquadra o quadro ate o delimitador (ou ate o fim, se ele se perdeu),
+   * devolvendo os 0 implicitos de cada trecho
+   *
+   * @param quadro quadro recebido
+   * @return um quadro do pool so com a carga util
+   */
+  public static BitBuffer desenquadrar(BitBuffer quadro) {
+    int totalBytes = quadro.tamanho() / 8;
+    BitBuffer quadroDesenquadrado = PoolDeBuffers.emprestar(quadro.tamanho());
+
+    int i = 0;
+    while (i < totalBytes) {
+      int codigo = quadro.lerBits(8 * i, 8);
+      if (codigo == DELIMITADOR) {
+        break; // fim do quadro
+      }
+      i++;
+
+      // copia o trecho ate o proximo codigo; um 0 no meio dele so aparece com
+      // erro e eh tratado como o fim do quadro
+      int bytesDoTrecho = Math.min(codigo - 1, totalBytes - i);
+      int naoNulos = contarBytesNaoNulos(quadro, i, bytesDoTrecho);
+      copiarBytes(quadro, i, naoNulos, quadroDesenquadrado);
+      i += naoNulos;
+      if (naoNulos < codigo - 1) {
+        break;
+      }
+
+      // o 0 implicito so existe se o trecho nao estava cheio e nao eh o ultimo
+      if (codigo <= MAXIMO_DE_BYTES_POR_TRECHO && i < totalBytes && quadro.lerBits(8 * i, 8) != DELIMITADOR) {
+        quadroDesenquadrado.anexarBits(0, 8);
+      }
+    } // fim while
+
+    return quadroDesenquadrado;
+  } // fim do metodo desenquadrar
+
+  /**
+   * anexa um byte que sera preenchido com o codigo quando o trecho terminar
+   *
+   * @return a posicao do byte reservado
+   */
+  private static int reservarCodigo(BitBuffer quadroEnquadrado) {
+    int posicao = quadroEnquadrado.tamanho();
+    quadroEnquadrado.anexarBits(0, 8);
+    return posicao;
+  } // fim do metodo reservarCodigo
+
+  /**
+   * conta os bytes diferentes de 0 a partir de um byte, ate o primeiro 0 ou ate
+   * o limite, olhando 8 bytes por vez
+   */
+  private static int contarBytesNaoNulos(BitBuffer quadro, int byteInicial, int limite) {
+    int contados = 0;
+    while (contados < limite) {
+      int bytesLidos = Math.min(8, limite - contados);
+      long palavra = quadro.lerBitsLong(8 * (byteInicial + contados), 8 * bytesLidos) << (64 - 8 * bytesLidos);
+      // os bytes que nao foram lidos ficam fora da conta
+      long zeros = ManipulacaoBits.marcarBytesIguais(palavra, 0) & (-1L << (64 - 8 * bytesLidos));
+      if (zeros != 0) {
+        return contados + (Long.numberOfLeadingZeros(zeros) >>> 3);
+      }
+      contados += bytesLidos;
+    } // fim while
+    return contados;
+  } // fim do metodo contarBytesNaoNulos
+
+  /**
+   * copia bytes de um quadro para o fim de outro, completando com 0 o que passa
+   * do fim do quadro de origem (o ultimo byte incompleto)
+   */
+  private static void copiarBytes(BitBuffer origem, int byteInicial, int quantidade, BitBuffer destino) {
+    int bits = 8 * quantidade;
+    int disponiveis = Math.max(0, Math.min(bits, origem.tamanho() - 8 * byteInicial));
+    destino.anexar(origem, 8 * byteInicial, disponiveis);
+    destino.anexarBits(0, bits - disponiveis);
+  } // fim do metodo copiarBytes
+
+} // fim da classe EnquadramentoCOBS
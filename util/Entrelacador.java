@@ -0,0 +1,177 @@
+package util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * classe que implementa o entrelacador de bloco (linhas x colunas) usado entre o
+ * controle de erro e a camada fisica: os bits do quadro sao escritos em uma
+ * matriz linha por linha e transmitidos coluna por coluna. Assim uma rajada de
+ * erros no meio, que atingiria bits vizinhos, cai em linhas diferentes e vira
+ * erros isolados e espalhados depois do desentrelacamento, que os codigos por
+ * bloco (SECDED, Reed-Solomon) e o convolucional corrigem.
+ *
+ * A matriz tem a quantidade de linhas escolhida e tantas colunas quantas forem
+ * necessarias; a ultima linha pode ficar incompleta e as celulas vazias sao
+ * puladas na leitura, entao o quadro nao cresce. A permutacao de cada
+ * combinacao de tamanho e linhas eh calculada uma vez e guardada; os bits sao
+ * lidos e escritos de 64 em 64.
+ */
+public class Entrelacador {
+
+  private static final int MAXIMO_DE_PERMUTACOES_GUARDADAS = 256; // limita o cache de tabelas
+
+  // chave: tamanho do quadro nos 32 bits altos e linhas nos baixos
+  private static final ConcurrentHashMap<Long, int[]> PERMUTACOES = new ConcurrentHashMap<Long, int[]>();
+
+  // palavras de trabalho reaproveitadas por cada thread
+  private static final ThreadLocal<long[][]> PALAVRAS = new ThreadLocal<long[][]>() {
+    @Override
+    protected long[][] initialValue() {
+      return new long[1][0];
+    }
+  };
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private Entrelacador() {
+  } // fim do construtor
+
+  /**
+   * converte a opcao da interface na quantidade de linhas da matriz
+   *
+   * @param opcao 0 desligado, 1 para 8 linhas, 2 para 16 e 3 para 32
+   * @return a quantidade de linhas, 0 quando o entrelacamento esta desligado
+   */
+  public static int linhasDaOpcao(int opcao) {
+    switch (opcao) {
+      case 1:
+        return 8;
+      case 2:
+        return 16;
+      case 3:
+        return 32;
+      default:
+        return 0;
+    }
+  } // fim do metodo linhasDaOpcao
+
+  /**
+   * entrelaca o quadro: o bit j transmitido eh o bit permutacao[j] do quadro
+   *
+   * @param quadro quadro a ser entrelacado
+   * @param linhas quantidade de linhas da matriz
+   * @return um quadro do pool com os bits entrelacados
+   */
+  public static BitBuffer entrelacar(BitBuffer quadro, int linhas) {
+    int totalBits = quadro.tamanho();
+    int[] permutacao = permutacao(totalBits, linhas);
+    long[] origem = copiarPalavras(quadro);
+    BitBuffer quadroEntrelacado = PoolDeBuffers.emprestar(totalBits);
+
+    // junta 64 bits de saida por vez, buscando cada um na posicao da tabela
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long palavra = 0;
+      for (int j = posicao; j < posicao + quantidade; j++) {
+        int bit = permutacao[j];
+        palavra = (palavra << 1) | ((origem[bit >>> 6] >>> (63 - (bit & 63))) & 1);
+      } // fim for
+      quadroEntrelacado.anexarBitsLong(palavra, quantidade);
+    } // fim for
+
+    return quadroEntrelacado;
+  } // fim do metodo entrelacar
+
+  /**
+   * desfaz o entrelacamento: o bit j recebido volta para a posicao
+   * permutacao[j]
+   *
+   * @param quadro quadro entrelacado
+   * @param linhas quantidade de linhas da matriz usada no entrelacamento
+   * @return um quadro do pool com os bits na ordem original
+   */
+  public static BitBuffer desentrelacar(BitBuffer quadro, int linhas) {
+    int totalBits = quadro.tamanho();
+    int[] permutacao = permutacao(totalBits, linhas);
+    long[] destino = palavrasDeTrabalho((totalBits + 63) >>> 6);
+    java.util.Arrays.fill(destino, 0, (totalBits + 63) >>> 6, 0L);
+
+    // le 64 bits recebidos por vez e espalha cada um para a sua posicao original
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      long palavra = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade);
+      for (int j = posicao; palavra != 0; j++) {
+        if (palavra < 0) { // bit mais significativo em 1
+          int bit = permutacao[j];
+          destino[bit >>> 6] |= 1L << (63 - (bit & 63));
+        }
+        palavra <<= 1;
+      } // fim for
+    } // fim for
+
+    BitBuffer quadroDesentrelacado = PoolDeBuffers.emprestar(totalBits);
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      quadroDesentrelacado.anexarBitsLong(destino[posicao >>> 6] >>> (64 - quantidade), quantidade);
+    } // fim for
+    return quadroDesentrelacado;
+  } // fim do metodo desentrelacar
+
+  /**
+   * tabela da leitura coluna por coluna: posicao j da saida recebe o bit de
+   * indice permutacao[j] da entrada
+   *
+   * @param totalBits tamanho do quadro
+   * @param linhas    quantidade de linhas da matriz
+   * @return a permutacao, calculada uma vez por combinacao
+   */
+  static int[] permutacao(int totalBits, int linhas) {
+    Long chave = ((long) totalBits << 32) | linhas;
+    int[] permutacao = PERMUTACOES.get(chave);
+    if (permutacao != null) {
+      return permutacao;
+    }
+
+    permutacao = new int[totalBits];
+    int colunas = (totalBits + linhas - 1) / Math.max(1, linhas);
+    int j = 0;
+    for (int coluna = 0; coluna < colunas; coluna++) {
+      for (int bit = coluna; bit < totalBits; bit += colunas) { // desce a coluna, pulando celulas vazias
+        permutacao[j++] = bit;
+      } // fim for
+    } // fim for
+
+    if (PERMUTACOES.size() >= MAXIMO_DE_PERMUTACOES_GUARDADAS) {
+      PERMUTACOES.clear(); // tamanhos de quadro variam pouco, recomeca o cache
+    }
+    PERMUTACOES.put(chave, permutacao);
+    return permutacao;
+  } // fim do metodo permutacao
+
+  /**
+   * copia os bits do quadro para as palavras de trabalho da thread, no mesmo
+   * formato do BitBuffer (bit 0 no bit 63 da primeira palavra)
+   */
+  private static long[] copiarPalavras(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    long[] palavras = palavrasDeTrabalho((totalBits + 63) >>> 6);
+    for (int posicao = 0; posicao < totalBits; posicao += 64) {
+      int quantidade = Math.min(64, totalBits - posicao);
+      palavras[posicao >>> 6] = quadro.lerBitsLong(posicao, quantidade) << (64 - quantidade);
+    } // fim for
+    return palavras;
+  } // fim do metodo copiarPalavras
+
+  /**
+   * palavras de trabalho da thread com pelo menos a quantidade pedida
+   */
+  private static long[] palavrasDeTrabalho(int quantidade) {
+    long[][] referencia = PALAVRAS.get();
+    if (referencia[0].length < quantidade) {
+      referencia[0] = new long[Math.max(quantidade, 2 * referencia[0].length)];
+    }
+    return referencia[0];
+  } // fim do metodo palavrasDeTrabalho
+
+} // fim da classe Entrelacador
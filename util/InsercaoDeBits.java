@@ -0,0 +1,202 @@
+package util;
+
+/**
+ * classe que implementa o enquadramento por insercao de bits (bit stuffing, no
+ * estilo do HDLC) usado pela camada de enlace: depois de 5 bits 1 seguidos da
+ * carga util a transmissora insere um bit 0, entao a flag 01111110, com 6 bits
+ * 1, nunca aparece dentro dos dados. Uma flag abre o quadro e outra fecha cada
+ * subquadro de 4 bytes.
+ *
+ * Em vez de contar os bits 1 um bit por vez, as duas pontas usam uma maquina de
+ * estados pre-calculada: o estado eh quantos bits 1 seguidos ja passaram e cada
+ * consulta a tabela, indexada por (estado, byte de entrada), devolve de uma vez
+ * os bits de saida, quantos sao e o proximo estado.
+ *
+ * Na receptora o sexto bit 1 seguido so pode ser de uma flag: os 6 bits da flag
+ * que ja tinham ido para a saida (o 0 e os cinco 1) sao retirados e o 0 final
+ * da flag eh pulado.
+ */
+public class InsercaoDeBits {
+
+  public static final int FLAG = 0b01111110; // valor do byte de flag, equivale a 126 em decimal, em ASCII eh o '~'
+  public static final int TAMANHO_SUBQUADRO_EM_BYTES = 4; // a cada 4 bytes de carga util vem uma flag
+
+  // a tabela da receptora e as constantes dela tambem sao usadas pelo
+  // SeparadorDeSubquadros
+  static final int LIMITE_DE_UNS = 5; // bits 1 seguidos que provocam a insercao de um 0
+  static final int BITS_DA_FLAG_NA_SAIDA = 6; // o 0 e os cinco 1 da flag que a receptora ja escreveu
+
+  // entradas da tabela da transmissora: bits de saida a partir do bit 8,
+  // quantidade deles nos bits 3 a 7 e proximo estado nos bits 0 a 2
+  private static final int[] TABELA_INSERCAO = new int[LIMITE_DE_UNS * 256];
+
+  // entradas da tabela da receptora: bits de saida a partir do bit 16, bit 15
+  // ligado se o byte completou uma flag, bits de entrada consumidos nos bits 8 a
+  // 11, quantidade de bits de saida nos bits 4 a 7 e proximo estado nos bits 0
+  // a 2
+  static final int[] TABELA_REMOCAO = new int[(LIMITE_DE_UNS + 1) * 256];
+  static final int ACHOU_FLAG = 1 << 15;
+
+  static {
+    for (int estado = 0; estado < LIMITE_DE_UNS; estado++) {
+      for (int umByte = 0; umByte < 256; umByte++) {
+        int saida = 0;
+        int tamanho = 0;
+        int uns = estado;
+        for (int j = 7; j >= 0; j--) {
+          int bit = (umByte >>> j) & 1;
+          saida = (saida << 1) | bit;
+          tamanho++;
+          uns = (bit == 1) ? uns + 1 : 0;
+          if (uns == LIMITE_DE_UNS) { // insere o 0
+            saida <<= 1;
+            tamanho++;
+            uns = 0;
+          }
+        } // fim for
+        TABELA_INSERCAO[estado * 256 + umByte] = (saida << 8) | (tamanho << 3) | uns;
+      } // fim for
+    } // fim for
+
+    for (int estado = 0; estado <= LIMITE_DE_UNS; estado++) {
+      for (int umByte = 0; umByte < 256; umByte++) {
+        int saida = 0;
+        int tamanho = 0;
+        int uns = estado;
+        int consumidos = 0;
+        int achouFlag = 0;
+        for (int j = 7; j >= 0; j--) {
+          int bit = (umByte >>> j) & 1;
+          consumidos++;
+          if (uns == LIMITE_DE_UNS) {
+            if (bit == 1) { // sexto bit 1: eh uma flag, para a consulta aqui
+              achouFlag = ACHOU_FLAG;
+              uns = 0;
+              break;
+            }
+            uns = 0; // 0 inserido pela transmissora, descartado
+            continue;
+          }
+          saida = (saida << 1) | bit;
+          tamanho++;
+          uns = (bit == 1) ? uns + 1 : 0;
+        } // fim for
+        TABELA_REMOCAO[estado * 256 + umByte] = (saida << 16) | achouFlag | (consumidos << 8) | (tamanho << 4)
+            | uns;
+      } // fim for
+    } // fim for
+  } // fim do bloco estatico
+
+  /**
+   * construtor privado, a classe so possui metodos estaticos
+   */
+  private InsercaoDeBits() {
+  } // fim do construtor
+
+  /**
+   * enquadra a carga util: flag inicial e, para cada subquadro de ate 4 bytes, os
+   * bits com os 0 inseridos seguidos de uma flag. A contagem de bits 1 recomeca
+   * em cada flag, como na receptora
+   *
+   * @param quadro carga util (o ultimo byte incompleto eh completado com 0)
+   * @return um quadro do pool com o quadro enquadrado
+   */
+  public static BitBuffer enquadrar(BitBuffer quadro) {
+    int totalBytes = (quadro.tamanho() + 7) / 8;
+
+    // tamanho sem nenhum 0 inserido; o quadro cresce sozinho se precisar
+    int subquadros = (totalBytes + TAMANHO_SUBQUADRO_EM_BYTES - 1) / TAMANHO_SUBQUADRO_EM_BYTES;
+    BitBuffer quadroEnquadrado = PoolDeBuffers.emprestar(8 * (totalBytes + subquadros + 1));
+
+    quadroEnquadrado.anexarBits(FLAG, 8); // flag inicial
+
+    for (int i = 0; i < totalBytes; i += TAMANHO_SUBQUADRO_EM_BYTES) {
+      int bytesDoSubquadro = Math.min(TAMANHO_SUBQUADRO_EM_BYTES, totalBytes - i);
+      int subquadro = quadro.lerBits(i * 8, bytesDoSubquadro * 8);
+
+      // cada byte gera ate 10 bits, entao o subquadro inteiro e a flag cabem em
+      // um long e sao escritos de uma vez
+      long saida = 0;
+      int tamanhoDaSaida = 0;
+      int estado = 0;
+      for (int j = bytesDoSubquadro - 1; j >= 0; j--) {
+        int entrada = TABELA_INSERCAO[estado * 256 + ((subquadro >>> (8 * j)) & 0xFF)];
+        int tamanho = (entrada >>> 3) & 0x1F;
+        saida = (saida << tamanho) | (entrada >>> 8);
+        tamanhoDaSaida += tamanho;
+        estado = entrada & 0x7;
+      } // fim for
+      quadroEnquadrado.anexarBitsLong((saida << 8) | FLAG, tamanhoDaSaida + 8);
+    } // fim for
+
+    return quadroEnquadrado;
+  } // fim do metodo enquadrar
+
+  /**
+   * desenquadra o quadro: ignora o que vem antes da primeira flag, retira as
+   * flags e os 0 inseridos
+   *
+   * @param quadro quadro recebido
+   * @return um quadro do pool so com a carga util
+   */
+  public static BitBuffer desenquadrar(BitBuffer quadro) {
+    int totalBits = quadro.tamanho();
+    BitBuffer quadroDesenquadrado = PoolDeBuffers.emprestar(totalBits);
+
+    int posicao = posicaoDepoisDaPrimeiraFlag(quadro);
+    int estado = 0;
+    int escritosDesdeAFlag = 0; // so o que veio depois da ultima flag pode ser retirado
+
+    // uma consulta por byte enquanto houver 8 bits; a consulta para no fim de
+    // uma flag, entao a posicao nao precisa ficar alinhada em bytes
+    while (totalBits - posicao >= 8) {
+      int entrada = TABELA_REMOCAO[estado * 256 + quadro.lerBits(posicao, 8)];
+      int tamanho = (entrada >>> 4) & 0xF;
+      quadroDesenquadrado.anexarBits(entrada >>> 16, tamanho);
+      escritosDesdeAFlag += tamanho;
+      posicao += (entrada >>> 8) & 0xF;
+      estado = entrada & 0x7;
+
+      if ((entrada & ACHOU_FLAG) != 0) {
+        quadroDesenquadrado.removerDoFim(Math.min(BITS_DA_FLAG_NA_SAIDA, escritosDesdeAFlag));
+        escritosDesdeAFlag = 0;
+        posicao++; // pula o 0 final da flag
+      }
+    } // fim while
+
+    // menos de um byte no fim, bit a bit com as mesmas regras da tabela
+    for (; posicao < totalBits; posicao++) {
+      int bit = quadro.lerBits(posicao, 1);
+      if (estado == LIMITE_DE_UNS) {
+        if (bit == 1) { // flag
+          quadroDesenquadrado.removerDoFim(Math.min(BITS_DA_FLAG_NA_SAIDA, escritosDesdeAFlag));
+          escritosDesdeAFlag = 0;
+          posicao++; // pula o 0 final da flag
+        }
+        estado = 0;
+        continue;
+      }
+      quadroDesenquadrado.anexarBits(bit, 1);
+      escritosDesdeAFlag++;
+      estado = (bit == 1) ? estado + 1 : 0;
+    } // fim for
+
+    return quadroDesenquadrado;
+  } // fim do metodo desenquadrar
+
+  /**
+   * procura a primeira flag bit a bit; a transmissora sempre comeca o quadro com
+   * ela, entao normalmente a busca para na posicao 0
+   *
+   * @return a posicao logo depois da flag, ou o tamanho do quadro se nao houver
+   */
+  private static int posicaoDepoisDaPrimeiraFlag(BitBuffer quadro) {
+    for (int i = 0; i + 7 < quadro.tamanho(); i++) {
+      if (quadro.lerBits(i, 8) == FLAG) {
+        return i + 8;
+      }
+    } // fim for
+    return quadro.tamanho();
+  } // fim do metodo posicaoDepoisDaPrimeiraFlag
+
+} // fim da classe InsercaoDeBits
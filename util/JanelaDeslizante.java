@@ -16,7 +16,7 @@ public class JanelaDeslizante {
   private int espacoSequencia; // espaco total de numeros de sequencia disponiveis
 
   // buffer que armazena os quadros enviados e aguardando ACK
-  private Map<Integer, int[]> bufferQuadros;
+  private Map<Integer, BitBuffer> bufferQuadros;
 
   // suporte para retransmissao seletiva, marca individualmente os ACKs recebidos
   private Map<Integer, Boolean> ackRecebidos;
@@ -70,19 +70,41 @@ public class JanelaDeslizante {
    * @param numeroDeSequencia o numero de sequencia do quadro
    * @param quadro            o quadro a ser armazenado
    */
-  public synchronized void adicionarNoBuffer(int numeroDeSequencia, int[] quadro) {
+  public synchronized void adicionarNoBuffer(int numeroDeSequencia, BitBuffer quadro) {
     bufferQuadros.put(numeroDeSequencia, quadro);
     ackRecebidos.put(numeroDeSequencia, false); // inicialmente, o ACK nao foi recebido
   } // fim do metodo adicionarNoBuffer
 
+  /**
+   * adiciona no buffer um quadro no formato de array de inteiros, todos os bits
+   * do array fazem parte do quadro
+   * 
+   * @param numeroDeSequencia o numero de sequencia do quadro
+   * @param quadro            o quadro a ser armazenado
+   */
+  public synchronized void adicionarNoBuffer(int numeroDeSequencia, int[] quadro) {
+    adicionarNoBuffer(numeroDeSequencia, BitBuffer.deArrayInt(quadro, quadro.length * 32));
+  } // fim do metodo adicionarNoBuffer
+
   /**
    * recupera o quadro do buffer para retransmissao baseado no numero de sequencia
    * 
    * @param numeroDeSequencia o numero de sequencia do quadro
    * @return o quadro armazenado com aquele numero de sequencia
    */
-  public synchronized int[] getQuadro(int numeroDeSequencia) {
+  public synchronized BitBuffer getQuadroBits(int numeroDeSequencia) {
     return bufferQuadros.get(numeroDeSequencia);
+  } // fim do metodo getQuadroBits
+
+  /**
+   * recupera o quadro do buffer no formato de array de inteiros
+   * 
+   * @param numeroDeSequencia o numero de sequencia do quadro
+   * @return o quadro armazenado com aquele numero de sequencia, ou null
+   */
+  public synchronized int[] getQuadro(int numeroDeSequencia) {
+    BitBuffer quadro = bufferQuadros.get(numeroDeSequencia);
+    return (quadro == null) ? null : quadro.paraArrayInt();
   } // fim do metodo getQuadro
 
   /**
@@ -10,6 +10,14 @@ public class ManipulacaoBits {
   public static final int MASCARA_TIPO_CONTROLE = 1 << 31; // bit de sinal para distinguir controle de dados
   public static final int MASCARA_FLAG_ACK = 1 << 30; // mascara para identificar ACK
   public static final int MASCARA_FLAG_NACK = 1 << 29; // mascara para identificar NACK
+  public static final int MASCARA_FLAG_BLOCO_ACK = 1 << 28; // mascara para identificar o ACK em bloco
+
+  // ACK em bloco: um bit por numero de sequencia a partir do primeiro confirmado,
+  // 8 bits cobrem todo o espaco de sequencia das janelas (3 bits)
+  public static final int TAMANHO_MAPA_BLOCO_ACK = 8;
+  private static final int DESLOCAMENTO_MAPA_BLOCO_ACK = 20;
+
+  public static final int TAMANHO_CABECALHO_EM_BITS = 32; // cabecalho com o numero de sequencia
 
   /**
    * Monta um quadro de ACK com o número de sequência.
@@ -42,6 +50,84 @@ public class ManipulacaoBits {
     return quadroNack;
   }
 
+  /**
+   * Monta um quadro de ACK no quadro informado (normalmente vindo do
+   * PoolDeBuffers), sem criar arrays intermediarios.
+   * 
+   * @param quadroAck quadro vazio onde o cabecalho sera anexado
+   * @param seqAck    Número de sequência do ACK
+   * @return o proprio quadro, com os 32 bits do ACK
+   */
+  public static BitBuffer montarQuadroAck(BitBuffer quadroAck, int seqAck) {
+    quadroAck.anexarBits(MASCARA_TIPO_CONTROLE | MASCARA_FLAG_ACK | (seqAck << 1) | 1, 32);
+    return quadroAck;
+  }
+
+  /**
+   * Monta um quadro de NACK no quadro informado (normalmente vindo do
+   * PoolDeBuffers), sem criar arrays intermediarios.
+   * 
+   * @param quadroNack quadro vazio onde o cabecalho sera anexado
+   * @param seqNack    Número de sequência do quadro com erro
+   * @return o proprio quadro, com os 32 bits do NACK
+   */
+  public static BitBuffer montarQuadroNack(BitBuffer quadroNack, int seqNack) {
+    quadroNack.anexarBits(MASCARA_TIPO_CONTROLE | MASCARA_FLAG_ACK | MASCARA_FLAG_NACK | (seqNack << 1) | 1, 32);
+    return quadroNack;
+  }
+
+  /**
+   * Monta um ACK em bloco no quadro informado (normalmente vindo do
+   * PoolDeBuffers): um unico quadro de controle confirma todos os subquadros de
+   * uma agregacao. O bit i do mapa confirma o numero de sequencia seqInicial + i.
+   * 
+   * @param quadroAck  quadro vazio onde o cabecalho sera anexado
+   * @param seqInicial primeiro número de sequência confirmado
+   * @param mapa       bits dos números de sequência confirmados
+   * @return o proprio quadro, com os 32 bits do ACK em bloco
+   */
+  public static BitBuffer montarQuadroBlocoDeAcks(BitBuffer quadroAck, int seqInicial, int mapa) {
+    int mapaNoCabecalho = (mapa & ((1 << TAMANHO_MAPA_BLOCO_ACK) - 1)) << DESLOCAMENTO_MAPA_BLOCO_ACK;
+    quadroAck.anexarBits(
+        MASCARA_TIPO_CONTROLE | MASCARA_FLAG_ACK | MASCARA_FLAG_BLOCO_ACK | mapaNoCabecalho | (seqInicial << 1) | 1,
+        32);
+    return quadroAck;
+  }
+
+  /**
+   * Verifica se um quadro é um ACK em bloco
+   * 
+   * @param quadro Quadro a ser verificado
+   * @return true se for ACK em bloco, false caso contrário
+   */
+  public static boolean ehBlocoDeAcks(BitBuffer quadro) {
+    if (quadro == null || quadro.tamanho() == 0)
+      return false;
+    int cabecalho = quadro.lerBits(0, 32);
+    return cabecalhoEhAck(cabecalho) && (cabecalho & MASCARA_FLAG_NACK) == 0
+        && (cabecalho & MASCARA_FLAG_BLOCO_ACK) != 0;
+  }
+
+  /**
+   * Le o primeiro número de sequência confirmado por um ACK em bloco
+   * 
+   * @param quadroAck ACK em bloco
+   * @return o número de sequência do bit 0 do mapa
+   */
+  public static int lerSequenciaInicialDoBlocoDeAcks(BitBuffer quadroAck) {
+    return (quadroAck.lerBits(0, 32) & ((1 << DESLOCAMENTO_MAPA_BLOCO_ACK) - 1)) >>> 1;
+  }
+
+  /**
+   * Le o mapa de confirmações de um ACK em bloco
+   * 
+   * @param quadroAck ACK em bloco
+   * @return o mapa, com o bit i confirmando a sequência inicial + i
+   */
+  public static int lerMapaDoBlocoDeAcks(BitBuffer quadroAck) {
+    return (quadroAck.lerBits(0, 32) >>> DESLOCAMENTO_MAPA_BLOCO_ACK) & ((1 << TAMANHO_MAPA_BLOCO_ACK) - 1);
+  }
+
   /**
    * Verifica se um quadro é um NACK
    * 
@@ -51,7 +137,22 @@ public class ManipulacaoBits {
   public static boolean ehNack(int[] quadro) {
     if (quadro == null || quadro.length == 0)
       return false;
-    int cabecalho = quadro[0];
+    return cabecalhoEhNack(quadro[0]);
+  }
+
+  /**
+   * Verifica se um quadro é um NACK
+   * 
+   * @param quadro Quadro a ser verificado
+   * @return true se for NACK, false caso contrário
+   */
+  public static boolean ehNack(BitBuffer quadro) {
+    if (quadro == null || quadro.tamanho() == 0)
+      return false;
+    return cabecalhoEhNack(quadro.lerBits(0, 32));
+  }
+
+  private static boolean cabecalhoEhNack(int cabecalho) {
     // CORRECAO BUG 7: Verificar PRIMEIRO se eh quadro de controle (bit 31)
     // Soh depois verificar flags ACK e NACK
     boolean ehControle = (cabecalho & MASCARA_TIPO_CONTROLE) != 0;
@@ -71,7 +172,22 @@ public class ManipulacaoBits {
   public static boolean ehAck(int[] quadro) {
     if (quadro == null || quadro.length == 0)
       return false;
-    int cabecalho = quadro[0];
+    return cabecalhoEhAck(quadro[0]);
+  }
+
+  /**
+   * Verifica se um quadro é um ACK (positivo ou NACK)
+   * 
+   * @param quadro Quadro a ser verificado
+   * @return true se for ACK (inclui NACK), false caso contrário
+   */
+  public static boolean ehAck(BitBuffer quadro) {
+    if (quadro == null || quadro.tamanho() == 0)
+      return false;
+    return cabecalhoEhAck(quadro.lerBits(0, 32));
+  }
+
+  private static boolean cabecalhoEhAck(int cabecalho) {
     // CORRECAO BUG 7: Verificar PRIMEIRO se eh quadro de controle (bit 31)
     // Soh depois verificar flag ACK
     boolean ehControle = (cabecalho & MASCARA_TIPO_CONTROLE) != 0;
@@ -131,8 +247,20 @@ public class ManipulacaoBits {
    * @return A String resultante
    */
   public static String intAgrupadoParaString(int[] pacoteBits) {
+    // descobre o total de bits validos no array
+    return intAgrupadoParaString(pacoteBits, descobrirTotalDeBitsReais(pacoteBits));
+  }
+
+  /**
+   * Converte um array de inteiros (pacotes de 32 bits) de volta para uma String,
+   * quando o total de bits ja eh conhecido (bytes 0 no final sao mantidos).
+   * 
+   * @param pacoteBits O array de int[] com os bits agrupados.
+   * @param totalBits  O numero TOTAL de bits validos
+   * @return A String resultante
+   */
+  public static String intAgrupadoParaString(int[] pacoteBits, int totalBits) {
 
-    int totalBits = descobrirTotalDeBitsReais(pacoteBits); // descobre o total de bits validos no array
     int totalChar = totalBits / 8; // calcula o total de caracteres uma vez que cada char sao 8 bits
     char[] charMensagem = new char[totalChar]; // cria o array de chars para mensagem
 
@@ -196,60 +324,54 @@ public class ManipulacaoBits {
    * metodo que transforma os bits compactados em um array de fluxo simples de
    * inteiro, SOMENTE UTILIZADO PARA REALIZAR A ANIMACAO
    * 
-   * @param pacotesDeBits     o array com os bits
-   * @param totalDeBitsMaximo o total maximo de bits que a mensagem original pode
-   *                          possuia
+   * @param pacotesDeBits o array com os bits
+   * @param totalDeBits   o total de bits validos, ja conhecido por quem chama
+   *                      (se for negativo eh descoberto a partir do array)
    * @return uma versao simplificada onde cada inteiro "eh" um bit.
    */
-  public static int[] desempacotarBits(int[] pacotesDeBits, int totalDeBitsMaximo) {
-
-    int verdadeiroTotalBits = 0;
-
-    int totalBytes = pacotesDeBits.length * 4; // Calcula o numero maximo de bytes no array
-
-    // Loop de tras para frente, byte por byte, para encontrar o ultimo byte que nao
-    // eh zero.
-    for (int i = totalBytes - 1; i >= 0; i--) {
-      // Le 8 bits na posicao atual
-      int byteAtual = lerBits(pacotesDeBits, i * 8, 8);
-
-      // Se o byte lido for diferente de zero, encontramos o fim da mensagem real!
-      if (byteAtual != 0) {
-        // O tamanho real da mensagem eh a posicao deste byte + 1.
-        verdadeiroTotalBits = (i + 1) * 8;
-        break; // podemos parar o loop.
-      } // fim if
-    } // fim do for
-
-    // Caso especial: se a mensagem for toda de zeros ou vazia, evitamos um erro.
-    if (verdadeiroTotalBits == 0 && totalDeBitsMaximo > 0) {
-      // Se a mensagem original era "0", por exemplo, o loop acima nao acharia nada.
-      // Vamos checar o primeiro byte. Se ele for 0, mas a mensagem nao era vazia,
-      // entao o tamanho eh de pelo menos 8 bits.
-      if (lerBits(pacotesDeBits, 0, 8) == 0) {
-        verdadeiroTotalBits = 8; // Assumimos que era um caractere NUL.
-      } // fim if
-    } // fim if
+  public static int[] desempacotarBits(int[] pacotesDeBits, int totalDeBits) {
+
+    if (totalDeBits < 0) { // o chamador nao sabe o tamanho, descobre pelo ultimo bit '1'
+      totalDeBits = descobrirTotalDeBitsReais(pacotesDeBits);
+      // Caso especial: uma mensagem so de zeros nao tem bit '1' para achar. Se o
+      // array nao esta vazio, assumimos que era um caractere NUL (8 bits).
+      if (totalDeBits == 0 && pacotesDeBits.length > 0) {
+        totalDeBits = 8;
+      }
+    }
+    // nunca le alem do que o array comporta
+    int verdadeiroTotalBits = Math.min(totalDeBits, pacotesDeBits.length * 32);
 
     // Cria o array final que tera o tamanho exato do numero de bits validos.
     int[] fluxoSimples = new int[verdadeiroTotalBits];
 
-    // Percorre todos os bits VALIDOS do pacote e os adiciona a versao simplificada.
+    // Percorre as palavras do pacote e espalha os bits na versao simplificada.
     for (int i = 0; i < verdadeiroTotalBits; i++) {
-      int indiceDoPacote = i / 32;
-      int posicaoNoPacote = 31 - (i % 32);
-
-      // "Pesca" o bit e armazena no nosso array de fluxo simples
-      int bit = (pacotesDeBits[indiceDoPacote] >> posicaoNoPacote) & 1;
-      fluxoSimples[i] = bit;
+      fluxoSimples[i] = (pacotesDeBits[i >>> 5] >>> (31 - (i & 31))) & 1;
     }
 
     return fluxoSimples; // retorna o array simplificado
   }// fim do metodo
 
   /**
-   * metodo que escreve um valor binario (0 ou 1) em um array de inteiros, em uma
-   * posicao especifica, considerando que cada inteiro armazena 32 bits
+   * metodo que transforma um quadro em um array de fluxo simples de inteiro,
+   * SOMENTE UTILIZADO PARA REALIZAR A ANIMACAO
+   * 
+   * @param quadro o quadro com os bits
+   * @return uma versao simplificada onde cada inteiro "eh" um bit.
+   */
+  public static int[] desempacotarBits(BitBuffer quadro) {
+    int[] fluxoSimples = new int[quadro.tamanho()];
+    for (int i = 0; i < fluxoSimples.length; i++) {
+      fluxoSimples[i] = quadro.lerBits(i, 1);
+    }
+    return fluxoSimples;
+  }// fim do metodo
+
+  /**
+   * metodo que escreve um valor binario em um array de inteiros, em uma posicao
+   * especifica, considerando que cada inteiro armazena 32 bits. A escrita eh
+   * feita por palavra, tocando no maximo 2 inteiros do array
    * 
    * @param destino          array onde sera escrito o bit
    * @param bitInicial       a posicao do bit inicial no array de destino onde o
@@ -261,31 +383,43 @@ public class ManipulacaoBits {
    */
   public static void escreverBits(int[] destino, int bitInicial, int valorEscrever, int quantidadeDeBits) {
 
-    for (int i = 0; i < quantidadeDeBits; i++) {
-
-      int bitEscrever = valorEscrever >> (quantidadeDeBits - 1 - i) & 1; // extrai o bit a ser escrito
-
-      int posicaoGlobal = bitInicial + i; // calcula a posicao global do bit a ser escrito
-      int indiceDoPacote = posicaoGlobal / 32; // calcula o indice do pacote, descobre em qual inteiro do array sera
-                                               // escrito
-      int posicaoNoPacote = 31 - (posicaoGlobal % 32); // calcula a posicao dentro do pacote onde o bit sera escrito
+    if (quantidadeDeBits <= 0) {
+      return; // nada a escrever
+    }
 
-      if (bitEscrever == 1) {
-        // "Liga" o bit (usa OR)
-        destino[indiceDoPacote] = destino[indiceDoPacote] | (1 << posicaoNoPacote); // escreve o bit 1 na posicao
-      } // fim if
-      else { // ou seja bit 0
-        // "Desliga" o bit (usa AND com uma mascara invertida)
-        destino[indiceDoPacote] = destino[indiceDoPacote] & ~(1 << posicaoNoPacote); // escreve o bit 0
-      }
-
-    } // fim for
+    long mascaraValor = (quantidadeDeBits >= 32) ? 0xFFFFFFFFL : (1L << quantidadeDeBits) - 1;
+    long valor = valorEscrever & mascaraValor; // apenas os bits que serao escritos
+
+    int indiceDoPacote = bitInicial >>> 5; // equivale a bitInicial / 32
+    int deslocamento = bitInicial & 31; // equivale a bitInicial % 32
+    int fimNoPacote = deslocamento + quantidadeDeBits; // onde a escrita termina relativo ao pacote
+
+    if (fimNoPacote <= 32) {
+      // cabe inteiro dentro de um unico pacote
+      int deslocamentoEsquerda = 32 - fimNoPacote;
+      int mascara = (int) (mascaraValor << deslocamentoEsquerda);
+      destino[indiceDoPacote] = (destino[indiceDoPacote] & ~mascara) | ((int) (valor << deslocamentoEsquerda) & mascara);
+    } else {
+      // atravessa a fronteira, parte vai no pacote atual e o resto no seguinte
+      int bitsNoSegundo = fimNoPacote - 32;
+      int bitsNoPrimeiro = quantidadeDeBits - bitsNoSegundo;
+
+      int mascaraPrimeiro = (int) ((1L << bitsNoPrimeiro) - 1);
+      destino[indiceDoPacote] = (destino[indiceDoPacote] & ~mascaraPrimeiro)
+          | ((int) (valor >>> bitsNoSegundo) & mascaraPrimeiro);
+
+      int deslocamentoSegundo = 32 - bitsNoSegundo;
+      int mascaraSegundo = (int) (((1L << bitsNoSegundo) - 1) << deslocamentoSegundo);
+      destino[indiceDoPacote + 1] = (destino[indiceDoPacote + 1] & ~mascaraSegundo)
+          | ((int) (valor << deslocamentoSegundo) & mascaraSegundo);
+    } // fim if/else
 
   }// metodo escreverBits
 
   /**
    * metodo que le um conjunto de bits de um array de inteiros, em uma posicao
-   * especifica, considerando que cada inteiro armazena 32 bits
+   * especifica, considerando que cada inteiro armazena 32 bits. A leitura eh
+   * feita por palavra, acessando no maximo 2 inteiros do array
    * 
    * @param origem           o array de onde os bits serao lidos
    * @param bitInicial       a posicao do bit inicial no array de destino onde o
@@ -297,80 +431,295 @@ public class ManipulacaoBits {
    */
   public static int lerBits(int[] origem, int bitInicial, int quantidadeDeBits) {
 
-    int valorLido = 0; // o valor que sera retornado
-
     // Garante que não tentemos ler mais de 32 bits (o limite de um int)
     if (quantidadeDeBits > 32) {
       System.out.println("Erro: Nao eh possivel ler mais de 32 bits para um unico int.");
       return 0;
     }
 
-    for (int i = 0; i < quantidadeDeBits; i++) {
+    if (quantidadeDeBits <= 0) {
+      return 0; // nada a ler
+    }
 
-      int posicaoGlobal = bitInicial + i; // calcula a posicao global do bit a ser lido
-      int indiceDoPacote = posicaoGlobal / 32; // calcula o indice do pacote, descobre em qual inteiro do array sera
-                                               // escrito
-      int posicaoNoPacote = 31 - (posicaoGlobal % 32); // calcula a posicao dentro do pacote onde o bit sera escrito
+    int indiceDoPacote = bitInicial >>> 5; // equivale a bitInicial / 32
+    int deslocamento = bitInicial & 31; // equivale a bitInicial % 32
 
-      int bitLido = (origem[indiceDoPacote] >> posicaoNoPacote) & 1; // extrai o bit da posicao correta
+    // monta uma janela de 64 bits com o pacote atual na parte alta e, se
+    // necessario, o pacote seguinte na parte baixa
+    long janela = (long) origem[indiceDoPacote] << 32;
+    if (deslocamento + quantidadeDeBits > 32) {
+      janela |= origem[indiceDoPacote + 1] & 0xFFFFFFFFL;
+    }
 
-      // se o bit lido for 1 adiciona ao valor lido
-      if (bitLido == 1) {
-        valorLido = valorLido | (1 << (quantidadeDeBits - 1 - i));
-      }
+    // alinha o primeiro bit desejado no bit 63 e descarta o que sobra a direita
+    return (int) ((janela << deslocamento) >>> (64 - quantidadeDeBits));
 
-    } // fim for
+  } // fim metodo lerBits
 
-    return valorLido; // retorna o valor lido
+  /**
+   * versao de 64 bits do lerBits, le ate 64 bits de uma vez
+   * 
+   * @param origem           o array de onde os bits serao lidos
+   * @param bitInicial       a posicao do primeiro bit a ser lido
+   * @param quantidadeDeBits quantos bits ler (no maximo 64)
+   * @return os bits lidos alinhados a direita
+   */
+  public static long lerBitsLong(int[] origem, int bitInicial, int quantidadeDeBits) {
+    if (quantidadeDeBits <= 32) {
+      return lerBits(origem, bitInicial, quantidadeDeBits) & 0xFFFFFFFFL;
+    }
+    int bitsBaixos = quantidadeDeBits - 32; // o que sobra apos os 32 bits mais significativos
+    long parteAlta = lerBits(origem, bitInicial, 32) & 0xFFFFFFFFL;
+    long parteBaixa = lerBits(origem, bitInicial + 32, bitsBaixos) & 0xFFFFFFFFL;
+    return (parteAlta << bitsBaixos) | parteBaixa;
+  } // fim do metodo lerBitsLong
 
-  } // fim metodo lerBits
+  /**
+   * versao de 64 bits do escreverBits, escreve ate 64 bits de uma vez
+   * 
+   * @param destino          array onde os bits serao escritos
+   * @param bitInicial       a posicao do primeiro bit a ser escrito
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits escrever (no maximo 64)
+   */
+  public static void escreverBitsLong(int[] destino, int bitInicial, long valorEscrever, int quantidadeDeBits) {
+    if (quantidadeDeBits <= 32) {
+      escreverBits(destino, bitInicial, (int) valorEscrever, quantidadeDeBits);
+      return;
+    }
+    int bitsBaixos = quantidadeDeBits - 32;
+    escreverBits(destino, bitInicial, (int) (valorEscrever >>> bitsBaixos), 32);
+    escreverBits(destino, bitInicial + 32, (int) valorEscrever, bitsBaixos);
+  } // fim do metodo escreverBitsLong
 
   /**
-   * Inspeciona um quadro e descobre o numero total de bits significantes,
-   * procurando pelo ultimo bit '1' no array.
+   * copia um intervalo de bits de um array para outro. Quando origem e destino
+   * estao no mesmo alinhamento dentro do inteiro, o miolo eh copiado com
+   * System.arraycopy, caso contrario copia 32 bits por vez
    * 
-   * @param quadro O array de inteiros contendo o fluxo de bits.
-   * @return O numero total de bits validos no quadro.
+   * @param origem     array de onde os bits sao lidos
+   * @param bitOrigem  posicao do primeiro bit na origem
+   * @param destino    array onde os bits sao escritos
+   * @param bitDestino posicao do primeiro bit no destino
+   * @param quantidade total de bits a copiar
    */
-  public static int descobrirTotalDeBitsReais(int[] quadro) {
-    if (quadro == null || quadro.length == 0) { // quadro vazio
-      return 0;
+  public static void copiarBits(int[] origem, int bitOrigem, int[] destino, int bitDestino, int quantidade) {
+
+    if (quantidade <= 0) {
+      return;
     }
 
-    int ultimoBitUm = -1;
-    // Percorre o quadro do ULTIMO bit possivel para o PRIMEIRO
-    // (quadro.length * 32) - 1 e a posicao do ultimo bit no array
-    for (int i = (quadro.length * 32) - 1; i >= 0; i--) {
-      // le o bit na posicao atual
-      if (lerBits(quadro, i, 1) == 1) {
-        ultimoBitUm = i; // Encontrou a posicao (indice 0 a N) do ultimo '1'
-        break; // Pode parar de procurar
+    if ((bitOrigem & 31) == (bitDestino & 31)) {
+      // mesmo alinhamento, completa o inicio ate a fronteira do inteiro
+      int bitsAteFronteira = (32 - (bitOrigem & 31)) & 31;
+      if (bitsAteFronteira > 0) {
+        int bitsCabeca = Math.min(bitsAteFronteira, quantidade);
+        escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, bitsCabeca), bitsCabeca);
+        bitOrigem += bitsCabeca;
+        bitDestino += bitsCabeca;
+        quantidade -= bitsCabeca;
+      } // fim if
+
+      // copia as palavras inteiras de uma vez
+      int palavrasInteiras = quantidade >>> 5;
+      if (palavrasInteiras > 0) {
+        System.arraycopy(origem, bitOrigem >>> 5, destino, bitDestino >>> 5, palavrasInteiras);
+        int bitsCopiados = palavrasInteiras << 5;
+        bitOrigem += bitsCopiados;
+        bitDestino += bitsCopiados;
+        quantidade -= bitsCopiados;
+      } // fim if
+
+      // o que sobrou (menos de 32 bits)
+      if (quantidade > 0) {
+        escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, quantidade), quantidade);
       }
+      return;
+    } // fim if
+
+    // alinhamentos diferentes, copia em blocos de 32 bits
+    while (quantidade >= 32) {
+      escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, 32), 32);
+      bitOrigem += 32;
+      bitDestino += 32;
+      quantidade -= 32;
+    } // fim while
+    if (quantidade > 0) {
+      escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, quantidade), quantidade);
     }
+  } // fim do metodo copiarBits
 
-    // nao encontrou nenhum bit '1'.
-    if (ultimoBitUm == -1) {
-      // verifica se o array está realmente todo zerado
-      // Se todos os inteiros forem 0, retorna 0 (quadro vazio)
-      // Caso contrário, pode haver padding e retorna 8
-      boolean todosZero = true;
-      for (int val : quadro) {
-        if (val != 0) {
-          todosZero = false;
-          break;
-        }
-      }
+  /**
+   * versao do lerBits para palavras de 64 bits (usada pelo BitBuffer), o bit de
+   * posicao global 64*i fica no bit 63 da palavra i. Acessa no maximo 2 palavras
+   * 
+   * @param origem           as palavras de onde os bits serao lidos
+   * @param bitInicial       a posicao do primeiro bit a ser lido
+   * @param quantidadeDeBits quantos bits ler (no maximo 64)
+   * @return os bits lidos alinhados a direita
+   */
+  public static long lerBits(long[] origem, int bitInicial, int quantidadeDeBits) {
+
+    if (quantidadeDeBits <= 0) {
+      return 0; // nada a ler
+    }
+
+    int indiceDaPalavra = bitInicial >>> 6; // equivale a bitInicial / 64
+    int deslocamento = bitInicial & 63; // equivale a bitInicial % 64
+
+    // alinha o primeiro bit desejado no bit 63
+    long janela = origem[indiceDaPalavra] << deslocamento;
+    if (deslocamento + quantidadeDeBits > 64) {
+      // o resto vem do inicio da palavra seguinte (aqui deslocamento > 0)
+      janela |= origem[indiceDaPalavra + 1] >>> (64 - deslocamento);
+    }
+
+    return janela >>> (64 - quantidadeDeBits); // descarta o que sobra a direita
+  } // fim do metodo lerBits
+
+  /**
+   * versao do escreverBits para palavras de 64 bits (usada pelo BitBuffer),
+   * escreve ate 64 bits acessando no maximo 2 palavras
+   * 
+   * @param destino          as palavras onde os bits serao escritos
+   * @param bitInicial       a posicao do primeiro bit a ser escrito
+   * @param valorEscrever    valor com os bits alinhados a direita
+   * @param quantidadeDeBits quantos bits escrever (no maximo 64)
+   */
+  public static void escreverBits(long[] destino, int bitInicial, long valorEscrever, int quantidadeDeBits) {
+
+    if (quantidadeDeBits <= 0) {
+      return; // nada a escrever
+    }
+
+    long mascaraValor = (quantidadeDeBits >= 64) ? -1L : (1L << quantidadeDeBits) - 1;
+    long valor = valorEscrever & mascaraValor; // apenas os bits que serao escritos
+
+    int indiceDaPalavra = bitInicial >>> 6;
+    int deslocamento = bitInicial & 63;
+    int fimNaPalavra = deslocamento + quantidadeDeBits;
+
+    if (fimNaPalavra <= 64) {
+      // cabe inteiro dentro de uma unica palavra
+      int deslocamentoEsquerda = 64 - fimNaPalavra;
+      long mascara = mascaraValor << deslocamentoEsquerda;
+      destino[indiceDaPalavra] = (destino[indiceDaPalavra] & ~mascara) | (valor << deslocamentoEsquerda);
+    } else {
+      // atravessa a fronteira, parte vai na palavra atual e o resto na seguinte
+      int bitsNaSegunda = fimNaPalavra - 64;
+      int bitsNaPrimeira = quantidadeDeBits - bitsNaSegunda;
+
+      long mascaraPrimeira = (1L << bitsNaPrimeira) - 1;
+      destino[indiceDaPalavra] = (destino[indiceDaPalavra] & ~mascaraPrimeira) | (valor >>> bitsNaSegunda);
+
+      int deslocamentoSegunda = 64 - bitsNaSegunda;
+      long mascaraSegunda = ((1L << bitsNaSegunda) - 1) << deslocamentoSegunda;
+      destino[indiceDaPalavra + 1] = (destino[indiceDaPalavra + 1] & ~mascaraSegunda)
+          | (valor << deslocamentoSegunda);
+    } // fim if/else
 
-      if (todosZero) {
-        return 0; // Quadro completamente vazio (todos os bits são 0)
-      } else {
-        return 8; // Array tem valores mas nenhum bit 1 foi encontrado (caso raro)
+  } // fim do metodo escreverBits
+
+  /**
+   * versao do copiarBits para palavras de 64 bits, com o mesmo alinhamento o
+   * miolo eh copiado com System.arraycopy, caso contrario 64 bits por vez
+   * 
+   * @param origem     palavras de onde os bits sao lidos
+   * @param bitOrigem  posicao do primeiro bit na origem
+   * @param destino    palavras onde os bits sao escritos
+   * @param bitDestino posicao do primeiro bit no destino
+   * @param quantidade total de bits a copiar
+   */
+  public static void copiarBits(long[] origem, int bitOrigem, long[] destino, int bitDestino, int quantidade) {
+
+    if (quantidade <= 0) {
+      return;
+    }
+
+    if ((bitOrigem & 63) == (bitDestino & 63)) {
+      // mesmo alinhamento, completa o inicio ate a fronteira da palavra
+      int bitsAteFronteira = (64 - (bitOrigem & 63)) & 63;
+      if (bitsAteFronteira > 0) {
+        int bitsCabeca = Math.min(bitsAteFronteira, quantidade);
+        escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, bitsCabeca), bitsCabeca);
+        bitOrigem += bitsCabeca;
+        bitDestino += bitsCabeca;
+        quantidade -= bitsCabeca;
+      } // fim if
+
+      // copia as palavras inteiras de uma vez
+      int palavrasInteiras = quantidade >>> 6;
+      if (palavrasInteiras > 0) {
+        System.arraycopy(origem, bitOrigem >>> 6, destino, bitDestino >>> 6, palavrasInteiras);
+        int bitsCopiados = palavrasInteiras << 6;
+        bitOrigem += bitsCopiados;
+        bitDestino += bitsCopiados;
+        quantidade -= bitsCopiados;
+      } // fim if
+
+      if (quantidade > 0) { // o que sobrou (menos de 64 bits)
+        escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, quantidade), quantidade);
       }
+      return;
+    } // fim if
+
+    // alinhamentos diferentes, copia em blocos de 64 bits
+    while (quantidade >= 64) {
+      escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, 64), 64);
+      bitOrigem += 64;
+      bitDestino += 64;
+      quantidade -= 64;
+    } // fim while
+    if (quantidade > 0) {
+      escreverBits(destino, bitDestino, lerBits(origem, bitOrigem, quantidade), quantidade);
+    }
+  } // fim do metodo copiarBits
+
+  /**
+   * procura um valor em todos os 8 bytes de uma palavra ao mesmo tempo (SWAR):
+   * depois do xor os bytes iguais viram 0, e somar 0x7F aos 7 bits baixos de
+   * cada byte so nao liga o bit alto dos bytes que eram 0. Nenhuma soma passa
+   * para o byte vizinho, entao o resultado eh exato
+   * 
+   * @param palavra     8 bytes, o primeiro no byte mais significativo
+   * @param valorDoByte byte procurado
+   * @return uma palavra com 0x80 nos bytes iguais ao valor e 0 nos demais
+   */
+  public static long marcarBytesIguais(long palavra, int valorDoByte) {
+    long diferenca = palavra ^ ((valorDoByte & 0xFFL) * 0x0101010101010101L);
+    long bitsBaixosNaoNulos = (diferenca & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+    return ~(bitsBaixosNaoNulos | diferenca | 0x7F7F7F7F7F7F7F7FL);
+  } // fim do metodo marcarBytesIguais
+
+  /**
+   * Inspeciona um quadro e descobre o numero total de bits significantes,
+   * procurando pelo ultimo bit '1' no array. A busca eh feita por palavra:
+   * inteiros zerados sao pulados e o ultimo bit '1' da ultima palavra nao nula
+   * eh achado com Integer.numberOfTrailingZeros, sem ler bit a bit.
+   * 
+   * Quem ja conhece o tamanho do quadro deve carregar esse valor adiante em vez
+   * de chamar este metodo de novo.
+   * 
+   * @param quadro O array de inteiros contendo o fluxo de bits.
+   * @return O numero total de bits validos no quadro, arredondado para o byte.
+   */
+  public static int descobrirTotalDeBitsReais(int[] quadro) {
+    if (quadro == null || quadro.length == 0) { // quadro vazio
+      return 0;
     }
 
-    int byteOndeOcorreu = ultimoBitUm / 8;
+    // percorre as palavras da ULTIMA para a PRIMEIRA, pulando as zeradas
+    for (int i = quadro.length - 1; i >= 0; i--) {
+      if (quadro[i] != 0) {
+        // no inteiro o bit de posicao global 32*i fica no bit 31, entao o '1' mais
+        // a direita (menos significativo) eh o ultimo bit '1' do quadro
+        int ultimoBitUm = (i << 5) + 31 - Integer.numberOfTrailingZeros(quadro[i]);
+        int byteOndeOcorreu = ultimoBitUm >>> 3;
+        return (byteOndeOcorreu + 1) * 8;
+      } // fim if
+    } // fim for
 
-    return (byteOndeOcorreu + 1) * 8;
+    return 0; // Quadro completamente vazio (todos os bits são 0)
   } // fim do metodo descobrirTotalDeBitsReais
 
   /**
@@ -406,12 +755,45 @@ public class ManipulacaoBits {
     return quadroSemCabecalho;
   }// fim do metodo removerCabecalho
 
+  /**
+   * Anexa o cabeçalho de 32 bits com o número de sequência na frente do quadro.
+   * O cabeçalho é escrito no espaço reservado na frente do próprio quadro, então
+   * a carga útil não é copiada (só é realocada se o quadro não tiver espaço).
+   * 
+   * @param quadroDados  O quadro de dados, que passa a conter o cabeçalho.
+   * @param numSequencia O número de sequência a ser anexado no cabeçalho.
+   * @return O mesmo quadro, agora com o cabeçalho na frente.
+   */
+  public static BitBuffer anexarCabecalho(BitBuffer quadroDados, int numSequencia) {
+    quadroDados.adicionarNaFrente((numSequencia << 1) | 1, TAMANHO_CABECALHO_EM_BITS); // adiciona marcador de controle
+    return quadroDados;
+  }// fim do metodo anexarCabecalho
+
+  /**
+   * Remove o cabeçalho de 32 bits do quadro apenas avançando o início dele, sem
+   * copiar a carga útil.
+   * 
+   * @param quadroComCabecalho O quadro com cabeçalho.
+   * @return O mesmo quadro, agora apenas com a carga util.
+   */
+  public static BitBuffer removerCabecalho(BitBuffer quadroComCabecalho) {
+    quadroComCabecalho.removerDaFrente(TAMANHO_CABECALHO_EM_BITS);
+    return quadroComCabecalho;
+  }// fim do metodo removerCabecalho
+
+  public static int lerNumeroDeSequencia(BitBuffer quadroComCabecalho) {
+    return numeroDeSequenciaDoCabecalho(quadroComCabecalho.lerBits(0, 32));
+  }// fim do metodo lerNumeroDeSequencia
+
   public static int lerNumeroDeSequencia(int[] quadroComCabecalho) {
-    int cabecalhoBruto = quadroComCabecalho[0];
+    return numeroDeSequenciaDoCabecalho(quadroComCabecalho[0]);
+  }// fim do metodo lerNumeroDeSequencia
+
+  private static int numeroDeSequenciaDoCabecalho(int cabecalhoBruto) {
     // remove bit 31 (tipo controle), bit 30 (Flag ACK) e bit 29 (Flag NACK)
     int semFlags = cabecalhoBruto & ~MASCARA_TIPO_CONTROLE & ~MASCARA_FLAG_ACK & ~MASCARA_FLAG_NACK;
     // remove mardador de controle e retorna numero de sequencia
     return semFlags >> 1;
-  }// fim do metodo lerNumeroDeSequencia
+  }// fim do metodo numeroDeSequenciaDoCabecalho
 
 } // fim da classe ManipulacaoBits
@@ -0,0 +1,293 @@
+package util;
+
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+
+/**
+ * classe que calcula um CRC qualquer a partir dos seus parametros (largura,
+ * polinomio, valor inicial, reflexao da entrada e da saida e xor final), no
+ * mesmo modelo usado pelos catalogos de CRC. Possui os CRCs mais comuns ja
+ * prontos para serem escolhidos pela camada de enlace.
+ *
+ * O calculo eh feito com uma tabela de 256 entradas (um byte por consulta) e os
+ * ultimos bits do quadro, quando ele nao termina em um byte inteiro, sao
+ * processados bit a bit na ordem em que chegam. Quando os parametros batem com
+ * uma implementacao da plataforma o calculo eh repassado para ela:
+ * java.util.zip.CRC32 para o CRC-32, java.util.zip.CRC32C (se a JVM tiver, a
+ * partir do Java 9) para o CRC-32C e a CalculadoraCRC32 para o CRC-32 original
+ * do simulador.
+ */
+public class MotorCRC {
+
+  // bytes do quadro para as implementacoes da plataforma, um por thread
+  private static final ThreadLocal<byte[]> BYTES_DA_THREAD = ThreadLocal.withInitial(() -> new byte[256]);
+
+  /** CRC-32 original do simulador: sem reflexao e com 32 bits 0 de aumento */
+  public static final MotorCRC CRC_32_SIMULADOR = new MotorCRC("CRC-32 (IEEE 802)", 32, 0x04C11DB7L, 0xFFFFFFFFL,
+      false, false, 0xFFFFFFFFL, true);
+  /** CRC-8 (SMBus) */
+  public static final MotorCRC CRC_8 = new MotorCRC("CRC-8", 8, 0x07L, 0x00L, false, false, 0x00L);
+  /** CRC-16-CCITT com valor inicial 0xFFFF (CCITT-FALSE / IBM-3740) */
+  public static final MotorCRC CRC_16_CCITT = new MotorCRC("CRC-16-CCITT", 16, 0x1021L, 0xFFFFL, false, false,
+      0x0000L);
+  /** CRC-32 do Ethernet/zip (ISO-HDLC), refletido */
+  public static final MotorCRC CRC_32 = new MotorCRC("CRC-32", 32, 0x04C11DB7L, 0xFFFFFFFFL, true, true,
+      0xFFFFFFFFL);
+  /** CRC-32C (Castagnoli), refletido */
+  public static final MotorCRC CRC_32C = new MotorCRC("CRC-32C", 32, 0x1EDC6F41L, 0xFFFFFFFFL, true, true,
+      0xFFFFFFFFL);
+  /** CRC-64 (ECMA-182) */
+  public static final MotorCRC CRC_64 = new MotorCRC("CRC-64", 64, 0x42F0E1EBA9EA3693L, 0L, false, false, 0L);
+
+  // na mesma ordem da opcao de algoritmo do CRC da interface
+  private static final MotorCRC[] PREDEFINIDOS = { CRC_32_SIMULADOR, CRC_8, CRC_16_CCITT, CRC_32, CRC_32C, CRC_64 };
+
+  private final String nome;
+  private final int largura;
+  private final long polinomio;
+  private final long valorInicial;
+  private final boolean refletirEntrada;
+  private final boolean refletirSaida;
+  private final long xorFinal;
+  private final boolean aumentado; // processa mais 'largura' bits 0 depois dos dados
+
+  // registrador refletido fica nos bits baixos, o nao refletido nos bits altos
+  private final long polinomioDoRegistrador;
+  private final long registradorInicial;
+  private final long[] tabela = new long[256];
+
+  private final boolean usaCalculadoraCRC32; // parametros iguais ao CRC-32 original do simulador
+  private final ThreadLocal<Checksum> checksumDaPlataforma; // null quando nao ha implementacao da plataforma
+
+  /**
+   * construtor da classe, cria um CRC com os parametros informados
+   *
+   * @param nome            nome para exibicao
+   * @param largura         quantidade de bits do CRC (1 a 64)
+   * @param polinomio       polinomio gerador, sem o bit mais alto
+   * @param valorInicial    valor inicial do registrador
+   * @param refletirEntrada true se cada byte entra pelo bit menos significativo
+   * @param refletirSaida   true se o resultado eh refletido antes do xor final
+   * @param xorFinal        valor aplicado com xor no resultado
+   */
+  public MotorCRC(String nome, int largura, long polinomio, long valorInicial, boolean refletirEntrada,
+      boolean refletirSaida, long xorFinal) {
+    this(nome, largura, polinomio, valorInicial, refletirEntrada, refletirSaida, xorFinal, false);
+  } // fim do construtor
+
+  /**
+   * construtor completo, permite o aumento com bits 0 usado pelo CRC-32 original
+   * do simulador
+   */
+  private MotorCRC(String nome, int largura, long polinomio, long valorInicial, boolean refletirEntrada,
+      boolean refletirSaida, long xorFinal, boolean aumentado) {
+    if (largura < 1 || largura > 64) {
+      throw new IllegalArgumentException("Largura do CRC deve ser entre 1 e 64 bits: " + largura);
+    }
+    long mascara = mascara(largura);
+    this.nome = nome;
+    this.largura = largura;
+    this.polinomio = polinomio & mascara;
+    this.valorInicial = valorInicial & mascara;
+    this.refletirEntrada = refletirEntrada;
+    this.refletirSaida = refletirSaida;
+    this.xorFinal = xorFinal & mascara;
+    this.aumentado = aumentado;
+
+    if (refletirEntrada) {
+      this.polinomioDoRegistrador = refletir(this.polinomio, largura);
+      this.registradorInicial = refletir(this.valorInicial, largura);
+    } else {
+      this.polinomioDoRegistrador = this.polinomio << (64 - largura);
+      this.registradorInicial = this.valorInicial << (64 - largura);
+    }
+    criarTabela();
+
+    boolean parametrosDoCRC32Refletido = largura == 32 && this.valorInicial == 0xFFFFFFFFL && refletirEntrada
+        && refletirSaida && this.xorFinal == 0xFFFFFFFFL && !aumentado;
+    this.usaCalculadoraCRC32 = largura == 32 && this.polinomio == CalculadoraCRC32.POLINOMIO_GERADOR
+        && this.valorInicial == 0xFFFFFFFFL && !refletirEntrada && !refletirSaida && this.xorFinal == 0xFFFFFFFFL
+        && aumentado;
+
+    if (parametrosDoCRC32Refletido && this.polinomio == 0x04C11DB7L) {
+      this.checksumDaPlataforma = ThreadLocal.withInitial(CRC32::new);
+    } else if (parametrosDoCRC32Refletido && this.polinomio == 0x1EDC6F41L && classeCRC32C() != null) {
+      this.checksumDaPlataforma = ThreadLocal.withInitial(MotorCRC::novoCRC32C);
+    } else {
+      this.checksumDaPlataforma = null;
+    }
+  } // fim do construtor
+
+  /**
+   * devolve o CRC pronto correspondente a opcao escolhida na interface
+   *
+   * @param opcao indice da opcao de algoritmo do CRC
+   * @return o CRC pronto, ou o CRC-32 original para opcoes desconhecidas
+   */
+  public static MotorCRC predefinido(int opcao) {
+    if (opcao < 0 || opcao >= PREDEFINIDOS.length) {
+      return CRC_32_SIMULADOR;
+    }
+    return PREDEFINIDOS[opcao];
+  } // fim do metodo predefinido
+
+  /**
+   * calcula o CRC dos primeiros bits do quadro
+   *
+   * @param quadro      quadro com os dados
+   * @param totalDeBits quantos bits, a partir do inicio, entram no calculo
+   * @return o CRC alinhado a direita, com 'largura' bits
+   */
+  public long calcular(BitBuffer quadro, int totalDeBits) {
+    if (usaCalculadoraCRC32) {
+      return CalculadoraCRC32.calcular(quadro, totalDeBits) & 0xFFFFFFFFL;
+    }
+
+    int bytesInteiros = totalDeBits >>> 3;
+    int posicao = 0;
+    long registrador = registradorInicial;
+
+    if (checksumDaPlataforma != null && bytesInteiros > 0) {
+      // a implementacao da plataforma processa os bytes inteiros, o resultado dela
+      // sem o xor final eh o proprio registrador refletido
+      Checksum checksum = checksumDaPlataforma.get();
+      checksum.reset();
+      checksum.update(bytesDoQuadro(quadro, bytesInteiros), 0, bytesInteiros);
+      registrador = checksum.getValue() ^ xorFinal;
+      posicao = bytesInteiros << 3;
+    } else {
+      // 64 bits por leitura, um byte por consulta na tabela
+      for (; posicao + 64 <= totalDeBits; posicao += 64) {
+        long palavra = quadro.lerBitsLong(posicao, 64);
+        for (int deslocamento = 56; deslocamento >= 0; deslocamento -= 8) {
+          registrador = processarByte(registrador, (int) (palavra >>> deslocamento) & 0xFF);
+        }
+      } // fim for
+      for (; posicao + 8 <= totalDeBits; posicao += 8) {
+        registrador = processarByte(registrador, quadro.lerBits(posicao, 8));
+      } // fim for
+    } // fim if/else
+
+    // bits que nao fecham um byte, na ordem em que chegam
+    for (; posicao < totalDeBits; posicao++) {
+      registrador = processarBit(registrador, quadro.lerBits(posicao, 1));
+    }
+
+    if (aumentado) { // mais 'largura' bits 0
+      for (int i = 0; i < (largura >>> 3); i++) {
+        registrador = processarByte(registrador, 0);
+      }
+      for (int i = 0; i < (largura & 7); i++) {
+        registrador = processarBit(registrador, 0);
+      }
+    } // fim if
+
+    long resultado = refletirEntrada ? registrador : registrador >>> (64 - largura);
+    if (refletirEntrada != refletirSaida) {
+      resultado = refletir(resultado, largura);
+    }
+    return (resultado ^ xorFinal) & mascara(largura);
+  } // fim do metodo calcular
+
+  /**
+   * passa um byte pelo registrador usando a tabela
+   */
+  private long processarByte(long registrador, int umByte) {
+    if (refletirEntrada) {
+      return (registrador >>> 8) ^ tabela[(int) (registrador ^ umByte) & 0xFF];
+    }
+    return (registrador << 8) ^ tabela[((int) (registrador >>> 56) ^ umByte) & 0xFF];
+  } // fim do metodo processarByte
+
+  /**
+   * passa um unico bit pelo registrador
+   */
+  private long processarBit(long registrador, int bit) {
+    if (refletirEntrada) {
+      return ((registrador ^ bit) & 1) != 0 ? (registrador >>> 1) ^ polinomioDoRegistrador : registrador >>> 1;
+    }
+    return (registrador ^ ((long) bit << 63)) < 0 ? (registrador << 1) ^ polinomioDoRegistrador : registrador << 1;
+  } // fim do metodo processarBit
+
+  /**
+   * monta a tabela com o resto de cada byte sozinho
+   */
+  private void criarTabela() {
+    for (int umByte = 0; umByte < 256; umByte++) {
+      long resto = refletirEntrada ? umByte : (long) umByte << 56;
+      for (int bit = 0; bit < 8; bit++) {
+        if (refletirEntrada) {
+          resto = (resto & 1) != 0 ? (resto >>> 1) ^ polinomioDoRegistrador : resto >>> 1;
+        } else {
+          resto = resto < 0 ? (resto << 1) ^ polinomioDoRegistrador : resto << 1;
+        }
+      } // fim for
+      tabela[umByte] = resto;
+    } // fim for
+  } // fim do metodo criarTabela
+
+  /**
+   * copia os bytes inteiros do quadro para o array reaproveitado da thread
+   */
+  private static byte[] bytesDoQuadro(BitBuffer quadro, int quantidadeDeBytes) {
+    byte[] bytes = BYTES_DA_THREAD.get();
+    if (bytes.length < quantidadeDeBytes) {
+      bytes = new byte[Math.max(quantidadeDeBytes, bytes.length * 2)];
+      BYTES_DA_THREAD.set(bytes);
+    }
+    int indice = 0;
+    for (; indice + 8 <= quantidadeDeBytes; indice += 8) { // 8 bytes por leitura
+      long palavra = quadro.lerBitsLong(indice << 3, 64);
+      for (int k = 0; k < 8; k++) {
+        bytes[indice + k] = (byte) (palavra >>> (56 - (k << 3)));
+      }
+    } // fim for
+    for (; indice < quantidadeDeBytes; indice++) {
+      bytes[indice] = (byte) quadro.lerBits(indice << 3, 8);
+    }
+    return bytes;
+  } // fim do metodo bytesDoQuadro
+
+  /**
+   * procura o java.util.zip.CRC32C, que so existe a partir do Java 9
+   *
+   * @return a classe, ou null se a JVM nao tiver
+   */
+  private static Class<?> classeCRC32C() {
+    try {
+      return Class.forName("java.util.zip.CRC32C");
+    } catch (ClassNotFoundException e) {
+      return null;
+    }
+  } // fim do metodo classeCRC32C
+
+  private static Checksum novoCRC32C() {
+    try {
+      return (Checksum) classeCRC32C().getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Nao foi possivel criar o java.util.zip.CRC32C", e);
+    }
+  } // fim do metodo novoCRC32C
+
+  private static long refletir(long valor, int largura) {
+    return Long.reverse(valor) >>> (64 - largura);
+  } // fim do metodo refletir
+
+  private static long mascara(int largura) {
+    return (largura == 64) ? -1L : (1L << largura) - 1;
+  } // fim do metodo mascara
+
+  // --- gets ---
+  public String getNome() {
+    return nome;
+  }
+
+  public int getLargura() {
+    return largura;
+  }
+
+  public boolean usaImplementacaoDaPlataforma() {
+    return usaCalculadoraCRC32 || checksumDaPlataforma != null;
+  }
+
+} // fim da classe MotorCRC
@@ -0,0 +1,106 @@
+package util;
+
+/**
+ * classe que guarda quadros (BitBuffer) ja alocados para serem reaproveitados
+ * pelas camadas, assim cada quadro transmitido nao precisa alocar palavras
+ * novas. Cada thread tem o seu proprio pool, entao nao ha sincronizacao, e os
+ * quadros ficam separados em classes de tamanho (potencias de 2 em palavras de
+ * 64 bits): um pedido eh atendido pela menor classe que comporta ele.
+ *
+ * Quem pega um quadro emprestado devolve quando ninguem mais usa ele. Um quadro
+ * que nao eh devolvido (por exemplo, guardado na janela deslizante) apenas fica
+ * para o coletor de lixo.
+ */
+public class PoolDeBuffers {
+
+  private static final int TOTAL_DE_CLASSES = 16; // de 1 ate 32768 palavras (2 Mbits)
+  private static final int MAXIMO_POR_CLASSE = 32; // quantos quadros livres cada classe guarda
+
+  private static final ThreadLocal<PoolDeBuffers> POOL_DA_THREAD = ThreadLocal.withInitial(PoolDeBuffers::new);
+
+  private final BitBuffer[][] livres = new BitBuffer[TOTAL_DE_CLASSES][MAXIMO_POR_CLASSE];
+  private final int[] quantidadeLivres = new int[TOTAL_DE_CLASSES];
+
+  /**
+   * construtor privado, cada thread cria o seu pelo ThreadLocal
+   */
+  private PoolDeBuffers() {
+  } // fim do construtor
+
+  /**
+   * pega emprestado um quadro vazio que comporta a quantidade de bits informada
+   *
+   * @param capacidadeEmBits quantos bits o quadro deve comportar sem crescer
+   * @return o quadro vazio
+   */
+  public static BitBuffer emprestar(int capacidadeEmBits) {
+    return emprestar(capacidadeEmBits, 0);
+  } // fim do metodo emprestar
+
+  /**
+   * pega emprestado um quadro vazio com espaco reservado na frente para um
+   * cabecalho
+   *
+   * @param capacidadeEmBits quantos bits o quadro deve comportar sem crescer
+   * @param espacoNaFrente   quantos bits reservar antes do primeiro bit
+   * @return o quadro vazio
+   */
+  public static BitBuffer emprestar(int capacidadeEmBits, int espacoNaFrente) {
+    int palavrasNecessarias = Math.max(1, (espacoNaFrente + capacidadeEmBits + 63) >>> 6);
+    // menor potencia de 2 que comporta as palavras necessarias
+    int classe = 32 - Integer.numberOfLeadingZeros(palavrasNecessarias - 1);
+
+    if (classe >= TOTAL_DE_CLASSES) { // grande demais para guardar, aloca direto
+      return new BitBuffer(capacidadeEmBits, espacoNaFrente);
+    }
+
+    PoolDeBuffers pool = POOL_DA_THREAD.get();
+    if (pool.quantidadeLivres[classe] > 0) {
+      int topo = --pool.quantidadeLivres[classe];
+      BitBuffer quadro = pool.livres[classe][topo];
+      pool.livres[classe][topo] = null;
+      quadro.reiniciar(espacoNaFrente);
+      return quadro;
+    } // fim if
+
+    // classe vazia, aloca ja no tamanho da classe para poder ser guardado depois
+    return new BitBuffer(((1 << classe) << 6) - espacoNaFrente, espacoNaFrente);
+  } // fim do metodo emprestar
+
+  /**
+   * devolve um quadro que nao sera mais usado. Fatias, quadros ja devolvidos e
+   * quadros grandes demais sao ignorados
+   *
+   * @param quadro o quadro a ser devolvido
+   */
+  public static void devolver(BitBuffer quadro) {
+    if (quadro == null) {
+      return;
+    }
+    // maior potencia de 2 que cabe nas palavras do quadro (ele pode ter crescido)
+    int classe = 31 - Integer.numberOfLeadingZeros(quadro.palavrasAlocadas());
+    if (classe >= TOTAL_DE_CLASSES) {
+      return;
+    }
+
+    PoolDeBuffers pool = POOL_DA_THREAD.get();
+    if (pool.quantidadeLivres[classe] < MAXIMO_POR_CLASSE && quadro.marcarDevolvido()) {
+      pool.livres[classe][pool.quantidadeLivres[classe]++] = quadro;
+    }
+  } // fim do metodo devolver
+
+  /**
+   * quantos quadros livres o pool da thread atual guarda, usado nos testes
+   *
+   * @return o total de quadros livres em todas as classes
+   */
+  public static int quadrosLivres() {
+    PoolDeBuffers pool = POOL_DA_THREAD.get();
+    int total = 0;
+    for (int classe = 0; classe < TOTAL_DE_CLASSES; classe++) {
+      total += pool.quantidadeLivres[classe];
+    }
+    return total;
+  } // fim do metodo quadrosLivres
+
+} // fim da classe PoolDeBuffers
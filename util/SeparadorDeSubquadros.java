@@ -0,0 +1,315 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * classe que separa um fluxo de bits entregue em pedacos de qualquer tamanho
+ * nos subquadros do enquadramento, sem exigir que cada entrega traga um
+ * subquadro inteiro: cada pedaco eh consumido na hora e cada subquadro eh
+ * devolvido, ja sem contagem, flags, SCAPEs ou bits inseridos, assim que o fim
+ * dele aparece (a contagem acaba, chega uma flag ou o 0 do COBS), mesmo que
+ * tenha comecado em uma entrega anterior.
+ *
+ * Os limites devolvidos sao os do enlace, nao os dos quadros: a contagem de
+ * caracteres e as insercoes de bytes e de bits dividem cada quadro em
+ * subquadros de ate 4 bytes e nao marcam o fim do quadro, entao para elas cada
+ * subquadro eh so um pedaco da carga util e quem precisar do quadro inteiro
+ * junta os subquadros. No COBS o 0 so aparece no fim do quadro, entao cada
+ * subquadro eh um quadro inteiro.
+ *
+ * Entre uma entrega e outra fica guardado so o estado da maquina de cada
+ * enquadramento (bytes que faltam da contagem ou do trecho do COBS, SCAPE
+ * pendente, bits 1 seguidos da insercao de bits), o byte que ficou pela metade
+ * e o subquadro que ainda esta sendo montado.
+ *
+ * Os tipos seguem a numeracao da interface. Na violacao da camada fisica quem
+ * separa os quadros eh a propria camada fisica, entao cada pedaco ja eh um
+ * quadro. Subquadros vazios (duas flags seguidas, contagem 1) nao sao
+ * devolvidos.
+ */
+public class SeparadorDeSubquadros {
+
+  public static final int CONTAGEM_DE_CARACTERES = 0;
+  public static final int INSERCAO_DE_BYTES = 1;
+  public static final int INSERCAO_DE_BITS = 2;
+  public static final int VIOLACAO_DA_CAMADA_FISICA = 3;
+  public static final int COBS = 4;
+
+  private static final int FLAG = 0b01111110; // mesma flag da insercao de bytes e de bits
+  private static final int SCAPE = 0b01111101;
+  private static final int CAPACIDADE_INICIAL_EM_BITS = 256; // o subquadro em montagem cresce se precisar
+
+  private final int tipo;
+
+  private BitBuffer subquadroAtual; // subquadro em montagem, null se nenhum bit chegou ainda
+  private int byteParcial; // bits de um byte que ficou pela metade no fim da entrega
+  private int bitsNoByteParcial;
+
+  // contagem de caracteres e COBS: bytes que ainda faltam do bloco/trecho atual,
+  // 0 quando o proximo byte eh uma contagem ou um codigo
+  private int bytesRestantes;
+  private boolean zeroPendente; // COBS: o trecho acabou e o 0 implicito depende do proximo byte
+  private boolean escapando; // insercao de bytes: o byte anterior foi um SCAPE
+
+  // insercao de bits
+  private boolean buscandoPrimeiraFlag = true;
+  private int ultimosBits; // janela com os ultimos 8 bits na busca da primeira flag
+  private int bitsNaJanela;
+  private int estado; // bits 1 seguidos
+  private int escritosDesdeAFlag;
+  private boolean pularZeroDaFlag; // o 0 final da flag ficou para a proxima entrega
+
+  /**
+   * construtor da classe
+   *
+   * @param tipoDeEnquadramento tipo de enquadramento, na numeracao da interface
+   */
+  public SeparadorDeSubquadros(int tipoDeEnquadramento) {
+    this.tipo = tipoDeEnquadramento;
+  } // fim do construtor
+
+  /**
+   * consome mais um pedaco do fluxo
+   *
+   * @param pedaco bits recebidos, que continuam com quem chamou
+   * @return os subquadros que terminaram neste pedaco, cada um em um quadro do
+   *         pool e na ordem em que chegaram
+   */
+  public List<BitBuffer> receber(BitBuffer pedaco) {
+    List<BitBuffer> subquadrosProntos = new ArrayList<>();
+
+    switch (tipo) {
+      case INSERCAO_DE_BITS:
+        receberBits(pedaco, subquadrosProntos);
+        break;
+      case VIOLACAO_DA_CAMADA_FISICA:
+        subquadroEmMontagem().anexar(pedaco);
+        fecharSubquadro(subquadrosProntos);
+        break;
+      default:
+        receberBytes(pedaco, subquadrosProntos);
+        break;
+    }
+
+    return subquadrosProntos;
+  } // fim do metodo receber
+
+  /**
+   * encerra o fluxo: devolve o subquadro que estava incompleto e volta ao
+   * estado inicial
+   *
+   * @return o que chegou depois do ultimo fim de subquadro, ou null se nada
+   *         chegou
+   */
+  public BitBuffer finalizar() {
+    BitBuffer incompleto = (subquadroAtual != null && subquadroAtual.tamanho() > 0) ? subquadroAtual : null;
+    if (incompleto == null && subquadroAtual != null) {
+      PoolDeBuffers.devolver(subquadroAtual);
+    }
+    subquadroAtual = null;
+    reiniciar();
+    return incompleto;
+  } // fim do metodo finalizar
+
+  /**
+   * descarta o subquadro em montagem e todo o estado guardado
+   */
+  public void reiniciar() {
+    if (subquadroAtual != null) {
+      PoolDeBuffers.devolver(subquadroAtual);
+      subquadroAtual = null;
+    }
+    byteParcial = 0;
+    bitsNoByteParcial = 0;
+    bytesRestantes = 0;
+    zeroPendente = false;
+    escapando = false;
+    buscandoPrimeiraFlag = true;
+    ultimosBits = 0;
+    bitsNaJanela = 0;
+    estado = 0;
+    escritosDesdeAFlag = 0;
+    pularZeroDaFlag = false;
+  } // fim do metodo reiniciar
+
+  /**
+   * enquadramentos orientados a byte: junta o byte que ficou pela metade, le 8
+   * bytes por vez e guarda o que sobrar para a proxima entrega
+   */
+  private void receberBytes(BitBuffer pedaco, List<BitBuffer> subquadrosProntos) {
+    int totalBits = pedaco.tamanho();
+    int posicao = 0;
+
+    if (bitsNoByteParcial > 0) { // completa o byte da entrega anterior
+      int faltam = Math.min(8 - bitsNoByteParcial, totalBits);
+      byteParcial = (byteParcial << faltam) | pedaco.lerBits(0, faltam);
+      bitsNoByteParcial += faltam;
+      posicao = faltam;
+      if (bitsNoByteParcial < 8) {
+        return;
+      }
+      receberByte(byteParcial, subquadrosProntos);
+      byteParcial = 0;
+      bitsNoByteParcial = 0;
+    }
+
+    for (; posicao + 64 <= totalBits; posicao += 64) {
+      long palavra = pedaco.lerBitsLong(posicao, 64);
+      for (int deslocamento = 56; deslocamento >= 0; deslocamento -= 8) {
+        receberByte((int) (palavra >>> deslocamento) & 0xFF, subquadrosProntos);
+      } // fim for
+    } // fim for
+    for (; posicao + 8 <= totalBits; posicao += 8) {
+      receberByte(pedaco.lerBits(posicao, 8), subquadrosProntos);
+    } // fim for
+
+    bitsNoByteParcial = totalBits - posicao;
+    byteParcial = pedaco.lerBits(posicao, bitsNoByteParcial);
+  } // fim do metodo receberBytes
+
+  /**
+   * um passo da maquina de estados dos enquadramentos orientados a byte
+   */
+  private void receberByte(int umByte, List<BitBuffer> subquadrosProntos) {
+    switch (tipo) {
+      case CONTAGEM_DE_CARACTERES:
+        if (bytesRestantes == 0) { // byte de contagem, que inclui ele mesmo
+          bytesRestantes = umByte - 1; // contagem 0 eh invalida e eh pulada
+          if (bytesRestantes <= 0) {
+            bytesRestantes = 0;
+          }
+          return;
+        }
+        subquadroEmMontagem().anexarBits(umByte, 8);
+        if (--bytesRestantes == 0) {
+          fecharSubquadro(subquadrosProntos);
+        }
+        break;
+
+      case INSERCAO_DE_BYTES:
+        if (escapando) { // o byte depois do SCAPE eh carga util, mesmo que seja FLAG ou SCAPE
+          subquadroEmMontagem().anexarBits(umByte, 8);
+          escapando = false;
+        } else if (umByte == SCAPE) {
+          escapando = true;
+        } else if (umByte == FLAG) {
+          fecharSubquadro(subquadrosProntos);
+        } else {
+          subquadroEmMontagem().anexarBits(umByte, 8);
+        }
+        break;
+
+      case COBS:
+        if (bytesRestantes > 0) { // dentro de um trecho
+          if (umByte == EnquadramentoCOBS.DELIMITADOR) { // 0 no meio do trecho so aparece com erro
+            bytesRestantes = 0;
+            zeroPendente = false;
+            fecharSubquadro(subquadrosProntos);
+            return;
+          }
+          subquadroEmMontagem().anexarBits(umByte, 8);
+          bytesRestantes--;
+          return;
+        }
+        if (umByte == EnquadramentoCOBS.DELIMITADOR) { // fim do quadro, o 0 pendente nao existia
+          zeroPendente = false;
+          fecharSubquadro(subquadrosProntos);
+          return;
+        }
+        if (zeroPendente) { // veio outro codigo, entao o trecho anterior terminava com 0
+          subquadroEmMontagem().anexarBits(0, 8);
+        }
+        bytesRestantes = umByte - 1;
+        zeroPendente = umByte <= EnquadramentoCOBS.MAXIMO_DE_BYTES_POR_TRECHO;
+        break;
+
+      default:
+        break;
+    }
+  } // fim do metodo receberByte
+
+  /**
+   * insercao de bits: procura a primeira flag bit a bit e depois segue a mesma
+   * tabela da InsercaoDeBits, um byte por consulta enquanto o pedaco tiver 8
+   * bits e bit a bit no fim dele
+   */
+  private void receberBits(BitBuffer pedaco, List<BitBuffer> subquadrosProntos) {
+    int totalBits = pedaco.tamanho();
+    int posicao = 0;
+
+    while (posicao < totalBits) {
+      if (buscandoPrimeiraFlag) {
+        ultimosBits = ((ultimosBits << 1) | pedaco.lerBits(posicao++, 1)) & 0xFF;
+        bitsNaJanela++;
+        if (bitsNaJanela >= 8 && ultimosBits == FLAG) {
+          buscandoPrimeiraFlag = false;
+        }
+        continue;
+      }
+
+      if (pularZeroDaFlag) {
+        pularZeroDaFlag = false;
+        posicao++;
+        continue;
+      }
+
+      if (totalBits - posicao >= 8) {
+        int entrada = InsercaoDeBits.TABELA_REMOCAO[estado * 256 + pedaco.lerBits(posicao, 8)];
+        int tamanho = (entrada >>> 4) & 0xF;
+        subquadroEmMontagem().anexarBits(entrada >>> 16, tamanho);
+        escritosDesdeAFlag += tamanho;
+        posicao += (entrada >>> 8) & 0xF;
+        estado = entrada & 0x7;
+        if ((entrada & InsercaoDeBits.ACHOU_FLAG) != 0) {
+          fecharSubquadroNaFlag(subquadrosProntos);
+        }
+        continue;
+      }
+
+      int bit = pedaco.lerBits(posicao++, 1);
+      if (estado == InsercaoDeBits.LIMITE_DE_UNS) {
+        estado = 0;
+        if (bit == 1) { // sexto bit 1: flag
+          fecharSubquadroNaFlag(subquadrosProntos);
+        } // senao eh o 0 inserido, descartado
+        continue;
+      }
+      subquadroEmMontagem().anexarBits(bit, 1);
+      escritosDesdeAFlag++;
+      estado = (bit == 1) ? estado + 1 : 0;
+    } // fim while
+  } // fim do metodo receberBits
+
+  /**
+   * retira do subquadro os bits da flag que ja tinham sido escritos, fecha o
+   * subquadro e marca o 0 final da flag para ser pulado
+   */
+  private void fecharSubquadroNaFlag(List<BitBuffer> subquadrosProntos) {
+    subquadroEmMontagem().removerDoFim(Math.min(InsercaoDeBits.BITS_DA_FLAG_NA_SAIDA, escritosDesdeAFlag));
+    escritosDesdeAFlag = 0;
+    pularZeroDaFlag = true;
+    fecharSubquadro(subquadrosProntos);
+  } // fim do metodo fecharSubquadroNaFlag
+
+  /**
+   * subquadro em montagem, pego do pool quando o primeiro bit dele chega
+   */
+  private BitBuffer subquadroEmMontagem() {
+    if (subquadroAtual == null) {
+      subquadroAtual = PoolDeBuffers.emprestar(CAPACIDADE_INICIAL_EM_BITS);
+    }
+    return subquadroAtual;
+  } // fim do metodo subquadroEmMontagem
+
+  /**
+   * entrega o subquadro em montagem, se ele tiver algum bit, e comeca outro
+   */
+  private void fecharSubquadro(List<BitBuffer> subquadrosProntos) {
+    if (subquadroAtual != null && subquadroAtual.tamanho() > 0) {
+      subquadrosProntos.add(subquadroAtual);
+      subquadroAtual = null;
+    }
+  } // fim do metodo fecharSubquadro
+
+} // fim da classe SeparadorDeSubquadros
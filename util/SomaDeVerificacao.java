@@ -0,0 +1,168 @@
+package util;
+
+/**
+ * classe que calcula as somas de verificacao (checksums) usadas pela camada de
+ * enlace como alternativa barata ao CRC: a soma em complemento de um da
+ * Internet (RFC 1071), o Fletcher-32 e o Adler-32.
+ *
+ * As tres somas leem o quadro de 64 em 64 bits e somam as palavras de 16 bits
+ * (Internet e Fletcher) ou os bytes (Adler) de cada leitura, adiando o resto da
+ * divisao para poucas vezes por quadro. O quadro eh tratado como uma sequencia
+ * de palavras com o bit 0 no bit mais significativo da primeira; a ultima
+ * palavra, quando incompleta, eh completada com 0.
+ */
+public class SomaDeVerificacao {
+
+  public static final int INTERNET = 0;
+  public static final int FLETCHER_32 = 1;
+  public static final int ADLER_32 = 2;
+
+  private static final int MODULO_FLETCHER = 65535;
+  private static final int MODULO_ADLER = 65521; // maior primo menor que 2^16
+  // leituras de 64 bits somadas antes de tirar o resto; as somas ficam em long,
+  // entao o limite so evita que a soma das somas passe de 2^63
+  private static final int LEITURAS_POR_RESTO = 4096;
+
+  public static final SomaDeVerificacao SOMA_INTERNET = new SomaDeVerificacao(INTERNET,
+      "Checksum da Internet (RFC 1071)", 16);
+  public static final SomaDeVerificacao SOMA_FLETCHER_32 = new SomaDeVerificacao(FLETCHER_32, "Fletcher-32", 32);
+  public static final SomaDeVerificacao SOMA_ADLER_32 = new SomaDeVerificacao(ADLER_32, "Adler-32", 32);
+
+  private static final SomaDeVerificacao[] PREDEFINIDAS = { SOMA_INTERNET, SOMA_FLETCHER_32, SOMA_ADLER_32 };
+
+  private final int algoritmo;
+  private final String nome;
+  private final int largura;
+
+  /**
+   * construtor privado, as somas disponiveis sao as predefinidas
+   */
+  private SomaDeVerificacao(int algoritmo, String nome, int largura) {
+    this.algoritmo = algoritmo;
+    this.nome = nome;
+    this.largura = largura;
+  } // fim do construtor
+
+  /**
+   * devolve a soma de verificacao correspondente ao algoritmo
+   *
+   * @param algoritmo INTERNET, FLETCHER_32 ou ADLER_32
+   * @return a soma pronta, ou a da Internet para algoritmos desconhecidos
+   */
+  public static SomaDeVerificacao predefinida(int algoritmo) {
+    if (algoritmo < 0 || algoritmo >= PREDEFINIDAS.length) {
+      return SOMA_INTERNET;
+    }
+    return PREDEFINIDAS[algoritmo];
+  } // fim do metodo predefinida
+
+  /**
+   * calcula a soma de verificacao dos primeiros bits do quadro
+   *
+   * @param quadro      quadro com os dados
+   * @param totalDeBits quantos bits, a partir do inicio, entram no calculo
+   * @return a soma alinhada a direita, com 'largura' bits
+   */
+  public long calcular(BitBuffer quadro, int totalDeBits) {
+    switch (algoritmo) {
+      case FLETCHER_32:
+        return fletcher32(quadro, totalDeBits);
+      case ADLER_32:
+        return adler32(quadro, totalDeBits);
+      default:
+        return internet(quadro, totalDeBits);
+    }
+  } // fim do metodo calcular
+
+  /**
+   * soma da Internet: soma em complemento de um das palavras de 16 bits,
+   * invertida no fim. Como o "vai um" volta para o bit menos significativo, a
+   * soma pode ser feita em palavras de 32 bits e dobrada para 16 so no final
+   */
+  private static long internet(BitBuffer quadro, int totalDeBits) {
+    long soma = 0;
+    for (int posicao = 0; posicao < totalDeBits; posicao += 64) {
+      long palavra = lerPalavra(quadro, posicao, totalDeBits);
+      soma += palavra >>> 32;
+      soma += palavra & 0xFFFFFFFFL;
+    } // fim for
+
+    // devolve os "vai um" para os bits baixos ate caber em 16 bits
+    while ((soma >>> 16) != 0) {
+      soma = (soma & 0xFFFF) + (soma >>> 16);
+    } // fim while
+    return ~soma & 0xFFFF;
+  } // fim do metodo internet
+
+  /**
+   * Fletcher-32: duas somas de 16 bits modulo 65535, a das palavras e a soma
+   * acumulada delas, que tambem depende da ordem das palavras
+   */
+  private static long fletcher32(BitBuffer quadro, int totalDeBits) {
+    long soma1 = 0;
+    long soma2 = 0;
+    int leituras = 0;
+
+    for (int posicao = 0; posicao < totalDeBits; posicao += 64) {
+      long palavra = lerPalavra(quadro, posicao, totalDeBits);
+      int palavrasDe16 = Math.min(4, (totalDeBits - posicao + 15) >>> 4); // a ultima leitura pode ter menos
+      for (int i = 0; i < palavrasDe16; i++) {
+        soma1 += (palavra >>> (48 - 16 * i)) & 0xFFFF;
+        soma2 += soma1;
+      } // fim for
+      if (++leituras == LEITURAS_POR_RESTO) {
+        soma1 %= MODULO_FLETCHER;
+        soma2 %= MODULO_FLETCHER;
+        leituras = 0;
+      }
+    } // fim for
+
+    return ((soma2 % MODULO_FLETCHER) << 16) | (soma1 % MODULO_FLETCHER);
+  } // fim do metodo fletcher32
+
+  /**
+   * Adler-32: como o Fletcher, mas somando bytes modulo 65521, com a primeira
+   * soma comecando em 1 (o mesmo valor do java.util.zip.Adler32 quando o quadro
+   * tem um numero inteiro de bytes)
+   */
+  private static long adler32(BitBuffer quadro, int totalDeBits) {
+    long soma1 = 1;
+    long soma2 = 0;
+    int leituras = 0;
+
+    for (int posicao = 0; posicao < totalDeBits; posicao += 64) {
+      long palavra = lerPalavra(quadro, posicao, totalDeBits);
+      int bytes = Math.min(8, (totalDeBits - posicao + 7) >>> 3); // a ultima leitura pode ter menos
+      for (int i = 0; i < bytes; i++) {
+        soma1 += (palavra >>> (56 - 8 * i)) & 0xFF;
+        soma2 += soma1;
+      } // fim for
+      if (++leituras == LEITURAS_POR_RESTO) {
+        soma1 %= MODULO_ADLER;
+        soma2 %= MODULO_ADLER;
+        leituras = 0;
+      }
+    } // fim for
+
+    return ((soma2 % MODULO_ADLER) << 16) | (soma1 % MODULO_ADLER);
+  } // fim do metodo adler32
+
+  /**
+   * le 64 bits alinhados a esquerda, com 0 no lugar do que passa do fim dos
+   * dados (mesmo que o quadro continue com a soma recebida)
+   */
+  private static long lerPalavra(BitBuffer quadro, int posicao, int totalDeBits) {
+    int bitsValidos = Math.min(64, totalDeBits - posicao);
+    return quadro.lerBitsLong(posicao, bitsValidos) << (64 - bitsValidos);
+  } // fim do metodo lerPalavra
+
+  // --- gets ---
+  public String getNome() {
+    return nome;
+  }
+
+  public int getLargura() {
+    return largura;
+  }
+
+} // fim da classe SomaDeVerificacao